@@ -0,0 +1,34 @@
+package io.descoped.lds.benchmark;
+
+import io.descoped.config.DynamicConfiguration;
+import io.descoped.config.StoreBasedDynamicConfiguration;
+import io.descoped.lds.core.UndertowApplication;
+import io.descoped.lds.test.server.TestServerListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Starts an application with the test configuration, a memory saga-log and memory persistence.
+ */
+class BenchmarkApplication {
+
+    static UndertowApplication start(String... overrides) {
+        List<String> values = new ArrayList<>(List.of(
+                "sagalog.provider", "no.cantara.sagalog.memory.MemorySagaLogInitializer",
+                "txlog.rawdata.provider", "discard",
+                "http.request.dump", "false"
+        ));
+        values.addAll(List.of(overrides));
+        DynamicConfiguration configuration = new StoreBasedDynamicConfiguration.Builder()
+                .propertiesResource(UndertowApplication.getDefaultConfigurationResourcePath())
+                .propertiesResource("application_test.properties")
+                .values(values.toArray(new String[0]))
+                .build();
+        int port = TestServerListener.findFreePort(new Random(), 9500, 9999);
+        UndertowApplication application = UndertowApplication.initializeUndertowApplication(configuration, port);
+        application.start();
+        return application;
+    }
+}
@@ -0,0 +1,61 @@
+package io.descoped.lds.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.core.domain.BodyParser;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BodyParserBenchmark {
+
+    static final String DOCUMENT = "{\"id\":\"r13\",\"name\":\"pa-test-name\",\"friend\":\"/contact/f1\",\"support\":{\"technicalSupport\":[\"/contact/s1\",\"/contact/s2\"],\"businessSupport\":[\"/contact/b1\"]}}";
+
+    BodyParser bodyParser;
+    String json;
+    byte[] jsonBytes;
+    byte[] msgpackBytes;
+
+    @Setup
+    public void setup() throws Exception {
+        bodyParser = new BodyParser();
+        JsonNode document = JsonTools.toJsonNode(DOCUMENT);
+        json = DOCUMENT;
+        jsonBytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        msgpackBytes = new ObjectMapper(new MessagePackFactory()).writeValueAsBytes(document);
+    }
+
+    @Benchmark
+    public JsonNode deserializeJson() {
+        return bodyParser.deserializeBody("application/json", json);
+    }
+
+    @Benchmark
+    public List<JsonNode> deserializeJsonStream() {
+        return bodyParser.deserializeBodyStream("application/json", jsonBytes);
+    }
+
+    @Benchmark
+    public List<JsonNode> deserializeMsgpackStream() {
+        return bodyParser.deserializeBodyStream("application/msgpack", msgpackBytes);
+    }
+}
@@ -0,0 +1,90 @@
+package io.descoped.lds.benchmark;
+
+import io.descoped.lds.core.UndertowApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import static io.descoped.lds.core.utils.FileAndClasspathReaderUtils.readFileOrClasspathResource;
+
+/**
+ * Representative queries against the test graphql schema, executed over http by the graphql handler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GraphqlBenchmark {
+
+    @Param({"basic_query", "contact_by_id", "contact_only"})
+    String query;
+
+    UndertowApplication application;
+    HttpClient client;
+    URI graphqlUri;
+    String body;
+
+    @Setup
+    public void setup() throws Exception {
+        application = BenchmarkApplication.start(
+                "graphql.enabled", "true",
+                "graphql.search.enabled", "false"
+        );
+        client = HttpClient.newHttpClient();
+        String baseUri = "http://" + application.getHost() + ":" + application.getPort();
+        graphqlUri = URI.create(baseUri + "/graphql");
+
+        put(baseUri + "/data/provisionagreement/2a41c?sync=true", readFileOrClasspathResource("demo/1-sirius.json"));
+        put(baseUri + "/data/contact/4b2ef?sync=true", readFileOrClasspathResource("demo/3-skrue.json"));
+        put(baseUri + "/data/contact/821aa?sync=true", readFileOrClasspathResource("demo/4-donald.json"));
+        put(baseUri + "/data/provisionagreement/2a41c/contacts/contact/4b2ef?sync=true", "");
+        put(baseUri + "/data/provisionagreement/2a41c/contacts/contact/821aa?sync=true", "");
+
+        body = String.format(readFileOrClasspathResource("spec/demo/graphql/" + query + ".json"), "821aa");
+    }
+
+    private void put(String uri, String body) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("PUT " + uri + " failed with status " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.stop();
+    }
+
+    @Benchmark
+    public String execute() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(graphqlUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Query " + query + " failed with status " + response.statusCode());
+        }
+        return response.body();
+    }
+}
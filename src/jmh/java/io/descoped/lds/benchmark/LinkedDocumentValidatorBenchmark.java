@@ -0,0 +1,53 @@
+package io.descoped.lds.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.core.specification.JsonSchemaBasedSpecification;
+import io.descoped.lds.core.validation.LinkedDocumentValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkedDocumentValidatorBenchmark {
+
+    JsonSchemaBasedSpecification specification;
+    LinkedDocumentValidator validator;
+    JsonNode document;
+
+    @Setup
+    public void setup() {
+        specification = JsonSchemaBasedSpecification.create("spec/schemas/contact.json", "spec/schemas/provisionagreement.json");
+        validator = new LinkedDocumentValidator(specification, specification);
+        document = JsonTools.toJsonNode(BodyParserBenchmark.DOCUMENT);
+    }
+
+    @Benchmark
+    public void validateJsonNode() {
+        validator.validate("provisionagreement", document);
+    }
+
+    @Benchmark
+    public void validateString() {
+        validator.validate("provisionagreement", BodyParserBenchmark.DOCUMENT);
+    }
+
+    @Benchmark
+    public void validateWithNewValidator() {
+        new LinkedDocumentValidator(specification, specification).validate("provisionagreement", document);
+    }
+}
@@ -0,0 +1,58 @@
+package io.descoped.lds.benchmark;
+
+import io.descoped.lds.api.specification.Specification;
+import io.descoped.lds.core.domain.resource.ResourceContext;
+import io.descoped.lds.core.domain.resource.ResourceRouter;
+import io.descoped.lds.core.specification.JsonSchemaBasedSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResourceContextBenchmark {
+
+    @Param({
+            "/data/provisionagreement/2a41c",
+            "/data/provisionagreement/2a41c/support/technicalSupport",
+            "/data/provisionagreement/2a41c/friend/contact/821aa"
+    })
+    String path;
+
+    Specification specification;
+    ResourceRouter router;
+    ZonedDateTime timestamp;
+
+    @Setup
+    public void setup() {
+        specification = JsonSchemaBasedSpecification.create("spec/schemas/contact.json", "spec/schemas/provisionagreement.json");
+        router = new ResourceRouter(specification);
+        timestamp = ZonedDateTime.now(ZoneId.of("Etc/UTC"));
+    }
+
+    @Benchmark
+    public ResourceContext createResourceContext() {
+        return ResourceContext.createResourceContext(specification, path, timestamp);
+    }
+
+    @Benchmark
+    public ResourceContext route() {
+        return router.route(path, timestamp);
+    }
+}
@@ -0,0 +1,73 @@
+package io.descoped.lds.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.core.UndertowApplication;
+import io.descoped.lds.core.saga.SagaExecutionCoordinator;
+import io.descoped.lds.core.saga.SagaInput;
+import io.descoped.lds.core.saga.SagaRepository;
+import no.cantara.saga.api.Saga;
+import no.cantara.saga.execution.SagaHandoffResult;
+import no.cantara.saga.execution.adapter.AdapterLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end hand-off of create-or-update sagas to the saga execution coordinator, using the memory saga-log and
+ * memory persistence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SagaHandoffBenchmark {
+
+    @Param({"true", "false"})
+    boolean sync;
+
+    UndertowApplication application;
+    SagaExecutionCoordinator sec;
+    AdapterLoader adapterLoader;
+    Saga saga;
+    JsonNode document;
+    final AtomicLong nextId = new AtomicLong();
+
+    @Setup
+    public void setup() {
+        application = BenchmarkApplication.start();
+        sec = application.getSec();
+        adapterLoader = application.getSagaRepository().getAdapterLoader();
+        saga = application.getSagaRepository().get(SagaRepository.SAGA_CREATE_OR_UPDATE_MANAGED_RESOURCE);
+        document = JsonTools.toJsonNode("{\"name\":\"Donald Duck\",\"email\":\"donald@duck.no\"}");
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.stop();
+    }
+
+    @Benchmark
+    public SagaHandoffResult handoff() {
+        SagaInput sagaInput = new SagaInput(sec.generateTxId(), "PUT", "TODO", "data", "contact",
+                "c" + nextId.incrementAndGet(), ZonedDateTime.now(ZoneId.of("Etc/UTC")), null, null, document);
+        return sec.handoff(sync, adapterLoader, saga, sagaInput, Collections.emptyMap()).join();
+    }
+}
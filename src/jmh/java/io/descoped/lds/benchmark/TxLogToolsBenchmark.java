@@ -0,0 +1,50 @@
+package io.descoped.lds.benchmark;
+
+import de.huxhorn.sulky.ulid.ULID;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.core.saga.SagaInput;
+import io.descoped.lds.core.txlog.TxLogTools;
+import io.descoped.rawdata.api.RawdataMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TxLogToolsBenchmark {
+
+    SagaInput sagaInput;
+    RawdataMessage message;
+
+    @Setup
+    public void setup() {
+        sagaInput = new SagaInput(new ULID().nextValue(), "PUT", "TODO", "data", "provisionagreement", "r13",
+                ZonedDateTime.now(ZoneId.of("Etc/UTC")), "benchmark", "source-1", JsonTools.toJsonNode(BodyParserBenchmark.DOCUMENT));
+        message = TxLogTools.sagaInputToTxEntry(sagaInput);
+    }
+
+    @Benchmark
+    public RawdataMessage sagaInputToTxEntry() {
+        return TxLogTools.sagaInputToTxEntry(sagaInput);
+    }
+
+    @Benchmark
+    public SagaInput txEntryToSagaInput() {
+        return TxLogTools.txEntryToSagaInput(message);
+    }
+}
@@ -10,34 +10,47 @@ import io.descoped.lds.api.search.SearchIndex;
 import io.descoped.lds.api.specification.Specification;
 import io.descoped.lds.core.controller.CORSHandler;
 import io.descoped.lds.core.controller.HealthCheckHandler;
+import io.descoped.lds.core.controller.MetricsHandler;
 import io.descoped.lds.core.controller.NamespaceController;
+import io.descoped.lds.core.controller.SagaRecoveryHandler;
+import io.descoped.lds.core.metrics.MetricsRegistry;
 import io.descoped.lds.core.persistence.PersistenceConfigurator;
+import io.descoped.lds.core.saga.SagaAdmissionController;
 import io.descoped.lds.core.saga.SagaExecutionCoordinator;
 import io.descoped.lds.core.saga.SagaRecoveryTrigger;
 import io.descoped.lds.core.saga.SagaRepository;
 import io.descoped.lds.core.saga.SagasObserver;
 import io.descoped.lds.core.schema.JsonSchema;
 import io.descoped.lds.core.schema.JsonSchema04Builder;
+import io.descoped.lds.core.search.AsyncSearchIndex;
 import io.descoped.lds.core.search.SearchIndexConfigurator;
 import io.descoped.lds.core.specification.JsonSchemaBasedSpecification;
 import io.descoped.lds.core.specification.SpecificationJsonSchemaBuilder;
 import io.descoped.lds.core.txlog.TxlogRawdataPool;
 import io.descoped.lds.core.utils.LDSProviderConfigurator;
 import io.descoped.lds.graphql.GraphqlHttpHandler;
+import io.descoped.lds.graphql.fetcher.PersistenceDocumentBatchLoader;
 import io.descoped.lds.graphql.jsonSchema.GraphQLToJsonConverter;
 import io.descoped.lds.graphql.schemas.GraphQLSchemaBuilder;
 import io.descoped.rawdata.api.RawdataClient;
 import io.descoped.rawdata.api.RawdataClientInitializer;
 import io.undertow.Handlers;
 import io.undertow.Undertow;
+import io.undertow.predicate.Predicate;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.handlers.PathHandler;
 import io.undertow.server.handlers.ResponseCodeHandler;
+import io.undertow.server.handlers.encoding.ContentEncodingRepository;
+import io.undertow.server.handlers.encoding.DeflateEncodingProvider;
+import io.undertow.server.handlers.encoding.EncodingHandler;
+import io.undertow.server.handlers.encoding.GzipEncodingProvider;
 import io.undertow.server.handlers.resource.ClassPathResourceManager;
+import io.undertow.util.Headers;
 import io.undertow.util.StatusCodes;
 import no.cantara.concurrent.futureselector.SelectableThreadPoolExectutor;
 import no.cantara.sagalog.SagaLogInitializer;
 import no.cantara.sagalog.SagaLogPool;
+import org.dataloader.DataLoaderRegistry;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,6 +73,8 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -86,12 +101,14 @@ public class UndertowApplication {
     private final SelectableThreadPoolExectutor sagaThreadPool;
     private final SagaRecoveryTrigger sagaRecoveryTrigger;
     private final TxlogRawdataPool txlogRawdataPool;
+    private final SearchIndex searchIndex;
+    private final MetricsRegistry metrics;
 
     UndertowApplication(Specification specification, RxJsonPersistence persistence, SagaExecutionCoordinator sec,
                         SagaRepository sagaRepository, SagasObserver sagasObserver, SagaRecoveryTrigger sagaRecoveryTrigger, String host, int port,
                         SagaLogPool sagaLogPool, SelectableThreadPoolExectutor sagaThreadPool,
                         NamespaceController namespaceController, SearchIndex searchIndex,
-                        DynamicConfiguration configuration, TxlogRawdataPool txlogRawdataPool) {
+                        DynamicConfiguration configuration, TxlogRawdataPool txlogRawdataPool, MetricsRegistry metrics) {
         this.specification = specification;
         this.sagaRecoveryTrigger = sagaRecoveryTrigger;
         this.host = host;
@@ -103,6 +120,8 @@ public class UndertowApplication {
         this.sagaLogPool = sagaLogPool;
         this.sagaThreadPool = sagaThreadPool;
         this.txlogRawdataPool = txlogRawdataPool;
+        this.searchIndex = searchIndex;
+        this.metrics = metrics;
 
         LOG.info("Initializing Http handlers ...");
 
@@ -119,7 +138,7 @@ public class UndertowApplication {
 
             LOG.info("Initializing GraphQL Web API ...");
 
-            GraphQLSchemaBuilder schemaBuilder = new GraphQLSchemaBuilder(namespace, persistence, searchIndex);
+            GraphQLSchemaBuilder schemaBuilder = new GraphQLSchemaBuilder(namespace, persistence, searchIndex, metrics);
             TypeDefinitionRegistry definitionRegistry;
             File graphQLFile = new File(graphQLSchemaPath.get());
             definitionRegistry = parseSchemaFile(graphQLFile);
@@ -132,7 +151,10 @@ public class UndertowApplication {
                     Thread.currentThread().getContextClassLoader(), "io/descoped/lds/graphql/graphiql"
             )).setDirectoryListingEnabled(false).addWelcomeFiles("graphiql.html"));
 
-            GraphqlHttpHandler graphqlHttpHandler = new GraphqlHttpHandler(graphQL);
+            boolean graphqlAsync = configuration.evaluateToBoolean("graphql.execution.async");
+            GraphqlHttpHandler graphqlHttpHandler = new GraphqlHttpHandler(graphQL, () -> new DataLoaderRegistry()
+                    .register(PersistenceDocumentBatchLoader.NAME, PersistenceDocumentBatchLoader.newDataLoader(persistence)),
+                    graphqlAsync);
             pathHandler.addExactPath("/graphql", graphqlHttpHandler);
         }
 
@@ -143,6 +165,13 @@ public class UndertowApplication {
         ResponseCodeHandler aliveHandler = new ResponseCodeHandler(StatusCodes.OK);
         pathHandler.addExactPath(HealthCheckHandler.HEALTH_READY_PATH, aliveHandler);
         pathHandler.addExactPath(HealthCheckHandler.PING_PATH, aliveHandler);
+
+        if (configuration.evaluateToBoolean("metrics.enabled")) {
+            LOG.info("Initializing metrics handler ...");
+            pathHandler.addExactPath(MetricsHandler.METRICS_PATH, new MetricsHandler(metrics));
+        }
+
+        pathHandler.addExactPath(SagaRecoveryHandler.SAGA_RECOVERY_PATH, new SagaRecoveryHandler(sec.getRecoveryProgress()));
         pathHandler.addPrefixPath("/", namespaceController);
 
         HttpHandler httpHandler;
@@ -153,6 +182,14 @@ public class UndertowApplication {
             httpHandler = pathHandler;
         }
 
+        if (configuration.evaluateToBoolean("http.compression.enabled")) {
+            long compressionMinSize = configuration.evaluateToInt("http.compression.min-size");
+            LOG.info("Initializing response compression of responses from {} bytes ...", compressionMinSize);
+            httpHandler = new EncodingHandler(httpHandler, new ContentEncodingRepository()
+                    .addEncodingHandler("gzip", new GzipEncodingProvider(), 100, compressible(compressionMinSize))
+                    .addEncodingHandler("deflate", new DeflateEncodingProvider(), 50, compressible(compressionMinSize)));
+        }
+
         if (pathPrefix != null && !pathPrefix.isEmpty()) {
             LOG.info("Using http prefix: {}", pathPrefix);
             httpHandler = Handlers.path(ResponseCodeHandler.HANDLE_404).addPrefixPath(pathPrefix, httpHandler);
@@ -175,10 +212,44 @@ public class UndertowApplication {
 
         LOG.info("Initializing Undertow ...");
 
-        this.server = Undertow.builder()
+        Undertow.Builder builder = Undertow.builder()
                 .addHttpListener(port, host)
-                .setHandler(corsHandler)
-                .build();
+                .setHandler(corsHandler);
+        int workerThreads = httpWorkerThreads(configuration);
+        LOG.info("Using {} http worker threads", workerThreads);
+        builder.setWorkerThreads(workerThreads);
+        this.server = builder.build();
+    }
+
+    /**
+     * @return the configured number of http worker threads, or the Undertow default of 8 per io thread.
+     */
+    static int httpWorkerThreads(DynamicConfiguration configuration) {
+        int workerThreads = configuration.evaluateToInt("http.worker-threads");
+        if (workerThreads > 0) {
+            return workerThreads;
+        }
+        int ioThreads = Math.max(Runtime.getRuntime().availableProcessors(), 2);
+        return ioThreads * 8;
+    }
+
+    /**
+     * Compress responses that are streamed without a known length or that are at least minSize bytes, responses
+     * without a body and event-streams that must reach the client as each event is written are never compressed.
+     */
+    static Predicate compressible(long minSize) {
+        return exchange -> {
+            int status = exchange.getStatusCode();
+            if (status == StatusCodes.NO_CONTENT || status == StatusCodes.NOT_MODIFIED) {
+                return false;
+            }
+            String contentType = exchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE);
+            if (contentType != null && contentType.startsWith("text/event-stream")) {
+                return false;
+            }
+            String contentLength = exchange.getResponseHeaders().getFirst(Headers.CONTENT_LENGTH);
+            return contentLength == null || Long.parseLong(contentLength) >= minSize;
+        };
     }
 
     private static TypeDefinitionRegistry parseSchemaFile(File graphQLFile) {
@@ -231,9 +302,11 @@ public class UndertowApplication {
             specification = JsonSchemaBasedSpecification.create(specificationSchema);
         }
 
+        MetricsRegistry metrics = new MetricsRegistry();
+
         LOG.info("Initializing primary persistence ...");
 
-        RxJsonPersistence persistence = PersistenceConfigurator.configurePersistence(configuration, specification);
+        RxJsonPersistence persistence = PersistenceConfigurator.configurePersistence(configuration, specification, metrics);
 
         LOG.info("Initializing saga-log pool ...");
 
@@ -246,6 +319,20 @@ public class UndertowApplication {
         LOG.info("Initializing search-index ...");
 
         SearchIndex searchIndex = SearchIndexConfigurator.configureSearchIndex(configuration);
+        if (searchIndex != null && configuration.evaluateToBoolean("search.index.async.enabled")) {
+            AsyncSearchIndex asyncSearchIndex = new AsyncSearchIndex(searchIndex,
+                    configuration.evaluateToInt("search.index.async.max-batch-size"),
+                    configuration.evaluateToInt("search.index.async.max-pending"),
+                    configuration.evaluateToInt("search.index.async.linger-ms"),
+                    configuration.evaluateToInt("search.index.async.read-your-writes-timeout-ms"));
+            metrics.gauge("lds_search_index_pending", "Number of queued documents not yet taken by a search-index flush",
+                    asyncSearchIndex::pending);
+            metrics.gauge("lds_search_index_lag", "Number of update calls queued after the search-index watermark",
+                    () -> asyncSearchIndex.enqueuedSequence() - asyncSearchIndex.watermark());
+            metrics.gauge("lds_search_index_dropped", "Number of documents of which the search-index update was dropped after failing",
+                    asyncSearchIndex::dropped);
+            searchIndex = asyncSearchIndex;
+        }
         if (searchIndex != null) {
             sagaRepositoryBuilder.indexer(searchIndex);
         }
@@ -256,7 +343,14 @@ public class UndertowApplication {
         boolean splitSources = configuration.evaluateToBoolean("txlog.split.sources");
         String defaultSource = ofNullable(configuration.evaluateToString("txlog.default-source")).filter(s -> !s.isBlank()).orElse("default");
         String txLogTopicPrefix = ofNullable(configuration.evaluateToString("txlog.rawdata.topic-prefix")).map(String::trim).orElse("");
-        TxlogRawdataPool txlogRawdataPool = new TxlogRawdataPool(txLogClient, splitSources, defaultSource, txLogTopicPrefix);
+        TxlogRawdataPool.GroupCommit groupCommit = null;
+        if (configuration.evaluateToBoolean("txlog.group-commit.enabled")) {
+            groupCommit = new TxlogRawdataPool.GroupCommit(
+                    configuration.evaluateToInt("txlog.group-commit.max-messages"),
+                    configuration.evaluateToInt("txlog.group-commit.max-bytes"),
+                    configuration.evaluateToInt("txlog.group-commit.window-micros"));
+        }
+        TxlogRawdataPool txlogRawdataPool = new TxlogRawdataPool(txLogClient, splitSources, defaultSource, txLogTopicPrefix, groupCommit);
         sagaRepositoryBuilder.txLogRawdataPool(txlogRawdataPool);
 
         LOG.info("Initializing saga repository ...");
@@ -265,35 +359,59 @@ public class UndertowApplication {
 
         LOG.info("Initializing saga observer ...");
 
-        final SagasObserver sagasObserver = new SagasObserver(sagaRepository).start();
+        final SagasObserver sagasObserver = new SagasObserver(sagaRepository, metrics).start();
 
         LOG.info("Initializing saga thread-pool ...");
 
         final AtomicLong nextWorkerId = new AtomicLong(1);
-        int sagaThreadPoolQueueCapacity = configuration.evaluateToInt("saga.threadpool.queue.capacity");
-        int sagaThreadPoolCoreSize = configuration.evaluateToInt("saga.threadpool.core");
-        if (sagaThreadPoolQueueCapacity >= sagaThreadPoolCoreSize) {
-            LOG.warn("Configuration: saga.threadpool.core ({}) must be greater than saga.threadpool.queue.capacity ({}) in order to avoid potential deadlocks.",
-                    sagaThreadPoolCoreSize, sagaThreadPoolQueueCapacity);
+        ThreadFactory sagaThreadFactory = runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("sec-" + nextWorkerId.getAndIncrement());
+            thread.setUncaughtExceptionHandler((t, e) -> {
+                System.err.println("Uncaught exception in thread " + thread.getName());
+                e.printStackTrace();
+            });
+            return thread;
+        };
+        int sagaThreadPoolKeepAliveSeconds = configuration.evaluateToInt("saga.threadpool.keepalive.seconds");
+        String sagaExecutor = configuration.evaluateToString("saga.executor");
+        SelectableThreadPoolExectutor sagaThreadPool;
+        int maxConcurrentSagaExecutions;
+        if ("elastic".equalsIgnoreCase(sagaExecutor)) {
+            // a thread is started whenever no idle thread is available, blocked saga traversals can therefore never
+            // starve the pool and concurrency is limited only by the number of saga-executions allowed to start.
+            maxConcurrentSagaExecutions = configuration.evaluateToInt("saga.executor.max-concurrent-sagas");
+            LOG.info("Using elastic saga thread-pool with at most {} concurrent saga-executions", maxConcurrentSagaExecutions);
+            sagaThreadPool = new SelectableThreadPoolExectutor(
+                    0, Integer.MAX_VALUE,
+                    sagaThreadPoolKeepAliveSeconds, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(),
+                    sagaThreadFactory,
+                    new ThreadPoolExecutor.AbortPolicy()
+            );
+        } else if ("bounded".equalsIgnoreCase(sagaExecutor)) {
+            int sagaThreadPoolQueueCapacity = configuration.evaluateToInt("saga.threadpool.queue.capacity");
+            int sagaThreadPoolCoreSize = configuration.evaluateToInt("saga.threadpool.core");
+            int sagaThreadPoolMaxSize = configuration.evaluateToInt("saga.threadpool.max");
+            if (sagaThreadPoolQueueCapacity >= sagaThreadPoolCoreSize) {
+                LOG.warn("Configuration: saga.threadpool.core ({}) must be greater than saga.threadpool.queue.capacity ({}) in order to avoid potential deadlocks.",
+                        sagaThreadPoolCoreSize, sagaThreadPoolQueueCapacity);
+            }
+            maxConcurrentSagaExecutions = (sagaThreadPoolMaxSize + sagaThreadPoolQueueCapacity) / 2;
+            sagaThreadPool = new SelectableThreadPoolExectutor(
+                    sagaThreadPoolCoreSize, sagaThreadPoolMaxSize,
+                    sagaThreadPoolKeepAliveSeconds, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(sagaThreadPoolQueueCapacity),
+                    sagaThreadFactory,
+                    new ThreadPoolExecutor.AbortPolicy()
+            );
+        } else {
+            throw new IllegalArgumentException(String.format("Unsupported saga.executor: %s, must be one of: bounded, elastic", sagaExecutor));
         }
-        SelectableThreadPoolExectutor sagaThreadPool = new SelectableThreadPoolExectutor(
-                sagaThreadPoolCoreSize, configuration.evaluateToInt("saga.threadpool.max"),
-                configuration.evaluateToInt("saga.threadpool.keepalive.seconds"), TimeUnit.SECONDS,
-                new ArrayBlockingQueue<>(sagaThreadPoolQueueCapacity),
-                runnable -> {
-                    Thread thread = new Thread(runnable);
-                    thread.setName("sec-" + nextWorkerId.getAndIncrement());
-                    thread.setUncaughtExceptionHandler((t, e) -> {
-                        System.err.println("Uncaught exception in thread " + thread.getName());
-                        e.printStackTrace();
-                    });
-                    return thread;
-                },
-                new ThreadPoolExecutor.AbortPolicy()
-        );
         int numberOfSagaLogs = configuration.evaluateToInt("saga.number-of-logs");
 
         boolean sagaCommandsEnabled = configuration.evaluateToBoolean("saga.commands.enabled");
+        boolean compactSagaLogInput = configuration.evaluateToBoolean("saga.log.input.compact");
 
         LOG.info("Initializing saga-recovery thread-pool ...");
 
@@ -302,7 +420,29 @@ public class UndertowApplication {
 
         LOG.info("Initializing saga-execution-coordinator ...");
 
-        SagaExecutionCoordinator sec = new SagaExecutionCoordinator(sagaLogPool, numberOfSagaLogs, sagaRepository, sagasObserver, sagaThreadPool, sagaCommandsEnabled, recoveryThreadPool);
+        int maxConcurrentRecoveryExecutions = configuration.evaluateToInt("saga.recovery.max-concurrent-executions");
+
+        int admissionMinLimit = configuration.evaluateToBoolean("saga.admission.adaptive") ?
+                Math.min(configuration.evaluateToInt("saga.admission.min-limit"), maxConcurrentSagaExecutions) :
+                maxConcurrentSagaExecutions;
+        // every waiting write holds an http worker thread, at most a quarter of them may wait so that reads and
+        // health-checks are still served when writes are overloaded
+        int[] maxWaitingWrites = SagaAdmissionController.maxWaitingWrites(httpWorkerThreads(configuration) / 4,
+                configuration.evaluateToInt("saga.admission.queue.sync"),
+                configuration.evaluateToInt("saga.admission.queue.async"));
+        int maxWaitingSync = maxWaitingWrites[0];
+        int maxWaitingAsync = maxWaitingWrites[1];
+        SagaAdmissionController admission = new SagaAdmissionController(
+                admissionMinLimit,
+                maxConcurrentSagaExecutions,
+                configuration.evaluateToInt("saga.admission.target-latency-ms"),
+                configuration.evaluateToInt("saga.admission.max-wait-ms"),
+                maxWaitingSync,
+                maxWaitingAsync,
+                configuration.evaluateToInt("saga.recovery.max-yield-ms")
+        );
+
+        SagaExecutionCoordinator sec = new SagaExecutionCoordinator(sagaLogPool, numberOfSagaLogs, sagaRepository, sagasObserver, sagaThreadPool, admission, maxConcurrentRecoveryExecutions, sagaCommandsEnabled, compactSagaLogInput, recoveryThreadPool, metrics);
 
         /* Removed Hystrix thread pool initialization - can be replaced with Resilience4j if needed. Init goes here. */
 
@@ -318,6 +458,12 @@ public class UndertowApplication {
 
         LOG.info("Initializing namespace-controller ...");
 
+        // every open feed holds an http worker thread, by default at most an eighth of them
+        int maxFeedConnections = configuration.evaluateToInt("source.feed.max-connections");
+        if (maxFeedConnections <= 0) {
+            maxFeedConnections = Math.max(1, httpWorkerThreads(configuration) / 8);
+        }
+
         NamespaceController namespaceController = new NamespaceController(
                 configuration.evaluateToString("namespace.default"),
                 specification,
@@ -325,14 +471,17 @@ public class UndertowApplication {
                 persistence,
                 sec,
                 sagaRepository,
-                txlogRawdataPool
+                txlogRawdataPool,
+                configuration.evaluateToInt("http.batch.max-size"),
+                configuration.evaluateToInt("http.batch.max-bytes"),
+                maxFeedConnections
         );
 
         String host = configuration.evaluateToString("http.host");
 
         return new UndertowApplication(specification, persistence, sec, sagaRepository, sagasObserver, sagaRecoveryTrigger, host, port,
                 sagaLogPool, sagaThreadPool, namespaceController,
-                searchIndex, configuration, txlogRawdataPool);
+                searchIndex, configuration, txlogRawdataPool, metrics);
     }
 
     private static JsonSchemaBasedSpecification createJsonSpecification(LinkedHashMap<String, JSONObject> jsonMap) {
@@ -484,7 +633,7 @@ public class UndertowApplication {
         }));
         futures.add(CompletableFuture.runAsync(() -> {
             try {
-                txlogRawdataPool.getClient().close();
+                txlogRawdataPool.close();
                 LOG.debug("Transaction log (rawdata client) was shutdown");
             } catch (Error | RuntimeException e) {
                 throw e;
@@ -512,6 +661,12 @@ public class UndertowApplication {
             sagaLogPool.shutdown();
             LOG.debug("SagaLogPool was shutdown");
         }));
+        if (searchIndex instanceof AsyncSearchIndex) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                ((AsyncSearchIndex) searchIndex).close();
+                LOG.debug("Search-index flush thread was shutdown");
+            }));
+        }
         CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
         try {
             all.orTimeout(10, TimeUnit.SECONDS).join();
@@ -569,4 +724,8 @@ public class UndertowApplication {
     public TxlogRawdataPool getTxlogRawdataPool() {
         return txlogRawdataPool;
     }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
 }
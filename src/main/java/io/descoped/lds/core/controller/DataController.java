@@ -2,14 +2,19 @@ package io.descoped.lds.core.controller;
 
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.api.specification.Specification;
+import io.descoped.lds.core.domain.BodyParser;
+import io.descoped.lds.core.domain.WriteCallbacks;
 import io.descoped.lds.core.domain.embedded.EmbeddedResourceHandler;
 import io.descoped.lds.core.domain.managed.ManagedResourceHandler;
 import io.descoped.lds.core.domain.reference.ReferenceResourceHandler;
 import io.descoped.lds.core.domain.resource.ResourceContext;
 import io.descoped.lds.core.domain.resource.ResourceException;
+import io.descoped.lds.core.domain.resource.ResourceRouter;
+import io.descoped.lds.core.saga.SagaAdmissionException;
 import io.descoped.lds.core.saga.SagaExecutionCoordinator;
 import io.descoped.lds.core.saga.SagaRepository;
 import io.descoped.lds.core.schema.SchemaRepository;
+import io.descoped.lds.core.validation.LinkedDocumentValidator;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
@@ -30,18 +35,17 @@ class DataController implements HttpHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(DataController.class);
 
-    final Specification specification;
-    final SchemaRepository schemaRepository;
-    final RxJsonPersistence persistence;
-    final SagaExecutionCoordinator sec;
-    final SagaRepository sagaRepository;
+    final ResourceRouter router;
+    final ReferenceResourceHandler referenceResourceHandler;
+    final ManagedResourceHandler managedResourceHandler;
+    final EmbeddedResourceHandler embeddedResourceHandler;
 
-    DataController(Specification specification, SchemaRepository schemaRepository, RxJsonPersistence persistence, SagaExecutionCoordinator sec, SagaRepository sagaRepository) {
-        this.specification = specification;
-        this.schemaRepository = schemaRepository;
-        this.persistence = persistence;
-        this.sec = sec;
-        this.sagaRepository = sagaRepository;
+    DataController(Specification specification, SchemaRepository schemaRepository, LinkedDocumentValidator validator, RxJsonPersistence persistence, SagaExecutionCoordinator sec, SagaRepository sagaRepository, int maxBatchSize, int maxBatchBytes) {
+        BodyParser bodyParser = new BodyParser();
+        this.router = ResourceRouter.of(specification);
+        this.referenceResourceHandler = new ReferenceResourceHandler(persistence, specification, sec, sagaRepository);
+        this.managedResourceHandler = new ManagedResourceHandler(persistence, specification, schemaRepository, validator, bodyParser, sec, sagaRepository, maxBatchSize, maxBatchBytes);
+        this.embeddedResourceHandler = new EmbeddedResourceHandler(persistence, specification, schemaRepository, validator, bodyParser, sec, sagaRepository);
     }
 
     @Override
@@ -76,7 +80,7 @@ class DataController implements HttpHandler {
                 }
                 timestamp.withZoneSameInstant(ZoneId.of("Etc/UTC"));
             }
-            resourceContext = ResourceContext.createResourceContext(specification, exchange.getRelativePath(), timestamp);
+            resourceContext = router.route(exchange.getRelativePath(), timestamp);
         } catch (ResourceException e) {
             exchange.setStatusCode(StatusCodes.BAD_REQUEST);
             exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
@@ -88,18 +92,23 @@ class DataController implements HttpHandler {
          * NOTE: Must check reference before embedded, because ref is also an embedded resource.
          */
 
-        if (resourceContext.isReference()) {
-            new ReferenceResourceHandler(persistence, specification, resourceContext, sec, sagaRepository).handleRequest(exchange);
-            return;
-        }
+        try {
+            if (resourceContext.isReference()) {
+                referenceResourceHandler.handleRequest(exchange, resourceContext);
+                return;
+            }
 
-        if (resourceContext.isManaged()) {
-            new ManagedResourceHandler(persistence, specification, schemaRepository, resourceContext, sec, sagaRepository).handleRequest(exchange);
-            return;
-        }
+            if (resourceContext.isManaged()) {
+                managedResourceHandler.handleRequest(exchange, resourceContext);
+                return;
+            }
 
-        if (resourceContext.isEmbedded()) {
-            new EmbeddedResourceHandler(persistence, specification, schemaRepository, resourceContext, sec, sagaRepository).handleRequest(exchange);
+            if (resourceContext.isEmbedded()) {
+                embeddedResourceHandler.handleRequest(exchange, resourceContext);
+                return;
+            }
+        } catch (SagaAdmissionException e) {
+            WriteCallbacks.sendAdmissionRejected(exchange, e);
             return;
         }
 
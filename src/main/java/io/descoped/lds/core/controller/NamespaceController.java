@@ -6,6 +6,7 @@ import io.descoped.lds.core.saga.SagaExecutionCoordinator;
 import io.descoped.lds.core.saga.SagaRepository;
 import io.descoped.lds.core.schema.SchemaRepository;
 import io.descoped.lds.core.txlog.TxlogRawdataPool;
+import io.descoped.lds.core.validation.LinkedDocumentValidator;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
@@ -20,24 +21,22 @@ public class NamespaceController implements HttpHandler {
 
     private final Specification specification;
     private final SchemaRepository schemaRepository;
-    private final RxJsonPersistence persistence;
-    private final SagaExecutionCoordinator sec;
-    private final SagaRepository sagaRepository;
-    private final TxlogRawdataPool txLogPool;
+    private final DataController dataController;
+    private final SourceHandler sourceHandler;
 
     public NamespaceController(String namespaceDefault, Specification specification, SchemaRepository schemaRepository,
                                RxJsonPersistence persistence, SagaExecutionCoordinator sec,
-                               SagaRepository sagaRepository, TxlogRawdataPool txLogPool) {
+                               SagaRepository sagaRepository, TxlogRawdataPool txLogPool, int maxBatchSize,
+                               int maxBatchBytes, int maxFeedConnections) {
         this.specification = specification;
         this.schemaRepository = schemaRepository;
-        this.persistence = persistence;
-        this.sagaRepository = sagaRepository;
-        this.txLogPool = txLogPool;
+        LinkedDocumentValidator validator = new LinkedDocumentValidator(specification, schemaRepository);
+        this.dataController = new DataController(specification, schemaRepository, validator, persistence, sec, sagaRepository, maxBatchSize, maxBatchBytes);
+        this.sourceHandler = new SourceHandler(txLogPool, maxFeedConnections);
         if (!namespaceDefault.startsWith("/")) {
             namespaceDefault = "/" + namespaceDefault;
         }
         this.defaultNamespace = namespaceDefault;
-        this.sec = sec;
     }
 
     @Override
@@ -65,12 +64,12 @@ public class NamespaceController implements HttpHandler {
         }
 
         if (requestPath.startsWith(defaultNamespace)) {
-            new DataController(specification, schemaRepository, persistence, sec, sagaRepository).handleRequest(exchange);
+            dataController.handleRequest(exchange);
             return;
         }
 
         if (requestPath.startsWith("/source/")) {
-            new SourceHandler(txLogPool).handleRequest(exchange);
+            sourceHandler.handleRequest(exchange);
             return;
         }
 
@@ -0,0 +1,59 @@
+package io.descoped.lds.core.controller;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.core.saga.SagaRecoveryProgress;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Handler reports the progress of saga-recovery.
+ */
+public class SagaRecoveryHandler implements HttpHandler {
+
+    public static final String SAGA_RECOVERY_PATH = "/admin/saga-recovery";
+
+    private final SagaRecoveryProgress progress;
+
+    public SagaRecoveryHandler(SagaRecoveryProgress progress) {
+        this.progress = Objects.requireNonNull(progress);
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) {
+        if (!exchange.getRequestMethod().equals(Methods.GET)) {
+            exchange.setStatusCode(StatusCodes.METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        ObjectNode result = JsonTools.mapper.createObjectNode();
+        result.put("scope", progress.getScope());
+        result.put("running", progress.isRunning());
+        result.put("started", progress.getStarted() == null ? null : progress.getStarted().toString());
+        result.put("completed", progress.getCompleted() == null ? null : progress.getCompleted().toString());
+        ObjectNode logs = result.putObject("logs");
+        logs.put("total", progress.getLogsTotal());
+        logs.put("pending", progress.getLogsPending());
+        ObjectNode executions = result.putObject("executions");
+        executions.put("running", progress.getExecutionsRunning());
+        executions.put("recovered", progress.getExecutionsRecovered());
+        executions.put("failed", progress.getExecutionsFailed());
+        Duration eta = progress.getEstimatedTimeRemaining();
+        if (eta == null) {
+            result.putNull("etaSeconds");
+        } else {
+            result.put("etaSeconds", eta.getSeconds());
+        }
+
+        exchange.setStatusCode(StatusCodes.OK);
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json; charset=utf-8");
+        exchange.getResponseSender().send(JsonTools.toJson(result), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,204 @@
+package io.descoped.lds.core.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import de.huxhorn.sulky.ulid.ULID;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.core.txlog.TxLogEntry;
+import io.descoped.lds.core.txlog.TxlogRawdataPool;
+import io.descoped.rawdata.api.RawdataConsumer;
+import io.descoped.rawdata.api.RawdataMessage;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Streams the tx-log of a source from a tx-id cursor, as server-sent events when the client accepts
+ * text/event-stream and as newline delimited json otherwise.
+ * <p>
+ * Query parameters:
+ * <ul>
+ * <li>from - tx-id of the last entry the client has seen, the Last-Event-ID header is used when absent. The feed
+ * starts at the beginning of the tx-log when neither is given.</li>
+ * <li>entity - only stream entries of this entity, may be repeated.</li>
+ * <li>data - include the document of every entry when true.</li>
+ * <li>limit - maximum number of entries to stream, {@value #DEFAULT_LIMIT} when absent and at most
+ * {@value #MAX_LIMIT}.</li>
+ * <li>wait - milliseconds, counted from the start of the request, to wait for new entries at the end of the tx-log
+ * before the response is completed, at most {@value #MAX_WAIT_MS}. 0 completes the response as soon as the end of the
+ * tx-log is reached.</li>
+ * </ul>
+ * A response is also completed when it has streamed for {@value #MAX_DURATION_MS} milliseconds. Clients read the
+ * rest of the tx-log with further requests that resume from the last entry they received.
+ * <p>
+ * Every open feed holds an http worker thread while it waits for entries. The number of open feeds is therefore
+ * limited, and requests beyond the limit are answered with 503 Service Unavailable and a Retry-After header.
+ */
+class SourceFeedHandler implements HttpHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SourceFeedHandler.class);
+
+    static final String EVENT_STREAM = "text/event-stream";
+    static final String NDJSON = "application/x-ndjson";
+    static final long DEFAULT_LIMIT = 1000;
+    static final long MAX_LIMIT = 10000;
+    static final long MAX_WAIT_MS = 30000;
+    static final long MAX_DURATION_MS = 60000;
+    static final long RETRY_AFTER_SECONDS = 1;
+
+    private final TxlogRawdataPool txLogPool;
+    private final Semaphore connections;
+
+    /**
+     * @param maxConnections maximum number of feeds streamed at the same time.
+     */
+    SourceFeedHandler(TxlogRawdataPool txLogPool, int maxConnections) {
+        this.txLogPool = txLogPool;
+        this.connections = new Semaphore(Math.max(1, maxConnections));
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(this);
+            return;
+        }
+
+        String source = SourceHandler.sourceOf(exchange);
+
+        ULID.Value from;
+        long limit;
+        long waitMs;
+        try {
+            from = ofNullable(queryParameter(exchange, "from"))
+                    .or(() -> ofNullable(exchange.getRequestHeaders().getFirst("Last-Event-ID")))
+                    .map(ULID::parseULID)
+                    .orElse(null);
+            limit = Math.min(MAX_LIMIT, ofNullable(queryParameter(exchange, "limit")).map(Long::parseLong).orElse(DEFAULT_LIMIT));
+            if (limit <= 0) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+            waitMs = Math.min(MAX_WAIT_MS, ofNullable(queryParameter(exchange, "wait")).map(Long::parseLong).orElse(0L));
+        } catch (IllegalArgumentException e) {
+            exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+            exchange.getResponseSender().send("Invalid feed parameter: " + e.getMessage());
+            return;
+        }
+        Set<String> entities = ofNullable(exchange.getQueryParameters().get("entity"))
+                .map(values -> values.stream().collect(Collectors.toUnmodifiableSet()))
+                .orElse(Set.of());
+        boolean includeData = Boolean.parseBoolean(queryParameter(exchange, "data"));
+        boolean eventStream = ofNullable(exchange.getRequestHeaders().getFirst(Headers.ACCEPT))
+                .map(accept -> accept.contains(EVENT_STREAM))
+                .orElse(false);
+
+        if (!connections.tryAcquire()) {
+            exchange.setStatusCode(StatusCodes.SERVICE_UNAVAILABLE);
+            exchange.getResponseHeaders().put(Headers.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+            exchange.getResponseSender().send("Too many open feeds, retry later");
+            return;
+        }
+        try {
+            streamFeed(exchange, source, from, limit, waitMs, entities, includeData, eventStream);
+        } finally {
+            connections.release();
+        }
+    }
+
+    private void streamFeed(HttpServerExchange exchange, String source, ULID.Value from, long limit, long waitMs,
+                            Set<String> entities, boolean includeData, boolean eventStream) throws Exception {
+        try (RawdataConsumer consumer = txLogPool.consumer(source, from)) {
+            if (consumer == null) {
+                exchange.setStatusCode(StatusCodes.NOT_FOUND);
+                return;
+            }
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, eventStream ? EVENT_STREAM : NDJSON);
+            exchange.getResponseHeaders().put(Headers.CACHE_CONTROL, "no-cache");
+            exchange.startBlocking();
+            OutputStream out = exchange.getOutputStream();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+            long start = System.currentTimeMillis();
+            long waitDeadline = start + waitMs;
+            long streamDeadline = start + MAX_DURATION_MS;
+            long count = 0;
+            while (count < limit) {
+                long now = System.currentTimeMillis();
+                if (now >= streamDeadline) {
+                    break;
+                }
+                RawdataMessage message = consumer.receive(Math.max(0, waitDeadline - now), TimeUnit.MILLISECONDS);
+                if (message == null) {
+                    break;
+                }
+                TxLogEntry entry = TxLogEntry.of(message);
+                if (!entities.isEmpty() && !entities.contains(entry.entity())) {
+                    continue;
+                }
+                buffer.reset();
+                if (eventStream) {
+                    buffer.write(("id: " + entry.txId() + "\nevent: " + entry.method() + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+                }
+                writeEntry(buffer, entry, includeData);
+                buffer.write(eventStream ? "\n\n".getBytes(StandardCharsets.UTF_8) : "\n".getBytes(StandardCharsets.UTF_8));
+                try {
+                    buffer.writeTo(out);
+                    out.flush();
+                } catch (IOException e) {
+                    LOG.debug("Client closed feed of source {}", source);
+                    return;
+                }
+                count++;
+            }
+        }
+    }
+
+    private static String queryParameter(HttpServerExchange exchange, String name) {
+        return ofNullable(exchange.getQueryParameters().get(name)).map(Deque::peekFirst).orElse(null);
+    }
+
+    static void writeEntry(OutputStream out, TxLogEntry entry, boolean includeData) throws IOException {
+        try (JsonGenerator generator = JsonTools.mapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeStringField("txid", entry.txId().toString());
+            generator.writeStringField("position", entry.message().position());
+            generator.writeStringField("method", entry.method());
+            generator.writeStringField("namespace", entry.namespace());
+            generator.writeStringField("entity", entry.entity());
+            generator.writeStringField("id", entry.resourceId());
+            generator.writeStringField("version", DateTimeFormatter.ISO_ZONED_DATE_TIME.format(entry.version()));
+            if (entry.source() != null) {
+                generator.writeStringField("source", entry.source());
+            }
+            if (entry.sourceId() != null) {
+                generator.writeStringField("sourceId", entry.sourceId());
+            }
+            if (includeData) {
+                JsonNode data = entry.data();
+                if (data != null) {
+                    generator.writeFieldName("data");
+                    generator.writeTree(data);
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+}
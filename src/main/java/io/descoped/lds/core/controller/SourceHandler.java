@@ -1,32 +1,49 @@
 package io.descoped.lds.core.controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.descoped.lds.api.persistence.json.JsonTools;
-import io.descoped.lds.core.txlog.TxLogTools;
+import io.descoped.lds.core.txlog.TxLogEntry;
 import io.descoped.lds.core.txlog.TxlogRawdataPool;
 import io.descoped.rawdata.api.RawdataMessage;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
 
 import java.nio.charset.StandardCharsets;
 
-import static java.util.Optional.ofNullable;
-
 public class SourceHandler implements HttpHandler {
 
     private final TxlogRawdataPool txLogPool;
+    private final GetHandler getHandler = new GetHandler();
+    private final SourceFeedHandler feedHandler;
 
-    public SourceHandler(TxlogRawdataPool txLogPool) {
+    /**
+     * @param maxFeedConnections maximum number of tx-log feeds streamed at the same time.
+     */
+    public SourceHandler(TxlogRawdataPool txLogPool, int maxFeedConnections) {
         this.txLogPool = txLogPool;
+        this.feedHandler = new SourceFeedHandler(txLogPool, maxFeedConnections);
     }
 
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
         if (exchange.getRequestMethod().equalToString("get")) {
-            new GetHandler().handleRequest(exchange);
+            // /source/{source} or /source/{source}/feed
+            String[] pathParts = exchange.getRequestPath().substring(1).split("/");
+            if (pathParts.length < 2 || pathParts[1].isEmpty()) {
+                exchange.setStatusCode(StatusCodes.NOT_FOUND);
+                return;
+            }
+            if (pathParts.length == 2) {
+                getHandler.handleRequest(exchange);
+                return;
+            }
+            if (pathParts.length == 3 && "feed".equals(pathParts[2])) {
+                feedHandler.handleRequest(exchange);
+                return;
+            }
+            exchange.setStatusCode(StatusCodes.NOT_FOUND);
             return;
         }
 
@@ -35,6 +52,13 @@ public class SourceHandler implements HttpHandler {
         exchange.getResponseSender().send("Unsupported managed resource method: " + exchange.getRequestMethod());
     }
 
+    /**
+     * @return the source segment of a request path that has been routed by this handler.
+     */
+    static String sourceOf(HttpServerExchange exchange) {
+        return exchange.getRequestPath().substring(1).split("/")[1];
+    }
+
     private class GetHandler implements HttpHandler {
         public void handleRequest(HttpServerExchange exchange) throws Exception {
             if (exchange.isInIoThread()) {
@@ -42,7 +66,7 @@ public class SourceHandler implements HttpHandler {
                 return;
             }
 
-            String source = exchange.getRequestPath().substring("/source/".length());
+            String source = sourceOf(exchange);
             RawdataMessage lastMessage = txLogPool.getLastMessage(source);
             if (lastMessage == null) {
                 exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json; charset=utf-8");
@@ -52,10 +76,8 @@ public class SourceHandler implements HttpHandler {
                 return;
             }
 
-            JsonNode meta = TxLogTools.toJson(lastMessage.get("meta"));
-            JsonNode sourceIdTextNode = ofNullable(meta.get("sourceId")).orElse(NullNode.getInstance());
             ObjectNode result = JsonTools.mapper.createObjectNode();
-            result.set("lastSourceId", sourceIdTextNode);
+            result.put("lastSourceId", TxLogEntry.of(lastMessage).sourceId());
 
             exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json; charset=utf-8");
             exchange.getResponseSender().send(JsonTools.toJson(result), StandardCharsets.UTF_8);
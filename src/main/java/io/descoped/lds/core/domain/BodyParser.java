@@ -1,23 +1,31 @@
 package io.descoped.lds.core.domain;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.tika.mime.MediaType;
 import org.msgpack.jackson.dataformat.MessagePackFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Deserializes request bodies. Instances are thread-safe and shared by the resource handlers.
+ */
 public class BodyParser {
 
-    final ObjectMapper jsonMapper = new ObjectMapper();
-    final ObjectMapper msgPackMapper = new ObjectMapper(new MessagePackFactory());
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper msgPackMapper = new ObjectMapper(new MessagePackFactory());
 
     public JsonNode deserializeBody(String contentType, String requestBody) {
         try {
             // deserialize request data
             MediaType type = MediaType.parse(contentType);
             JsonNode requestData;
-            if ("application".equals(type.getType()) && "json".equals(type.getSubtype())) {
+            if (type == null) {
+                throw new IllegalArgumentException("Unsupported Content-Type: " + contentType);
+            } else if ("application".equals(type.getType()) && "json".equals(type.getSubtype())) {
                 requestData = jsonMapper.readTree(requestBody);
             } else if ("application".equals(type.getType())
                     && ("msgpack".equals(type.getSubtype()) || "x-msgpack".equals(type.getSubtype()))) {
@@ -30,4 +38,55 @@ public class BodyParser {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Returns true if a document stream of the content type can be deserialized, false if the content type is
+     * malformed or not supported.
+     */
+    public boolean isBodyStreamSupported(String contentType) {
+        return streamMapper(contentType) != null;
+    }
+
+    /**
+     * Deserializes a stream of documents, either newline delimited json or concatenated msgpack values. Values that
+     * are arrays contribute each of their elements as a document.
+     *
+     * @param maxDocuments reading stops when more than this number of documents have been read, so a result larger
+     *                     than maxDocuments means that the stream has too many documents.
+     */
+    public List<JsonNode> deserializeBodyStream(String contentType, byte[] requestBody, int maxDocuments) {
+        ObjectMapper mapper = streamMapper(contentType);
+        if (mapper == null) {
+            throw new IllegalArgumentException("Unsupported Content-Type: " + contentType);
+        }
+        try (MappingIterator<JsonNode> iterator = mapper.readerFor(JsonNode.class).readValues(requestBody)) {
+            List<JsonNode> documents = new ArrayList<>();
+            while (documents.size() <= maxDocuments && iterator.hasNextValue()) {
+                JsonNode value = iterator.nextValue();
+                if (value.isArray()) {
+                    value.forEach(documents::add);
+                } else {
+                    documents.add(value);
+                }
+            }
+            return documents;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to parse document stream: " + e.getMessage(), e);
+        }
+    }
+
+    private ObjectMapper streamMapper(String contentType) {
+        MediaType type = MediaType.parse(contentType);
+        if (type == null || !"application".equals(type.getType())) {
+            return null;
+        }
+        String subtype = type.getSubtype();
+        if ("x-ndjson".equals(subtype) || "ndjson".equals(subtype) || "json".equals(subtype)) {
+            return jsonMapper;
+        }
+        if ("msgpack".equals(subtype) || "x-msgpack".equals(subtype)) {
+            return msgPackMapper;
+        }
+        return null;
+    }
 }
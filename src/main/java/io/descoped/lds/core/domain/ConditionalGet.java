@@ -0,0 +1,77 @@
+package io.descoped.lds.core.domain;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.DateUtils;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Validators and conditional request handling of document representations.
+ * <p>
+ * A representation is identified by the version of the document it was read from, the request path and the response
+ * format, the ETag is derived from all three. The ETag is weak, because the same representation is sent with gzip,
+ * deflate or no content-coding depending on Accept-Encoding, and these are not byte-for-byte equal. Last-Modified is
+ * the version truncated to seconds. If-None-Match takes precedence over If-Modified-Since and uses the weak comparison,
+ * as required by RFC 7232.
+ */
+public class ConditionalGet {
+
+    /**
+     * Adds ETag and Last-Modified response headers, and answers 304 Not Modified when the request conditions show that
+     * the client already has the representation.
+     *
+     * @return true if 304 Not Modified was answered and no body must be sent.
+     */
+    public static boolean handleNotModified(HttpServerExchange exchange, ZonedDateTime version, ResponseFormat format) {
+        String etag = etag(exchange.getRequestPath(), version, format);
+        exchange.getResponseHeaders().put(Headers.ETAG, etag);
+        exchange.getResponseHeaders().put(Headers.LAST_MODIFIED, DateUtils.toDateString(Date.from(version.toInstant())));
+        if (!isNotModified(exchange.getRequestHeaders(), etag, version)) {
+            return false;
+        }
+        exchange.setStatusCode(StatusCodes.NOT_MODIFIED);
+        exchange.getResponseHeaders().remove(Headers.CONTENT_TYPE);
+        return true;
+    }
+
+    static String etag(String path, ZonedDateTime version, ResponseFormat format) {
+        Instant instant = version.toInstant();
+        return String.format("W/\"%x.%x-%x\"", instant.getEpochSecond(), instant.getNano(), (path + ";" + format).hashCode());
+    }
+
+    static boolean isNotModified(HeaderMap requestHeaders, String etag, ZonedDateTime version) {
+        String opaqueTag = opaqueTag(etag);
+        HeaderValues ifNoneMatch = requestHeaders.get(Headers.IF_NONE_MATCH);
+        if (ifNoneMatch != null && !ifNoneMatch.isEmpty()) {
+            for (String value : ifNoneMatch) {
+                for (String candidate : value.split(",")) {
+                    String tag = opaqueTag(candidate.trim());
+                    if ("*".equals(tag) || opaqueTag.equals(tag)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = requestHeaders.getFirst(Headers.IF_MODIFIED_SINCE);
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        Date since = DateUtils.parseDate(ifModifiedSince);
+        return since != null && !version.toInstant().truncatedTo(ChronoUnit.SECONDS).isAfter(since.toInstant());
+    }
+
+    /**
+     * @return the entity-tag without the weak indicator, weak comparison only compares these.
+     */
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
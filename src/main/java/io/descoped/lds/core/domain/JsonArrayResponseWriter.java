@@ -0,0 +1,49 @@
+package io.descoped.lds.core.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.reactivex.Flowable;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+
+import java.io.IOException;
+
+/**
+ * Streams a flow of json nodes to the response body as one array, in json or another negotiated format.
+ * <p>
+ * Every element is written as soon as it is emitted. The generator writes to the blocking exchange output stream,
+ * which is backed by the pooled buffers of the connection and blocks when the channel cannot accept more data. The
+ * flow is consumed with a bounded prefetch, so at most {@link #PREFETCH} elements are held in memory regardless of
+ * how many are written.
+ */
+public class JsonArrayResponseWriter {
+
+    static final int PREFETCH = 64;
+
+    /**
+     * Writes all nodes in the flow and ends the exchange. Must be called from a worker thread.
+     */
+    public static void writeArray(HttpServerExchange exchange, Flowable<? extends JsonNode> nodes) {
+        writeArray(exchange, nodes, ResponseFormat.JSON);
+    }
+
+    /**
+     * Writes all nodes in the flow as one array in the given format and ends the exchange. Must be called from a
+     * worker thread.
+     */
+    public static void writeArray(HttpServerExchange exchange, Flowable<? extends JsonNode> nodes, ResponseFormat format) {
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, format.contentType());
+        if (!exchange.isBlocking()) {
+            exchange.startBlocking();
+        }
+        try (JsonGenerator generator = format.createGenerator(exchange.getOutputStream())) {
+            generator.writeStartArray();
+            for (JsonNode node : nodes.blockingIterable(PREFETCH)) {
+                generator.writeTree(node);
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package io.descoped.lds.core.domain;
+
+import io.descoped.lds.api.persistence.reactivex.Range;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.util.Optional.ofNullable;
+
+/**
+ * Cursor based pagination parameters of list and timeline requests.
+ * <p>
+ * The parameters follow the same semantics as relay connections: 'first' and 'after' select a page forwards,
+ * 'last' and 'before' select a page backwards. For lists the cursors are document ids, for timelines the cursors are
+ * ISO-8601 versions, which allows 'after' and 'before' alone to be used as a time-window.
+ */
+public class RangeParameters {
+
+    public static final String FIRST = "first";
+    public static final String AFTER = "after";
+    public static final String LAST = "last";
+    public static final String BEFORE = "before";
+
+    public static final HttpString LINK = new HttpString("Link");
+
+    private static final Set<String> PARAMETER_NAMES = Set.of(FIRST, AFTER, LAST, BEFORE);
+
+    private final Integer first;
+    private final String after;
+    private final Integer last;
+    private final String before;
+
+    private RangeParameters(Integer first, String after, Integer last, String before) {
+        this.first = first;
+        this.after = after;
+        this.last = last;
+        this.before = before;
+    }
+
+    /**
+     * Parses the range parameters of a request.
+     *
+     * @throws IllegalArgumentException if 'first' or 'last' is not a positive integer.
+     */
+    public static RangeParameters of(Map<String, Deque<String>> queryParameters) {
+        return new RangeParameters(
+                parseLimit(queryParameters, FIRST),
+                value(queryParameters, AFTER),
+                parseLimit(queryParameters, LAST),
+                value(queryParameters, BEFORE)
+        );
+    }
+
+    private static String value(Map<String, Deque<String>> queryParameters, String name) {
+        return ofNullable(queryParameters.get(name)).map(Deque::peekLast).filter(value -> !value.isEmpty()).orElse(null);
+    }
+
+    private static Integer parseLimit(Map<String, Deque<String>> queryParameters, String name) {
+        String value = value(queryParameters, name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit > 0) {
+                return limit;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw new IllegalArgumentException(format("The '%s' query-parameter must be a positive integer: '%s'", name, value));
+    }
+
+    private static ZonedDateTime parseVersion(String value) {
+        try {
+            return ZonedDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(format("The '%s' and '%s' query-parameters of a timeline must follow the ISO-8601 standard: '%s'", AFTER, BEFORE, value));
+        }
+    }
+
+    /**
+     * Returns true if none of the range parameters were given.
+     */
+    public boolean isEmpty() {
+        return first == null && after == null && last == null && before == null;
+    }
+
+    /**
+     * Returns true if the number of elements in the range is limited by 'first' or 'last'.
+     */
+    public boolean isLimited() {
+        return first != null || last != null;
+    }
+
+    public boolean isBackward() {
+        return first == null && last != null;
+    }
+
+    public Integer getLimit() {
+        return first != null ? first : last;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public String getBefore() {
+        return before;
+    }
+
+    /**
+     * Range of document ids.
+     */
+    public Range<String> toIdRange() {
+        return toRange(Function.identity());
+    }
+
+    /**
+     * Range of document versions.
+     *
+     * @throws IllegalArgumentException if 'after' or 'before' is not a valid ISO-8601 timestamp.
+     */
+    public Range<ZonedDateTime> toVersionRange() {
+        return toRange(RangeParameters::parseVersion);
+    }
+
+    private <T> Range<T> toRange(Function<String, T> cursorParser) {
+        if (isEmpty()) {
+            return Range.unbounded();
+        }
+        T afterCursor = after != null ? cursorParser.apply(after) : null;
+        T beforeCursor = before != null ? cursorParser.apply(before) : null;
+        if (first != null) {
+            return Range.firstBetween(first, afterCursor, beforeCursor);
+        } else if (last != null) {
+            return Range.lastBetween(last, afterCursor, beforeCursor);
+        } else {
+            return Range.between(afterCursor, beforeCursor);
+        }
+    }
+
+    /**
+     * Adds a 'next' link header that selects the page after the given cursor.
+     */
+    public void addNextLink(HttpServerExchange exchange, String cursor) {
+        exchange.getResponseHeaders().add(LINK, link(exchange, FIRST, AFTER, cursor, "next"));
+    }
+
+    /**
+     * Adds a 'prev' link header that selects the page before the given cursor.
+     */
+    public void addPreviousLink(HttpServerExchange exchange, String cursor) {
+        exchange.getResponseHeaders().add(LINK, link(exchange, LAST, BEFORE, cursor, "prev"));
+    }
+
+    private String link(HttpServerExchange exchange, String limitName, String cursorName, String cursor, String rel) {
+        StringBuilder query = new StringBuilder();
+        for (Map.Entry<String, Deque<String>> parameter : exchange.getQueryParameters().entrySet()) {
+            if (PARAMETER_NAMES.contains(parameter.getKey())) {
+                continue;
+            }
+            for (String value : parameter.getValue()) {
+                appendParameter(query, parameter.getKey(), value);
+            }
+        }
+        appendParameter(query, limitName, String.valueOf(getLimit()));
+        appendParameter(query, cursorName, cursor);
+        return "<" + exchange.getRequestPath() + "?" + query + ">; rel=\"" + rel + "\"";
+    }
+
+    private static void appendParameter(StringBuilder query, String name, String value) {
+        if (query.length() > 0) {
+            query.append('&');
+        }
+        query.append(URLEncoder.encode(name, StandardCharsets.UTF_8));
+        if (!value.isEmpty()) {
+            query.append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+        }
+    }
+}
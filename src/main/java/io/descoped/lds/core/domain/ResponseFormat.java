@@ -0,0 +1,119 @@
+package io.descoped.lds.core.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static io.descoped.lds.api.persistence.json.JsonTools.mapper;
+
+/**
+ * Serialization formats of response bodies, negotiated from the Accept request header.
+ */
+public enum ResponseFormat {
+
+    JSON("application/json; charset=utf-8", mapper),
+    MSGPACK("application/msgpack", new ObjectMapper(new MessagePackFactory()));
+
+    private final String contentType;
+    private final ObjectMapper objectMapper;
+
+    ResponseFormat(String contentType, ObjectMapper objectMapper) {
+        this.contentType = contentType;
+        this.objectMapper = objectMapper;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Chooses the acceptable format with the highest quality, a specific media-type is preferred over a wildcard of
+     * the same quality. Json is used when the request has no Accept header or accepts none of the formats.
+     */
+    public static ResponseFormat negotiate(HttpServerExchange exchange) {
+        HeaderValues accept = exchange.getRequestHeaders().get(Headers.ACCEPT);
+        if (accept == null) {
+            return JSON;
+        }
+        ResponseFormat best = null;
+        double bestQuality = 0;
+        boolean bestIsWildcard = false;
+        for (String value : accept) {
+            for (String range : value.split(",")) {
+                String[] parts = range.split(";");
+                String mediaType = parts[0].trim().toLowerCase();
+                double quality = 1;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            quality = Double.parseDouble(parameter.substring(2));
+                        } catch (NumberFormatException e) {
+                            quality = 0;
+                        }
+                    }
+                }
+                ResponseFormat format = forMediaType(mediaType);
+                boolean wildcard = mediaType.endsWith("*");
+                if (format != null && quality > 0 && (quality > bestQuality || (quality == bestQuality && bestIsWildcard && !wildcard))) {
+                    best = format;
+                    bestQuality = quality;
+                    bestIsWildcard = wildcard;
+                }
+            }
+        }
+        return best == null ? JSON : best;
+    }
+
+    static ResponseFormat forMediaType(String mediaType) {
+        switch (mediaType) {
+            case "application/msgpack":
+            case "application/x-msgpack":
+                return MSGPACK;
+            case "application/json":
+            case "application/*":
+            case "*/*":
+                return JSON;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Creates a generator that writes in this format to the output stream.
+     */
+    public JsonGenerator createGenerator(OutputStream out) throws IOException {
+        return objectMapper.getFactory().createGenerator(out);
+    }
+
+    /**
+     * Writes the node as the response body directly to the exchange output stream, must be called from a worker
+     * thread.
+     */
+    public void write(HttpServerExchange exchange, JsonNode node) {
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, contentType);
+        if (!exchange.isBlocking()) {
+            exchange.startBlocking();
+        }
+        try (JsonGenerator generator = createGenerator(exchange.getOutputStream())) {
+            generator.writeTree(node);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public byte[] toBytes(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.descoped.lds.core.domain;
+
+import io.descoped.lds.core.saga.SagaAdmissionException;
+import io.undertow.io.Receiver;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wraps the request-body callbacks of resource handlers that start saga-executions.
+ * <p>
+ * When the body does not arrive in one read, Undertow completes the callback on an io thread after the handler, and
+ * the exception handling around it, has returned. The wrapped callback is therefore always run on a worker thread,
+ * so that io threads never wait for saga admission, and a rejection by admission control is answered with its own
+ * status code and Retry-After header wherever the callback runs.
+ */
+public final class WriteCallbacks {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteCallbacks.class);
+
+    private WriteCallbacks() {
+    }
+
+    public static Receiver.FullStringCallback fullString(Receiver.FullStringCallback callback) {
+        return (exchange, body) -> run(exchange, () -> callback.handle(exchange, body));
+    }
+
+    public static Receiver.FullBytesCallback fullBytes(Receiver.FullBytesCallback callback) {
+        return (exchange, body) -> run(exchange, () -> callback.handle(exchange, body));
+    }
+
+    private static void run(HttpServerExchange exchange, Runnable write) {
+        Runnable guarded = () -> {
+            try {
+                write.run();
+            } catch (SagaAdmissionException e) {
+                sendAdmissionRejected(exchange, e);
+            } catch (RuntimeException e) {
+                LOG.error("Write of {} failed", exchange.getRequestPath(), e);
+                if (!exchange.isResponseStarted()) {
+                    exchange.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
+                }
+                exchange.endExchange();
+            }
+        };
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(guarded);
+        } else {
+            guarded.run();
+        }
+    }
+
+    public static void sendAdmissionRejected(HttpServerExchange exchange, SagaAdmissionException e) {
+        LOG.debug("Write rejected by saga admission control: {}", e.getMessage());
+        exchange.setStatusCode(e.getStatusCode());
+        exchange.getResponseHeaders().put(Headers.RETRY_AFTER, e.getRetryAfterSeconds());
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+        exchange.getResponseSender().send(e.getMessage());
+    }
+}
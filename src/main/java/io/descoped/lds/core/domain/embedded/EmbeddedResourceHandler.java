@@ -3,10 +3,12 @@ package io.descoped.lds.core.domain.embedded;
 import com.fasterxml.jackson.databind.JsonNode;
 import io.descoped.lds.api.persistence.Transaction;
 import io.descoped.lds.api.persistence.json.JsonDocument;
-import io.descoped.lds.api.persistence.json.JsonTools;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.api.specification.Specification;
 import io.descoped.lds.core.domain.BodyParser;
+import io.descoped.lds.core.domain.ConditionalGet;
+import io.descoped.lds.core.domain.ResponseFormat;
+import io.descoped.lds.core.domain.WriteCallbacks;
 import io.descoped.lds.core.domain.resource.ResourceContext;
 import io.descoped.lds.core.domain.resource.ResourceElement;
 import io.descoped.lds.core.saga.SagaCommands;
@@ -16,7 +18,6 @@ import io.descoped.lds.core.saga.SagaRepository;
 import io.descoped.lds.core.schema.SchemaRepository;
 import io.descoped.lds.core.validation.LinkedDocumentValidationException;
 import io.descoped.lds.core.validation.LinkedDocumentValidator;
-import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HeaderValues;
 import io.undertow.util.Headers;
@@ -34,37 +35,37 @@ import java.util.LinkedList;
 import static io.descoped.lds.api.persistence.json.JsonTools.mapper;
 import static java.util.Optional.ofNullable;
 
-public class EmbeddedResourceHandler implements HttpHandler {
+public class EmbeddedResourceHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(EmbeddedResourceHandler.class);
 
     private final Specification specification;
     private final SchemaRepository schemaRepository;
-    private final ResourceContext resourceContext;
+    private final LinkedDocumentValidator validator;
     private final SagaExecutionCoordinator sec;
     private final RxJsonPersistence persistence;
     private final SagaRepository sagaRepository;
-    private final BodyParser bodyParser = new BodyParser();
+    private final BodyParser bodyParser;
 
-    public EmbeddedResourceHandler(RxJsonPersistence persistence, Specification specification, SchemaRepository schemaRepository, ResourceContext resourceContext, SagaExecutionCoordinator sec, SagaRepository sagaRepository) {
+    public EmbeddedResourceHandler(RxJsonPersistence persistence, Specification specification, SchemaRepository schemaRepository, LinkedDocumentValidator validator, BodyParser bodyParser, SagaExecutionCoordinator sec, SagaRepository sagaRepository) {
         this.persistence = persistence;
         this.specification = specification;
         this.schemaRepository = schemaRepository;
-        this.resourceContext = resourceContext;
+        this.validator = validator;
+        this.bodyParser = bodyParser;
         this.sec = sec;
         this.sagaRepository = sagaRepository;
     }
 
-    @Override
-    public void handleRequest(HttpServerExchange exchange) {
+    public void handleRequest(HttpServerExchange exchange, ResourceContext resourceContext) {
         if (exchange.getRequestMethod().equalToString("get")) {
-            getEmbedded(exchange);
+            getEmbedded(exchange, resourceContext);
         } else if (exchange.getRequestMethod().equalToString("put")) {
-            putEmbedded(exchange);
+            putEmbedded(exchange, resourceContext);
         } else if (exchange.getRequestMethod().equalToString("post")) {
-            putEmbedded(exchange);
+            putEmbedded(exchange, resourceContext);
         } else if (exchange.getRequestMethod().equalToString("delete")) {
-            deleteEmbedded(exchange);
+            deleteEmbedded(exchange, resourceContext);
         } else {
             exchange.setStatusCode(400);
             exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
@@ -72,38 +73,43 @@ public class EmbeddedResourceHandler implements HttpHandler {
         }
     }
 
-    private void getEmbedded(HttpServerExchange exchange) {
+    private void getEmbedded(HttpServerExchange exchange, ResourceContext resourceContext) {
         ResourceElement topLevelElement = resourceContext.getFirstElement();
 
-        JsonNode jsonNode;
+        JsonDocument jsonDocument;
         try (Transaction tx = persistence.createTransaction(true)) {
-            JsonDocument jsonDocument = persistence.readDocument(tx, resourceContext.getTimestamp(), resourceContext.getNamespace(), topLevelElement.name(), topLevelElement.id()).blockingGet();
-            jsonNode = ofNullable(jsonDocument).map(JsonDocument::jackson).orElse(null);
+            jsonDocument = persistence.readDocument(tx, resourceContext.getTimestamp(), resourceContext.getNamespace(), topLevelElement.name(), topLevelElement.id()).blockingGet();
         }
+        JsonNode jsonNode = ofNullable(jsonDocument).map(JsonDocument::jackson).orElse(null);
 
         if (jsonNode == null) {
             exchange.setStatusCode(404);
             return;
         }
 
+        ResponseFormat format = ResponseFormat.negotiate(exchange);
+        exchange.getResponseHeaders().put(Headers.VARY, Headers.ACCEPT_STRING);
+        if (ConditionalGet.handleNotModified(exchange, jsonDocument.key().timestamp(), format)) {
+            return;
+        }
+
         // TODO consistent API independent of sub-tree json type. i.e. figure out whether we should always wrap
         // TODO result in a json-array?
         JsonNode subTreeRoot = resourceContext.subTree(jsonNode);
-        String result;
+        JsonNode result;
         if (subTreeRoot == null) {
-            result = "[null]";
+            result = mapper.createArrayNode().addNull();
         } else if (subTreeRoot.isContainerNode()) {
-            result = JsonTools.toJson(subTreeRoot);
+            result = subTreeRoot;
         } else {
             // wrap simple values in json array.
-            result = JsonTools.toJson(mapper.createArrayNode().add(subTreeRoot));
+            result = mapper.createArrayNode().add(subTreeRoot);
         }
-        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json; charset=utf-8");
-        exchange.getResponseSender().send(result, StandardCharsets.UTF_8);
+        format.write(exchange, result);
     }
 
-    private void putEmbedded(HttpServerExchange exchange) {
-        exchange.getRequestReceiver().receiveFullString(
+    private void putEmbedded(HttpServerExchange exchange, ResourceContext resourceContext) {
+        exchange.getRequestReceiver().receiveFullString(WriteCallbacks.fullString(
                 (httpServerExchange, message) -> {
                     ResourceElement topLevelElement = resourceContext.getFirstElement();
                     String namespace = resourceContext.getNamespace();
@@ -132,9 +138,7 @@ public class EmbeddedResourceHandler implements HttpHandler {
                     mergeJson(resourceContext, managedDocument, embeddedJson);
 
                     try {
-                        LinkedDocumentValidator validator = new LinkedDocumentValidator(specification, schemaRepository);
-                        // TODO avoid serialization and de-serialization due to using both jackson and org.json
-                        validator.validate(managedDomain, JsonTools.toJson(managedDocument));
+                        validator.validate(managedDomain, managedDocument);
                     } catch (LinkedDocumentValidationException ve) {
                         LOG.debug("Schema validation error: {}", ve.getMessage());
                         exchange.setStatusCode(400);
@@ -158,7 +162,7 @@ public class EmbeddedResourceHandler implements HttpHandler {
                     exchange.setStatusCode(200);
                     exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
                     exchange.getResponseSender().send("{\"saga-execution-id\":\"" + handoffResult.getExecutionId() + "\"}");
-                },
+                }),
                 (exchange1, e) -> {
                     exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
                     exchange.getResponseSender().send("Error putting embedded resource: " + e.getMessage());
@@ -167,8 +171,8 @@ public class EmbeddedResourceHandler implements HttpHandler {
                 StandardCharsets.UTF_8);
     }
 
-    private void deleteEmbedded(HttpServerExchange exchange) {
-        exchange.getRequestReceiver().receiveFullString(
+    private void deleteEmbedded(HttpServerExchange exchange, ResourceContext resourceContext) {
+        exchange.getRequestReceiver().receiveFullString(WriteCallbacks.fullString(
                 (httpServerExchange, message) -> {
                     ResourceElement topLevelElement = resourceContext.getFirstElement();
                     String namespace = resourceContext.getNamespace();
@@ -203,7 +207,7 @@ public class EmbeddedResourceHandler implements HttpHandler {
                     exchange.setStatusCode(200);
                     exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
                     exchange.getResponseSender().send("{\"saga-execution-id\":\"" + handoffResult.getExecutionId() + "\"}");
-                },
+                }),
                 (exchange1, e) -> {
                     exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
                     exchange.getResponseSender().send("Error deleting embedded resource: " + e.getMessage());
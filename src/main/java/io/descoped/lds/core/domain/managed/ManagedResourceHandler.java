@@ -5,11 +5,15 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.descoped.lds.api.persistence.Transaction;
 import io.descoped.lds.api.persistence.json.JsonDocument;
-import io.descoped.lds.api.persistence.json.JsonTools;
 import io.descoped.lds.api.persistence.reactivex.Range;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.api.specification.Specification;
 import io.descoped.lds.core.domain.BodyParser;
+import io.descoped.lds.core.domain.ConditionalGet;
+import io.descoped.lds.core.domain.JsonArrayResponseWriter;
+import io.descoped.lds.core.domain.RangeParameters;
+import io.descoped.lds.core.domain.ResponseFormat;
+import io.descoped.lds.core.domain.WriteCallbacks;
 import io.descoped.lds.core.domain.resource.ResourceContext;
 import io.descoped.lds.core.domain.resource.ResourceElement;
 import io.descoped.lds.core.saga.SagaCommands;
@@ -20,8 +24,9 @@ import io.descoped.lds.core.schema.SchemaRepository;
 import io.descoped.lds.core.validation.LinkedDocumentValidationException;
 import io.descoped.lds.core.validation.LinkedDocumentValidator;
 import io.reactivex.Flowable;
-import io.undertow.server.HttpHandler;
+import io.undertow.io.Receiver;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.server.RequestTooBigException;
 import io.undertow.util.HeaderMap;
 import io.undertow.util.HeaderValues;
 import io.undertow.util.Headers;
@@ -34,44 +39,57 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static io.descoped.lds.api.persistence.json.JsonTools.mapper;
 import static java.util.Optional.ofNullable;
 
-public class ManagedResourceHandler implements HttpHandler {
+public class ManagedResourceHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(ManagedResourceHandler.class);
 
     private final RxJsonPersistence persistence;
     private final Specification specification;
     private final SchemaRepository schemaRepository;
-    private final ResourceContext resourceContext;
+    private final LinkedDocumentValidator validator;
     private final SagaExecutionCoordinator sec;
     private final SagaRepository sagaRepository;
-    private final BodyParser bodyParser = new BodyParser();
+    private final BodyParser bodyParser;
+    private final int maxBatchSize;
+    private final int maxBatchBytes;
 
-    public ManagedResourceHandler(RxJsonPersistence persistence, Specification specification, SchemaRepository schemaRepository, ResourceContext resourceContext, SagaExecutionCoordinator sec, SagaRepository sagaRepository) {
+    public ManagedResourceHandler(RxJsonPersistence persistence, Specification specification, SchemaRepository schemaRepository, LinkedDocumentValidator validator, BodyParser bodyParser, SagaExecutionCoordinator sec, SagaRepository sagaRepository, int maxBatchSize, int maxBatchBytes) {
         this.persistence = persistence;
         this.specification = specification;
         this.schemaRepository = schemaRepository;
-        this.resourceContext = resourceContext;
+        this.validator = validator;
+        this.bodyParser = bodyParser;
         this.sec = sec;
         this.sagaRepository = sagaRepository;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchBytes = maxBatchBytes;
     }
 
-    @Override
-    public void handleRequest(HttpServerExchange exchange) {
+    public void handleRequest(HttpServerExchange exchange, ResourceContext resourceContext) {
         if (exchange.getRequestMethod().equalToString("get")) {
-            getManaged(exchange);
+            getManaged(exchange, resourceContext);
         } else if (exchange.getRequestMethod().equalToString("put")) {
-            putManaged(exchange);
+            putManaged(exchange, resourceContext);
         } else if (exchange.getRequestMethod().equalToString("post")) {
-            putManaged(exchange);
+            if (resourceContext.getFirstElement().id() == null) {
+                postManagedBatch(exchange, resourceContext);
+            } else {
+                putManaged(exchange, resourceContext);
+            }
         } else if (exchange.getRequestMethod().equalToString("delete")) {
-            deleteManaged(exchange);
+            deleteManaged(exchange, resourceContext);
         } else {
             exchange.setStatusCode(400);
             exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
@@ -79,7 +97,7 @@ public class ManagedResourceHandler implements HttpHandler {
         }
     }
 
-    private void getManaged(HttpServerExchange exchange) {
+    private void getManaged(HttpServerExchange exchange, ResourceContext resourceContext) {
         ResourceElement topLevelElement = resourceContext.getFirstElement();
 
         boolean isManagedList = topLevelElement.id() == null;
@@ -92,36 +110,89 @@ public class ManagedResourceHandler implements HttpHandler {
             return;
         }
 
+        boolean isTimeline = !isManagedList && exchange.getQueryParameters().containsKey("timeline");
+        ResponseFormat format = ResponseFormat.negotiate(exchange);
+        exchange.getResponseHeaders().put(Headers.VARY, Headers.ACCEPT_STRING);
+
+        RangeParameters rangeParameters;
+        Range<String> idRange;
+        Range<ZonedDateTime> versionRange;
+        try {
+            rangeParameters = RangeParameters.of(exchange.getQueryParameters());
+            idRange = isManagedList ? rangeParameters.toIdRange() : null;
+            versionRange = isTimeline ? rangeParameters.toVersionRange() : null;
+        } catch (IllegalArgumentException e) {
+            exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+            exchange.getResponseSender().send(e.getMessage());
+            return;
+        }
+
         try (Transaction tx = persistence.createTransaction(true)) {
             if (isManagedList) {
-                Iterable<JsonDocument> documents = persistence.readDocuments(tx, resourceContext.getTimestamp(), resourceContext.getNamespace(), topLevelElement.name(), Range.unbounded()).blockingIterable();
-                ArrayNode output = mapper.createArrayNode();
-                for (JsonDocument jsonDocument : documents) {
-                    if (jsonDocument.deleted()) {
-                        continue;
+                Flowable<JsonDocument> documents;
+                if (rangeParameters.isLimited()) {
+                    // A page is bounded by its limit, collect it so that the link headers can be sent before the body.
+                    int limit = rangeParameters.getLimit();
+                    boolean backward = rangeParameters.isBackward();
+                    // one more document than the limit tells whether there is a page beyond this one
+                    List<JsonDocument> page = readExisting(tx, resourceContext, limit + 1, backward, rangeParameters.getAfter(), rangeParameters.getBefore());
+                    boolean hasMore = page.size() > limit;
+                    if (hasMore) {
+                        page = backward ? page.subList(1, page.size()) : page.subList(0, limit);
                     }
-                    output.add(jsonDocument.jackson());
+                    if (!page.isEmpty()) {
+                        String firstId = page.get(0).key().id();
+                        String lastId = page.get(page.size() - 1).key().id();
+                        if (backward ? hasMore : !readExisting(tx, resourceContext, 1, true, null, firstId).isEmpty()) {
+                            rangeParameters.addPreviousLink(exchange, firstId);
+                        }
+                        if (backward ? !readExisting(tx, resourceContext, 1, false, lastId, null).isEmpty() : hasMore) {
+                            rangeParameters.addNextLink(exchange, lastId);
+                        }
+                    }
+                    documents = Flowable.fromIterable(page);
+                } else {
+                    documents = persistence.readDocuments(tx, resourceContext.getTimestamp(), resourceContext.getNamespace(), topLevelElement.name(), idRange)
+                            .filter(jsonDocument -> !jsonDocument.deleted());
                 }
-                exchange.getResponseSender().send(JsonTools.toJson(output), StandardCharsets.UTF_8);
+                JsonArrayResponseWriter.writeArray(exchange, documents.map(JsonDocument::jackson), format);
             } else {
-                if (exchange.getQueryParameters().containsKey("timeline")) {
+                if (isTimeline) {
                     ArrayNode output = mapper.createArrayNode();
-                    // TODO Support pagination or time-range based query parameters
-                    Flowable<JsonDocument> jsonDocumentFlowable = persistence.readDocumentVersions(tx, resourceContext.getNamespace(), topLevelElement.name(), topLevelElement.id(), Range.unbounded());
+                    Flowable<JsonDocument> jsonDocumentFlowable = persistence.readDocumentVersions(tx, resourceContext.getNamespace(), topLevelElement.name(), topLevelElement.id(), versionRange);
+                    String firstVersion = null;
+                    String lastVersion = null;
                     for (JsonDocument jsonDocument : jsonDocumentFlowable.blockingIterable()) {
+                        lastVersion = jsonDocument.key().timestamp().toString();
+                        if (firstVersion == null) {
+                            firstVersion = lastVersion;
+                        }
                         ObjectNode timeVersionedInstance = output.addObject();
-                        timeVersionedInstance.put("version", jsonDocument.key().timestamp().toString());
+                        timeVersionedInstance.put("version", lastVersion);
                         timeVersionedInstance.set("document", jsonDocument.jackson());
                     }
-                    if (output.size() == 0) {
+                    if (output.size() == 0 && rangeParameters.isEmpty()) {
                         exchange.setStatusCode(StatusCodes.NOT_FOUND).endExchange();
                         return;
                     }
-                    exchange.getResponseSender().send(JsonTools.toJson(output), StandardCharsets.UTF_8);
+                    if (rangeParameters.isLimited() && output.size() > 0) {
+                        // There is no version lookahead in persistence, a full page is assumed to have a successor.
+                        boolean fullPage = output.size() >= rangeParameters.getLimit();
+                        if (rangeParameters.isBackward() ? fullPage : rangeParameters.getAfter() != null) {
+                            rangeParameters.addPreviousLink(exchange, firstVersion);
+                        }
+                        if (rangeParameters.isBackward() ? rangeParameters.getBefore() != null : fullPage) {
+                            rangeParameters.addNextLink(exchange, lastVersion);
+                        }
+                    }
+                    format.write(exchange, output);
                 } else {
                     JsonDocument jsonDocument = persistence.readDocument(tx, resourceContext.getTimestamp(), resourceContext.getNamespace(), topLevelElement.name(), topLevelElement.id()).blockingGet();
                     if (jsonDocument != null && !jsonDocument.deleted()) {
-                        exchange.getResponseSender().send(JsonTools.toJson(jsonDocument.jackson()), StandardCharsets.UTF_8);
+                        if (!ConditionalGet.handleNotModified(exchange, jsonDocument.key().timestamp(), format)) {
+                            format.write(exchange, jsonDocument.jackson());
+                        }
                     } else {
                         exchange.setStatusCode(StatusCodes.NOT_FOUND);
                     }
@@ -131,13 +202,50 @@ public class ManagedResourceHandler implements HttpHandler {
         exchange.endExchange();
     }
 
-    private void putManaged(HttpServerExchange exchange) {
+    /**
+     * Reads up to count documents that are not deleted, in id order, from the start of the id range when reading forward
+     * and from its end when reading backward. Persistence limits a range before deleted documents can be filtered out,
+     * so the range is read until enough documents are collected or it is exhausted.
+     */
+    private List<JsonDocument> readExisting(Transaction tx, ResourceContext resourceContext, int count, boolean backward, String after, String before) {
+        LinkedList<JsonDocument> result = new LinkedList<>();
+        while (result.size() < count) {
+            int remaining = count - result.size();
+            Range<String> range = backward ? Range.lastBetween(remaining, after, before) : Range.firstBetween(remaining, after, before);
+            List<JsonDocument> read = persistence.readDocuments(tx, resourceContext.getTimestamp(), resourceContext.getNamespace(),
+                    resourceContext.getFirstElement().name(), range).toList().blockingGet();
+            if (read.isEmpty()) {
+                break;
+            }
+            if (backward) {
+                for (int i = read.size() - 1; i >= 0; i--) {
+                    if (!read.get(i).deleted()) {
+                        result.addFirst(read.get(i));
+                    }
+                }
+                before = read.get(0).key().id();
+            } else {
+                for (JsonDocument document : read) {
+                    if (!document.deleted()) {
+                        result.addLast(document);
+                    }
+                }
+                after = read.get(read.size() - 1).key().id();
+            }
+            if (read.size() < remaining) {
+                break;
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private void putManaged(HttpServerExchange exchange, ResourceContext resourceContext) {
         ResourceElement topLevelElement = resourceContext.getFirstElement();
         String namespace = resourceContext.getNamespace();
         String managedDomain = topLevelElement.name();
         String managedDocumentId = topLevelElement.id();
 
-        exchange.getRequestReceiver().receiveFullString(
+        exchange.getRequestReceiver().receiveFullString(WriteCallbacks.fullString(
                 (httpServerExchange, requestBody) -> {
                     // check if we received an empty payload
                     if ("".equals(requestBody)) {
@@ -165,8 +273,7 @@ public class ManagedResourceHandler implements HttpHandler {
                     }
 
                     try {
-                        LinkedDocumentValidator validator = new LinkedDocumentValidator(specification, schemaRepository);
-                        validator.validate(managedDomain, requestBody);
+                        validator.validate(managedDomain, requestData);
                     } catch (LinkedDocumentValidationException ve) {
                         LOG.debug("Schema validation error: {}", ve.getMessage());
                         exchange.setStatusCode(400);
@@ -193,7 +300,7 @@ public class ManagedResourceHandler implements HttpHandler {
                     exchange.setStatusCode(StatusCodes.CREATED);
                     exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
                     exchange.getResponseSender().send("{\"saga-execution-id\":\"" + handoffResult.getExecutionId() + "\"}");
-                },
+                }),
                 (exchange1, e) -> {
                     exchange.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
                     exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
@@ -203,7 +310,134 @@ public class ManagedResourceHandler implements HttpHandler {
                 StandardCharsets.UTF_8);
     }
 
-    private void deleteManaged(HttpServerExchange exchange) {
+    /**
+     * Creates or updates all documents in the request body with one saga execution. The body is a stream of
+     * documents (newline delimited json or msgpack), each of which must have an 'id' property.
+     * <p>
+     * Bodies larger than maxBatchBytes are rejected from their Content-Length, or while they are received when the
+     * length is not known up front, so an oversized batch is never buffered in full.
+     */
+    private void postManagedBatch(HttpServerExchange exchange, ResourceContext resourceContext) {
+        String namespace = resourceContext.getNamespace();
+        String managedDomain = resourceContext.getFirstElement().name();
+
+        if (exchange.getRequestContentLength() > maxBatchBytes) {
+            sendBatchTooLarge(exchange);
+            return;
+        }
+
+        String contentType = ofNullable(exchange.getRequestHeaders().get(Headers.CONTENT_TYPE))
+                .map(HeaderValues::getFirst).orElse("application/x-ndjson");
+        if (!bodyParser.isBodyStreamSupported(contentType)) {
+            exchange.setStatusCode(StatusCodes.UNSUPPORTED_MEDIA_TYPE);
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+            exchange.getResponseSender().send("Unsupported Content-Type: " + contentType);
+            return;
+        }
+
+        Receiver receiver = exchange.getRequestReceiver();
+        receiver.setMaxBufferSize(maxBatchBytes);
+        receiver.receiveFullBytes(WriteCallbacks.fullBytes(
+                (httpServerExchange, requestBody) -> {
+                    List<JsonNode> documents;
+                    try {
+                        documents = bodyParser.deserializeBodyStream(contentType, requestBody, maxBatchSize);
+                    } catch (IllegalArgumentException e) {
+                        exchange.setStatusCode(400);
+                        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+                        exchange.getResponseSender().send(e.getMessage());
+                        return;
+                    }
+
+                    if (documents.isEmpty()) {
+                        LOG.error("Received empty payload for: {}", exchange.getRequestPath());
+                        exchange.setStatusCode(400);
+                        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+                        exchange.getResponseSender().send("Payload was empty!");
+                        return;
+                    }
+
+                    if (documents.size() > maxBatchSize) {
+                        exchange.setStatusCode(StatusCodes.REQUEST_ENTITY_TOO_LARGE);
+                        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+                        exchange.getResponseSender().send("Batch has more than " + maxBatchSize + " documents");
+                        return;
+                    }
+
+                    List<String> errors = new ArrayList<>();
+                    Set<String> ids = new HashSet<>();
+                    for (int i = 0; i < documents.size(); i++) {
+                        JsonNode document = documents.get(i);
+                        String error = validateBatchDocument(validator, managedDomain, i, document);
+                        if (error != null) {
+                            errors.add(error);
+                        } else if (!ids.add(document.get("id").textValue())) {
+                            errors.add(String.format("document %d: duplicate id %s", i, document.get("id").textValue()));
+                        }
+                    }
+                    if (!errors.isEmpty()) {
+                        LOG.debug("Schema validation errors: {}", errors);
+                        exchange.setStatusCode(400);
+                        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+                        exchange.getResponseSender().send("Schema validation error: " + String.join("\n", errors));
+                        return;
+                    }
+
+                    // True if defined and no false values.
+                    Map<String, Deque<String>> parameters = exchange.getQueryParameters();
+                    boolean sync = parameters.getOrDefault("sync", new LinkedList<>())
+                            .stream().noneMatch("false"::equalsIgnoreCase);
+
+                    String source = ofNullable(exchange.getQueryParameters().get("source")).map(Deque::peekFirst).orElse(null);
+
+                    List<SagaInput> batch = new ArrayList<>(documents.size());
+                    for (JsonNode document : documents) {
+                        batch.add(new SagaInput(sec.generateTxId(), "PUT", "TODO", namespace, managedDomain,
+                                document.get("id").textValue(), resourceContext.getTimestamp(), source, null, document));
+                    }
+
+                    Saga saga = sagaRepository.get(SagaRepository.SAGA_CREATE_OR_UPDATE_MANAGED_RESOURCE_BATCH);
+                    AdapterLoader adapterLoader = sagaRepository.getAdapterLoader();
+                    SagaInput sagaInput = SagaInput.batch(sec.generateTxId(), "PUT", "TODO", namespace, managedDomain, resourceContext.getTimestamp(), source, batch);
+                    SelectableFuture<SagaHandoffResult> handoff = sec.handoff(sync, adapterLoader, saga, sagaInput, SagaCommands.getSagaAdminParameterCommands(httpServerExchange));
+                    SagaHandoffResult handoffResult = handoff.join();
+
+                    exchange.setStatusCode(StatusCodes.CREATED);
+                    exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+                    exchange.getResponseSender().send("{\"saga-execution-id\":\"" + handoffResult.getExecutionId() + "\",\"count\":" + batch.size() + "}");
+                }),
+                (exchange1, e) -> {
+                    if (e instanceof RequestTooBigException) {
+                        sendBatchTooLarge(exchange);
+                        return;
+                    }
+                    exchange.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
+                    exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+                    exchange.getResponseSender().send("Error: " + e.getMessage());
+                    LOG.warn("", e);
+                });
+    }
+
+    private void sendBatchTooLarge(HttpServerExchange exchange) {
+        exchange.setStatusCode(StatusCodes.REQUEST_ENTITY_TOO_LARGE);
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+        exchange.getResponseSender().send("Batch is larger than " + maxBatchBytes + " bytes");
+    }
+
+    private static String validateBatchDocument(LinkedDocumentValidator validator, String managedDomain, int index, JsonNode document) {
+        JsonNode id = document.get("id");
+        if (id == null || !id.isTextual() || id.textValue().isEmpty()) {
+            return String.format("document %d: Id was empty!", index);
+        }
+        try {
+            validator.validate(managedDomain, document);
+            return null;
+        } catch (LinkedDocumentValidationException ve) {
+            return String.format("document %d (id %s): %s", index, id.textValue(), ve.getMessage());
+        }
+    }
+
+    private void deleteManaged(HttpServerExchange exchange, ResourceContext resourceContext) {
         ResourceElement topLevelElement = resourceContext.getFirstElement();
         String managedDomain = topLevelElement.name();
 
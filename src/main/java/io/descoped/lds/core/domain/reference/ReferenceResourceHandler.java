@@ -6,13 +6,13 @@ import io.descoped.lds.api.persistence.Transaction;
 import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.api.specification.Specification;
+import io.descoped.lds.core.domain.WriteCallbacks;
 import io.descoped.lds.core.domain.resource.ResourceContext;
 import io.descoped.lds.core.domain.resource.ResourceElement;
 import io.descoped.lds.core.saga.SagaCommands;
 import io.descoped.lds.core.saga.SagaExecutionCoordinator;
 import io.descoped.lds.core.saga.SagaInput;
 import io.descoped.lds.core.saga.SagaRepository;
-import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import no.cantara.concurrent.futureselector.SelectableFuture;
@@ -29,34 +29,31 @@ import java.util.LinkedList;
 import static io.descoped.lds.api.persistence.json.JsonTools.mapper;
 import static java.util.Optional.ofNullable;
 
-public class ReferenceResourceHandler implements HttpHandler {
+public class ReferenceResourceHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(ReferenceResourceHandler.class);
 
     final RxJsonPersistence persistence;
     final Specification specification;
-    final ResourceContext resourceContext;
     final SagaExecutionCoordinator sec;
     final SagaRepository sagaRepository;
 
-    public ReferenceResourceHandler(RxJsonPersistence persistence, Specification specification, ResourceContext resourceContext, SagaExecutionCoordinator sec, SagaRepository sagaRepository) {
+    public ReferenceResourceHandler(RxJsonPersistence persistence, Specification specification, SagaExecutionCoordinator sec, SagaRepository sagaRepository) {
         this.persistence = persistence;
         this.specification = specification;
-        this.resourceContext = resourceContext;
         this.sec = sec;
         this.sagaRepository = sagaRepository;
     }
 
-    @Override
-    public void handleRequest(HttpServerExchange exchange) {
+    public void handleRequest(HttpServerExchange exchange, ResourceContext resourceContext) {
         if (exchange.getRequestMethod().equalToString("get")) {
-            getReferenceTo(exchange);
+            getReferenceTo(exchange, resourceContext);
         } else if (exchange.getRequestMethod().equalToString("put")) {
-            putReferenceTo(exchange);
+            putReferenceTo(exchange, resourceContext);
         } else if (exchange.getRequestMethod().equalToString("post")) {
-            putReferenceTo(exchange);
+            putReferenceTo(exchange, resourceContext);
         } else if (exchange.getRequestMethod().equalToString("delete")) {
-            deleteReferenceTo(exchange);
+            deleteReferenceTo(exchange, resourceContext);
         } else {
             exchange.setStatusCode(400);
             exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
@@ -64,7 +61,7 @@ public class ReferenceResourceHandler implements HttpHandler {
         }
     }
 
-    private void getReferenceTo(HttpServerExchange exchange) {
+    private void getReferenceTo(HttpServerExchange exchange, ResourceContext resourceContext) {
         ResourceElement topLevelElement = resourceContext.getFirstElement();
 
         JsonNode jsonNode;
@@ -86,13 +83,13 @@ public class ReferenceResourceHandler implements HttpHandler {
         }
     }
 
-    private void putReferenceTo(HttpServerExchange exchange) {
+    private void putReferenceTo(HttpServerExchange exchange, ResourceContext resourceContext) {
         ResourceElement topLevelElement = resourceContext.getFirstElement();
         String namespace = resourceContext.getNamespace();
         String managedDomain = topLevelElement.name();
         String managedDocumentId = topLevelElement.id();
 
-        exchange.getRequestReceiver().receiveFullString(
+        exchange.getRequestReceiver().receiveFullString(WriteCallbacks.fullString(
                 (httpServerExchange, message) -> {
                     JsonDocument jsonDocument;
                     try (Transaction tx = persistence.createTransaction(true)) {
@@ -123,7 +120,7 @@ public class ReferenceResourceHandler implements HttpHandler {
                         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
                         exchange.getResponseSender().send("{\"saga-execution-id\":\"" + sagaHandoffResult.getExecutionId() + "\"}");
                     }
-                },
+                }),
                 (exchange1, e) -> {
                     exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
                     exchange.getResponseSender().send("Error: " + e.getMessage());
@@ -132,7 +129,7 @@ public class ReferenceResourceHandler implements HttpHandler {
                 StandardCharsets.UTF_8);
     }
 
-    private void deleteReferenceTo(HttpServerExchange exchange) {
+    private void deleteReferenceTo(HttpServerExchange exchange, ResourceContext resourceContext) {
         ResourceElement topLevelElement = resourceContext.getFirstElement();
         String namespace = resourceContext.getNamespace();
         String managedDomain = topLevelElement.name();
@@ -4,11 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.descoped.lds.api.specification.Specification;
-import io.descoped.lds.api.specification.SpecificationElement;
-import io.descoped.lds.api.specification.SpecificationElementType;
 
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -16,67 +12,17 @@ import java.util.function.Supplier;
 import static java.util.Optional.ofNullable;
 
 /**
+ * A resolved resource path, created by {@link ResourceRouter}.
+ * <p>
  * TODO Support json array-navigation
  */
 public class ResourceContext {
 
+    /**
+     * Resolves the request path with the cached {@link ResourceRouter} of the specification.
+     */
     public static ResourceContext createResourceContext(Specification specification, String requestPath, ZonedDateTime timestamp) throws ResourceException {
-        SpecificationElement specificationRootElement = specification.getRootElement();
-        String[] pathParts = requestPath.substring(1).split("/");
-        if (pathParts.length < 2) {
-            throw new ResourceException("Not a valid resource. The resource path must contain at least namespace, name, and id of managed resource");
-        }
-        String namespace = urlDecode(pathParts[0]);
-        String managedResourceName = urlDecode(pathParts[1]);
-        if (!specificationRootElement.getProperties().containsKey(managedResourceName)) {
-            throw new ResourceException("Not a managed resource name: \"" + managedResourceName + "\"");
-        }
-        String managedResourceId = null;
-        if (pathParts.length > 2) {
-            managedResourceId = urlDecode(pathParts[2]);
-            if (managedResourceId.trim().isEmpty()) {
-                throw new ResourceException("Managed resource id cannot be empty.");
-            }
-        }
-        SpecificationElement managedSpecificationElement = specificationRootElement.getProperties().get(managedResourceName);
-        ResourceElement secondElement = navigateSpecAndCreateResourceContext(managedSpecificationElement, 3, pathParts);
-        ResourceElement firstElement = new ResourceElement(managedSpecificationElement, managedResourceName, managedResourceId, secondElement);
-        return new ResourceContext(namespace, firstElement, timestamp);
-    }
-
-    private static ResourceElement navigateSpecAndCreateResourceContext(SpecificationElement parentSpecificationElement, int depth, String[] resourcePath) {
-        if (depth > (resourcePath.length - 1)) {
-            // managed or embedded resource
-            return null;
-        }
-        String pathElement = urlDecode(resourcePath[depth]);
-        if (parentSpecificationElement.getProperties() == null
-                || !parentSpecificationElement.getProperties().containsKey(pathElement)) {
-            throw new ResourceException("Not a valid path element: \"" + pathElement + "\"");
-        }
-        SpecificationElement matchedElement = parentSpecificationElement.getProperties().get(pathElement);
-        if (SpecificationElementType.REF.equals(matchedElement.getSpecificationElementType())) {
-            if ((depth + 2) > (resourcePath.length - 1)) {
-                if ((depth + 1) > (resourcePath.length - 1)) {
-                    // embedded resource with linked-data value(s)
-                    return new ResourceElement(matchedElement, pathElement, null, null);
-                }
-                throw new ResourceException("Reference resource path-element: \"" + pathElement + "\" must be part of pattern ending like: \"/" + pathElement + "/<managed-domain>/<id>\"");
-            }
-            if ((depth + 2) < (resourcePath.length - 1)) {
-                throw new ResourceException("Resource path cannot navigate through REF property: \"" + pathElement + "\"");
-            }
-            // (depth + 1) == (resourcePath.length - 1)
-            // linked-data resource
-            String linkedManagedDomain = urlDecode(resourcePath[depth + 1]);
-            if (!matchedElement.getRefTypes().contains(linkedManagedDomain)) {
-                throw new ResourceException("Reference resource does not support link to managed-domain \"" + linkedManagedDomain + "\". Must be one of: " + matchedElement.getRefTypes());
-            }
-            String linkedResourceId = urlDecode(resourcePath[depth + 2]);
-            String referenceValue = "/" + linkedManagedDomain + "/" + linkedResourceId;
-            return new ResourceElement(matchedElement, pathElement, referenceValue, null);
-        }
-        return new ResourceElement(matchedElement, pathElement, null, navigateSpecAndCreateResourceContext(matchedElement, depth + 1, resourcePath));
+        return ResourceRouter.of(specification).route(requestPath, timestamp);
     }
 
     private static ResourceType getResourceType(ResourceElement firstElement) {
@@ -98,17 +44,13 @@ public class ResourceContext {
     private final ResourceType resourcetype;
     private final ZonedDateTime timestamp;
 
-    private ResourceContext(String namespace, ResourceElement firstElement, ZonedDateTime timestamp) {
+    ResourceContext(String namespace, ResourceElement firstElement, ZonedDateTime timestamp) {
         this.namespace = namespace;
         this.firstElement = firstElement;
         this.resourcetype = getResourceType(firstElement);
         this.timestamp = timestamp;
     }
 
-    private static String urlDecode(String encoded) {
-        return URLDecoder.decode(encoded, StandardCharsets.UTF_8);
-    }
-
     public String getNamespace() {
         return namespace;
     }
@@ -0,0 +1,137 @@
+package io.descoped.lds.core.domain.resource;
+
+import io.descoped.lds.api.specification.Specification;
+import io.descoped.lds.api.specification.SpecificationElement;
+import io.descoped.lds.api.specification.SpecificationElementType;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Resolves resource paths to a {@link ResourceContext} using a trie compiled from the specification at startup.
+ * <p>
+ * Every managed domain is a root of the trie, and the embedded properties of the domain are the children of their
+ * parent element. Reference properties are leaves that know which managed domains they may link to. Resolving a path
+ * is one lookup per path element, and path elements are only url-decoded when they contain escaped characters.
+ * <p>
+ * The router of a specification is compiled once and cached, see {@link #of(Specification)}.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+public class ResourceRouter {
+
+    private static final Map<Specification, ResourceRouter> ROUTER_BY_SPECIFICATION = new WeakHashMap<>();
+
+    private final Map<String, Node> managedDomains;
+
+    /**
+     * @return the router compiled from the given specification, which is shared by all callers of the specification.
+     */
+    public static ResourceRouter of(Specification specification) {
+        synchronized (ROUTER_BY_SPECIFICATION) {
+            return ROUTER_BY_SPECIFICATION.computeIfAbsent(specification, ResourceRouter::new);
+        }
+    }
+
+    public ResourceRouter(Specification specification) {
+        Map<String, Node> managedDomains = new HashMap<>();
+        for (Map.Entry<String, SpecificationElement> entry : specification.getRootElement().getProperties().entrySet()) {
+            managedDomains.put(entry.getKey(), Node.compile(entry.getValue()));
+        }
+        this.managedDomains = Collections.unmodifiableMap(managedDomains);
+    }
+
+    public ResourceContext route(String requestPath, ZonedDateTime timestamp) throws ResourceException {
+        String[] pathParts = requestPath.substring(1).split("/");
+        if (pathParts.length < 2) {
+            throw new ResourceException("Not a valid resource. The resource path must contain at least namespace, name, and id of managed resource");
+        }
+        String namespace = urlDecode(pathParts[0]);
+        String managedResourceName = urlDecode(pathParts[1]);
+        Node managedNode = managedDomains.get(managedResourceName);
+        if (managedNode == null) {
+            throw new ResourceException("Not a managed resource name: \"" + managedResourceName + "\"");
+        }
+        String managedResourceId = null;
+        if (pathParts.length > 2) {
+            managedResourceId = urlDecode(pathParts[2]);
+            if (managedResourceId.trim().isEmpty()) {
+                throw new ResourceException("Managed resource id cannot be empty.");
+            }
+        }
+        ResourceElement secondElement = route(managedNode, 3, pathParts);
+        ResourceElement firstElement = new ResourceElement(managedNode.element, managedResourceName, managedResourceId, secondElement);
+        return new ResourceContext(namespace, firstElement, timestamp);
+    }
+
+    private static ResourceElement route(Node parent, int depth, String[] pathParts) {
+        if (depth > (pathParts.length - 1)) {
+            // managed or embedded resource
+            return null;
+        }
+        String pathElement = urlDecode(pathParts[depth]);
+        Node node = parent.children.get(pathElement);
+        if (node == null) {
+            throw new ResourceException("Not a valid path element: \"" + pathElement + "\"");
+        }
+        if (node.refTypes == null) {
+            return new ResourceElement(node.element, pathElement, null, route(node, depth + 1, pathParts));
+        }
+        if ((depth + 2) > (pathParts.length - 1)) {
+            if ((depth + 1) > (pathParts.length - 1)) {
+                // embedded resource with linked-data value(s)
+                return new ResourceElement(node.element, pathElement, null, null);
+            }
+            throw new ResourceException("Reference resource path-element: \"" + pathElement + "\" must be part of pattern ending like: \"/" + pathElement + "/<managed-domain>/<id>\"");
+        }
+        if ((depth + 2) < (pathParts.length - 1)) {
+            throw new ResourceException("Resource path cannot navigate through REF property: \"" + pathElement + "\"");
+        }
+        // linked-data resource
+        String linkedManagedDomain = urlDecode(pathParts[depth + 1]);
+        if (!node.refTypes.contains(linkedManagedDomain)) {
+            throw new ResourceException("Reference resource does not support link to managed-domain \"" + linkedManagedDomain + "\". Must be one of: " + node.refTypes);
+        }
+        String linkedResourceId = urlDecode(pathParts[depth + 2]);
+        return new ResourceElement(node.element, pathElement, "/" + linkedManagedDomain + "/" + linkedResourceId, null);
+    }
+
+    private static String urlDecode(String encoded) {
+        if (encoded.indexOf('%') == -1 && encoded.indexOf('+') == -1) {
+            return encoded;
+        }
+        return URLDecoder.decode(encoded, StandardCharsets.UTF_8);
+    }
+
+    private static class Node {
+        final SpecificationElement element;
+        final Map<String, Node> children;
+        final Set<String> refTypes;
+
+        private Node(SpecificationElement element, Map<String, Node> children, Set<String> refTypes) {
+            this.element = element;
+            this.children = children;
+            this.refTypes = refTypes;
+        }
+
+        static Node compile(SpecificationElement element) {
+            if (SpecificationElementType.REF.equals(element.getSpecificationElementType())) {
+                return new Node(element, Collections.emptyMap(), element.getRefTypes());
+            }
+            if (element.getProperties() == null || element.getProperties().isEmpty()) {
+                return new Node(element, Collections.emptyMap(), null);
+            }
+            Map<String, Node> children = new HashMap<>();
+            for (Map.Entry<String, SpecificationElement> entry : element.getProperties().entrySet()) {
+                children.put(entry.getKey(), compile(entry.getValue()));
+            }
+            return new Node(element, Collections.unmodifiableMap(children), null);
+        }
+    }
+}
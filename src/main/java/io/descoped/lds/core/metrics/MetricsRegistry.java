@@ -0,0 +1,178 @@
+package io.descoped.lds.core.metrics;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the counters, timers and gauges of the application, written in the Prometheus text exposition format.
+ * <p>
+ * Metrics are identified by name and labels, the labels are given as alternating names and values. Looking up a metric
+ * that is already registered returns the existing instance, which allows callers to either keep a reference or look up
+ * the metric each time it is used.
+ */
+public class MetricsRegistry {
+
+    private final Map<String, Family<?>> families = new ConcurrentSkipListMap<>();
+
+    public Counter counter(String name, String help, String... labels) {
+        return family(name, help, Type.COUNTER).child(labels, l -> new Counter());
+    }
+
+    public Timer timer(String name, String help, String... labels) {
+        return family(name, help, Type.HISTOGRAM).child(labels, l -> new Timer());
+    }
+
+    /**
+     * Registers a gauge that is evaluated every time the metrics are written. Registering the same name and labels
+     * again replaces the supplier.
+     */
+    public void gauge(String name, String help, Supplier<? extends Number> supplier, String... labels) {
+        Family<Supplier<? extends Number>> family = family(name, help, Type.GAUGE);
+        family.children.put(Family.labelString(labels), supplier);
+    }
+
+    /**
+     * Registers gauges for the number of active threads, pool size, queue size and completed tasks of a thread-pool.
+     */
+    public void monitor(String pool, ThreadPoolExecutor executor) {
+        gauge("lds_threadpool_active_threads", "Number of threads that are actively executing tasks", executor::getActiveCount, "pool", pool);
+        gauge("lds_threadpool_size_threads", "Current number of threads in the pool", executor::getPoolSize, "pool", pool);
+        gauge("lds_threadpool_max_threads", "Maximum allowed number of threads in the pool", executor::getMaximumPoolSize, "pool", pool);
+        gauge("lds_threadpool_queued_tasks", "Number of tasks waiting in the queue", () -> executor.getQueue().size(), "pool", pool);
+        gauge("lds_threadpool_completed_tasks", "Approximate total number of tasks that have completed execution", executor::getCompletedTaskCount, "pool", pool);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Family<T> family(String name, String help, Type type) {
+        Family<?> family = families.computeIfAbsent(name, n -> new Family<>(n, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException(String.format("Metric %s is already registered as a %s", name, family.type.name));
+        }
+        return (Family<T>) family;
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format, version 0.0.4.
+     */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Family<?> family : families.values()) {
+            family.writeTo(sb);
+        }
+        return sb.toString();
+    }
+
+    enum Type {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        HISTOGRAM("histogram");
+
+        final String name;
+
+        Type(String name) {
+            this.name = name;
+        }
+    }
+
+    static class Family<T> {
+        // plain decimal, Double.toString would write 0.0005 as 5.0E-4
+        static final String[] BUCKET_LABELS = new String[Timer.DEFAULT_BUCKETS_SECONDS.length];
+
+        static {
+            for (int i = 0; i < BUCKET_LABELS.length; i++) {
+                BUCKET_LABELS[i] = BigDecimal.valueOf(Timer.DEFAULT_BUCKETS_SECONDS[i]).toPlainString();
+            }
+        }
+
+        final String name;
+        final String help;
+        final Type type;
+        final Map<String, T> children = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        T child(String[] labels, Function<String, T> factory) {
+            return children.computeIfAbsent(labelString(labels), factory);
+        }
+
+        static String labelString(String[] labels) {
+            if (labels.length % 2 != 0) {
+                throw new IllegalArgumentException("Labels must be given as pairs of name and value");
+            }
+            if (labels.length == 0) {
+                return "";
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < labels.length; i += 2) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+            }
+            return sb.toString();
+        }
+
+        static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+
+        @SuppressWarnings("unchecked")
+        void writeTo(StringBuilder sb) {
+            if (children.isEmpty()) {
+                return;
+            }
+            sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(type.name).append('\n');
+            for (Map.Entry<String, T> entry : children.entrySet()) {
+                String labels = entry.getKey();
+                Object metric = entry.getValue();
+                if (metric instanceof Counter) {
+                    sample(sb, name, labels, null, ((Counter) metric).count());
+                } else if (metric instanceof Timer) {
+                    Timer timer = (Timer) metric;
+                    long[] cumulative = timer.cumulativeBucketCounts();
+                    for (int i = 0; i < BUCKET_LABELS.length; i++) {
+                        sample(sb, name + "_bucket", labels, BUCKET_LABELS[i], cumulative[i]);
+                    }
+                    sample(sb, name + "_bucket", labels, "+Inf", cumulative[cumulative.length - 1]);
+                    sample(sb, name + "_sum", labels, null, timer.sumSeconds());
+                    sample(sb, name + "_count", labels, null, cumulative[cumulative.length - 1]);
+                } else {
+                    Number value;
+                    try {
+                        value = ((Supplier<? extends Number>) metric).get();
+                    } catch (RuntimeException e) {
+                        continue;
+                    }
+                    sample(sb, name, labels, null, value);
+                }
+            }
+        }
+
+        private static void sample(StringBuilder sb, String name, String labels, String le, Number value) {
+            sb.append(name);
+            if (!labels.isEmpty() || le != null) {
+                sb.append('{').append(labels);
+                if (le != null) {
+                    if (!labels.isEmpty()) {
+                        sb.append(',');
+                    }
+                    sb.append("le=\"").append(le).append('"');
+                }
+                sb.append('}');
+            }
+            sb.append(' ').append(value).append('\n');
+        }
+    }
+}
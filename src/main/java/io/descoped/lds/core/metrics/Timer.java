@@ -0,0 +1,67 @@
+package io.descoped.lds.core.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed buckets, exposed in seconds.
+ */
+public class Timer {
+
+    static final double[] DEFAULT_BUCKETS_SECONDS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30
+    };
+
+    private final long[] upperBoundsNanos;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    Timer() {
+        upperBoundsNanos = new long[DEFAULT_BUCKETS_SECONDS.length];
+        for (int i = 0; i < DEFAULT_BUCKETS_SECONDS.length; i++) {
+            upperBoundsNanos[i] = (long) (DEFAULT_BUCKETS_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+        buckets = new LongAdder[upperBoundsNanos.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long durationNanos) {
+        int i = Arrays.binarySearch(upperBoundsNanos, durationNanos);
+        buckets[i >= 0 ? i : -(i + 1)].increment();
+        count.increment();
+        sumNanos.add(durationNanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double sumSeconds() {
+        return sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * @return the cumulative count of recordings less than or equal to each bucket bound, the last element is the
+     * count of all recordings.
+     */
+    long[] cumulativeBucketCounts() {
+        long[] result = new long[buckets.length];
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            result[i] = cumulative;
+        }
+        return result;
+    }
+}
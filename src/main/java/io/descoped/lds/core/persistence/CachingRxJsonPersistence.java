@@ -0,0 +1,229 @@
+package io.descoped.lds.core.persistence;
+
+import io.descoped.lds.api.json.JsonNavigationPath;
+import io.descoped.lds.api.persistence.PersistenceDeletePolicy;
+import io.descoped.lds.api.persistence.PersistenceException;
+import io.descoped.lds.api.persistence.Transaction;
+import io.descoped.lds.api.persistence.TransactionStatistics;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import io.descoped.lds.api.persistence.reactivex.Range;
+import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
+import io.descoped.lds.api.specification.Specification;
+import io.descoped.lds.core.metrics.Counter;
+import io.descoped.lds.core.metrics.MetricsRegistry;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Read-through cache of {@link #readDocument} in front of another persistence.
+ * <p>
+ * Documents written or deleted through this persistence are invalidated both when the write completes and when its
+ * transaction is committed or cancelled, which makes writes visible to reads that start after the transaction is
+ * closed. Writes made by other instances are not seen, the cache must therefore only be used when this instance is
+ * the only writer.
+ * <p>
+ * A document read at a snapshot at or after the version horizon, the latest of the start of this instance and every
+ * version written through it, is the latest version of the document and is cached for all later snapshots. A document
+ * read at an earlier snapshot is only cached for that snapshot. This assumes that no version written before this
+ * instance started is in the future.
+ */
+public class CachingRxJsonPersistence implements RxJsonPersistence {
+
+    final RxJsonPersistence delegate;
+    final DocumentCache cache;
+    final Counter hits;
+    final Counter misses;
+    final AtomicReference<Instant> versionHorizon = new AtomicReference<>(Instant.now());
+
+    public CachingRxJsonPersistence(RxJsonPersistence delegate, int maxEntries, long maxWeightBytes, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.cache = new DocumentCache(Math.max(1, Runtime.getRuntime().availableProcessors() * 4), maxEntries, maxWeightBytes);
+        this.hits = metrics.counter("lds_persistence_cache_requests_total", "Number of document reads served by the persistence cache", "result", "hit");
+        this.misses = metrics.counter("lds_persistence_cache_requests_total", "Number of document reads served by the persistence cache", "result", "miss");
+        metrics.gauge("lds_persistence_cache_documents", "Number of documents in the persistence cache", cache::size);
+        metrics.gauge("lds_persistence_cache_weight_bytes", "Approximate size of the persistence cache", cache::weight);
+    }
+
+    @Override
+    public Maybe<JsonDocument> readDocument(Transaction tx, ZonedDateTime snapshot, String ns, String entityName, String id) {
+        DocumentCache.Key key = new DocumentCache.Key(ns, entityName, id);
+        DocumentCache.CachedDocument cached = cache.get(key, snapshot);
+        if (cached != null) {
+            hits.increment();
+            return Maybe.fromCallable(cached::toDocument);
+        }
+        misses.increment();
+        long generation = cache.generation(key);
+        boolean latest = !snapshot.toInstant().isBefore(versionHorizon.get());
+        return delegate.readDocument(unwrap(tx), snapshot, ns, entityName, id)
+                .map(Optional::of)
+                .toSingle(Optional.empty())
+                .doOnSuccess(document -> cache.put(key, snapshot, document.orElse(null), latest, generation))
+                .flatMapMaybe(document -> document.map(Maybe::just).orElseGet(Maybe::empty));
+    }
+
+    @Override
+    public Flowable<JsonDocument> readDocuments(Transaction tx, ZonedDateTime snapshot, String ns, String entityName, Range<String> range) {
+        return delegate.readDocuments(unwrap(tx), snapshot, ns, entityName, range);
+    }
+
+    @Override
+    public Flowable<JsonDocument> readDocumentVersions(Transaction tx, String ns, String entityName, String id, Range<ZonedDateTime> range) {
+        return delegate.readDocumentVersions(unwrap(tx), ns, entityName, id, range);
+    }
+
+    @Override
+    public Flowable<JsonDocument> readTargetDocuments(Transaction tx, ZonedDateTime snapshot, String ns, String sourceEntityName, String sourceId, JsonNavigationPath relationPath, String targetEntityName, Range<String> range) {
+        return delegate.readTargetDocuments(unwrap(tx), snapshot, ns, sourceEntityName, sourceId, relationPath, targetEntityName, range);
+    }
+
+    @Override
+    public Flowable<JsonDocument> readSourceDocuments(Transaction tx, ZonedDateTime snapshot, String ns, String targetEntityName, String targetId, JsonNavigationPath relationPath, String sourceEntityName, Range<String> range) {
+        return delegate.readSourceDocuments(unwrap(tx), snapshot, ns, targetEntityName, targetId, relationPath, sourceEntityName, range);
+    }
+
+    @Override
+    public Completable createOrOverwrite(Transaction tx, JsonDocument document, Specification specification) {
+        advanceVersionHorizon(document.key().timestamp());
+        return delegate.createOrOverwrite(unwrap(tx), document, specification)
+                .doFinally(() -> written(tx, Collections.singleton(DocumentCache.Key.of(document.key()))));
+    }
+
+    @Override
+    public Completable createOrOverwrite(Transaction tx, Flowable<JsonDocument> documentFlowable, Specification specification) {
+        Set<DocumentCache.Key> keys = ConcurrentHashMap.newKeySet();
+        return delegate.createOrOverwrite(unwrap(tx), documentFlowable.doOnNext(document -> {
+            advanceVersionHorizon(document.key().timestamp());
+            keys.add(DocumentCache.Key.of(document.key()));
+        }), specification)
+                .doFinally(() -> written(tx, keys));
+    }
+
+    @Override
+    public Completable deleteDocument(Transaction tx, String ns, String entityName, String id, ZonedDateTime version, PersistenceDeletePolicy policy) {
+        advanceVersionHorizon(version);
+        return delegate.deleteDocument(unwrap(tx), ns, entityName, id, version, policy)
+                .doFinally(() -> written(tx, Collections.singleton(new DocumentCache.Key(ns, entityName, id))));
+    }
+
+    @Override
+    public Completable deleteAllDocumentVersions(Transaction tx, String ns, String entity, String id, PersistenceDeletePolicy policy) {
+        return delegate.deleteAllDocumentVersions(unwrap(tx), ns, entity, id, policy)
+                .doFinally(() -> written(tx, Collections.singleton(new DocumentCache.Key(ns, entity, id))));
+    }
+
+    @Override
+    public Completable deleteAllEntities(Transaction tx, String namespace, String entity, Specification specification) {
+        return delegate.deleteAllEntities(unwrap(tx), namespace, entity, specification)
+                .doFinally(() -> {
+                    cache.invalidateAll();
+                    if (tx instanceof InvalidatingTransaction) {
+                        ((InvalidatingTransaction) tx).invalidateAll = true;
+                    }
+                });
+    }
+
+    @Override
+    public Completable markDocumentDeleted(Transaction transaction, String ns, String entityName, String id, ZonedDateTime version, PersistenceDeletePolicy policy) {
+        advanceVersionHorizon(version);
+        return delegate.markDocumentDeleted(unwrap(transaction), ns, entityName, id, version, policy)
+                .doFinally(() -> written(transaction, Collections.singleton(new DocumentCache.Key(ns, entityName, id))));
+    }
+
+    @Override
+    public Single<Boolean> hasPrevious(Transaction tx, ZonedDateTime snapshot, String ns, String entityName, String id) {
+        return delegate.hasPrevious(unwrap(tx), snapshot, ns, entityName, id);
+    }
+
+    @Override
+    public Single<Boolean> hasNext(Transaction tx, ZonedDateTime snapshot, String ns, String entityName, String id) {
+        return delegate.hasNext(unwrap(tx), snapshot, ns, entityName, id);
+    }
+
+    @Override
+    public Transaction createTransaction(boolean readOnly) throws PersistenceException {
+        Transaction tx = delegate.createTransaction(readOnly);
+        return readOnly ? tx : new InvalidatingTransaction(tx);
+    }
+
+    @Override
+    public Flowable<JsonDocument> findDocument(Transaction tx, ZonedDateTime snapshot, String namespace, String entityName, JsonNavigationPath path, String value, Range<String> range) {
+        return delegate.findDocument(unwrap(tx), snapshot, namespace, entityName, path, value, range);
+    }
+
+    @Override
+    public void close() throws PersistenceException {
+        delegate.close();
+    }
+
+    private static Transaction unwrap(Transaction tx) {
+        return tx instanceof InvalidatingTransaction ? ((InvalidatingTransaction) tx).delegate : tx;
+    }
+
+    private void advanceVersionHorizon(ZonedDateTime version) {
+        Instant instant = version.toInstant();
+        versionHorizon.accumulateAndGet(instant, (current, written) -> written.isAfter(current) ? written : current);
+    }
+
+    private void written(Transaction tx, Set<DocumentCache.Key> keys) {
+        for (DocumentCache.Key key : keys) {
+            cache.invalidate(key);
+        }
+        if (tx instanceof InvalidatingTransaction) {
+            ((InvalidatingTransaction) tx).written.addAll(keys);
+        }
+    }
+
+    /**
+     * Invalidates all documents written in the transaction again when it is closed, in case they were read into the
+     * cache between the write and the commit.
+     */
+    class InvalidatingTransaction implements Transaction {
+        final Transaction delegate;
+        final Set<DocumentCache.Key> written = ConcurrentHashMap.newKeySet();
+        volatile boolean invalidateAll;
+
+        InvalidatingTransaction(Transaction delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public CompletableFuture<TransactionStatistics> commit() {
+            return delegate.commit().whenComplete((statistics, t) -> invalidate());
+        }
+
+        @Override
+        public CompletableFuture<TransactionStatistics> cancel() {
+            return delegate.cancel().whenComplete((statistics, t) -> invalidate());
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                invalidate();
+            }
+        }
+
+        private void invalidate() {
+            if (invalidateAll) {
+                cache.invalidateAll();
+            }
+            for (DocumentCache.Key key : written) {
+                cache.invalidate(key);
+            }
+        }
+    }
+}
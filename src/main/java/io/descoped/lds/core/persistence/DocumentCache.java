@@ -0,0 +1,277 @@
+package io.descoped.lds.core.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.descoped.lds.api.persistence.DocumentKey;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Size and weight bounded cache of documents, read by document identity and snapshot. Documents are stored serialized
+ * as msgpack and deserialized into a new instance on every read, so callers are free to modify what they read.
+ * <p>
+ * Every document has at most one latest entry, which is valid for all snapshots at or after the version of the cached
+ * document, and any number of entries for exact snapshots that were read while a later version existed. An absent
+ * latest entry caches that no version of the document exists.
+ * <p>
+ * The cache is split into segments, each with its own lock and least-recently-used eviction. Writers invalidate a
+ * document by incrementing the generation of its stripe before removing it, and readers only keep what they put in
+ * the cache if the generation was unchanged while they read from persistence.
+ */
+class DocumentCache {
+
+    static final int ENTRY_OVERHEAD_BYTES = 128;
+    static final int STRIPES = 4096;
+
+    private static final ObjectMapper msgPackMapper = new ObjectMapper(new MessagePackFactory());
+
+    private final Segment[] segments;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    DocumentCache(int concurrencyLevel, int maxEntries, long maxWeightBytes) {
+        segments = new Segment[concurrencyLevel];
+        for (int i = 0; i < concurrencyLevel; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / concurrencyLevel), Math.max(1, maxWeightBytes / concurrencyLevel));
+        }
+    }
+
+    private Segment segment(Key key) {
+        return segments[Math.floorMod(key.hashCode(), segments.length)];
+    }
+
+    private int stripe(Key key) {
+        return Math.floorMod(key.hashCode() * 31 + 17, STRIPES);
+    }
+
+    /**
+     * @return the generation to pass to {@link #put} when the document is read from persistence after this call.
+     */
+    long generation(Key key) {
+        return generations.get(stripe(key));
+    }
+
+    /**
+     * @return the cached document for the snapshot, or null if not cached.
+     */
+    CachedDocument get(Key key, ZonedDateTime snapshot) {
+        Segment segment = segment(key);
+        synchronized (segment) {
+            Entry entry = segment.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.latest != null && entry.latest.isValidAt(snapshot)) {
+                return entry.latest;
+            }
+            return entry.bySnapshot.get(snapshot.toInstant());
+        }
+    }
+
+    /**
+     * Caches a document read from persistence, unless the document was invalidated after the given generation.
+     *
+     * @param latest true if no version of the document exists after the snapshot, and the document can be used for
+     *               all later snapshots until invalidated.
+     */
+    void put(Key key, ZonedDateTime snapshot, JsonDocument document, boolean latest, long generation) {
+        CachedDocument cachedDocument = CachedDocument.of(document); // serialize outside of lock
+        if (generation(key) != generation) {
+            return;
+        }
+        Segment segment = segment(key);
+        synchronized (segment) {
+            Entry entry = segment.entries.computeIfAbsent(key, k -> new Entry());
+            CachedDocument previous = latest ? entry.latest : entry.bySnapshot.get(snapshot.toInstant());
+            if (latest) {
+                entry.latest = cachedDocument;
+            } else {
+                entry.bySnapshot.put(snapshot.toInstant(), cachedDocument);
+            }
+            long delta = cachedDocument.weight() - (previous == null ? 0 : previous.weight());
+            entry.weight += delta;
+            segment.weight += delta;
+            segment.evict(key);
+        }
+        if (generation(key) != generation) {
+            remove(key); // invalidated while we were putting, what we put may be stale
+        }
+    }
+
+    void invalidate(Key key) {
+        generations.incrementAndGet(stripe(key));
+        remove(key);
+    }
+
+    void invalidateAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    private void remove(Key key) {
+        Segment segment = segment(key);
+        synchronized (segment) {
+            Entry entry = segment.entries.remove(key);
+            if (entry != null) {
+                segment.weight -= entry.weight;
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    long weight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    static final class Segment {
+        final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        final int maxEntries;
+        final long maxWeight;
+        long weight;
+
+        Segment(int maxEntries, long maxWeight) {
+            this.maxEntries = maxEntries;
+            this.maxWeight = maxWeight;
+        }
+
+        void evict(Key keep) {
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || weight > maxWeight) && it.hasNext()) {
+                Map.Entry<Key, Entry> eldest = it.next();
+                if (eldest.getKey().equals(keep)) {
+                    continue;
+                }
+                weight -= eldest.getValue().weight;
+                it.remove();
+            }
+        }
+    }
+
+    static final class Entry {
+        final Map<Instant, CachedDocument> bySnapshot = new HashMap<>(2);
+        CachedDocument latest;
+        long weight = ENTRY_OVERHEAD_BYTES;
+    }
+
+    static final class Key {
+        final String namespace;
+        final String entity;
+        final String id;
+        final int hashCode;
+
+        Key(String namespace, String entity, String id) {
+            this.namespace = namespace;
+            this.entity = entity;
+            this.id = id;
+            this.hashCode = Objects.hash(namespace, entity, id);
+        }
+
+        static Key of(DocumentKey documentKey) {
+            return new Key(documentKey.namespace(), documentKey.entity(), documentKey.id());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return namespace.equals(key.namespace) &&
+                    entity.equals(key.entity) &&
+                    id.equals(key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return namespace + "/" + entity + "/" + id;
+        }
+    }
+
+    /**
+     * An immutable document, or the absence of a document.
+     */
+    static final class CachedDocument {
+        static final CachedDocument ABSENT = new CachedDocument(null, null);
+
+        final DocumentKey key;
+        final byte[] data;
+
+        private CachedDocument(DocumentKey key, byte[] data) {
+            this.key = key;
+            this.data = data;
+        }
+
+        static CachedDocument of(JsonDocument document) {
+            if (document == null) {
+                return ABSENT;
+            }
+            if (document.deleted()) {
+                return new CachedDocument(document.key(), null); // a deleted marker carries no data
+            }
+            try {
+                return new CachedDocument(document.key(), msgPackMapper.writeValueAsBytes(document.jackson()));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        boolean isValidAt(ZonedDateTime snapshot) {
+            return key == null || !key.timestamp().isAfter(snapshot);
+        }
+
+        /**
+         * @return a new document instance, or null if absent.
+         */
+        JsonDocument toDocument() {
+            if (key == null) {
+                return null;
+            }
+            if (data == null) {
+                return new JsonDocument(key, null);
+            }
+            try {
+                return new JsonDocument(key, msgPackMapper.readTree(data));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        long weight() {
+            return ENTRY_OVERHEAD_BYTES + (data == null ? 0 : data.length);
+        }
+    }
+}
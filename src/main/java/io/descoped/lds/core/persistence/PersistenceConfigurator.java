@@ -5,6 +5,7 @@ import io.descoped.lds.api.persistence.PersistenceInitializer;
 import io.descoped.lds.api.persistence.ProviderName;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.api.specification.Specification;
+import io.descoped.lds.core.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,6 +23,10 @@ public class PersistenceConfigurator {
     private static final Logger LOG = LoggerFactory.getLogger(PersistenceConfigurator.class);
 
     public static RxJsonPersistence configurePersistence(DynamicConfiguration configuration, Specification specification) {
+        return configurePersistence(configuration, specification, new MetricsRegistry());
+    }
+
+    public static RxJsonPersistence configurePersistence(DynamicConfiguration configuration, Specification specification, MetricsRegistry metrics) {
         final String providerId = configuration.evaluateToString("persistence.provider");
         LOG.info("Using persistence provider: {}", providerId);
 
@@ -73,7 +78,7 @@ public class PersistenceConfigurator {
                 LOG.info("Persistence provider initialization attempt # {}", i);
                 RxJsonPersistence persistence = initializer.initialize(configuration.evaluateToString("namespace.default"), configurationByKey, specification.getManagedDomains());
                 LOG.info("Persistence service-provider configured");
-                return persistence;
+                return withCache(configuration, persistence, metrics);
             } catch (RuntimeException e) {
                 long durationMs = System.currentTimeMillis() - start;
                 long remainingMs = TimeUnit.SECONDS.toMillis(maxWaitSeconds) - durationMs;
@@ -90,4 +95,14 @@ public class PersistenceConfigurator {
             }
         }
     }
+
+    private static RxJsonPersistence withCache(DynamicConfiguration configuration, RxJsonPersistence persistence, MetricsRegistry metrics) {
+        if (!configuration.evaluateToBoolean("persistence.cache.enabled")) {
+            return persistence;
+        }
+        int maxEntries = configuration.evaluateToInt("persistence.cache.max-documents");
+        long maxWeightBytes = configuration.evaluateToInt("persistence.cache.max-size-mb") * 1024L * 1024L;
+        LOG.info("Using persistence document cache with at most {} documents and {} MB", maxEntries, maxWeightBytes / (1024 * 1024));
+        return new CachingRxJsonPersistence(persistence, maxEntries, maxWeightBytes, metrics);
+    }
 }
@@ -0,0 +1,44 @@
+package io.descoped.lds.core.persistence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.descoped.lds.api.persistence.Transaction;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
+import io.descoped.lds.api.specification.Specification;
+import io.descoped.lds.core.saga.SagaInput;
+import io.reactivex.Flowable;
+import no.cantara.saga.api.SagaNode;
+import no.cantara.saga.execution.adapter.AbortSagaException;
+import no.cantara.saga.execution.adapter.Adapter;
+
+import java.util.Map;
+
+/**
+ * Writes all resources in a batch saga-input within one transaction.
+ */
+public class PersistenceCreateOrOverwriteBatchSagaAdapter extends Adapter<JsonNode> {
+
+    public static final String NAME = "Persistence-Create-or-Overwrite-Batch";
+
+    private final RxJsonPersistence persistence;
+    private final Specification specification;
+
+    public PersistenceCreateOrOverwriteBatchSagaAdapter(RxJsonPersistence persistence, Specification specification) {
+        super(JsonNode.class, NAME);
+        this.persistence = persistence;
+        this.specification = specification;
+    }
+
+    @Override
+    public JsonNode executeAction(SagaNode sagaNode, Object input, Map<SagaNode, Object> dependeesOutput) {
+        SagaInput sagaInput = SagaInput.of(input);
+        Flowable<JsonDocument> documents = Flowable.fromIterable(sagaInput.batch())
+                .map(element -> new JsonDocument(element.documentKey(), element.data()));
+        try (Transaction tx = persistence.createTransaction(false)) {
+            persistence.createOrOverwrite(tx, documents, specification).blockingAwait();
+        } catch (Throwable t) {
+            throw new AbortSagaException("Unable to write batch using persistence.", t);
+        }
+        return null;
+    }
+}
@@ -4,11 +4,10 @@ import com.fasterxml.jackson.databind.JsonNode;
 import io.descoped.lds.api.persistence.PersistenceDeletePolicy;
 import io.descoped.lds.api.persistence.Transaction;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
+import io.descoped.lds.core.saga.SagaInput;
 import no.cantara.saga.api.SagaNode;
 import no.cantara.saga.execution.adapter.Adapter;
 
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Map;
 
 public class PersistenceDeleteSagaAdapter extends Adapter<JsonNode> {
@@ -24,16 +23,14 @@ public class PersistenceDeleteSagaAdapter extends Adapter<JsonNode> {
 
     @Override
     public JsonNode executeAction(SagaNode sagaNode, Object sagaInput, Map<SagaNode, Object> dependeesOutput) {
-        JsonNode input = (JsonNode) sagaInput;
-        String versionStr = input.get("version").textValue();
-        ZonedDateTime version = ZonedDateTime.parse(versionStr, DateTimeFormatter.ISO_ZONED_DATE_TIME);
+        SagaInput input = SagaInput.of(sagaInput);
         try (Transaction tx = persistence.createTransaction(false)) {
             persistence.markDocumentDeleted(
                     tx,
-                    input.get("namespace").textValue(),
-                    input.get("entity").textValue(),
-                    input.get("id").textValue(),
-                    version,
+                    input.namespace(),
+                    input.entity(),
+                    input.resourceId(),
+                    input.version(),
                     PersistenceDeletePolicy.FAIL_IF_INCOMING_LINKS
             ).blockingAwait();
         }
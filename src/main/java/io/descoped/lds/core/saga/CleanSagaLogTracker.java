@@ -0,0 +1,58 @@
+package io.descoped.lds.core.saga;
+
+import no.cantara.sagalog.SagaLogId;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks which saga-logs are known to be clean because they were truncated by this instance since they were last
+ * handed out. Acquiring a known clean saga-log does not have to read the saga-log to verify that it is empty.
+ * <p>
+ * The state of every saga-log is a generation that is incremented each time the saga-log is leased, and a clean flag.
+ * A saga-execution can only mark the saga-log clean if it has not been leased again since, which makes it safe to
+ * mark saga-logs clean from callbacks that may run after the saga-log was released.
+ */
+class CleanSagaLogTracker {
+
+    private final Map<SagaLogId, AtomicLong> states = new ConcurrentHashMap<>();
+
+    private AtomicLong state(SagaLogId id) {
+        return states.computeIfAbsent(id, k -> new AtomicLong());
+    }
+
+    /**
+     * Starts a new generation of the saga-log in which it is not known to be clean.
+     *
+     * @return true if the saga-log was known to be clean before it was leased.
+     */
+    boolean lease(SagaLogId id) {
+        long previous = state(id).getAndUpdate(s -> ((s >>> 1) + 1) << 1);
+        return (previous & 1) == 1;
+    }
+
+    /**
+     * @return the current generation of the saga-log, which is stable while the saga-log is owned by the caller.
+     */
+    long generation(SagaLogId id) {
+        return state(id).get() >>> 1;
+    }
+
+    /**
+     * Marks the saga-log clean unless it has been leased again since the given generation.
+     *
+     * @return true if the saga-log was marked clean.
+     */
+    boolean markClean(SagaLogId id, long generation) {
+        return state(id).compareAndSet(generation << 1, (generation << 1) | 1);
+    }
+
+    /**
+     * Marks a saga-log that was truncated while exclusively owned by the caller clean. Any previous generation is
+     * invalidated.
+     */
+    void markClean(SagaLogId id) {
+        state(id).updateAndGet(s -> (((s >>> 1) + 1) << 1) | 1);
+    }
+}
@@ -0,0 +1,252 @@
+package io.descoped.lds.core.saga;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent saga-executions and decides which waiting request is admitted next.
+ * <p>
+ * Synchronous writes are admitted before asynchronous writes, and recovery is only admitted when no write is waiting.
+ * A recovery that has yielded to writes for the maximum yield time is admitted before any waiting write, so that
+ * recovery keeps progressing under sustained write load.
+ * Each class of writes has a bounded number of waiting requests, requests beyond that are rejected immediately and
+ * requests that are not admitted within the maximum wait time are rejected when it expires.
+ * <p>
+ * The limit adapts to the observed saga-execution latency: it is increased by one for every limit number of
+ * executions that complete within the target latency and reduced by a factor when they do not (AIMD), at most once per
+ * target latency interval.
+ */
+public class SagaAdmissionController {
+
+    static final double BACKOFF_RATIO = 0.9;
+    static final double LATENCY_SMOOTHING = 0.2;
+    static final int TOO_MANY_REQUESTS = 429;
+    static final int SERVICE_UNAVAILABLE = 503;
+
+    public enum Priority {
+        SYNC_WRITE,
+        ASYNC_WRITE,
+        RECOVERY
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final long maxWaitNanos;
+    private final long maxRecoveryYieldNanos;
+    private final int[] maxWaiting;
+    private final int[] waiting = new int[Priority.values().length];
+
+    // guarded by lock
+    private int inflight;
+    private double limit;
+    private long lastDecreaseNanos;
+    private double averageLatencyNanos;
+    private int starvedRecoveries;
+
+    /**
+     * @param minLimit           lower bound of the adaptive limit, equal to maxLimit for a fixed limit.
+     * @param maxLimit           upper bound, and initial value, of the adaptive limit.
+     * @param targetLatencyMs    saga-execution latency above which the limit is reduced.
+     * @param maxWaitMs          maximum time a write waits to be admitted.
+     * @param maxWaitingSync     maximum number of synchronous writes waiting to be admitted.
+     * @param maxWaitingAsync    maximum number of asynchronous writes waiting to be admitted.
+     * @param maxRecoveryYieldMs maximum time a recovery yields to waiting writes.
+     */
+    public SagaAdmissionController(int minLimit, int maxLimit, long targetLatencyMs, long maxWaitMs, int maxWaitingSync, int maxWaitingAsync, long maxRecoveryYieldMs) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException(String.format("illegal limits: min %d, max %d", minLimit, maxLimit));
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.maxRecoveryYieldNanos = TimeUnit.MILLISECONDS.toNanos(maxRecoveryYieldMs);
+        this.maxWaiting = new int[]{maxWaitingSync, maxWaitingAsync, 0};
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Splits the number of writes that may wait between the synchronous and asynchronous queues. The configured queue
+     * sizes are used when they fit, otherwise they are scaled down proportionally. Each queue has room for at least one
+     * waiting write, so that no class of writes is rejected whenever it cannot start immediately.
+     *
+     * @param maxWaitingWrites the number of writes that may wait in both queues together.
+     * @return the maximum number of waiting synchronous and asynchronous writes, in that order.
+     */
+    public static int[] maxWaitingWrites(int maxWaitingWrites, int configuredSync, int configuredAsync) {
+        int budget = Math.max(2, maxWaitingWrites);
+        int sync = Math.max(1, configuredSync);
+        int async = Math.max(1, configuredAsync);
+        if (sync + async <= budget) {
+            return new int[]{sync, async};
+        }
+        int scaledSync = (int) Math.round((double) budget * sync / (sync + async));
+        scaledSync = Math.min(Math.max(1, scaledSync), budget - 1);
+        return new int[]{scaledSync, budget - scaledSync};
+    }
+
+    /**
+     * Waits until a saga-execution of the given priority is admitted.
+     *
+     * @throws SagaAdmissionException if too many requests are already waiting, or if not admitted within the maximum
+     *                                wait time.
+     */
+    public Permit acquire(Priority priority) {
+        lock.lock();
+        try {
+            if (!canAdmit(priority)) {
+                int i = priority.ordinal();
+                if (waiting[i] >= maxWaiting[i]) {
+                    throw new SagaAdmissionException(String.format("Too many %s requests waiting for saga-execution", priority),
+                            TOO_MANY_REQUESTS, retryAfterSeconds());
+                }
+                waiting[i]++;
+                try {
+                    long remainingNanos = maxWaitNanos;
+                    while (!canAdmit(priority)) {
+                        if (remainingNanos <= 0) {
+                            throw new SagaAdmissionException(String.format("Timeout while waiting for saga-execution of %s request", priority),
+                                    SERVICE_UNAVAILABLE, retryAfterSeconds());
+                        }
+                        remainingNanos = permitReleased.awaitNanos(remainingNanos);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt(); // set interrupt status
+                    throw new RuntimeException(e);
+                } finally {
+                    if (--waiting[i] == 0) {
+                        permitReleased.signalAll(); // lower priorities may be admitted now
+                    }
+                }
+            }
+            inflight++;
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a recovery saga-execution is admitted. The recovery yields to waiting writes for at most the maximum
+     * yield time, after that it is admitted as soon as the number of executions is below the limit, and writes are not
+     * admitted before it.
+     */
+    public Permit acquireRecovery() throws InterruptedException {
+        lock.lock();
+        try {
+            long deadline = System.nanoTime() + maxRecoveryYieldNanos;
+            boolean starved = false;
+            try {
+                while (starved ? inflight >= (int) limit : !canAdmit(Priority.RECOVERY)) {
+                    if (starved) {
+                        permitReleased.await();
+                        continue;
+                    }
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        starved = true;
+                        starvedRecoveries++;
+                        continue;
+                    }
+                    permitReleased.awaitNanos(remainingNanos);
+                }
+                inflight++;
+                return new Permit();
+            } finally {
+                if (starved && --starvedRecoveries == 0) {
+                    permitReleased.signalAll(); // writes may be admitted again
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canAdmit(Priority priority) {
+        if (inflight >= (int) limit) {
+            return false;
+        }
+        if (priority != Priority.RECOVERY && starvedRecoveries > 0) {
+            return false;
+        }
+        for (int i = 0; i < priority.ordinal(); i++) {
+            if (waiting[i] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void release(long latencyNanos) {
+        lock.lock();
+        try {
+            inflight--;
+            averageLatencyNanos = averageLatencyNanos == 0 ? latencyNanos
+                    : averageLatencyNanos + LATENCY_SMOOTHING * (latencyNanos - averageLatencyNanos);
+            long now = System.nanoTime();
+            if (latencyNanos > targetLatencyNanos) {
+                if (now - lastDecreaseNanos >= targetLatencyNanos) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    lastDecreaseNanos = now;
+                }
+            } else if (inflight + 1 >= (int) limit) {
+                // only grow the limit when it is actually reached
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(averageLatencyNanos / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInflight() {
+        lock.lock();
+        try {
+            return inflight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting(Priority priority) {
+        lock.lock();
+        try {
+            return waiting[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * An admitted saga-execution, must be released exactly once when the execution completes. Releasing again has no
+     * effect.
+     */
+    public class Permit {
+        private final long acquiredNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                SagaAdmissionController.this.release(System.nanoTime() - acquiredNanos);
+            }
+        }
+    }
+}
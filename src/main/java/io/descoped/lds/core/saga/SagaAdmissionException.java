@@ -0,0 +1,28 @@
+package io.descoped.lds.core.saga;
+
+/**
+ * Thrown when a saga-execution is not admitted because the saga-execution-coordinator is saturated.
+ */
+public class SagaAdmissionException extends RuntimeException {
+
+    private final int statusCode;
+    private final long retryAfterSeconds;
+
+    SagaAdmissionException(String message, int statusCode, long retryAfterSeconds) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return 429 if the request was rejected because too many requests were already waiting, or 503 if the request
+     * timed out while waiting to be admitted.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
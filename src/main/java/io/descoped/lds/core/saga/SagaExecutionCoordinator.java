@@ -2,7 +2,9 @@ package io.descoped.lds.core.saga;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import de.huxhorn.sulky.ulid.ULID;
-import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.core.metrics.Counter;
+import io.descoped.lds.core.metrics.MetricsRegistry;
+import io.descoped.lds.core.metrics.Timer;
 import no.cantara.concurrent.futureselector.SelectableFuture;
 import no.cantara.concurrent.futureselector.SelectableThreadPoolExectutor;
 import no.cantara.saga.api.Saga;
@@ -24,6 +26,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -31,10 +34,12 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -43,6 +48,7 @@ import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
 
 public class SagaExecutionCoordinator {
 
@@ -57,19 +63,32 @@ public class SagaExecutionCoordinator {
     final SagaLogPool sagaLogPool;
     final SagaLogId deadSagaLogId;
     final Map<SagaLogId, String> executionIdBySagaLogId = new ConcurrentHashMap<>();
+    final CleanSagaLogTracker cleanSagaLogs = new CleanSagaLogTracker();
     final boolean sagaCommandsEnabled;
+    final boolean compactSagaLogInput;
 
     final SagaRepository sagaRepository;
     final SagasObserver sagasObserver;
     final SelectableThreadPoolExectutor threadPool;
-    final Semaphore semaphore;
+    final SagaAdmissionController admission;
+    final Semaphore recoverySemaphore;
+    final SagaRecoveryProgress recoveryProgress = new SagaRecoveryProgress();
     final ThreadPoolWatchDog threadPoolWatchDog;
     final ExecutorService recoveryThreadPool;
-
-    public SagaExecutionCoordinator(SagaLogPool sagaLogPool, int numberOfSagaLogs, SagaRepository sagaRepository, SagasObserver sagasObserver, SelectableThreadPoolExectutor threadPool, boolean sagaCommandsEnabled, ExecutorService recoveryThreadPool) {
+    final MetricsRegistry metrics;
+    final Timer sagaLogAcquireTimer;
+    final Timer admissionWaitTimer;
+    // node timers by saga name and node id, so that the registry is only consulted on the first execution of a node
+    final Map<String, Map<String, Timer>> nodeTimersBySaga = new ConcurrentHashMap<>();
+    final Counter knownCleanSagaLogAcquisitions;
+    final Counter verifiedCleanSagaLogAcquisitions;
+    final Counter dirtySagaLogAcquisitions;
+
+    public SagaExecutionCoordinator(SagaLogPool sagaLogPool, int numberOfSagaLogs, SagaRepository sagaRepository, SagasObserver sagasObserver, SelectableThreadPoolExectutor threadPool, SagaAdmissionController admission, int maxConcurrentRecoveryExecutions, boolean sagaCommandsEnabled, boolean compactSagaLogInput, ExecutorService recoveryThreadPool, MetricsRegistry metrics) {
         this.sagaLogPool = sagaLogPool;
         this.numberOfSagaLogs = numberOfSagaLogs;
         this.sagaCommandsEnabled = sagaCommandsEnabled;
+        this.compactSagaLogInput = compactSagaLogInput;
         this.recoveryThreadPool = recoveryThreadPool;
         this.deadSagaLogId = sagaLogPool.idFor(sagaLogPool.getLocalClusterInstanceId(), "dead-saga"); // do not register
 
@@ -85,12 +104,33 @@ public class SagaExecutionCoordinator {
         this.sagaRepository = sagaRepository;
         this.sagasObserver = sagasObserver;
         this.threadPool = threadPool;
-        int maxNumberConcurrentSagaExecutions = (threadPool.getMaximumPoolSize() + threadPool.getQueue().remainingCapacity()) / 2;
-        this.semaphore = new Semaphore(maxNumberConcurrentSagaExecutions);
+        this.admission = admission;
+        this.recoverySemaphore = new Semaphore(maxConcurrentRecoveryExecutions);
         threadPoolWatchDog = new ThreadPoolWatchDog();
+
+        this.metrics = metrics;
+        this.sagaLogAcquireTimer = metrics.timer("lds_saga_log_acquire_seconds", "Time spent acquiring a clean saga-log");
+        this.knownCleanSagaLogAcquisitions = metrics.counter("lds_saga_log_acquisitions_total", "Number of saga-logs acquired for saga-executions", "state", "known-clean");
+        this.verifiedCleanSagaLogAcquisitions = metrics.counter("lds_saga_log_acquisitions_total", "Number of saga-logs acquired for saga-executions", "state", "verified-clean");
+        this.dirtySagaLogAcquisitions = metrics.counter("lds_saga_log_acquisitions_total", "Number of saga-logs acquired for saga-executions", "state", "dirty");
+        this.admissionWaitTimer = metrics.timer("lds_saga_admission_wait_seconds", "Time spent waiting to be admitted to start a saga-execution");
+        metrics.gauge("lds_saga_admission_limit", "Current adaptive limit of concurrent saga-executions", admission::getLimit);
+        metrics.gauge("lds_saga_admission_inflight", "Number of admitted saga-executions that have not completed", admission::getInflight);
+        for (SagaAdmissionController.Priority priority : SagaAdmissionController.Priority.values()) {
+            metrics.gauge("lds_saga_admission_waiting", "Number of saga-executions waiting to be admitted",
+                    () -> admission.getWaiting(priority), "priority", priority.name().toLowerCase());
+        }
+        metrics.monitor("saga", threadPool);
+        if (recoveryThreadPool instanceof ThreadPoolExecutor) {
+            metrics.monitor("saga-recovery", (ThreadPoolExecutor) recoveryThreadPool);
+        }
     }
 
     public void startThreadpoolWatchdog() {
+        if (threadPool.getMaximumPoolSize() == Integer.MAX_VALUE) {
+            LOG.info("Saga thread-pool is unbounded and cannot be deadlocked by blocked saga traversals, watchdog not started.");
+            return;
+        }
         threadPoolWatchDog.start();
     }
 
@@ -102,21 +142,47 @@ public class SagaExecutionCoordinator {
         return threadPool;
     }
 
+    /**
+     * @throws SagaAdmissionException if the saga-execution was not admitted because of overload. No saga-log has been
+     *                                written when this is thrown, and the request can safely be retried.
+     */
     public SelectableFuture<SagaHandoffResult> handoff(boolean sync, AdapterLoader adapterLoader, Saga saga, SagaInput sagaInput, Map<String, List<SagaCommand>> commandsByNodeId) {
         String executionId = sagaInput.txId();
 
-        SagaLog sagaLog = acquireCleanSagaLog(c -> {
-        }, c -> {
-        });
-        executionIdBySagaLogId.compute(sagaLog.id(), (k, v) -> {
-            if (v != null) {
-                throw new RuntimeException(String.format("executionIdBySagaLogId with key %s is already associated with another executionId %s", k, v));
-            }
-            return executionId;
-        });
-        SagaExecution sagaExecution = new SagaExecution(sagaLog, threadPool, saga, adapterLoader);
+        SagaAdmissionController.Priority priority = sync ? SagaAdmissionController.Priority.SYNC_WRITE : SagaAdmissionController.Priority.ASYNC_WRITE;
+        long admissionWaitStart = System.nanoTime();
+        SagaAdmissionController.Permit permit;
+        try {
+            permit = admission.acquire(priority);
+        } catch (SagaAdmissionException e) {
+            metrics.counter("lds_saga_admission_rejected_total", "Number of saga-executions rejected by admission control",
+                    "priority", priority.name().toLowerCase(), "status", String.valueOf(e.getStatusCode())).increment();
+            throw e;
+        }
+        admissionWaitTimer.recordSince(admissionWaitStart);
 
-        SagaHandoffControl handoffControl = startSagaExecutionWithThrottling(sagaExecution, sagaInput, sagaLog, sagaCommandsEnabled ? commandsByNodeId : Collections.emptyMap());
+        SagaHandoffControl handoffControl;
+        SagaLog sagaLog;
+        try {
+            long acquireStart = System.nanoTime();
+            sagaLog = acquireCleanSagaLog(c -> {
+            }, c -> {
+            });
+            sagaLogAcquireTimer.recordSince(acquireStart);
+            long sagaLogGeneration = cleanSagaLogs.generation(sagaLog.id());
+            executionIdBySagaLogId.compute(sagaLog.id(), (k, v) -> {
+                if (v != null) {
+                    throw new RuntimeException(String.format("executionIdBySagaLogId with key %s is already associated with another executionId %s", k, v));
+                }
+                return executionId;
+            });
+            SagaExecution sagaExecution = new SagaExecution(sagaLog, threadPool, saga, adapterLoader);
+
+            handoffControl = startSagaExecution(sagaExecution, saga, sagaInput, sagaLog, sagaLogGeneration, permit, sagaCommandsEnabled ? commandsByNodeId : Collections.emptyMap());
+        } catch (RuntimeException e) {
+            permit.release(); // ensure that permit is always released even when saga-execution could not be run
+            throw e;
+        }
 
         sagasObserver.registerSaga(handoffControl);
 
@@ -164,9 +230,15 @@ public class SagaExecutionCoordinator {
         if (deadLetterSagaPattern.matcher(sagaLog.id().getLogName()).matches()) {
             throw new RuntimeException("Dead-letter-saga acquired unintentionally");
         }
+        if (cleanSagaLogs.lease(sagaLog.id())) {
+            knownCleanSagaLogAcquisitions.increment();
+            return sagaLog; // sagaLog was truncated by this instance when last used, no need to read it
+        }
         if (!sagaLog.readIncompleteSagas().anyMatch(e -> true)) {
+            verifiedCleanSagaLogAcquisitions.increment();
             return sagaLog; // sagaLog is empty, all is well
         }
+        dirtySagaLogAcquisitions.increment();
 
         if (!attemptedSagaLogIds.add(sagaLog.id())) {
             throw new RuntimeException(String.format("Unable to acquire clean saga-log. This is the second time saga-log-id %s was chosen.", sagaLog.id()));
@@ -179,36 +251,34 @@ public class SagaExecutionCoordinator {
     }
 
     CompletableFuture<Void> asyncAttemptForwardRecoveryOrElseMoveToDeadLetter(SagaLog sagaLog, Consumer<SagaExecutionTraversalContext> preAction, Consumer<SagaExecutionTraversalContext> postAction) {
-        return CompletableFuture.runAsync(() -> {
-            CompletableFuture<Void> future;
-            try {
-                future = doCompleteSagaLog(sagaLog, false, false, preAction, postAction);
-            } catch (Throwable t) {
-                future = CompletableFuture.failedFuture(t); // wrap
-            }
-            try {
-                future.join(); // wait for completion and unwrap
-            } catch (Throwable t) {
-                try {
-                    String msg = String.format("Failed to retry saga-executions from saga-log %s, moving all entries to dead-saga-log.", sagaLog.id());
-                    LOG.warn(msg, t);
-                    SagaLog deadLetterSagaLog = sagaLogPool.tryTakeOwnership(new SagaLogOwner("Thread::" + Thread.currentThread().getName()), deadSagaLogId, 30, TimeUnit.SECONDS);
-                    if (deadLetterSagaLog == null) {
-                        throw new RuntimeException(String.format("Timeout while attempting to take ownership of %s", deadSagaLogId));
-                    }
+        // compose rather than wait for the recovery, its executions are started on the recovery thread-pool
+        return CompletableFuture.supplyAsync(() -> doCompleteSagaLog(sagaLog, false, false, false, preAction, postAction), recoveryThreadPool)
+                .thenCompose(future -> future)
+                .handleAsync((v, t) -> {
                     try {
-                        moveAllEntries(sagaLog, deadLetterSagaLog).join();
-                        LOG.info("Moved all saga-log-entries from {} to {}", sagaLog.id(), deadSagaLogId);
+                        if (t != null) {
+                            String msg = String.format("Failed to retry saga-executions from saga-log %s, moving all entries to dead-saga-log.", sagaLog.id());
+                            LOG.warn(msg, t);
+                            SagaLog deadLetterSagaLog = sagaLogPool.tryTakeOwnership(new SagaLogOwner("Thread::" + Thread.currentThread().getName()), deadSagaLogId, 30, TimeUnit.SECONDS);
+                            if (deadLetterSagaLog == null) {
+                                throw new RuntimeException(String.format("Timeout while attempting to take ownership of %s", deadSagaLogId));
+                            }
+                            try {
+                                moveAllEntries(sagaLog, deadLetterSagaLog).join();
+                                cleanSagaLogs.markClean(sagaLog.id());
+                                metrics.counter("lds_saga_dead_letter_moves_total", "Number of saga-logs moved to the dead-letter saga-log").increment();
+                                LOG.info("Moved all saga-log-entries from {} to {}", sagaLog.id(), deadSagaLogId);
+                            } finally {
+                                sagaLogPool.releaseOwnership(deadSagaLogId);
+                            }
+                        }
+                    } catch (Throwable tx) {
+                        LOG.error(String.format("Error while attempting to move saga-log-entries from %s to dead-saga", sagaLog.id()), tx);
                     } finally {
-                        sagaLogPool.releaseOwnership(deadSagaLogId);
+                        sagaLogPool.release(sagaLog.id());
                     }
-                } catch (Throwable tx) {
-                    LOG.error(String.format("Error while attempting to move saga-log-entries from %s to dead-saga", sagaLog.id()), tx);
-                }
-            } finally {
-                sagaLogPool.release(sagaLog.id());
-            }
-        }, recoveryThreadPool);
+                    return null;
+                }, recoveryThreadPool);
     }
 
     CompletableFuture<Void> moveAllEntries(SagaLog from, SagaLog to) {
@@ -226,59 +296,55 @@ public class SagaExecutionCoordinator {
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).thenCompose(v -> from.truncate());
     }
 
-    private SagaHandoffControl startSagaExecutionWithThrottling(SagaExecution sagaExecution, SagaInput sagaInput, SagaLog sagaLog, Map<String, List<SagaCommand>> commandsByNodeId) {
-        SagaHandoffControl handoffControl;
-        try {
-            semaphore.acquire();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // set interrupt status
-            throw new RuntimeException(e);
-        }
-        AtomicBoolean permitReleased = new AtomicBoolean(false);
-        try {
-            String executionId = sagaInput.txId();
-            handoffControl = sagaExecution.executeSaga(executionId, sagaInput.asJsonNode(), false,
-                    r -> {
+    private SagaHandoffControl startSagaExecution(SagaExecution sagaExecution, Saga saga, SagaInput sagaInput, SagaLog sagaLog, long sagaLogGeneration, SagaAdmissionController.Permit permit, Map<String, List<SagaCommand>> commandsByNodeId) {
+        Map<String, Long> nodeStartNanos = new ConcurrentHashMap<>();
+        Map<String, Timer> nodeTimers = nodeTimersBySaga.computeIfAbsent(saga.name, name -> new ConcurrentHashMap<>());
+        String executionId = sagaInput.txId();
+        JsonNode sagaLogInput = compactSagaLogInput ? SagaInputCodec.encode(sagaInput) : sagaInput.asJsonNode();
+        return sagaExecution.executeSaga(executionId, sagaLogInput, false,
+                r -> {
+                    try {
                         if (r.isSuccess()) {
                             sagaLog.truncate().join();
+                            cleanSagaLogs.markClean(sagaLog.id(), sagaLogGeneration);
                         }
-                        if (permitReleased.compareAndSet(false, true)) {
-                            semaphore.release();
-                        }
-                    },
-                    sagaExecutionTraversalContext -> {
-                        List<SagaCommand> commands = commandsByNodeId.get(sagaExecutionTraversalContext.getNode().id);
-                        if (commands == null) {
-                            return;
-                        }
-                        for (SagaCommand command : commands) {
-                            String cmd = command.getCommand();
-                            if ("failBefore".equalsIgnoreCase(cmd)) {
-                                throw new RuntimeException(String.format("failBefore saga command. nodeId: %s, sagalog-id: %s, executionId: %s", sagaExecutionTraversalContext.getNode().id, sagaLog.id(), executionId));
-                            }
-                        }
-                    },
-                    sagaExecutionTraversalContext -> {
-                        List<SagaCommand> commands = commandsByNodeId.get(sagaExecutionTraversalContext.getNode().id);
-                        if (commands == null) {
-                            return;
+                    } finally {
+                        permit.release();
+                    }
+                },
+                sagaExecutionTraversalContext -> {
+                    nodeStartNanos.put(sagaExecutionTraversalContext.getNode().id, System.nanoTime());
+                    List<SagaCommand> commands = commandsByNodeId.get(sagaExecutionTraversalContext.getNode().id);
+                    if (commands == null) {
+                        return;
+                    }
+                    for (SagaCommand command : commands) {
+                        String cmd = command.getCommand();
+                        if ("failBefore".equalsIgnoreCase(cmd)) {
+                            throw new RuntimeException(String.format("failBefore saga command. nodeId: %s, sagalog-id: %s, executionId: %s", sagaExecutionTraversalContext.getNode().id, sagaLog.id(), executionId));
                         }
-                        for (SagaCommand command : commands) {
-                            String cmd = command.getCommand();
-                            if ("failAfter".equalsIgnoreCase(cmd)) {
-                                throw new RuntimeException(String.format("failAfter saga command. nodeId: %s, sagalog-id: %s, executionId: %s", sagaExecutionTraversalContext.getNode().id, sagaLog.id(), executionId));
-                            }
+                    }
+                },
+                sagaExecutionTraversalContext -> {
+                    String nodeId = sagaExecutionTraversalContext.getNode().id;
+                    Long nodeStart = nodeStartNanos.remove(nodeId);
+                    if (nodeStart != null) {
+                        nodeTimers.computeIfAbsent(nodeId, id -> metrics.timer("lds_saga_node_seconds",
+                                "Latency of saga-node executions, including saga-log writes", "saga", saga.name, "node", id))
+                                .recordSince(nodeStart);
+                    }
+                    List<SagaCommand> commands = commandsByNodeId.get(nodeId);
+                    if (commands == null) {
+                        return;
+                    }
+                    for (SagaCommand command : commands) {
+                        String cmd = command.getCommand();
+                        if ("failAfter".equalsIgnoreCase(cmd)) {
+                            throw new RuntimeException(String.format("failAfter saga command. nodeId: %s, sagalog-id: %s, executionId: %s", sagaExecutionTraversalContext.getNode().id, sagaLog.id(), executionId));
                         }
                     }
-            );
-            // permit will be released by sagaPermitReleaseThread
-        } catch (RuntimeException e) {
-            if (permitReleased.compareAndSet(false, true)) {
-                semaphore.release(); // ensure that permit is always released even when saga-execution could not be run
-            }
-            throw e;
-        }
-        return handoffControl;
+                }
+        );
     }
 
     public void shutdown() {
@@ -288,7 +354,7 @@ public class SagaExecutionCoordinator {
     public CompletableFuture<Void> completeLocalIncompleteSagas(ExecutorService executorService) {
         Set<SagaLogId> logIds = new LinkedHashSet<>(sagaLogPool.instanceLocalLogIds());
 
-        return recoverIncompleteSagas(executorService, logIds, Collections.emptySet());
+        return recoverIncompleteSagas(executorService, logIds, Collections.emptySet(), "local");
     }
 
     public CompletableFuture<Void> completeClusterWideIncompleteSagas(ExecutorService executorService) {
@@ -298,11 +364,14 @@ public class SagaExecutionCoordinator {
         LinkedHashSet<SagaLogId> nonLocalClusterSagaLogs = new LinkedHashSet<>(logIds);
         nonLocalClusterSagaLogs.removeAll(instanceLocalLogIds);
 
-        return recoverIncompleteSagas(executorService, logIds, nonLocalClusterSagaLogs);
+        return recoverIncompleteSagas(executorService, logIds, nonLocalClusterSagaLogs, "cluster");
     }
 
-    private CompletableFuture<Void> recoverIncompleteSagas(ExecutorService executorService, Set<SagaLogId> logIds, Set<SagaLogId> nonLocalClusterSagaLogs) {
-        List<CompletableFuture<CompletableFuture<Void>>> tasks = new ArrayList<>();
+    private CompletableFuture<Void> recoverIncompleteSagas(ExecutorService executorService, Set<SagaLogId> logIds, Set<SagaLogId> nonLocalClusterSagaLogs, String scope) {
+        long start = System.nanoTime();
+        Timer recoveryTimer = metrics.timer("lds_saga_recovery_seconds", "Duration of saga-recovery runs", "scope", scope);
+        recoveryProgress.runStarted(scope, logIds.size());
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
         for (SagaLogId logId : logIds) {
             try {
                 tasks.add(CompletableFuture.supplyAsync(() -> {
@@ -311,17 +380,17 @@ public class SagaExecutionCoordinator {
                     try {
                         sagaLog = sagaLogPool.tryTakeOwnership(new SagaLogOwner("Thread::" + Thread.currentThread().getName()), logId);
                         if (sagaLog == null) {
-                            return CompletableFuture.completedFuture(null);
+                            return CompletableFuture.<Void>completedFuture(null);
                             // unable to take ownership
                         }
                     } catch (SagaLogBusyException | SagaLogAlreadyAquiredByOtherOwnerException e) {
                         if (nonClusterLocalSagaLog) {
                             sagaLogPool.remove(logId);
                         }
-                        return CompletableFuture.completedFuture(null);
+                        return CompletableFuture.<Void>completedFuture(null);
                     }
                     try {
-                        return doCompleteSagaLog(sagaLog, true, nonClusterLocalSagaLog, c -> {
+                        return doCompleteSagaLog(sagaLog, true, nonClusterLocalSagaLog, true, c -> {
                         }, c -> {
                         });
                     } catch (Throwable t) {
@@ -330,25 +399,37 @@ public class SagaExecutionCoordinator {
                             sagaLogPool.remove(logId);
                         }
                         sagaLogPool.release(logId);
-                        return CompletableFuture.failedFuture(t);
+                        return CompletableFuture.<Void>failedFuture(t);
                     }
-                }, executorService));
+                }, executorService).thenCompose(f -> f).whenComplete((v, t) -> recoveryProgress.logCompleted()));
             } catch (Throwable t) {
                 LOG.warn(String.format("Error while attempting to complete saga from saga-log: %s", logId), t);
+                recoveryProgress.logCompleted();
             }
         }
-        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[tasks.size()])).join(); // wait for executorService
-        List<CompletableFuture<Void>> innerTasks = new ArrayList<>();
-        for (CompletableFuture<CompletableFuture<Void>> task : tasks) {
-            innerTasks.add(task.join()); // will not block
-        }
-        return CompletableFuture.allOf(innerTasks.toArray(new CompletableFuture[innerTasks.size()]));
+        // compose rather than wait for the tasks, recovery of a saga-log may wait for permits to start executions
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[tasks.size()]))
+                .whenComplete((v, t) -> {
+                    recoveryTimer.recordSince(start);
+                    recoveryProgress.runCompleted();
+                });
     }
 
-    CompletableFuture<Void> doCompleteSagaLog(SagaLog sagaLog, boolean releaseSagaLogWhenDone, boolean removeFromPoolWhenDone, Consumer<SagaExecutionTraversalContext> preAction, Consumer<SagaExecutionTraversalContext> postAction) {
+    /**
+     * Starts forward recovery of the incomplete saga-executions in the saga-log, in the order they were written. Each
+     * execution is started on the recovery thread-pool when a recovery permit is available, the calling thread does not
+     * wait for permits. If an execution cannot be started, no later executions are started, and the returned future
+     * fails when the executions that were already started have completed.
+     *
+     * @param yieldToLiveTraffic whether to only start executions when a saga-execution permit is immediately
+     *                           available, giving recovery lower priority than hand-offs.
+     */
+    CompletableFuture<Void> doCompleteSagaLog(SagaLog sagaLog, boolean releaseSagaLogWhenDone, boolean removeFromPoolWhenDone, boolean yieldToLiveTraffic, Consumer<SagaExecutionTraversalContext> preAction, Consumer<SagaExecutionTraversalContext> postAction) {
         SagaLogId logId = sagaLog.id();
-        Map<String, List<SagaLogEntry>> entriesByExecutionId = sagaLog.readIncompleteSagas().collect(groupingBy(SagaLogEntry::getExecutionId));
+        Map<String, List<SagaLogEntry>> entriesByExecutionId = sagaLog.readIncompleteSagas()
+                .collect(groupingBy(SagaLogEntry::getExecutionId, LinkedHashMap::new, toList()));
         if (entriesByExecutionId.isEmpty()) {
+            cleanSagaLogs.markClean(logId);
             if (removeFromPoolWhenDone) {
                 sagaLogPool.remove(logId);
                 deleteExternalResourceAssociatedWithSagaLog(logId); // not in use
@@ -358,24 +439,27 @@ public class SagaExecutionCoordinator {
             }
             return CompletableFuture.completedFuture(null);
         }
-        List<CompletableFuture<Void>> futureList = new LinkedList<>();
+        // only accessed by the chained starts, and read when the last of them has completed
+        List<CompletableFuture<Void>> futureList = new ArrayList<>();
+        CompletableFuture<Void> started = CompletableFuture.completedFuture(null);
         for (Map.Entry<String, List<SagaLogEntry>> entry : entriesByExecutionId.entrySet()) {
             String executionId = entry.getKey();
             List<SagaLogEntry> entries = entry.getValue();
             Map<String, List<SagaLogEntry>> entriesByNodeId = entries.stream().collect(groupingBy(SagaLogEntry::getNodeId));
-            try {
-                futureList.add(startSagaForwardRecovery(executionId, entriesByNodeId, sagaLog, preAction, postAction));
-            } catch (Throwable t) {
-                if (removeFromPoolWhenDone) {
-                    sagaLogPool.remove(logId);
-                }
-                if (releaseSagaLogWhenDone) {
-                    sagaLogPool.release(logId);
-                }
-                return CompletableFuture.failedFuture(t);
-            }
+            started = started.thenRunAsync(() -> futureList.add(startSagaForwardRecovery(executionId, entriesByNodeId, sagaLog, yieldToLiveTraffic, preAction, postAction)), recoveryThreadPool);
         }
-        return CompletableFuture.allOf(futureList.toArray(new CompletableFuture[futureList.size()]))
+        return started
+                .handle((v, startFailure) -> startFailure)
+                .thenCompose(startFailure -> {
+                    CompletableFuture<Void> all = CompletableFuture.allOf(futureList.toArray(new CompletableFuture[futureList.size()]));
+                    if (startFailure == null) {
+                        return all;
+                    }
+                    // the saga-log must not be released or truncated while started executions are still writing to it
+                    return all.<Void>handle((av, at) -> {
+                        throw new CompletionException(startFailure);
+                    });
+                })
                 .handle((v, t) -> {
                     if (t != null) {
                         if (removeFromPoolWhenDone) {
@@ -388,6 +472,7 @@ public class SagaExecutionCoordinator {
                         throw new RuntimeException("Unable to complete saga forward recovery", t);
                     }
                     sagaLog.truncate().join();
+                    cleanSagaLogs.markClean(logId);
                     if (removeFromPoolWhenDone) {
                         sagaLogPool.remove(logId);
                         deleteExternalResourceAssociatedWithSagaLog(logId); // not in use
@@ -408,7 +493,7 @@ public class SagaExecutionCoordinator {
         }
     }
 
-    private CompletableFuture<Void> startSagaForwardRecovery(String executionId, Map<String, List<SagaLogEntry>> entriesByNodeId, SagaLog sagaLog, Consumer<SagaExecutionTraversalContext> preAction, Consumer<SagaExecutionTraversalContext> postAction) {
+    private CompletableFuture<Void> startSagaForwardRecovery(String executionId, Map<String, List<SagaLogEntry>> entriesByNodeId, SagaLog sagaLog, boolean yieldToLiveTraffic, Consumer<SagaExecutionTraversalContext> preAction, Consumer<SagaExecutionTraversalContext> postAction) {
         if (entriesByNodeId.isEmpty()) {
             return CompletableFuture.completedFuture(null);
         }
@@ -422,15 +507,41 @@ public class SagaExecutionCoordinator {
             throw new RuntimeException(String.format("In saga-log %s, Saga with name %s is not present in sagaRepository", sagaLog.id(), startSagaEntry.getSagaName()));
         }
         AdapterLoader adapterLoader = sagaRepository.getAdapterLoader();
-        JsonNode sagaInput = JsonTools.toJsonNode(startSagaEntry.getJsonData());
+        JsonNode sagaInput = SagaInputCodec.decode(startSagaEntry.getJsonData()).asJsonNode();
         SagaExecution sagaExecution = new SagaExecution(sagaLog, threadPool, saga, adapterLoader);
         CompletableFuture<SagaHandoffResult> future = new CompletableFuture<>();
-        SagaHandoffControl handoffControl = sagaExecution.executeSaga(executionId, sagaInput, true, r -> future.complete(r),
-                preAction, postAction
-        );
+        SagaAdmissionController.Permit permit;
+        try {
+            permit = acquireRecoveryPermits(yieldToLiveTraffic);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // set interrupt status
+            throw new RuntimeException(e);
+        }
+        recoveryProgress.executionStarted();
+        AtomicBoolean permitsReleased = new AtomicBoolean(false);
+        SagaHandoffControl handoffControl;
+        try {
+            handoffControl = sagaExecution.executeSaga(executionId, sagaInput, true, r -> {
+                        if (permitsReleased.compareAndSet(false, true)) {
+                            releaseRecoveryPermits(permit);
+                            recoveryProgress.executionCompleted(r.isSuccess());
+                        }
+                        future.complete(r);
+                    },
+                    preAction, postAction
+            );
+        } catch (RuntimeException e) {
+            if (permitsReleased.compareAndSet(false, true)) {
+                releaseRecoveryPermits(permit);
+                recoveryProgress.executionCompleted(false);
+            }
+            throw e;
+        }
         sagasObserver.registerSaga(handoffControl);
         LOG.info("Started recovery of saga with sagaLog: {} and executionId: {}", sagaLog.id(), executionId);
         return future.thenCompose(r -> {
+            metrics.counter("lds_saga_recoveries_total", "Number of saga forward-recovery attempts",
+                    "saga", saga.name, "outcome", r.isFailure() ? "failure" : "success").increment();
             if (r.isFailure()) {
                 LOG.info("Recovery of saga failed, sagaLog: {}, executionId: {}", sagaLog.id(), executionId);
                 return CompletableFuture.failedFuture(r.getFailureCause()); // unwrap
@@ -441,6 +552,33 @@ public class SagaExecutionCoordinator {
         });
     }
 
+    /**
+     * @return the admission permit when yielding to live traffic, otherwise null.
+     */
+    private SagaAdmissionController.Permit acquireRecoveryPermits(boolean yieldToLiveTraffic) throws InterruptedException {
+        recoverySemaphore.acquire();
+        if (!yieldToLiveTraffic) {
+            return null;
+        }
+        try {
+            return admission.acquireRecovery();
+        } catch (InterruptedException | RuntimeException e) {
+            recoverySemaphore.release();
+            throw e;
+        }
+    }
+
+    private void releaseRecoveryPermits(SagaAdmissionController.Permit permit) {
+        if (permit != null) {
+            permit.release();
+        }
+        recoverySemaphore.release();
+    }
+
+    public SagaRecoveryProgress getRecoveryProgress() {
+        return recoveryProgress;
+    }
+
     public ExecutorService getRecoveryThreadPool() {
         return recoveryThreadPool;
     }
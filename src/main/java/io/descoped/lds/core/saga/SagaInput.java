@@ -1,33 +1,148 @@
 package io.descoped.lds.core.saga;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.huxhorn.sulky.ulid.ULID;
+import io.descoped.lds.api.persistence.DocumentKey;
 import io.descoped.lds.api.persistence.json.JsonTools;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-
-import static java.util.Optional.ofNullable;
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The immutable input of a saga, shared by all nodes of a saga execution.
+ * <p>
+ * All fields are parsed once when the input is created. The json form is only materialized when the saga is handed
+ * off for execution, and carries a reference back to this input so that saga-nodes can use it without parsing the
+ * json again. Saga-nodes executed by recovery receive json read from the saga-log, which is parsed once per node.
+ */
 public class SagaInput {
 
-    final JsonNode node;
+    private final String txId;
+    private final String method;
+    private final String schema;
+    private final String namespace;
+    private final String entity;
+    private final String id;
+    private final ZonedDateTime version;
+    private final String source;
+    private final String sourceId;
+    private final JsonNode data;
+    private final List<SagaInput> batch;
+
+    private volatile String versionAsString;
+    private volatile JsonNode node;
 
     public SagaInput(JsonNode node) {
+        this.txId = node.get("txid").textValue();
+        this.method = node.get("method").textValue();
+        this.schema = node.get("schema").textValue();
+        this.namespace = node.get("namespace").textValue();
+        this.entity = node.get("entity").textValue();
+        this.id = textValueOrNull(node, "id");
+        this.versionAsString = node.get("version").textValue();
+        this.version = ZonedDateTime.parse(versionAsString, DateTimeFormatter.ISO_ZONED_DATE_TIME);
+        this.source = textValueOrNull(node, "source");
+        this.sourceId = textValueOrNull(node, "sourceId");
+        this.data = node.get("data");
+        JsonNode array = node.get("batch");
+        if (array == null) {
+            this.batch = null;
+        } else {
+            List<SagaInput> batch = new ArrayList<>(array.size());
+            for (JsonNode element : array) {
+                batch.add(new SagaInput(element));
+            }
+            this.batch = Collections.unmodifiableList(batch);
+        }
         this.node = node;
     }
 
     public SagaInput(ULID.Value txId, String method, String schema, String namespace, String entity,
                      String id, ZonedDateTime version, String source, String sourceId, JsonNode data) {
-        ObjectNode node = JsonTools.mapper.createObjectNode();
-        node.put("txid", txId.toString());
+        this(txId.toString(), method, schema, namespace, entity, id, version, source, sourceId, data, null);
+    }
+
+    SagaInput(String txId, String method, String schema, String namespace, String entity, String id,
+              ZonedDateTime version, String source, String sourceId, JsonNode data, List<SagaInput> batch) {
+        this.txId = txId;
+        this.method = method;
+        this.schema = schema;
+        this.namespace = namespace;
+        this.entity = entity;
+        this.id = id;
+        this.version = version;
+        this.source = source;
+        this.sourceId = sourceId;
+        this.data = data;
+        this.batch = batch;
+    }
+
+    /**
+     * Creates the input of a saga that writes a batch of resources of the same entity. Every element of the batch is
+     * a complete saga-input with its own tx-id, so that each resource can be appended to the tx-log individually.
+     */
+    public static SagaInput batch(ULID.Value txId, String method, String schema, String namespace, String entity,
+                                  ZonedDateTime version, String source, List<SagaInput> batch) {
+        return new SagaInput(txId.toString(), method, schema, namespace, entity, null, version, source, null, null,
+                Collections.unmodifiableList(new ArrayList<>(batch)));
+    }
+
+    /**
+     * @param input the input given to a saga-node.
+     * @return the saga-input the json form was materialized from, or a new saga-input parsed from the json.
+     */
+    public static SagaInput of(Object input) {
+        if (input instanceof SagaInputNode) {
+            return ((SagaInputNode) input).sagaInput;
+        }
+        JsonNode node = (JsonNode) input;
+        JsonNode compact = node.get(SagaInputCodec.COMPACT_FIELD);
+        if (compact != null) {
+            return SagaInputCodec.decodeCompact(compact.textValue());
+        }
+        return new SagaInput(node);
+    }
+
+    private static String textValueOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.textValue();
+    }
+
+    public boolean isBatch() {
+        return batch != null;
+    }
+
+    public List<SagaInput> batch() {
+        return batch == null ? Collections.emptyList() : batch;
+    }
+
+    /**
+     * @return the json form of this saga-input, as written to the saga-log.
+     */
+    JsonNode asJsonNode() {
+        JsonNode result = node;
+        if (result == null) {
+            node = result = toJsonNode(); // benign race, every thread builds an equal node
+        }
+        return result;
+    }
+
+    private JsonNode toJsonNode() {
+        ObjectNode node = new SagaInputNode(this);
+        node.put("txid", txId);
         node.put("method", method);
         node.put("schema", schema);
         node.put("namespace", namespace);
         node.put("entity", entity);
-        node.put("id", id);
-        node.put("version", DateTimeFormatter.ISO_ZONED_DATE_TIME.format(version));
+        if (id != null) {
+            node.put("id", id);
+        }
+        node.put("version", versionAsString());
         if (source != null) {
             node.put("source", source);
         }
@@ -37,76 +152,97 @@ public class SagaInput {
         if (data != null) {
             node.set("data", data);
         }
-        this.node = node;
-    }
-
-    JsonNode asJsonNode() {
+        if (batch != null) {
+            ArrayNode array = node.putArray("batch");
+            for (SagaInput element : batch) {
+                array.add(element.asJsonNode());
+            }
+        }
         return node;
     }
 
     public String txId() {
-        return node.get("txid").textValue();
+        return txId;
     }
 
     public String method() {
-        return node.get("method").textValue();
+        return method;
     }
 
     public String schema() {
-        return node.get("schema").textValue();
+        return schema;
     }
 
     public String namespace() {
-        return node.get("namespace").textValue();
+        return namespace;
     }
 
     public String entity() {
-        return node.get("entity").textValue();
+        return entity;
     }
 
     public String resourceId() {
-        return node.get("id").textValue();
+        return id;
     }
 
     public ZonedDateTime version() {
-        String versionStr = node.get("version").textValue();
-        return ZonedDateTime.parse(versionStr, DateTimeFormatter.ISO_ZONED_DATE_TIME);
+        return version;
     }
 
     public String versionAsString() {
-        String versionStr = node.get("version").textValue();
-        return versionStr;
+        String result = versionAsString;
+        if (result == null) {
+            versionAsString = result = DateTimeFormatter.ISO_ZONED_DATE_TIME.format(version);
+        }
+        return result;
     }
 
     public String source() {
-        return ofNullable(node.get("source")).map(JsonNode::textValue).orElse(null);
+        return source;
     }
 
     public String sourceId() {
-        return ofNullable(node.get("sourceId")).map(JsonNode::textValue).orElse(null);
+        return sourceId;
     }
 
     public JsonNode data() {
-        return node.get("data");
+        return data;
+    }
+
+    public DocumentKey documentKey() {
+        return new DocumentKey(namespace, entity, id, version);
     }
 
     @Override
     public String toString() {
         return "SagaInput{" +
-                "txId='" + txId() + '\'' +
-                ", method='" + method() + '\'' +
-                ", schema='" + schema() + '\'' +
-                ", namespace='" + namespace() + '\'' +
-                ", entity='" + entity() + '\'' +
-                ", id='" + resourceId() + '\'' +
+                "txId='" + txId + '\'' +
+                ", method='" + method + '\'' +
+                ", schema='" + schema + '\'' +
+                ", namespace='" + namespace + '\'' +
+                ", entity='" + entity + '\'' +
+                ", id='" + id + '\'' +
                 ", version='" + versionAsString() + '\'' +
-                ", source='" + source() + '\'' +
-                ", sourceId='" + sourceId() + '\'' +
-                ", data=" + data() +
+                ", source='" + source + '\'' +
+                ", sourceId='" + sourceId + '\'' +
+                ", data=" + data +
                 '}';
     }
 
     public String toPrettyString() {
-        return JsonTools.toPrettyJson(node);
+        return JsonTools.toPrettyJson(asJsonNode());
+    }
+
+    /**
+     * Json form of a saga-input that is serialized like any other object-node, and lets saga-nodes get back to the
+     * already parsed saga-input.
+     */
+    static final class SagaInputNode extends ObjectNode {
+        final transient SagaInput sagaInput;
+
+        SagaInputNode(SagaInput sagaInput) {
+            super(JsonTools.mapper.getNodeFactory());
+            this.sagaInput = sagaInput;
+        }
     }
 }
@@ -0,0 +1,178 @@
+package io.descoped.lds.core.saga;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact form of the saga-input written to the saga-log start entry.
+ * <p>
+ * The saga-log stores the start entry as json text, the compact form is therefore a json object with a single
+ * "compact" field holding base64 of a header byte followed by a msgpack array. The fields of the saga-input are at
+ * fixed positions of the array instead of being named, and the version is stored as epoch-second, nano-of-second and
+ * zone-id. Payloads larger than {@link #DEFLATE_THRESHOLD_BYTES} are deflated, which is where most of the saving on
+ * large documents comes from.
+ * <p>
+ * Saga-logs may contain start entries in both forms, {@link #decode(String)} reads either.
+ */
+final class SagaInputCodec {
+
+    static final String COMPACT_FIELD = "compact";
+
+    static final int DEFLATE_THRESHOLD_BYTES = 512;
+
+    static final byte FORMAT_MSGPACK = 1;
+    static final byte FORMAT_MSGPACK_DEFLATE = 2;
+
+    private static final ObjectMapper msgPackMapper = new ObjectMapper(new MessagePackFactory());
+
+    private SagaInputCodec() {
+    }
+
+    /**
+     * @return the compact json form of the saga-input, that also refers back to the saga-input like
+     * {@link SagaInput#asJsonNode()} does.
+     */
+    static JsonNode encode(SagaInput sagaInput) {
+        byte[] payload;
+        try {
+            ByteArrayOutputStream msgpack = new ByteArrayOutputStream(256);
+            try (JsonGenerator generator = msgPackMapper.getFactory().createGenerator(msgpack)) {
+                write(generator, sagaInput);
+            }
+            payload = frame(msgpack.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ObjectNode node = new SagaInput.SagaInputNode(sagaInput);
+        node.put(COMPACT_FIELD, Base64.getEncoder().encodeToString(payload));
+        return node;
+    }
+
+    private static void write(JsonGenerator generator, SagaInput sagaInput) throws IOException {
+        generator.writeStartArray();
+        generator.writeString(sagaInput.txId());
+        generator.writeString(sagaInput.method());
+        generator.writeString(sagaInput.schema());
+        generator.writeString(sagaInput.namespace());
+        generator.writeString(sagaInput.entity());
+        writeStringOrNull(generator, sagaInput.resourceId());
+        Instant instant = sagaInput.version().toInstant();
+        generator.writeNumber(instant.getEpochSecond());
+        generator.writeNumber(instant.getNano());
+        generator.writeString(sagaInput.version().getZone().getId());
+        writeStringOrNull(generator, sagaInput.source());
+        writeStringOrNull(generator, sagaInput.sourceId());
+        if (sagaInput.data() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeTree(sagaInput.data());
+        }
+        if (sagaInput.isBatch()) {
+            generator.writeStartArray();
+            for (SagaInput element : sagaInput.batch()) {
+                write(generator, element);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeNull();
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeStringOrNull(JsonGenerator generator, String value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    private static byte[] frame(byte[] msgpack) throws IOException {
+        if (msgpack.length < DEFLATE_THRESHOLD_BYTES) {
+            byte[] payload = new byte[msgpack.length + 1];
+            payload[0] = FORMAT_MSGPACK;
+            System.arraycopy(msgpack, 0, payload, 1, msgpack.length);
+            return payload;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(msgpack.length / 2);
+        out.write(FORMAT_MSGPACK_DEFLATE);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+            deflate.write(msgpack);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param jsonData the json data of a saga-log start entry, in either json or compact form.
+     */
+    static SagaInput decode(String jsonData) {
+        JsonNode node = JsonTools.toJsonNode(jsonData);
+        JsonNode compact = node.get(COMPACT_FIELD);
+        if (compact == null) {
+            return new SagaInput(node);
+        }
+        return decodeCompact(compact.textValue());
+    }
+
+    static SagaInput decodeCompact(String base64) {
+        byte[] payload = Base64.getDecoder().decode(base64);
+        try (InputStream in = payloadStream(payload)) {
+            return read(msgPackMapper.readTree(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InputStream payloadStream(byte[] payload) {
+        InputStream in = new ByteArrayInputStream(payload, 1, payload.length - 1);
+        switch (payload[0]) {
+            case FORMAT_MSGPACK:
+                return in;
+            case FORMAT_MSGPACK_DEFLATE:
+                return new InflaterInputStream(in);
+            default:
+                throw new IllegalArgumentException("Unknown compact saga-input format: " + payload[0]);
+        }
+    }
+
+    private static SagaInput read(JsonNode array) {
+        ZonedDateTime version = ZonedDateTime.ofInstant(
+                Instant.ofEpochSecond(array.get(6).longValue(), array.get(7).intValue()),
+                ZoneId.of(array.get(8).textValue()));
+        JsonNode data = array.get(11);
+        JsonNode batchArray = array.get(12);
+        List<SagaInput> batch = null;
+        if (!batchArray.isNull()) {
+            batch = new ArrayList<>(batchArray.size());
+            for (JsonNode element : batchArray) {
+                batch.add(read(element));
+            }
+        }
+        return new SagaInput(array.get(0).textValue(), array.get(1).textValue(), array.get(2).textValue(),
+                array.get(3).textValue(), array.get(4).textValue(), array.get(5).textValue(), version,
+                array.get(9).textValue(), array.get(10).textValue(), data.isNull() ? null : data,
+                batch == null ? null : List.copyOf(batch));
+    }
+}
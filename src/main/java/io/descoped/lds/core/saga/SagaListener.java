@@ -0,0 +1,17 @@
+package io.descoped.lds.core.saga;
+
+import no.cantara.saga.execution.SagaHandoffControl;
+import no.cantara.saga.execution.SagaHandoffResult;
+
+/**
+ * Listener of completed saga-executions, registered with {@link SagasObserver#addListener(SagaListener)}.
+ * <p>
+ * Listeners are notified on the thread that completed the saga-execution, which is typically a saga thread. They
+ * must therefore return quickly and never block, work that may block should be handed off to another executor.
+ */
+public interface SagaListener {
+
+    void onSagaSuccess(SagaHandoffControl sagaHandoffControl, SagaHandoffResult result);
+
+    void onSagaFailure(SagaHandoffControl sagaHandoffControl, Throwable cause);
+}
@@ -0,0 +1,32 @@
+package io.descoped.lds.core.saga;
+
+import io.descoped.lds.core.metrics.MetricsRegistry;
+import no.cantara.saga.execution.SagaHandoffControl;
+import no.cantara.saga.execution.SagaHandoffResult;
+
+/**
+ * Counts completed saga-executions by saga and outcome.
+ */
+class SagaMetricsListener implements SagaListener {
+
+    final MetricsRegistry metrics;
+
+    SagaMetricsListener(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void onSagaSuccess(SagaHandoffControl sagaHandoffControl, SagaHandoffResult result) {
+        countExecution(sagaHandoffControl, "success");
+    }
+
+    @Override
+    public void onSagaFailure(SagaHandoffControl sagaHandoffControl, Throwable cause) {
+        countExecution(sagaHandoffControl, "failure");
+    }
+
+    private void countExecution(SagaHandoffControl sagaHandoffControl, String outcome) {
+        metrics.counter("lds_saga_executions_total", "Number of completed saga-executions",
+                "saga", sagaHandoffControl.getSaga().name, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,107 @@
+package io.descoped.lds.core.saga;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of the current, or most recent, saga-recovery run, and totals of recovered saga-executions since startup.
+ */
+public class SagaRecoveryProgress {
+
+    private volatile String scope;
+    private volatile Instant started;
+    private volatile Instant completed;
+    private final AtomicInteger logsTotal = new AtomicInteger();
+    private final AtomicInteger logsCompleted = new AtomicInteger();
+    private final AtomicInteger executionsRunning = new AtomicInteger();
+    private final AtomicLong executionsRecovered = new AtomicLong();
+    private final AtomicLong executionsFailed = new AtomicLong();
+
+    void runStarted(String scope, int logs) {
+        this.scope = scope;
+        this.started = Instant.now();
+        this.completed = null;
+        this.logsTotal.set(logs);
+        this.logsCompleted.set(0);
+    }
+
+    void logCompleted() {
+        logsCompleted.incrementAndGet();
+    }
+
+    void runCompleted() {
+        completed = Instant.now();
+    }
+
+    void executionStarted() {
+        executionsRunning.incrementAndGet();
+    }
+
+    void executionCompleted(boolean success) {
+        executionsRunning.decrementAndGet();
+        if (success) {
+            executionsRecovered.incrementAndGet();
+        } else {
+            executionsFailed.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the scope of the current or most recent run, local or cluster, or null if recovery has not been run.
+     */
+    public String getScope() {
+        return scope;
+    }
+
+    public Instant getStarted() {
+        return started;
+    }
+
+    /**
+     * @return when the most recent run completed, or null if a run is in progress or recovery has not been run.
+     */
+    public Instant getCompleted() {
+        return completed;
+    }
+
+    public boolean isRunning() {
+        return started != null && completed == null;
+    }
+
+    public int getLogsTotal() {
+        return logsTotal.get();
+    }
+
+    public int getLogsPending() {
+        return Math.max(0, logsTotal.get() - logsCompleted.get());
+    }
+
+    public int getExecutionsRunning() {
+        return executionsRunning.get();
+    }
+
+    public long getExecutionsRecovered() {
+        return executionsRecovered.get();
+    }
+
+    public long getExecutionsFailed() {
+        return executionsFailed.get();
+    }
+
+    /**
+     * Estimates the remaining time of a run in progress from the average time spent per completed saga-log.
+     *
+     * @return the estimated remaining time, or null if no run is in progress or no saga-log has completed yet.
+     */
+    public Duration getEstimatedTimeRemaining() {
+        Instant started = this.started;
+        int completedLogs = logsCompleted.get();
+        if (!isRunning() || completedLogs == 0) {
+            return null;
+        }
+        Duration elapsed = Duration.between(started, Instant.now());
+        return elapsed.multipliedBy(getLogsPending()).dividedBy(completedLogs);
+    }
+}
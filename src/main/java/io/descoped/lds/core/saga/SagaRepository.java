@@ -3,11 +3,14 @@ package io.descoped.lds.core.saga;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.api.search.SearchIndex;
 import io.descoped.lds.api.specification.Specification;
+import io.descoped.lds.core.persistence.PersistenceCreateOrOverwriteBatchSagaAdapter;
 import io.descoped.lds.core.persistence.PersistenceCreateOrOverwriteSagaAdapter;
 import io.descoped.lds.core.persistence.PersistenceDeleteSagaAdapter;
 import io.descoped.lds.core.search.DeleteIndexSagaAdapter;
+import io.descoped.lds.core.search.UpdateIndexBatchSagaAdapter;
 import io.descoped.lds.core.search.UpdateIndexSagaAdapter;
 import io.descoped.lds.core.txlog.AppendTxLogAdapter;
+import io.descoped.lds.core.txlog.AppendTxLogBatchAdapter;
 import io.descoped.lds.core.txlog.DeleteTxLogAdapter;
 import io.descoped.lds.core.txlog.TxlogRawdataPool;
 import no.cantara.saga.api.Saga;
@@ -20,6 +23,7 @@ public class SagaRepository {
 
     public static final String SAGA_CREATE_OR_UPDATE_MANAGED_RESOURCE = "Create or update managed resource";
     public static final String SAGA_DELETE_MANAGED_RESOURCE = "Delete managed resource";
+    public static final String SAGA_CREATE_OR_UPDATE_MANAGED_RESOURCE_BATCH = "Create or update managed resource batch";
 
     final Map<String, Saga> sagaByName = new ConcurrentHashMap<>();
 
@@ -28,15 +32,19 @@ public class SagaRepository {
     private SagaRepository(Specification specification, RxJsonPersistence persistence, SearchIndex indexer, TxlogRawdataPool txLogPool) {
         adapterLoader = new AdapterLoader();
         adapterLoader.register(new PersistenceCreateOrOverwriteSagaAdapter(persistence, specification));
+        adapterLoader.register(new PersistenceCreateOrOverwriteBatchSagaAdapter(persistence, specification));
         adapterLoader.register(new PersistenceDeleteSagaAdapter(persistence));
         adapterLoader.register(new AppendTxLogAdapter(txLogPool));
+        adapterLoader.register(new AppendTxLogBatchAdapter(txLogPool));
         adapterLoader.register(new DeleteTxLogAdapter(txLogPool));
         if (indexer != null) {
             adapterLoader.register(new UpdateIndexSagaAdapter(indexer, specification));
+            adapterLoader.register(new UpdateIndexBatchSagaAdapter(indexer));
             adapterLoader.register(new DeleteIndexSagaAdapter(indexer, specification));
         }
 
         register(buildCreateOrUpdateSaga(indexer));
+        register(buildCreateOrUpdateBatchSaga(indexer));
         register(buildDeleteSaga(indexer));
     }
 
@@ -53,6 +61,19 @@ public class SagaRepository {
         return createSagaBuilder.end();
     }
 
+    private Saga buildCreateOrUpdateBatchSaga(SearchIndex indexer) {
+        Saga.SagaBuilder batchSagaBuilder = Saga.start(SAGA_CREATE_OR_UPDATE_MANAGED_RESOURCE_BATCH)
+                .linkTo("txlog");
+        if (indexer != null) {
+            batchSagaBuilder.id("txlog").adapter(AppendTxLogBatchAdapter.NAME).linkTo("persistence", "search-index-update");
+            batchSagaBuilder.id("search-index-update").adapter(UpdateIndexBatchSagaAdapter.NAME).linkToEnd();
+        } else {
+            batchSagaBuilder.id("txlog").adapter(AppendTxLogBatchAdapter.NAME).linkTo("persistence");
+        }
+        batchSagaBuilder.id("persistence").adapter(PersistenceCreateOrOverwriteBatchSagaAdapter.NAME).linkToEnd();
+        return batchSagaBuilder.end();
+    }
+
     private Saga buildDeleteSaga(SearchIndex indexer) {
         Saga.SagaBuilder deleteSagaBuilder = Saga.start(SAGA_DELETE_MANAGED_RESOURCE)
                 .linkTo("txlog");
@@ -1,55 +1,89 @@
 package io.descoped.lds.core.saga;
 
-import no.cantara.concurrent.futureselector.FutureSelector;
-import no.cantara.concurrent.futureselector.SelectableFuture;
-import no.cantara.concurrent.futureselector.Selection;
+import io.descoped.lds.core.metrics.MetricsRegistry;
 import no.cantara.saga.execution.SagaHandoffControl;
 import no.cantara.saga.execution.SagaHandoffResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ExecutionException;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class SagasObserver implements Runnable {
+/**
+ * Observes completion of saga-executions and notifies the registered listeners. Listeners are called from a completion
+ * callback on the thread that completed the saga-execution, there is no observer thread that all completions must
+ * pass through.
+ */
+public class SagasObserver {
 
     private static final Logger LOG = LoggerFactory.getLogger(SagasObserver.class);
 
-    final Thread sagaObserverThread;
-    final FutureSelector<SagaHandoffResult, SagaHandoffControl> selector = new FutureSelector<>();
-    final SelectableFuture<SagaHandoffResult> shutdownFuture = new SelectableFuture<>(() -> null);
+    final List<SagaListener> listeners = new CopyOnWriteArrayList<>();
+    final AtomicInteger pending = new AtomicInteger();
     final SagaRepository sagaRepository;
+    volatile boolean running;
 
-    public SagasObserver(SagaRepository sagaRepository) {
+    public SagasObserver(SagaRepository sagaRepository, MetricsRegistry metrics) {
         this.sagaRepository = sagaRepository;
-        // ensure that selector always has at least one never-ending pending future
-        selector.add(shutdownFuture, null);
-        sagaObserverThread = new Thread(this, "saga-observer");
+        listeners.add(new SagaMetricsListener(metrics));
     }
 
     public SagasObserver start() {
-        sagaObserverThread.start();
+        running = true;
+        return this;
+    }
+
+    public SagasObserver addListener(SagaListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    public SagasObserver removeListener(SagaListener listener) {
+        listeners.remove(listener);
         return this;
     }
 
     void registerSaga(SagaHandoffControl sagaHandoffControl) {
-        selector.add(sagaHandoffControl.getCompletionFuture(), sagaHandoffControl);
+        pending.incrementAndGet();
+        sagaHandoffControl.getCompletionFuture().whenComplete((result, t) -> {
+            pending.decrementAndGet();
+            if (!running) {
+                return;
+            }
+            if (t == null) {
+                fireSagaSuccess(sagaHandoffControl, result);
+            } else {
+                fireSagaFailed(sagaHandoffControl, t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+            }
+        });
     }
 
+    /**
+     * Stops notifying listeners, even of sagas that are not completed.
+     */
     public SagasObserver shutdown() {
-        shutdownFuture.complete(null);
-        try {
-            sagaObserverThread.join();
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+        running = false;
+        if (pending.get() > 0) {
+            LOG.warn("Shutting down SagaObserver even though there are pending sagas!");
         }
+        LOG.info("controlled shut-down of saga-observer.");
         return this;
     }
 
-    private void fireSagaSuccess(SagaHandoffControl sagaHandoffControl) {
-        LOG.trace(String.format("Observed Saga success. Saga-name: \"%s\", executionId: \"%s\"",
+    private void fireSagaSuccess(SagaHandoffControl sagaHandoffControl, SagaHandoffResult result) {
+        LOG.trace("Observed Saga success. Saga-name: \"{}\", executionId: \"{}\"",
                 sagaHandoffControl.getSaga().name,
-                sagaHandoffControl.getExecutionId())
+                sagaHandoffControl.getExecutionId()
         );
+        for (SagaListener listener : listeners) {
+            try {
+                listener.onSagaSuccess(sagaHandoffControl, result);
+            } catch (Throwable e) {
+                LOG.error(String.format("Saga listener %s failed", listener.getClass().getName()), e);
+            }
+        }
     }
 
     private void fireSagaFailed(SagaHandoffControl sagaHandoffControl, Throwable t) {
@@ -59,47 +93,12 @@ public class SagasObserver implements Runnable {
                         sagaHandoffControl.getExecutionId()),
                 t
         );
-    }
-
-    @Override
-    public void run() {
-        try {
-            while (selector.pending()) {
-
-                // wait for next task to complete or fail
-                Selection<SagaHandoffResult, SagaHandoffControl> selected = selector.select();
-
-                if (selected.future == shutdownFuture) {
-                    // shutdown wanted, quit thread even if not all sagas are completed.
-                    if (selector.pending()) {
-                        LOG.warn("Shutting down SagaObserver even though there are pending sagas!");
-                    }
-                    return;
-                }
-
-                /*
-                 * Deal with successful completion and failure of a the selected saga
-                 */
-                boolean interrupted;
-                do {
-                    interrupted = false;
-                    try {
-                        selected.future.get(); // should never block
-                        if (selected.control != null) {
-                            fireSagaSuccess(selected.control);
-                        }
-                    } catch (ExecutionException e) {
-                        fireSagaFailed(selected.control, e.getCause());
-                    } catch (InterruptedException e) {
-                        interrupted = true;
-                        LOG.warn("SagaObserver thread interrupted, resetting interrupt status", e);
-                        Thread.interrupted(); // clear interrupt status and continue
-                    }
-                } while (interrupted);
+        for (SagaListener listener : listeners) {
+            try {
+                listener.onSagaFailure(sagaHandoffControl, t);
+            } catch (Throwable e) {
+                LOG.error(String.format("Saga listener %s failed", listener.getClass().getName()), e);
             }
-            LOG.info("controlled shut-down of saga-observer.");
-        } catch (Throwable t) {
-            LOG.error("", t);
         }
     }
 }
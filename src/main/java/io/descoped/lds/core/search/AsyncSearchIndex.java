@@ -0,0 +1,359 @@
+package io.descoped.lds.core.search;
+
+import io.descoped.lds.api.persistence.DocumentKey;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import io.descoped.lds.api.search.SearchIndex;
+import io.descoped.lds.api.search.SearchResponse;
+import io.reactivex.Completable;
+import io.reactivex.Single;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Search-index that queues updates and writes them to the underlying search-index in bulk from a background thread,
+ * so that callers, i.e. the write sagas, do not wait for the search-index.
+ * <p>
+ * Updates of the same document that are queued before the next flush are coalesced, only the last of them is written.
+ * Every call that queues updates is given the next sequence number, and the watermark is the highest sequence number
+ * of which all updates have been written. Searches can wait for the watermark to reach the sequence number at the time
+ * of the search, which gives read-your-writes for clients that search after their writes have completed. Waiting
+ * searches are resumed on a separate executor, so that the search and everything after it never run on the flush
+ * thread.
+ * <p>
+ * At most max-pending documents are queued, callers that would exceed it block until the next flush has taken the
+ * queue, which slows writes down to the rate of the search-index. A write to the search-index that still fails after
+ * {@value #MAX_ATTEMPTS} attempts is dropped and its document keys are logged, so that one bad batch does not hold up
+ * all later updates.
+ * <p>
+ * Queued and dropped updates are lost from the search-index. The tx-log still has them, and the search-index can be
+ * rebuilt from it with {@link io.descoped.lds.core.txlog.TxLogReplayer}.
+ */
+public class AsyncSearchIndex implements SearchIndex, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncSearchIndex.class);
+
+    static final int MAX_ATTEMPTS = 3;
+    static final long RETRY_BACKOFF_MS = 1000;
+
+    private final SearchIndex delegate;
+    private final int maxBatchSize;
+    private final int maxPending;
+    private final long lingerMs;
+    private final long readYourWritesTimeoutMs;
+    private final Thread thread;
+    private final ExecutorService waiterExecutor;
+
+    // held while a batch is taken from the queue and written, so that deleteAll cannot interleave with a flush
+    private final Object flushLock = new Object();
+
+    // guarded by this
+    private LinkedHashMap<String, PendingUpdate> pending = new LinkedHashMap<>();
+    private long enqueued;
+    private final NavigableMap<Long, CompletableFuture<Void>> waiters = new TreeMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile long watermark;
+    private volatile boolean closed;
+
+    /**
+     * @param maxBatchSize            maximum number of documents written with one call to the delegate.
+     * @param maxPending              maximum number of queued documents before callers block.
+     * @param lingerMs                milliseconds to wait for more updates after the first update of a batch is queued.
+     * @param readYourWritesTimeoutMs milliseconds a search waits for updates queued before it, 0 to not wait.
+     */
+    public AsyncSearchIndex(SearchIndex delegate, int maxBatchSize, int maxPending, long lingerMs, long readYourWritesTimeoutMs) {
+        this.delegate = delegate;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxPending = Math.max(1, maxPending);
+        this.lingerMs = lingerMs;
+        this.readYourWritesTimeoutMs = readYourWritesTimeoutMs;
+        AtomicInteger waiterThreadId = new AtomicInteger();
+        this.waiterExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread waiterThread = new Thread(runnable, "search-index-waiter-" + waiterThreadId.incrementAndGet());
+            waiterThread.setDaemon(true);
+            return waiterThread;
+        });
+        this.thread = new Thread(this::run, "search-index-flush");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public Completable createOrOverwrite(JsonDocument document) {
+        return Completable.fromAction(() -> enqueue(List.of(new PendingUpdate(document, false))));
+    }
+
+    @Override
+    public Completable createOrOverwrite(Collection<JsonDocument> collection) {
+        return Completable.fromAction(() -> {
+            List<PendingUpdate> updates = new ArrayList<>(collection.size());
+            for (JsonDocument document : collection) {
+                updates.add(new PendingUpdate(document, false));
+            }
+            enqueue(updates);
+        });
+    }
+
+    @Override
+    public Completable delete(JsonDocument document) {
+        return Completable.fromAction(() -> enqueue(List.of(new PendingUpdate(document, true))));
+    }
+
+    @Override
+    public Completable deleteAll() {
+        return Completable.fromAction(() -> {
+            List<CompletableFuture<Void>> reached;
+            synchronized (flushLock) {
+                long sequence;
+                synchronized (this) {
+                    pending.clear();
+                    sequence = enqueued;
+                    notifyAll();
+                }
+                delegate.deleteAll().blockingAwait();
+                reached = advanceWatermark(sequence);
+            }
+            completeWaiters(reached);
+        });
+    }
+
+    @Override
+    public Single<SearchResponse> search(String query, Set<String> filter, long from, long size) {
+        if (readYourWritesTimeoutMs <= 0) {
+            return delegate.search(query, filter, from, size);
+        }
+        return Single.defer(() -> {
+            long sequence = enqueuedSequence();
+            CompletableFuture<Void> indexed = whenIndexed(sequence);
+            return Completable.create(emitter -> indexed.whenComplete((v, t) -> emitter.onComplete()))
+                    .timeout(readYourWritesTimeoutMs, TimeUnit.MILLISECONDS, Completable.fromAction(() ->
+                            LOG.debug("Search-index watermark {} did not reach {} within {} ms, searching anyway",
+                                    watermark, sequence, readYourWritesTimeoutMs)))
+                    .andThen(delegate.search(query, filter, from, size));
+        });
+    }
+
+    /**
+     * @return the sequence number of the last call that queued updates.
+     */
+    public synchronized long enqueuedSequence() {
+        return enqueued;
+    }
+
+    /**
+     * @return the highest sequence number of which all updates have been written to the delegate.
+     */
+    public long watermark() {
+        return watermark;
+    }
+
+    /**
+     * @return the number of queued documents that have not yet been taken by a flush.
+     */
+    public synchronized int pending() {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of documents of which the update was dropped after failing to be written.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return a future that is completed when all updates up to and including the given sequence number have been
+     * written to the delegate. Dependent actions do not run on the flush thread.
+     */
+    public synchronized CompletableFuture<Void> whenIndexed(long sequence) {
+        if (watermark >= sequence) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return waiters.computeIfAbsent(sequence, s -> new CompletableFuture<>());
+    }
+
+    private synchronized long enqueue(List<PendingUpdate> updates) throws InterruptedException {
+        // an empty queue takes any number of updates, so that a large batch cannot block forever
+        while (!closed && !pending.isEmpty() && pending.size() + updates.size() > maxPending) {
+            wait();
+        }
+        if (closed) {
+            throw new IllegalStateException("Search-index is closed");
+        }
+        for (PendingUpdate update : updates) {
+            pending.put(update.key, update);
+        }
+        enqueued++;
+        notifyAll();
+        return enqueued;
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                synchronized (this) {
+                    while (pending.isEmpty() && !closed) {
+                        wait(100);
+                    }
+                    if (pending.isEmpty()) {
+                        break;
+                    }
+                }
+                if (lingerMs > 0 && !closed) {
+                    TimeUnit.MILLISECONDS.sleep(lingerMs);
+                }
+                List<CompletableFuture<Void>> reached;
+                synchronized (flushLock) {
+                    LinkedHashMap<String, PendingUpdate> batch;
+                    long sequence;
+                    synchronized (this) {
+                        batch = pending;
+                        sequence = enqueued;
+                        pending = new LinkedHashMap<>();
+                        notifyAll(); // callers blocked on a full queue
+                    }
+                    flush(batch.values());
+                    reached = advanceWatermark(sequence);
+                }
+                completeWaiters(reached);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    private void flush(Collection<PendingUpdate> batch) {
+        List<JsonDocument> documents = new ArrayList<>(Math.min(batch.size(), maxBatchSize));
+        for (PendingUpdate update : batch) {
+            if (update.delete) {
+                apply(() -> delegate.delete(update.document), List.of(update.document));
+                continue;
+            }
+            documents.add(update.document);
+            if (documents.size() >= maxBatchSize) {
+                List<JsonDocument> chunk = List.copyOf(documents);
+                apply(() -> delegate.createOrOverwrite(chunk), chunk);
+                documents.clear();
+            }
+        }
+        if (!documents.isEmpty()) {
+            apply(() -> delegate.createOrOverwrite(documents), documents);
+        }
+    }
+
+    /**
+     * Retries the operation until it succeeds, so that later updates are not written before earlier ones, and drops it
+     * after the maximum number of attempts. Once closed, a failing operation is dropped after one attempt.
+     */
+    private void apply(Supplier<Completable> operation, List<JsonDocument> documents) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                operation.get().blockingAwait();
+                return;
+            } catch (RuntimeException e) {
+                if (closed || attempt >= MAX_ATTEMPTS) {
+                    dropped.addAndGet(documents.size());
+                    LOG.error("Dropping update of {} documents after {} attempts, unable to write to search-index: {}",
+                            documents.size(), attempt, keysOf(documents), e);
+                    return;
+                }
+                LOG.warn("Unable to write {} documents to search-index, retrying in {} ms", documents.size(), RETRY_BACKOFF_MS, e);
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(RETRY_BACKOFF_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static List<String> keysOf(List<JsonDocument> documents) {
+        List<String> keys = new ArrayList<>(documents.size());
+        for (JsonDocument document : documents) {
+            keys.add(PendingUpdate.keyOf(document.key()));
+        }
+        return keys;
+    }
+
+    /**
+     * @return the waiters that the new watermark has reached, to be completed with {@link #completeWaiters(List)}.
+     */
+    private synchronized List<CompletableFuture<Void>> advanceWatermark(long sequence) {
+        watermark = sequence;
+        NavigableMap<Long, CompletableFuture<Void>> head = waiters.headMap(sequence, true);
+        List<CompletableFuture<Void>> reached = new ArrayList<>(head.values());
+        head.clear();
+        return reached;
+    }
+
+    /**
+     * Completes the waiters on the waiter executor, so that searches resumed by them run neither on the flush thread
+     * nor while the flush lock is held.
+     */
+    private void completeWaiters(List<CompletableFuture<Void>> reached) {
+        for (CompletableFuture<Void> future : reached) {
+            if (waiterExecutor.isShutdown()) {
+                future.complete(null);
+            } else {
+                waiterExecutor.execute(() -> future.complete(null));
+            }
+        }
+    }
+
+    /**
+     * Writes all queued updates and stops the flush thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<CompletableFuture<Void>> remaining;
+        synchronized (this) {
+            remaining = new ArrayList<>(waiters.values());
+            waiters.clear();
+        }
+        completeWaiters(remaining);
+        waiterExecutor.shutdown();
+    }
+
+    private static class PendingUpdate {
+        final String key;
+        final JsonDocument document;
+        final boolean delete;
+
+        PendingUpdate(JsonDocument document, boolean delete) {
+            this.key = keyOf(document.key());
+            this.document = document;
+            this.delete = delete;
+        }
+
+        static String keyOf(DocumentKey documentKey) {
+            return documentKey.namespace() + "/" + documentKey.entity() + "/" + documentKey.id();
+        }
+    }
+}
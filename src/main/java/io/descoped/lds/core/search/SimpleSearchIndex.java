@@ -1,64 +1,316 @@
 package io.descoped.lds.core.search;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.descoped.lds.api.persistence.DocumentKey;
-import io.descoped.lds.api.persistence.flattened.FlattenedDocument;
 import io.descoped.lds.api.persistence.json.JsonDocument;
-import io.descoped.lds.api.persistence.json.JsonToFlattenedDocument;
 import io.descoped.lds.api.search.SearchIndex;
 import io.descoped.lds.api.search.SearchResponse;
 import io.descoped.lds.api.search.SearchResult;
 import io.reactivex.Completable;
-import io.reactivex.Flowable;
 import io.reactivex.Single;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * In-process search index backed by an inverted index.
+ * <p>
+ * The text values of a document are split into lower-cased terms on every character that is not a letter or a digit,
+ * and every term has a posting list of the sorted numbers of the documents that contain it. A query is tokenized the
+ * same way, each query term matches all terms that start with it, and a document is a hit when it matches all query
+ * terms. Hits are returned in the order the documents were first indexed, which keeps paging with from and size
+ * stable.
+ * <p>
+ * Deleting a document leaves its number unused. When more than half of the numbers are unused, the remaining documents
+ * are renumbered in the same order, which keeps the posting lists sorted and dense.
+ * <p>
+ * Searches run concurrently with each other, and are only blocked while documents are being written to the index.
+ */
 public class SimpleSearchIndex implements SearchIndex {
 
-    private Map<String, FlattenedDocument> index = Collections.synchronizedMap(new HashMap<>());
+    static final int MIN_UNUSED_BEFORE_COMPACTION = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> docNumberByKey = new HashMap<>();
+    private final List<IndexedDocument> documents = new ArrayList<>();
+    private final TreeMap<String, Postings> postingsByTerm = new TreeMap<>();
+    private int unused;
 
     @Override
     public Completable createOrOverwrite(JsonDocument document) {
-        return createOrOverwrite(Arrays.asList(document));
+        return createOrOverwrite(List.of(document));
     }
 
     @Override
     public Completable createOrOverwrite(Collection<JsonDocument> collection) {
         return Completable.fromAction(() -> {
+            List<IndexedDocument> analyzed = new ArrayList<>(collection.size());
             for (JsonDocument document : collection) {
-                DocumentKey key = document.key();
-                FlattenedDocument converted = new JsonToFlattenedDocument(key.namespace(), key.entity(), key.id(),
-                        null, document.jackson(), 8192).toDocument();
-                index.put(converted.key().id(), converted);
+                Set<String> terms = new LinkedHashSet<>();
+                collectTerms(document.jackson(), terms);
+                analyzed.add(new IndexedDocument(document.key(), terms.toArray(new String[0])));
+            }
+            lock.writeLock().lock();
+            try {
+                for (IndexedDocument document : analyzed) {
+                    index(document);
+                }
+            } finally {
+                lock.writeLock().unlock();
             }
         });
     }
 
+    private void index(IndexedDocument document) {
+        String key = keyOf(document.key);
+        Integer docNumber = docNumberByKey.get(key);
+        if (docNumber == null) {
+            docNumber = documents.size();
+            docNumberByKey.put(key, docNumber);
+            documents.add(document);
+        } else {
+            removePostings(docNumber, documents.get(docNumber));
+            documents.set(docNumber, document);
+        }
+        for (String term : document.terms) {
+            postingsByTerm.computeIfAbsent(term, t -> new Postings()).add(docNumber);
+        }
+    }
+
     @Override
     public Completable delete(JsonDocument document) {
-        return Completable.fromAction(() -> index.put(document.key().id(), null));
+        return Completable.fromAction(() -> {
+            lock.writeLock().lock();
+            try {
+                Integer docNumber = docNumberByKey.remove(keyOf(document.key()));
+                if (docNumber != null) {
+                    removePostings(docNumber, documents.get(docNumber));
+                    documents.set(docNumber, null);
+                    unused++;
+                    if (unused >= MIN_UNUSED_BEFORE_COMPACTION && unused > documents.size() / 2) {
+                        compact();
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Renumbers the documents without the unused numbers. The new numbers are in the same order as the old ones, so
+     * every posting list is rewritten in place and stays sorted.
+     */
+    private void compact() {
+        int[] newNumbers = new int[documents.size()];
+        int next = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            IndexedDocument document = documents.get(i);
+            if (document != null) {
+                newNumbers[i] = next;
+                documents.set(next, document);
+                docNumberByKey.put(keyOf(document.key), next);
+                next++;
+            }
+        }
+        documents.subList(next, documents.size()).clear();
+        for (Postings postings : postingsByTerm.values()) {
+            for (int i = 0; i < postings.size; i++) {
+                postings.docNumbers[i] = newNumbers[postings.docNumbers[i]];
+            }
+        }
+        unused = 0;
+    }
+
+    int unused() {
+        return unused;
+    }
+
+    private void removePostings(int docNumber, IndexedDocument document) {
+        for (String term : document.terms) {
+            Postings postings = postingsByTerm.get(term);
+            if (postings != null && postings.remove(docNumber) && postings.size == 0) {
+                postingsByTerm.remove(term);
+            }
+        }
     }
 
     @Override
     public Completable deleteAll() {
-        return Completable.fromAction(() -> index.clear());
+        return Completable.fromAction(() -> {
+            lock.writeLock().lock();
+            try {
+                docNumberByKey.clear();
+                documents.clear();
+                postingsByTerm.clear();
+                unused = 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
     }
 
     @Override
     public Single<SearchResponse> search(String query, Set<String> filter, long from, long size) {
-        return Flowable.fromIterable(index.entrySet().stream()
-                        .filter(entry -> entry.getValue() != null)
-                        .filter(entry -> entry.getValue().leafNodesByPath().values().stream()
-                                .anyMatch(value -> value.value() instanceof String
-                                        && ((String) value.value()).toLowerCase().contains(query.toLowerCase())))
-                        .map(entry -> new SearchResult(entry.getValue().key()))
-                        .collect(Collectors.toList())).toList()
-                .map(results -> new SearchResponse(results.size(), results, from, size));
+        return Single.fromCallable(() -> {
+            Set<String> queryTerms = new LinkedHashSet<>();
+            tokenize(query, queryTerms);
+            boolean filtered = filter != null && !filter.isEmpty();
+            lock.readLock().lock();
+            try {
+                int[] hits = queryTerms.isEmpty() ? new int[0] : null;
+                for (String queryTerm : queryTerms) {
+                    int[] matches = prefixMatches(queryTerm);
+                    hits = hits == null ? matches : intersect(hits, matches);
+                    if (hits.length == 0) {
+                        break;
+                    }
+                }
+                long totalHits = 0;
+                List<SearchResult> results = new ArrayList<>((int) Math.min(Math.max(size, 0), hits.length));
+                for (int docNumber : hits) {
+                    DocumentKey key = documents.get(docNumber).key;
+                    if (filtered && !filter.contains(key.entity())) {
+                        continue;
+                    }
+                    if (totalHits >= from && totalHits - from < size) {
+                        results.add(new SearchResult(key));
+                    }
+                    totalHits++;
+                }
+                return new SearchResponse(totalHits, results, from, size);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * @return the sorted union of the posting lists of all terms that start with the given query term.
+     */
+    private int[] prefixMatches(String queryTerm) {
+        SortedMap<String, Postings> matching = postingsByTerm.subMap(queryTerm, queryTerm + Character.MAX_VALUE);
+        if (matching.isEmpty()) {
+            return new int[0];
+        }
+        if (matching.size() == 1) {
+            Postings postings = matching.values().iterator().next();
+            return Arrays.copyOf(postings.docNumbers, postings.size);
+        }
+        // mark the documents of all posting lists in one pass, the marks are read back in document number order
+        BitSet union = new BitSet(documents.size());
+        for (Postings postings : matching.values()) {
+            for (int i = 0; i < postings.size; i++) {
+                union.set(postings.docNumbers[i]);
+            }
+        }
+        return union.stream().toArray();
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static void collectTerms(JsonNode node, Set<String> terms) {
+        if (node == null) {
+            return;
+        }
+        if (node.isTextual()) {
+            tokenize(node.textValue(), terms);
+        } else if (node.isContainerNode()) {
+            for (JsonNode child : node) {
+                collectTerms(child, terms);
+            }
+        }
+    }
+
+    static void tokenize(String text, Set<String> terms) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean termChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (termChar && start < 0) {
+                start = i;
+            } else if (!termChar && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    private static String keyOf(DocumentKey key) {
+        return key.namespace() + "/" + key.entity() + "/" + key.id();
+    }
+
+    static class IndexedDocument {
+        final DocumentKey key;
+        final String[] terms;
+
+        IndexedDocument(DocumentKey key, String[] terms) {
+            this.key = key;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * Sorted document numbers of a term. New documents get the highest number, so adding is normally an append.
+     */
+    static class Postings {
+        int[] docNumbers = new int[4];
+        int size;
+
+        void add(int docNumber) {
+            int position = size == 0 || docNumbers[size - 1] < docNumber
+                    ? -(size + 1)
+                    : Arrays.binarySearch(docNumbers, 0, size, docNumber);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -(position + 1);
+            if (size == docNumbers.length) {
+                docNumbers = Arrays.copyOf(docNumbers, size * 2);
+            }
+            System.arraycopy(docNumbers, insertAt, docNumbers, insertAt + 1, size - insertAt);
+            docNumbers[insertAt] = docNumber;
+            size++;
+        }
+
+        boolean remove(int docNumber) {
+            int position = Arrays.binarySearch(docNumbers, 0, size, docNumber);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(docNumbers, position + 1, docNumbers, position, size - position - 1);
+            size--;
+            return true;
+        }
     }
 }
@@ -0,0 +1,39 @@
+package io.descoped.lds.core.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import io.descoped.lds.api.search.SearchIndex;
+import io.descoped.lds.core.saga.SagaInput;
+import no.cantara.saga.api.SagaNode;
+import no.cantara.saga.execution.adapter.Adapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes all resources in a batch saga-input with a single call to the search index.
+ */
+public class UpdateIndexBatchSagaAdapter extends Adapter<JsonNode> {
+
+    public static final String NAME = "Persistence-Index-Create-or-Overwrite-Batch";
+
+    private final SearchIndex indexer;
+
+    public UpdateIndexBatchSagaAdapter(SearchIndex indexer) {
+        super(JsonNode.class, NAME);
+        this.indexer = indexer;
+    }
+
+    @Override
+    public JsonNode executeAction(SagaNode sagaNode, Object input, Map<SagaNode, Object> dependeesOutput) {
+        SagaInput sagaInput = SagaInput.of(input);
+        List<SagaInput> batch = sagaInput.batch();
+        List<JsonDocument> documents = new ArrayList<>(batch.size());
+        for (SagaInput element : batch) {
+            documents.add(new JsonDocument(element.documentKey(), element.data()));
+        }
+        indexer.createOrOverwrite(documents).blockingAwait();
+        return null;
+    }
+}
@@ -1,15 +1,13 @@
 package io.descoped.lds.core.search;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import io.descoped.lds.api.persistence.DocumentKey;
 import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.search.SearchIndex;
 import io.descoped.lds.api.specification.Specification;
+import io.descoped.lds.core.saga.SagaInput;
 import no.cantara.saga.api.SagaNode;
 import no.cantara.saga.execution.adapter.Adapter;
 
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Map;
 
 public class UpdateIndexSagaAdapter extends Adapter<JsonNode> {
@@ -27,11 +25,8 @@ public class UpdateIndexSagaAdapter extends Adapter<JsonNode> {
 
     @Override
     public JsonNode executeAction(SagaNode sagaNode, Object sagaInput, Map<SagaNode, Object> dependeesOutput) {
-        JsonNode input = (JsonNode) sagaInput;
-        String versionStr = input.get("version").textValue();
-        ZonedDateTime version = ZonedDateTime.parse(versionStr, DateTimeFormatter.ISO_ZONED_DATE_TIME);
-        indexer.createOrOverwrite(new JsonDocument(new DocumentKey(input.get("namespace").textValue(),
-                        input.get("entity").textValue(), input.get("id").textValue(), version), input.get("data")))
+        SagaInput input = SagaInput.of(sagaInput);
+        indexer.createOrOverwrite(new JsonDocument(input.documentKey(), input.data()))
                 .blockingAwait();
         return null;
     }
@@ -0,0 +1,37 @@
+package io.descoped.lds.core.txlog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.descoped.lds.core.saga.SagaInput;
+import io.descoped.rawdata.api.RawdataMessage;
+import no.cantara.saga.api.SagaNode;
+import no.cantara.saga.execution.adapter.Adapter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends one tx-log entry per resource in a batch saga-input, all published with a single call to the producer.
+ */
+public class AppendTxLogBatchAdapter extends Adapter<JsonNode> {
+
+    public static final String NAME = "TxLog-put-entries";
+
+    final TxlogRawdataPool pool;
+
+    public AppendTxLogBatchAdapter(TxlogRawdataPool pool) {
+        super(JsonNode.class, NAME);
+        this.pool = pool;
+    }
+
+    @Override
+    public JsonNode executeAction(SagaNode sagaNode, Object input, Map<SagaNode, Object> dependeesOutput) {
+        SagaInput sagaInput = SagaInput.of(input);
+        List<SagaInput> batch = sagaInput.batch();
+        RawdataMessage[] messages = new RawdataMessage[batch.size()];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = TxLogTools.sagaInputToTxEntry(batch.get(i));
+        }
+        pool.publish(sagaInput.source(), messages).join();
+        return null;
+    }
+}
@@ -2,7 +2,6 @@ package io.descoped.lds.core.txlog;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import io.descoped.lds.core.saga.SagaInput;
-import io.descoped.rawdata.api.RawdataProducer;
 import no.cantara.saga.api.SagaNode;
 import no.cantara.saga.execution.adapter.Adapter;
 
@@ -21,9 +20,8 @@ public class DeleteTxLogAdapter extends Adapter<JsonNode> {
 
     @Override
     public JsonNode executeAction(SagaNode sagaNode, Object input, Map<SagaNode, Object> dependeesOutput) {
-        SagaInput sagaInput = new SagaInput((JsonNode) input);
-        RawdataProducer producer = pool.producer(sagaInput.source());
-        producer.publish(TxLogTools.sagaInputToTxEntry(sagaInput));
+        SagaInput sagaInput = SagaInput.of(input);
+        pool.publish(sagaInput.source(), TxLogTools.sagaInputToTxEntry(sagaInput)).join();
         return null;
     }
 }
@@ -0,0 +1,119 @@
+package io.descoped.lds.core.txlog;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.descoped.lds.core.saga.SagaInput;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+
+/**
+ * Streaming msgpack encoding of tx-log entries.
+ * <p>
+ * Version 2 of the meta format adds the "v" and "ts" fields to the fields of version 1. "ts" is the resource version
+ * as an array of epoch-second, nano-of-second and zone-id that is decoded without parsing the textual version.
+ * Version 1 readers ignore the added fields, and entries of both versions are decoded by {@link TxLogEntry}.
+ * <p>
+ * Meta and data are written by a generator directly into a buffer that is reused by the thread, the only copy is
+ * the byte-array handed over to the rawdata message.
+ */
+final class TxLogCodec {
+
+    static final int VERSION = 2;
+
+    static final int MAX_POOLED_BUFFER_BYTES = 1024 * 1024;
+
+    private static final JsonFactory factory = TxLogTools.mapper.getFactory();
+
+    private static final ThreadLocal<PooledOutputStream> buffers = ThreadLocal.withInitial(PooledOutputStream::new);
+
+    private TxLogCodec() {
+    }
+
+    static byte[] encodeMeta(SagaInput sagaInput) {
+        PooledOutputStream out = acquire();
+        try {
+            try (JsonGenerator generator = factory.createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeNumberField("v", VERSION);
+                generator.writeStringField("method", sagaInput.method());
+                generator.writeStringField("schema", sagaInput.schema());
+                generator.writeStringField("namespace", sagaInput.namespace());
+                generator.writeStringField("entity", sagaInput.entity());
+                generator.writeStringField("id", sagaInput.resourceId());
+                generator.writeStringField("version", sagaInput.versionAsString());
+                ZonedDateTime version = sagaInput.version();
+                Instant instant = version.toInstant();
+                generator.writeArrayFieldStart("ts");
+                generator.writeNumber(instant.getEpochSecond());
+                generator.writeNumber(instant.getNano());
+                generator.writeString(version.getZone().getId());
+                generator.writeEndArray();
+                String source = sagaInput.source();
+                if (source != null) {
+                    generator.writeStringField("source", source);
+                }
+                String sourceId = sagaInput.sourceId();
+                if (sourceId != null) {
+                    generator.writeStringField("sourceId", sourceId);
+                }
+                generator.writeEndObject();
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            release(out);
+        }
+    }
+
+    static byte[] encodeData(JsonNode data) {
+        PooledOutputStream out = acquire();
+        try {
+            try (JsonGenerator generator = factory.createGenerator(out)) {
+                generator.writeTree(data);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            release(out);
+        }
+    }
+
+    static String position(SagaInput sagaInput) {
+        String entity = sagaInput.entity();
+        String id = sagaInput.resourceId();
+        return new StringBuilder(entity.length() + id.length() + 16)
+                .append(entity).append('/')
+                .append(id).append('/')
+                .append(sagaInput.version().toInstant().toEpochMilli())
+                .toString();
+    }
+
+    private static PooledOutputStream acquire() {
+        PooledOutputStream out = buffers.get();
+        out.reset();
+        return out;
+    }
+
+    private static void release(PooledOutputStream out) {
+        if (out.capacity() > MAX_POOLED_BUFFER_BYTES) {
+            buffers.remove(); // do not keep the buffer of an unusually large document
+        }
+    }
+
+    static final class PooledOutputStream extends ByteArrayOutputStream {
+        PooledOutputStream() {
+            super(8192);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package io.descoped.lds.core.txlog;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import de.huxhorn.sulky.ulid.ULID;
+import io.descoped.lds.core.saga.SagaInput;
+import io.descoped.rawdata.api.RawdataMessage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A tx-log entry read from the tx-log. Meta fields are decoded on first access by streaming over the meta map, and
+ * data is only decoded when asked for. Entries of all versions written by {@link TxLogCodec} can be read.
+ */
+public class TxLogEntry {
+
+    private final RawdataMessage message;
+
+    private boolean metaDecoded;
+    private int formatVersion = 1;
+    private String method;
+    private String schema;
+    private String namespace;
+    private String entity;
+    private String id;
+    private String versionAsString;
+    private ZonedDateTime version;
+    private String source;
+    private String sourceId;
+
+    private TxLogEntry(RawdataMessage message) {
+        this.message = message;
+    }
+
+    public static TxLogEntry of(RawdataMessage message) {
+        return new TxLogEntry(message);
+    }
+
+    public RawdataMessage message() {
+        return message;
+    }
+
+    public ULID.Value txId() {
+        return message.ulid();
+    }
+
+    public int formatVersion() {
+        decodeMeta();
+        return formatVersion;
+    }
+
+    public String method() {
+        decodeMeta();
+        return method;
+    }
+
+    public String schema() {
+        decodeMeta();
+        return schema;
+    }
+
+    public String namespace() {
+        decodeMeta();
+        return namespace;
+    }
+
+    public String entity() {
+        decodeMeta();
+        return entity;
+    }
+
+    public String resourceId() {
+        decodeMeta();
+        return id;
+    }
+
+    public ZonedDateTime version() {
+        decodeMeta();
+        if (version == null) {
+            version = ZonedDateTime.parse(versionAsString, DateTimeFormatter.ISO_ZONED_DATE_TIME); // version 1
+        }
+        return version;
+    }
+
+    public String source() {
+        decodeMeta();
+        return source;
+    }
+
+    public String sourceId() {
+        decodeMeta();
+        return sourceId;
+    }
+
+    /**
+     * @return the decoded document, or null if the entry has no data.
+     */
+    public JsonNode data() {
+        return message.keys().contains("data") ? TxLogTools.toJson(message.get("data")) : null;
+    }
+
+    public SagaInput toSagaInput() {
+        return new SagaInput(txId(), method(), schema(), namespace(), entity(), resourceId(), version(), source(), sourceId(), data());
+    }
+
+    private void decodeMeta() {
+        if (metaDecoded) {
+            return;
+        }
+        try (JsonParser parser = TxLogTools.mapper.getFactory().createParser(message.get("meta"))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("tx-log meta is not a map, position: " + message.position());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "v":
+                        formatVersion = parser.getIntValue();
+                        break;
+                    case "method":
+                        method = parser.getText();
+                        break;
+                    case "schema":
+                        schema = parser.getText();
+                        break;
+                    case "namespace":
+                        namespace = parser.getText();
+                        break;
+                    case "entity":
+                        entity = parser.getText();
+                        break;
+                    case "id":
+                        id = parser.getText();
+                        break;
+                    case "version":
+                        versionAsString = parser.getText();
+                        break;
+                    case "ts":
+                        version = decodeTimestamp(parser);
+                        break;
+                    case "source":
+                        source = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                        break;
+                    case "sourceId":
+                        sourceId = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                        break;
+                    default:
+                        parser.skipChildren(); // written by a later version
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        metaDecoded = true;
+    }
+
+    private static ZonedDateTime decodeTimestamp(JsonParser parser) throws IOException {
+        parser.nextToken();
+        long epochSecond = parser.getLongValue();
+        parser.nextToken();
+        int nano = parser.getIntValue();
+        parser.nextToken();
+        ZoneId zone = ZoneId.of(parser.getText());
+        parser.nextToken(); // end of array
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), zone);
+    }
+}
@@ -0,0 +1,281 @@
+package io.descoped.lds.core.txlog;
+
+import de.huxhorn.sulky.ulid.ULID;
+import io.descoped.lds.api.persistence.PersistenceDeletePolicy;
+import io.descoped.lds.api.persistence.Transaction;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
+import io.descoped.lds.api.search.SearchIndex;
+import io.descoped.lds.api.specification.Specification;
+import io.descoped.lds.core.saga.SagaInput;
+import io.descoped.rawdata.api.RawdataClient;
+import io.descoped.rawdata.api.RawdataConsumer;
+import io.descoped.rawdata.api.RawdataMessage;
+import io.reactivex.Flowable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Rebuilds persistence and/or a search index by applying the entries of a tx-log topic in order.
+ * <p>
+ * Entries are read in rounds of at most batch-size entries. The puts of a round are partitioned by (entity, id) and
+ * the partitions are applied in parallel, so that all entries of a resource are applied in tx-log order. Consecutive
+ * puts in a partition are written with one call to persistence and the search index. A delete is a barrier, it is
+ * applied after all entries before it in the round and before all entries after it, so that the incoming-link check
+ * sees the same links as when the delete was logged. When a round is applied, the tx-id of its last entry is passed to
+ * the checkpoint listener, and a replay that is started from that tx-id continues exactly after the round.
+ */
+public class TxLogReplayer implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TxLogReplayer.class);
+
+    final RawdataClient client;
+    final String topic;
+    final RxJsonPersistence persistence;
+    final Specification specification;
+    final SearchIndex searchIndex;
+    final int partitions;
+    final int batchSize;
+    final int maxEntriesPerSecond;
+    final long idleTimeoutMs;
+    final Consumer<ULID.Value> checkpointListener;
+    final ExecutorService executor;
+
+    private TxLogReplayer(Builder builder) {
+        this.client = Objects.requireNonNull(builder.client, "client");
+        this.topic = Objects.requireNonNull(builder.topic, "topic");
+        if (builder.persistence == null && builder.searchIndex == null) {
+            throw new IllegalArgumentException("Nothing to replay to, persistence and/or search-index must be set");
+        }
+        this.persistence = builder.persistence;
+        this.specification = builder.specification;
+        this.searchIndex = builder.searchIndex;
+        this.partitions = builder.partitions;
+        this.batchSize = builder.batchSize;
+        this.maxEntriesPerSecond = builder.maxEntriesPerSecond;
+        this.idleTimeoutMs = builder.idleTimeoutMs;
+        this.checkpointListener = builder.checkpointListener;
+        AtomicInteger threadId = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(partitions, runnable -> {
+            Thread thread = new Thread(runnable, "txlog-replay-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Applies all entries after the given tx-id, until no entry has been available for the idle-timeout.
+     *
+     * @param after the checkpoint to continue from, or null to replay the whole tx-log.
+     * @return the number of applied entries and the checkpoint after the last of them, which is the given tx-id if no
+     * entries were applied.
+     */
+    public ReplayResult replay(ULID.Value after) throws Exception {
+        long startNanos = System.nanoTime();
+        long applied = 0;
+        ULID.Value checkpoint = after;
+        try (RawdataConsumer consumer = after == null ? client.consumer(topic) : client.consumer(topic, after, false)) {
+            List<SagaInput> round = new ArrayList<>(batchSize);
+            while (true) {
+                round.clear();
+                RawdataMessage message = consumer.receive(idleTimeoutMs, TimeUnit.MILLISECONDS);
+                while (message != null) {
+                    round.add(TxLogEntry.of(message).toSagaInput());
+                    if (round.size() >= batchSize) {
+                        break;
+                    }
+                    message = consumer.receive(0, TimeUnit.MILLISECONDS);
+                }
+                if (round.isEmpty()) {
+                    break;
+                }
+                applyRound(round);
+                applied += round.size();
+                checkpoint = ULID.parseULID(round.get(round.size() - 1).txId());
+                if (checkpointListener != null) {
+                    checkpointListener.accept(checkpoint);
+                }
+                throttle(startNanos, applied);
+            }
+        }
+        LOG.info("Replayed {} entries of tx-log {} in {} ms, checkpoint: {}", applied, topic,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), checkpoint);
+        return new ReplayResult(applied, checkpoint);
+    }
+
+    private void applyRound(List<SagaInput> round) {
+        List<List<JsonDocument>> byPartition = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            byPartition.add(new ArrayList<>());
+        }
+        for (SagaInput entry : round) {
+            JsonDocument document = new JsonDocument(entry.documentKey(), entry.data());
+            if ("DELETE".equals(entry.method())) {
+                applyPartitions(byPartition);
+                applyDelete(document);
+            } else {
+                int partition = Math.floorMod(Objects.hash(entry.entity(), entry.resourceId()), partitions);
+                byPartition.get(partition).add(document);
+            }
+        }
+        applyPartitions(byPartition);
+    }
+
+    private void applyPartitions(List<List<JsonDocument>> byPartition) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(partitions);
+        for (List<JsonDocument> puts : byPartition) {
+            if (!puts.isEmpty()) {
+                futures.add(CompletableFuture.runAsync(() -> applyPuts(puts), executor));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void applyPuts(List<JsonDocument> puts) {
+        if (puts.isEmpty()) {
+            return;
+        }
+        if (persistence != null) {
+            try (Transaction tx = persistence.createTransaction(false)) {
+                persistence.createOrOverwrite(tx, Flowable.fromIterable(puts), specification).blockingAwait();
+            }
+        }
+        if (searchIndex != null) {
+            searchIndex.createOrOverwrite(new ArrayList<>(puts)).blockingAwait();
+        }
+        puts.clear();
+    }
+
+    private void applyDelete(JsonDocument document) {
+        if (persistence != null) {
+            try (Transaction tx = persistence.createTransaction(false)) {
+                persistence.markDocumentDeleted(tx, document.key().namespace(), document.key().entity(),
+                        document.key().id(), document.key().timestamp(), PersistenceDeletePolicy.FAIL_IF_INCOMING_LINKS)
+                        .blockingAwait();
+            }
+        }
+        if (searchIndex != null) {
+            searchIndex.delete(document).blockingAwait();
+        }
+    }
+
+    private void throttle(long startNanos, long applied) throws InterruptedException {
+        if (maxEntriesPerSecond <= 0) {
+            return;
+        }
+        long earliestNanos = startNanos + TimeUnit.SECONDS.toNanos(applied) / maxEntriesPerSecond;
+        long sleepNanos = earliestNanos - System.nanoTime();
+        if (sleepNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    public static class ReplayResult {
+        final long applied;
+        final ULID.Value checkpoint;
+
+        ReplayResult(long applied, ULID.Value checkpoint) {
+            this.applied = applied;
+            this.checkpoint = checkpoint;
+        }
+
+        public long getApplied() {
+            return applied;
+        }
+
+        public ULID.Value getCheckpoint() {
+            return checkpoint;
+        }
+    }
+
+    public static class Builder {
+
+        RawdataClient client;
+        String topic;
+        RxJsonPersistence persistence;
+        Specification specification;
+        SearchIndex searchIndex;
+        int partitions = Runtime.getRuntime().availableProcessors();
+        int batchSize = 1000;
+        int maxEntriesPerSecond = 0;
+        long idleTimeoutMs = 1000;
+        Consumer<ULID.Value> checkpointListener;
+
+        public Builder txLog(TxlogRawdataPool txLogPool, String source) {
+            this.client = txLogPool.getClient();
+            this.topic = txLogPool.topicOf(source);
+            return this;
+        }
+
+        public Builder txLog(RawdataClient client, String topic) {
+            this.client = client;
+            this.topic = topic;
+            return this;
+        }
+
+        public Builder persistence(RxJsonPersistence persistence, Specification specification) {
+            this.persistence = persistence;
+            this.specification = specification;
+            return this;
+        }
+
+        public Builder searchIndex(SearchIndex searchIndex) {
+            this.searchIndex = searchIndex;
+            return this;
+        }
+
+        public Builder partitions(int partitions) {
+            this.partitions = Math.max(1, partitions);
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            this.batchSize = Math.max(1, batchSize);
+            return this;
+        }
+
+        /**
+         * @param maxEntriesPerSecond the maximum average rate of applied entries, 0 for no limit.
+         */
+        public Builder maxEntriesPerSecond(int maxEntriesPerSecond) {
+            this.maxEntriesPerSecond = maxEntriesPerSecond;
+            return this;
+        }
+
+        public Builder idleTimeout(long timeout, TimeUnit unit) {
+            this.idleTimeoutMs = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * @param checkpointListener receives the tx-id of the last entry of every applied round.
+         */
+        public Builder checkpointListener(Consumer<ULID.Value> checkpointListener) {
+            this.checkpointListener = checkpointListener;
+            return this;
+        }
+
+        public TxLogReplayer build() {
+            return new TxLogReplayer(this);
+        }
+    }
+}
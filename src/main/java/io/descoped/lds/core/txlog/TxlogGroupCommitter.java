@@ -0,0 +1,160 @@
+package io.descoped.lds.core.txlog;
+
+import io.descoped.rawdata.api.RawdataMessage;
+import io.descoped.rawdata.api.RawdataProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group-commit stage in front of the producer of one tx-log topic.
+ * <p>
+ * Messages from concurrent callers are accumulated until either the maximum number of messages, the maximum number
+ * of bytes or the time-window since the first message in the group is reached. The group is then published with one
+ * call to the producer, and the future of every caller in the group is completed when that call returns. The order
+ * of messages is the order in which they were submitted.
+ */
+class TxlogGroupCommitter implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TxlogGroupCommitter.class);
+
+    private final RawdataProducer producer;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final long windowNanos;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private final AtomicLong batchCount = new AtomicLong();
+    private volatile boolean closed;
+
+    TxlogGroupCommitter(String topic, RawdataProducer producer, int maxMessages, long maxBytes, long windowMicros) {
+        this.producer = producer;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.thread = new Thread(this::run, "txlog-group-commit-" + topic);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Submits the messages to the next group.
+     *
+     * @return a future that is completed when the group containing the messages has been published.
+     */
+    CompletableFuture<Void> publish(RawdataMessage... messages) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Group-committer is closed"));
+        }
+        Entry entry = new Entry(messages);
+        queue.add(entry);
+        // close may have drained the queue between the check above and the add, whoever removes the entry from the
+        // queue completes its future
+        if (closed && queue.remove(entry)) {
+            entry.future.completeExceptionally(new IllegalStateException("Group-committer is closed"));
+        }
+        return entry.future;
+    }
+
+    long batchCount() {
+        return batchCount.get();
+    }
+
+    private void run() {
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Entry> group = new ArrayList<>();
+                group.add(first);
+                int messageCount = first.messages.length;
+                long byteCount = first.bytes;
+                long deadline = System.nanoTime() + windowNanos;
+                while (messageCount < maxMessages && byteCount < maxBytes) {
+                    long remaining = deadline - System.nanoTime();
+                    Entry next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    messageCount += next.messages.length;
+                    byteCount += next.bytes;
+                }
+                commit(group, messageCount);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        failRemaining();
+    }
+
+    private void failRemaining() {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            entry.future.completeExceptionally(new IllegalStateException("Group-committer is closed"));
+        }
+    }
+
+    private void commit(List<Entry> group, int messageCount) {
+        RawdataMessage[] messages = new RawdataMessage[messageCount];
+        int i = 0;
+        for (Entry entry : group) {
+            System.arraycopy(entry.messages, 0, messages, i, entry.messages.length);
+            i += entry.messages.length;
+        }
+        try {
+            producer.publish(messages);
+            batchCount.incrementAndGet();
+        } catch (Throwable t) {
+            LOG.error("Unable to publish group of {} tx-log messages", messageCount, t);
+            for (Entry entry : group) {
+                entry.future.completeExceptionally(t);
+            }
+            return;
+        }
+        for (Entry entry : group) {
+            entry.future.complete(null);
+        }
+    }
+
+    /**
+     * Publishes all submitted messages and stops the group-commit thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failRemaining();
+    }
+
+    private static class Entry {
+        final RawdataMessage[] messages;
+        final long bytes;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Entry(RawdataMessage[] messages) {
+            this.messages = messages;
+            long bytes = 0;
+            for (RawdataMessage message : messages) {
+                for (String key : message.keys()) {
+                    bytes += message.get(key).length;
+                }
+            }
+            this.bytes = bytes;
+        }
+    }
+}
@@ -1,28 +1,41 @@
 package io.descoped.lds.core.txlog;
 
+import de.huxhorn.sulky.ulid.ULID;
 import io.descoped.rawdata.api.RawdataClient;
+import io.descoped.rawdata.api.RawdataConsumer;
 import io.descoped.rawdata.api.RawdataMessage;
 import io.descoped.rawdata.api.RawdataProducer;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Optional.ofNullable;
 
-public class TxlogRawdataPool {
+public class TxlogRawdataPool implements AutoCloseable {
 
     private final RawdataClient client;
     private final boolean splitSources;
     private final String defaultSource;
     private final String txLogTopicPrefix;
+    private final GroupCommit groupCommit;
 
     private final Map<String, RawdataProducer> producerByTopic = new ConcurrentHashMap<>();
+    private final Map<String, TxlogGroupCommitter> groupCommitterByTopic = new ConcurrentHashMap<>();
 
     public TxlogRawdataPool(RawdataClient client, boolean splitSources, String defaultSource, String txLogTopicPrefix) {
+        this(client, splitSources, defaultSource, txLogTopicPrefix, null);
+    }
+
+    /**
+     * @param groupCommit the group-commit settings, or null to publish every call directly.
+     */
+    public TxlogRawdataPool(RawdataClient client, boolean splitSources, String defaultSource, String txLogTopicPrefix, GroupCommit groupCommit) {
         this.client = client;
         this.splitSources = splitSources;
         this.defaultSource = defaultSource;
         this.txLogTopicPrefix = txLogTopicPrefix;
+        this.groupCommit = groupCommit;
     }
 
     public RawdataClient getClient() {
@@ -46,6 +59,27 @@ public class TxlogRawdataPool {
         return producerByTopic.computeIfAbsent(topic, client::producer);
     }
 
+    /**
+     * Publishes the messages to the tx-log of the source. When group-commit is enabled, the messages are published
+     * together with those of other concurrent callers.
+     *
+     * @return a future that is completed when the messages have been published.
+     */
+    public CompletableFuture<Void> publish(String source, RawdataMessage... messages) {
+        if (groupCommit == null) {
+            try {
+                producer(source).publish(messages);
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        String topic = topicOf(source);
+        TxlogGroupCommitter groupCommitter = groupCommitterByTopic.computeIfAbsent(topic, t -> new TxlogGroupCommitter(
+                t, producer(source), groupCommit.maxMessages, groupCommit.maxBytes, groupCommit.windowMicros));
+        return groupCommitter.publish(messages);
+    }
+
     public String topicOf(String source) {
         if (splitSources) {
             // Use separate tx-log topic per source
@@ -62,4 +96,40 @@ public class TxlogRawdataPool {
         String topic = topicOf(source);
         return client.lastMessage(topic);
     }
+
+    /**
+     * @param after the tx-id of the entry to read after, or null to read from the beginning.
+     * @return a consumer of the tx-log of the source, or null if the source does not have a tx-log of its own.
+     */
+    public RawdataConsumer consumer(String source, ULID.Value after) {
+        if (!splitSources && !source.equals(defaultSource)) {
+            return null;
+        }
+        String topic = topicOf(source);
+        return after == null ? client.consumer(topic) : client.consumer(topic, after, false);
+    }
+
+    /**
+     * Publishes pending group-commits and closes the client.
+     */
+    @Override
+    public void close() throws Exception {
+        groupCommitterByTopic.values().forEach(TxlogGroupCommitter::close);
+        client.close();
+    }
+
+    /**
+     * Limits of one group-commit. A group is published when any of the limits is reached.
+     */
+    public static class GroupCommit {
+        final int maxMessages;
+        final long maxBytes;
+        final long windowMicros;
+
+        public GroupCommit(int maxMessages, long maxBytes, long windowMicros) {
+            this.maxMessages = maxMessages;
+            this.maxBytes = maxBytes;
+            this.windowMicros = windowMicros;
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package io.descoped.lds.core.validation;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import io.descoped.lds.api.persistence.json.JsonTools;
 import io.descoped.lds.api.specification.Specification;
 import io.descoped.lds.api.specification.SpecificationElement;
 import io.descoped.lds.api.specification.SpecificationElementType;
@@ -12,12 +14,25 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+/**
+ * Validates documents against the json-schema of their managed domain and checks that every link points to a domain
+ * allowed by the specification.
+ * <p>
+ * The navigation paths of the links in a managed domain are compiled the first time the domain is validated, and
+ * documents are validated directly on their Jackson tree. Instances are thread-safe and should be shared.
+ */
 public class LinkedDocumentValidator {
 
     private static final Logger LOG = LoggerFactory.getLogger(LinkedDocumentValidator.class);
@@ -25,6 +40,7 @@ public class LinkedDocumentValidator {
     private final Specification specification;
     private final SchemaRepository schemaRepository;
     private final Pattern linkPattern = Pattern.compile("/([^/]+)/([^/]+)");
+    private final Map<String, List<LinkPath>> linkPathsByManagedDomain = new ConcurrentHashMap<>();
 
     public LinkedDocumentValidator(Specification specification, SchemaRepository schemaRepository) {
         this.specification = specification;
@@ -32,23 +48,42 @@ public class LinkedDocumentValidator {
     }
 
     public void validate(String managedDomain, String document) throws LinkedDocumentValidationException {
+        validate(managedDomain, JsonTools.toJsonNode(document));
+    }
 
-        // TODO Use already parsed Jackson instead of org.json. Requires a change of json-schema validation library
-        JSONObject linkedDocument = new JSONObject(document);
-
+    public void validate(String managedDomain, JsonNode document) throws LinkedDocumentValidationException {
         Schema schema = schemaRepository.getJsonSchema().getSchema(managedDomain);
         try {
-            schema.validate(linkedDocument);
+            // The json-schema validation library works on org.json, the tree is converted without a text round-trip.
+            schema.validate(toOrgJson(document));
         } catch (ValidationException e) {
             e.getAllMessages().forEach(m -> LOG.debug("{}", m));
             throw new LinkedDocumentValidationException(e.getAllMessages().toString(), e);
         }
+        List<LinkPath> linkPaths = linkPathsByManagedDomain.computeIfAbsent(managedDomain, this::compileLinkPaths);
+        for (LinkPath linkPath : linkPaths) {
+            JsonNode value = linkPath.resolve(document);
+            if (value == null || value.isNull()) {
+                continue;
+            }
+            if (value.isArray()) {
+                for (JsonNode link : value) {
+                    validateLink(linkPath, link.asText());
+                }
+            } else {
+                validateLink(linkPath, value.asText());
+            }
+        }
+    }
+
+    private List<LinkPath> compileLinkPaths(String managedDomain) {
+        List<LinkPath> linkPaths = new ArrayList<>();
         SpecificationElement managedDomainElement = specification.getRootElement().getProperties().get(managedDomain);
         SpecificationTraversal.depthFirstPreOrderFullTraversal(managedDomainElement, (ancestors, te) -> {
             if (SpecificationElementType.REF != te.getSpecificationElementType()) {
                 return;
             }
-            JSONObject context = linkedDocument;
+            List<String> parentNames = new ArrayList<>();
             for (SpecificationElement ancestor : ancestors) {
                 if (SpecificationElementType.ROOT == ancestor.getSpecificationElementType()) {
                     continue;
@@ -56,37 +91,21 @@ public class LinkedDocumentValidator {
                 if (SpecificationElementType.MANAGED == ancestor.getSpecificationElementType()) {
                     continue;
                 }
-                if (!context.has(ancestor.getName())) {
-                    return;
-                }
-                context = context.getJSONObject(ancestor.getName());
-            }
-            if (!context.has(te.getName())) {
-                return;
-            }
-            if (te.getJsonTypes().contains("array")) {
-                JSONArray linkArray = context.getJSONArray(te.getName());
-                for (int i = 0; i < linkArray.length(); i++) {
-                    String link = linkArray.getString(i);
-                    validateLink(ancestors, te, link);
-                }
-            } else {
-                String link = context.optString(te.getName(), null);
-                if (link != null) {
-                    validateLink(ancestors, te, link);
-                }
+                parentNames.add(ancestor.getName());
             }
+            linkPaths.add(new LinkPath(parentNames, te.getName(), te.getRefTypes(), printNavigationPath(ancestors, te)));
         });
+        return linkPaths;
     }
 
-    private void validateLink(Deque<SpecificationElement> ancestors, SpecificationElement te, String link) throws LinkedDocumentValidationException {
+    private void validateLink(LinkPath linkPath, String link) throws LinkedDocumentValidationException {
         Matcher m = linkPattern.matcher(link);
         if (!m.matches()) {
-            throw new LinkedDocumentValidationException(String.format("Not a valid link. Navigation: %s: \"%s\"", printNavigationPath(ancestors, te), link));
+            throw new LinkedDocumentValidationException(String.format("Not a valid link. Navigation: %s: \"%s\"", linkPath.navigationPath, link));
         }
         String linkedDomain = m.group(1);
-        if (!te.getRefTypes().contains(linkedDomain)) {
-            throw new LinkedDocumentValidationException(String.format("Illegal linked-domain: \"%s\". Navigation: %s: \"%s\"", linkedDomain, printNavigationPath(ancestors, te), link));
+        if (!linkPath.refTypes.contains(linkedDomain)) {
+            throw new LinkedDocumentValidationException(String.format("Illegal linked-domain: \"%s\". Navigation: %s: \"%s\"", linkedDomain, linkPath.navigationPath, link));
         }
     }
 
@@ -96,4 +115,68 @@ public class LinkedDocumentValidator {
         debugListing.addLast(te);
         return debugListing.stream().map(e -> e.getName()).collect(Collectors.joining("."));
     }
+
+    static Object toOrgJson(JsonNode node) {
+        if (node.isObject()) {
+            JSONObject object = new JSONObject();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                object.put(field.getKey(), toOrgJson(field.getValue()));
+            }
+            return object;
+        }
+        if (node.isArray()) {
+            JSONArray array = new JSONArray();
+            for (JsonNode element : node) {
+                array.put(toOrgJson(element));
+            }
+            return array;
+        }
+        if (node.isTextual()) {
+            return node.textValue();
+        }
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        if (node.isNull() || node.isMissingNode()) {
+            return JSONObject.NULL;
+        }
+        return node.asText();
+    }
+
+    /**
+     * Navigation path of a link property within a managed domain.
+     */
+    static class LinkPath {
+        final List<String> parentNames;
+        final String name;
+        final Collection<String> refTypes;
+        final String navigationPath;
+
+        LinkPath(List<String> parentNames, String name, Collection<String> refTypes, String navigationPath) {
+            this.parentNames = parentNames;
+            this.name = name;
+            this.refTypes = refTypes;
+            this.navigationPath = navigationPath;
+        }
+
+        /**
+         * Returns the value of the link property in the document, or null if the property or any of its parents are
+         * missing.
+         */
+        JsonNode resolve(JsonNode document) {
+            JsonNode context = document;
+            for (String parentName : parentNames) {
+                context = context.get(parentName);
+                if (context == null || !context.isObject()) {
+                    return null;
+                }
+            }
+            return context.get(name);
+        }
+    }
 }
@@ -2,6 +2,7 @@ package io.descoped.lds.graphql;
 
 import graphql.ExecutionInput;
 import io.undertow.server.HttpServerExchange;
+import org.dataloader.DataLoaderRegistry;
 
 import java.time.Clock;
 import java.time.ZonedDateTime;
@@ -25,10 +26,17 @@ public class GraphQLUndertowContext implements GraphQLContext {
     private final HttpServerExchange exchange;
     private final ZonedDateTime snapshot;
     private final ExecutionInput executionInput;
+    private final DataLoaderRegistry dataLoaderRegistry;
 
     GraphQLUndertowContext(HttpServerExchange exchange, ExecutionInput executionInput) {
+        this(exchange, executionInput, new DataLoaderRegistry());
+    }
+
+    GraphQLUndertowContext(HttpServerExchange exchange, ExecutionInput executionInput,
+                           DataLoaderRegistry dataLoaderRegistry) {
         this.exchange = Objects.requireNonNull(exchange);
         this.executionInput = executionInput;
+        this.dataLoaderRegistry = Objects.requireNonNull(dataLoaderRegistry);
         // Init snapshot.
         this.snapshot = getSnapshot(exchange.getQueryParameters(), executionInput.getVariables(), Clock.systemUTC());
     }
@@ -115,4 +123,11 @@ public class GraphQLUndertowContext implements GraphQLContext {
         return this.snapshot;
     }
 
+    /**
+     * Returns the data loaders that are shared by all the fetchers of this execution.
+     */
+    public DataLoaderRegistry getDataLoaderRegistry() {
+        return this.dataLoaderRegistry;
+    }
+
 }
@@ -5,6 +5,7 @@ import graphql.ExecutionInput;
 import graphql.ExecutionResult;
 import graphql.GraphQL;
 import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.core.domain.ResponseFormat;
 import io.undertow.attribute.ExchangeAttributes;
 import io.undertow.predicate.Predicate;
 import io.undertow.predicate.Predicates;
@@ -14,19 +15,22 @@ import io.undertow.util.HeaderMap;
 import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
 import io.undertow.util.StatusCodes;
+import org.dataloader.DataLoaderRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Deque;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.function.Supplier;
 
-import static io.descoped.lds.api.persistence.json.JsonTools.mapper;
 import static io.undertow.util.Headers.ALLOW;
 import static io.undertow.util.Methods.GET;
 import static io.undertow.util.Methods.GET_STRING;
@@ -43,6 +47,8 @@ import static io.undertow.util.Methods.POST_STRING;
  */
 public class GraphqlHttpHandler implements HttpHandler {
 
+    private static final Logger LOG = LoggerFactory.getLogger(GraphqlHttpHandler.class);
+
     private static final Predicate IS_JSON = Predicates.regex(
             ExchangeAttributes.requestHeader(Headers.CONTENT_TYPE),
             "application/(.*\\+)?json"
@@ -54,6 +60,8 @@ public class GraphqlHttpHandler implements HttpHandler {
     );
 
     private final GraphQL graphQl;
+    private final Supplier<DataLoaderRegistry> dataLoaderRegistrySupplier;
+    private final boolean async;
 
     /**
      * Constructs a handler with the specified GraphQL instance.
@@ -62,7 +70,37 @@ public class GraphqlHttpHandler implements HttpHandler {
      * @throws NullPointerException if the graphQl was null.
      */
     public GraphqlHttpHandler(GraphQL graphQl) {
+        this(graphQl, DataLoaderRegistry::new);
+    }
+
+    /**
+     * Constructs a handler with the specified GraphQL instance and data loaders.
+     *
+     * @param graphQl                    the instance that will execute the queries.
+     * @param dataLoaderRegistrySupplier creates the data loaders used by one request.
+     * @throws NullPointerException if any of the arguments was null.
+     */
+    public GraphqlHttpHandler(GraphQL graphQl, Supplier<DataLoaderRegistry> dataLoaderRegistrySupplier) {
+        this(graphQl, dataLoaderRegistrySupplier, false);
+    }
+
+    /**
+     * Constructs a handler with the specified GraphQL instance and data loaders.
+     * <p>
+     * In async mode the request body is read with the non-blocking receiver and the query is executed with
+     * {@link GraphQL#executeAsync(ExecutionInput.Builder)}. The data fetchers read persistence on the io scheduler,
+     * so the worker thread returns once the execution is started and the response is sent from the thread that
+     * completes it.
+     *
+     * @param graphQl                    the instance that will execute the queries.
+     * @param dataLoaderRegistrySupplier creates the data loaders used by one request.
+     * @param async                      whether to execute the queries asynchronously.
+     * @throws NullPointerException if any of the arguments was null.
+     */
+    public GraphqlHttpHandler(GraphQL graphQl, Supplier<DataLoaderRegistry> dataLoaderRegistrySupplier, boolean async) {
         this.graphQl = Objects.requireNonNull(graphQl);
+        this.dataLoaderRegistrySupplier = Objects.requireNonNull(dataLoaderRegistrySupplier);
+        this.async = async;
     }
 
     private static Optional<String> extractParam(Map<String, Deque<String>> parameters, String name) {
@@ -79,12 +117,6 @@ public class GraphqlHttpHandler implements HttpHandler {
         return Optional.empty();
     }
 
-    private static JsonNode toJson(HttpServerExchange exchange) throws IOException {
-        try (InputStream bi = new BufferedInputStream(exchange.getInputStream())) {
-            return mapper.readTree(new InputStreamReader(bi, Charset.forName(exchange.getRequestCharset())));
-        }
-    }
-
     private static String toString(HttpServerExchange exchange) throws IOException {
         try (InputStream i = new BufferedInputStream(exchange.getInputStream())) {
             Scanner scanner = new Scanner(i, Charset.forName(exchange.getRequestCharset())).useDelimiter("\\A");
@@ -92,9 +124,52 @@ public class GraphqlHttpHandler implements HttpHandler {
         }
     }
 
+    private static ExecutionInput.Builder fromBody(HttpServerExchange exchange, String body) {
+        ExecutionInput.Builder executionInput = ExecutionInput.newExecutionInput();
+        if (IS_GRAPHQL.resolve(exchange)) {
+            executionInput.query(body);
+        } else {
+            JsonNode json = JsonTools.toJsonNode(body);
+            executionInput.query(json.get("query").textValue());
+            if (json.has("variables") && !json.get("variables").isNull()) {
+                executionInput.variables(JsonTools.toMap(json.get("variables")));
+            }
+            if (json.has("operationName")) {
+                executionInput.operationName(json.get("operationName").textValue());
+            }
+        }
+        return executionInput;
+    }
+
+    private static ExecutionInput.Builder fromParameters(HttpServerExchange exchange) {
+        ExecutionInput.Builder executionInput = ExecutionInput.newExecutionInput();
+        Map<String, Deque<String>> parameters = exchange.getQueryParameters();
+
+        Optional<String> query = extractParam(parameters, "query");
+        query.ifPresent(executionInput::query);
+
+        Optional<String> operationName = extractParam(parameters, "operationName");
+        operationName.ifPresent(executionInput::operationName);
+
+        Optional<String> variables = extractParam(parameters, "variables");
+        variables.map(JsonTools::toJsonNode).map(JsonTools::toMap).ifPresent(executionInput::variables);
+
+        return executionInput;
+    }
+
+    private static void sendResult(HttpServerExchange exchange, ExecutionResult result) {
+        Map<String, Object> resultMap = result.toSpecification();
+        ResponseFormat format = ResponseFormat.negotiate(exchange);
+
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, format.contentType());
+        exchange.getResponseHeaders().put(Headers.VARY, Headers.ACCEPT_STRING);
+        exchange.setStatusCode(StatusCodes.OK);
+        exchange.getResponseSender().send(ByteBuffer.wrap(format.toBytes(resultMap)));
+    }
+
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
-        if (exchange.isInIoThread()) {
+        if (!async && exchange.isInIoThread()) {
             exchange.dispatch(this);
             return;
         }
@@ -109,55 +184,67 @@ public class GraphqlHttpHandler implements HttpHandler {
             return;
         }
 
-        exchange.startBlocking();
-        ExecutionInput.Builder executionInput = ExecutionInput.newExecutionInput();
         if (method.equals(POST)) {
-            if (IS_GRAPHQL.resolve(exchange)) {
-                executionInput.query(toString(exchange));
-            } else if (IS_JSON.resolve(exchange)) {
-                JsonNode json = toJson(exchange);
-                executionInput.query(json.get("query").textValue());
-                if (json.has("variables") && !json.get("variables").isNull()) {
-                    executionInput.variables(JsonTools.toMap(json.get("variables")));
-                }
-                if (json.has("operationName")) {
-                    executionInput.operationName(json.get("operationName").textValue());
-                }
-            } else {
+            if (!IS_GRAPHQL.resolve(exchange) && !IS_JSON.resolve(exchange)) {
                 exchange.setStatusCode(StatusCodes.UNSUPPORTED_MEDIA_TYPE);
                 return;
             }
+            if (async) {
+                exchange.getRequestReceiver().receiveFullString(
+                        this::executeBody,
+                        Charset.forName(exchange.getRequestCharset())
+                );
+            } else {
+                exchange.startBlocking();
+                executeBody(exchange, toString(exchange));
+            }
         } else if (method.equals(GET)) {
-
-            Map<String, Deque<String>> parameters = exchange.getQueryParameters();
-
-            Optional<String> query = extractParam(parameters, "query");
-            query.ifPresent(executionInput::query);
-
-            Optional<String> operationName = extractParam(parameters, "operationName");
-            operationName.ifPresent(executionInput::operationName);
-
-            Optional<String> variables = extractParam(parameters, "variables");
-            variables.map(JsonTools::toJsonNode).map(JsonTools::toMap).ifPresent(executionInput::variables);
-
+            execute(exchange, fromParameters(exchange));
         } else {
             exchange.setStatusCode(StatusCodes.METHOD_NOT_ALLOWED);
-            return;
         }
+    }
 
-        // Add context.
-        executionInput.context(new GraphQLUndertowContext(exchange, executionInput.build()));
+    /**
+     * Answers a body that cannot be parsed with 400, also when it is received asynchronously and an exception would
+     * not reach the exception handling of the request.
+     */
+    private void executeBody(HttpServerExchange exchange, String body) {
+        ExecutionInput.Builder executionInput;
+        try {
+            executionInput = fromBody(exchange, body);
+        } catch (RuntimeException e) {
+            LOG.debug("Invalid GraphQL request body", e);
+            exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+            exchange.getResponseSender().send("Invalid GraphQL request body");
+            return;
+        }
+        execute(exchange, executionInput);
+    }
 
-        // Execute
-        ExecutionResult result = graphQl.execute(executionInput);
+    private void execute(HttpServerExchange exchange, ExecutionInput.Builder executionInput) {
+        // Add context and data loaders, a new registry is used for each request.
+        DataLoaderRegistry dataLoaderRegistry = dataLoaderRegistrySupplier.get();
+        executionInput.dataLoaderRegistry(dataLoaderRegistry);
+        executionInput.context(new GraphQLUndertowContext(exchange, executionInput.build(), dataLoaderRegistry));
 
-        // Serialize
-        Map<String, Object> resultMap = result.toSpecification();
-        String jsonResult = JsonTools.toJson(JsonTools.toJsonNode(resultMap));
-
-        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
-        exchange.setStatusCode(StatusCodes.OK);
-        exchange.getResponseSender().send(jsonResult);
+        if (!async) {
+            sendResult(exchange, graphQl.execute(executionInput));
+            return;
+        }
 
+        // The worker thread only starts the execution, the response is sent from the thread that completes it.
+        exchange.dispatch(() -> graphQl.executeAsync(executionInput).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                LOG.error("GraphQL execution failed", throwable);
+                if (!exchange.isResponseStarted()) {
+                    exchange.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
+                }
+                exchange.endExchange();
+                return;
+            }
+            sendResult(exchange, result);
+        }));
     }
 }
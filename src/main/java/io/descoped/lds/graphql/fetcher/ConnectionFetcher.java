@@ -1,21 +1,28 @@
 package io.descoped.lds.graphql.fetcher;
 
 import graphql.relay.Connection;
+import graphql.relay.DefaultConnection;
 import graphql.relay.DefaultConnectionCursor;
 import graphql.relay.DefaultEdge;
+import graphql.relay.DefaultPageInfo;
 import graphql.relay.Edge;
+import graphql.relay.PageInfo;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
 import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.persistence.reactivex.Range;
 import io.descoped.lds.graphql.GraphQLContext;
+import io.reactivex.Single;
 
 import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static java.lang.String.format;
 
-public abstract class ConnectionFetcher<T> implements DataFetcher<Connection<T>> {
+public abstract class ConnectionFetcher<T> implements DataFetcher<CompletableFuture<Connection<T>>> {
 
     private static final String AFTER_ARG_NAME = "after";
     private static final String BEFORE_ARG_NAME = "before";
@@ -58,14 +65,32 @@ public abstract class ConnectionFetcher<T> implements DataFetcher<Connection<T>>
         );
     }
 
+    protected static <T> Connection<T> toConnection(List<Edge<T>> edges, boolean hasPrevious, boolean hasNext) {
+        if (edges.isEmpty()) {
+            PageInfo pageInfo = new DefaultPageInfo(null, null, false, false);
+            return new DefaultConnection<>(Collections.emptyList(), pageInfo);
+        }
+        PageInfo pageInfo = new DefaultPageInfo(
+                edges.get(0).getCursor(),
+                edges.get(edges.size() - 1).getCursor(),
+                hasPrevious,
+                hasNext
+        );
+        return new DefaultConnection<>(edges, pageInfo);
+    }
+
     @Override
-    public Connection<T> get(DataFetchingEnvironment environment) throws Exception {
+    public CompletableFuture<Connection<T>> get(DataFetchingEnvironment environment) throws Exception {
         ConnectionParameters parameters = new ConnectionParameters(getSnapshotFrom(environment), getAfterFrom(environment),
                 getBeforeFrom(environment), getLastFrom(environment), getFirstFrom(environment));
-        return getConnection(environment, parameters);
+        return RxFutures.toFuture(getConnection(environment, parameters));
     }
 
-    abstract Connection<T> getConnection(DataFetchingEnvironment environment, ConnectionParameters connectionParameters);
+    /**
+     * Returns the connection. The returned single must not block the subscribing thread on its own account, and is
+     * responsible for closing any transaction it opens when it terminates.
+     */
+    abstract Single<Connection<T>> getConnection(DataFetchingEnvironment environment, ConnectionParameters connectionParameters);
 
     public static class ConnectionParameters {
         private final ZonedDateTime snapshot;
@@ -0,0 +1,165 @@
+package io.descoped.lds.graphql.fetcher;
+
+import graphql.schema.DataFetchingEnvironment;
+import io.descoped.lds.api.persistence.Transaction;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoader;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Batch loader that resolves documents from {@link RxJsonPersistence}.
+ * <p>
+ * The keys collected during one execution level are grouped by namespace, entity and snapshot, and every group is
+ * read within one read-only transaction. The groups are read concurrently, and the dispatching thread does not wait for
+ * them. Duplicate keys within a request are resolved only once by the {@link DataLoader} cache.
+ */
+public class PersistenceDocumentBatchLoader implements BatchLoader<PersistenceDocumentBatchLoader.Key, JsonDocument> {
+
+    /**
+     * Name used to register the loader in the per-request {@link org.dataloader.DataLoaderRegistry}.
+     */
+    public static final String NAME = "persistence-documents";
+
+    private final RxJsonPersistence persistence;
+
+    public PersistenceDocumentBatchLoader(RxJsonPersistence persistence) {
+        this.persistence = Objects.requireNonNull(persistence);
+    }
+
+    /**
+     * Creates a new data loader. A new instance must be created for each request.
+     */
+    public static DataLoader<Key, JsonDocument> newDataLoader(RxJsonPersistence persistence) {
+        return DataLoader.newDataLoader(new PersistenceDocumentBatchLoader(persistence));
+    }
+
+    /**
+     * Loads a document using the data loader registered in the environment, or reads it directly from persistence
+     * if no data loader was registered for the execution.
+     */
+    static CompletableFuture<JsonDocument> load(DataFetchingEnvironment environment, RxJsonPersistence persistence,
+                                                Key key) {
+        DataLoader<Key, JsonDocument> dataLoader = environment.getDataLoader(NAME);
+        if (dataLoader != null) {
+            return dataLoader.load(key);
+        }
+        return RxFutures.toFuture(Maybe.using(() -> persistence.createTransaction(true),
+                tx -> persistence.readDocument(tx, key.snapshot, key.namespace, key.entity, key.id), Transaction::close));
+    }
+
+    @Override
+    public CompletionStage<List<JsonDocument>> load(List<Key> keys) {
+        Map<Key, Set<String>> idsByGroup = new LinkedHashMap<>();
+        for (Key key : keys) {
+            idsByGroup.computeIfAbsent(key.group(), group -> new LinkedHashSet<>()).add(key.id);
+        }
+        List<Key> groups = new ArrayList<>(idsByGroup.keySet());
+        List<CompletableFuture<List<JsonDocument>>> futures = new ArrayList<>(groups.size());
+        for (Key group : groups) {
+            Set<String> ids = idsByGroup.get(group);
+            futures.add(RxFutures.toFuture(Single.using(() -> persistence.createTransaction(true),
+                    tx -> Flowable.fromIterable(ids)
+                            .concatMapMaybe(id -> persistence.readDocument(tx, group.snapshot, group.namespace,
+                                    group.entity, id))
+                            .toList(),
+                    Transaction::close)));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<Key, JsonDocument> documentByKey = new HashMap<>();
+            for (int i = 0; i < groups.size(); i++) {
+                for (JsonDocument document : futures.get(i).join()) { // will not block
+                    documentByKey.put(groups.get(i).withId(document.key().id()), document);
+                }
+            }
+            List<JsonDocument> result = new ArrayList<>(keys.size());
+            for (Key key : keys) {
+                result.add(documentByKey.get(key));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Identifies a document as seen from a given snapshot.
+     */
+    public static final class Key {
+        private final String namespace;
+        private final String entity;
+        private final String id;
+        private final ZonedDateTime snapshot;
+
+        public Key(String namespace, String entity, String id, ZonedDateTime snapshot) {
+            this.namespace = Objects.requireNonNull(namespace);
+            this.entity = Objects.requireNonNull(entity);
+            this.id = id;
+            this.snapshot = Objects.requireNonNull(snapshot);
+        }
+
+        Key group() {
+            return withId(null);
+        }
+
+        Key withId(String id) {
+            return new Key(namespace, entity, id, snapshot);
+        }
+
+        public String getNamespace() {
+            return namespace;
+        }
+
+        public String getEntity() {
+            return entity;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public ZonedDateTime getSnapshot() {
+            return snapshot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return namespace.equals(key.namespace) &&
+                    entity.equals(key.entity) &&
+                    Objects.equals(id, key.id) &&
+                    snapshot.equals(key.snapshot);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(namespace, entity, id, snapshot);
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Key.class.getSimpleName() + "[", "]")
+                    .add("namespace='" + namespace + "'")
+                    .add("entity='" + entity + "'")
+                    .add("id='" + id + "'")
+                    .add("snapshot=" + snapshot)
+                    .toString();
+        }
+    }
+}
@@ -6,16 +6,18 @@ import io.descoped.lds.api.persistence.Transaction;
 import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.graphql.GraphQLContext;
+import io.reactivex.Maybe;
 
 import java.time.ZonedDateTime;
 import java.util.Map;
 import java.util.Objects;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * DataFetcher that gets the data from {@link RxJsonPersistence}.
  */
-public class PersistenceFetcher implements DataFetcher<Map<String, Object>> {
+public class PersistenceFetcher implements DataFetcher<CompletableFuture<Map<String, Object>>> {
 
     private final RxJsonPersistence backend;
     private final String nameSpace;
@@ -35,22 +37,18 @@ public class PersistenceFetcher implements DataFetcher<Map<String, Object>> {
     }
 
     @Override
-    public Map<String, Object> get(DataFetchingEnvironment environment) throws Exception {
+    public CompletableFuture<Map<String, Object>> get(DataFetchingEnvironment environment) throws Exception {
         GraphQLContext context = environment.getContext();
-        JsonDocument document = readDocument(environment.getArgument("id"), context.getSnapshot());
-        if (document != null) {
+        return RxFutures.toFuture(readDocument(environment.getArgument("id"), context.getSnapshot()).map(document -> {
             Map<String, Object> map = document.toMap();
             map.put("__graphql_internal_document_key", document.key());
             return map;
-        } else {
-            return null;
-        }
+        }));
     }
 
-    private JsonDocument readDocument(String id, ZonedDateTime snapshot) {
-        try (Transaction tx = backend.createTransaction(true)) {
-            return backend.readDocument(tx, snapshot, nameSpace, this.entity, id).blockingGet();
-        }
+    private Maybe<JsonDocument> readDocument(String id, ZonedDateTime snapshot) {
+        return Maybe.using(() -> backend.createTransaction(true),
+                tx -> backend.readDocument(tx, snapshot, nameSpace, this.entity, id), Transaction::close);
     }
 
     @Override
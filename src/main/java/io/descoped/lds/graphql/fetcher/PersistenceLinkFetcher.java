@@ -2,18 +2,16 @@ package io.descoped.lds.graphql.fetcher;
 
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
-import io.descoped.lds.api.persistence.Transaction;
-import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.graphql.GraphQLContext;
 
-import java.time.ZonedDateTime;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-public class PersistenceLinkFetcher implements DataFetcher<Map<String, Object>> {
+public class PersistenceLinkFetcher implements DataFetcher<CompletableFuture<Map<String, Object>>> {
 
     private final String field;
     private final RxJsonPersistence persistence;
@@ -28,7 +26,7 @@ public class PersistenceLinkFetcher implements DataFetcher<Map<String, Object>>
     }
 
     @Override
-    public Map<String, Object> get(DataFetchingEnvironment environment) {
+    public CompletableFuture<Map<String, Object>> get(DataFetchingEnvironment environment) {
         Map<String, Object> source = environment.getSource();
         String link = (String) source.get(field);
         Matcher matcher = pattern.matcher(link);
@@ -36,24 +34,21 @@ public class PersistenceLinkFetcher implements DataFetcher<Map<String, Object>>
             String id = matcher.group("id");
             String type = matcher.group("type");
             GraphQLContext context = environment.getContext();
-            JsonDocument document = readDocument(type, id, context.getSnapshot());
-            if (document != null) {
-                Map<String, Object> asMap = document.toMap();
-                asMap.put("__graphql_internal_document_key", document.key());
-                return asMap;
-            } else {
-                return null;
-            }
+            PersistenceDocumentBatchLoader.Key key = new PersistenceDocumentBatchLoader.Key(namespace, type, id,
+                    context.getSnapshot());
+            return PersistenceDocumentBatchLoader.load(environment, persistence, key).thenApply(document -> {
+                if (document != null) {
+                    Map<String, Object> asMap = document.toMap();
+                    asMap.put("__graphql_internal_document_key", document.key());
+                    return asMap;
+                } else {
+                    return null;
+                }
+            });
         } else {
             // TODO: Handle.
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
 
     }
-
-    private JsonDocument readDocument(String entityName, String id, ZonedDateTime snapshot) {
-        try (Transaction tx = persistence.createTransaction(true)) {
-            return persistence.readDocument(tx, snapshot, namespace, entityName, id).blockingGet();
-        }
-    }
 }
@@ -1,10 +1,7 @@
 package io.descoped.lds.graphql.fetcher;
 
 import graphql.relay.Connection;
-import graphql.relay.DefaultConnection;
-import graphql.relay.DefaultPageInfo;
 import graphql.relay.Edge;
-import graphql.relay.PageInfo;
 import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.GraphQLInterfaceType;
 import graphql.schema.GraphQLObjectType;
@@ -19,9 +16,9 @@ import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.persistence.reactivex.Range;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.reactivex.Flowable;
+import io.reactivex.Single;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -86,18 +83,21 @@ public class PersistenceLinksConnectionFetcher extends ConnectionFetcher<Map<Str
     }
 
     @Override
-    Connection<Map<String, Object>> getConnection(DataFetchingEnvironment environment, ConnectionParameters parameters) {
-        try (Transaction tx = persistence.createTransaction(true)) {
+    Single<Connection<Map<String, Object>>> getConnection(DataFetchingEnvironment environment, ConnectionParameters parameters) {
+        String sourceId = getIdFromSource(environment);
+        boolean selectsHasPrevious = environment.getSelectionSet().contains("pageInfo/hasPreviousPage");
+        boolean selectsHasNext = environment.getSelectionSet().contains("pageInfo/hasNextPage");
 
-            String sourceId = getIdFromSource(environment);
+        // In cases of union type, we need to make several calls.
+        List<GraphQLOutputType> concreteTypes = getConcreteTypes(environment.getGraphQLSchema(), targetEntityName);
+
+        return Single.using(() -> persistence.createTransaction(true), tx -> {
 
-            // In cases of union type, we need to make several calls.
-            List<GraphQLOutputType> concreteTypes = getConcreteTypes(environment.getGraphQLSchema(), targetEntityName);
             Flowable<JsonDocument> documents = Flowable.empty();
             for (GraphQLOutputType concreteType : concreteTypes) {
                 Flowable<JsonDocument> concreteDocuments = persistence.readTargetDocuments(tx, parameters.getSnapshot(),
                         nameSpace, sourceEntityName, sourceId, relationPath, concreteType.getName(), parameters.getRange());
-                documents = Flowable.merge(documents, concreteDocuments);
+                documents = Flowable.concat(documents, concreteDocuments);
             }
             // Limit the flow.
             if (concreteTypes.size() > 1) {
@@ -110,44 +110,34 @@ public class PersistenceLinksConnectionFetcher extends ConnectionFetcher<Map<Str
                         ? documents.sorted(BY_ID.reversed())
                         : documents.sorted(BY_ID);
             }
-            List<Edge<Map<String, Object>>> edges = documents.map(document -> toEdge(document)).toList()
-                    .blockingGet();
-
-            if (edges.isEmpty()) {
-                PageInfo pageInfo = new DefaultPageInfo(null, null, false,
-                        false);
-                return new DefaultConnection<>(Collections.emptyList(), pageInfo);
-            }
 
-            Edge<Map<String, Object>> firstEdge = edges.get(0);
-            Edge<Map<String, Object>> lastEdge = edges.get(edges.size() - 1);
+            return documents.map(document -> toEdge(document)).toList().flatMap(edges -> {
 
-            boolean hasPrevious = true;
-            if (environment.getSelectionSet().contains("pageInfo/hasPreviousPage")) {
-                hasPrevious = persistence.readTargetDocuments(tx, parameters.getSnapshot(), nameSpace, sourceEntityName,
-                        sourceId, relationPath, targetEntityName, Range.lastBefore(1, firstEdge.getCursor().getValue())
-                ).isEmpty().map(wasEmpty -> !wasEmpty).blockingGet();
-            }
+                if (edges.isEmpty()) {
+                    return Single.just(toConnection(edges, false, false));
+                }
 
-            boolean hasNext = true;
-            if (environment.getSelectionSet().contains("pageInfo/hasNextPage")) {
-                hasNext = persistence.readTargetDocuments(tx, parameters.getSnapshot(), nameSpace, sourceEntityName,
-                        sourceId, relationPath, targetEntityName, Range.firstAfter(1, lastEdge.getCursor().getValue())
-                ).isEmpty().map(wasEmpty -> !wasEmpty).blockingGet();
-            }
+                Edge<Map<String, Object>> firstEdge = edges.get(0);
+                Edge<Map<String, Object>> lastEdge = edges.get(edges.size() - 1);
 
-            PageInfo pageInfo = new DefaultPageInfo(
-                    firstEdge.getCursor(),
-                    lastEdge.getCursor(),
-                    hasPrevious,
-                    hasNext
-            );
+                Single<Boolean> hasPrevious = Single.just(true);
+                if (selectsHasPrevious) {
+                    hasPrevious = persistence.readTargetDocuments(tx, parameters.getSnapshot(), nameSpace, sourceEntityName,
+                            sourceId, relationPath, targetEntityName, Range.lastBefore(1, firstEdge.getCursor().getValue())
+                    ).isEmpty().map(wasEmpty -> !wasEmpty);
+                }
 
-            return new DefaultConnection<>(
-                    edges,
-                    pageInfo
-            );
+                Single<Boolean> hasNext = Single.just(true);
+                if (selectsHasNext) {
+                    hasNext = persistence.readTargetDocuments(tx, parameters.getSnapshot(), nameSpace, sourceEntityName,
+                            sourceId, relationPath, targetEntityName, Range.firstAfter(1, lastEdge.getCursor().getValue())
+                    ).isEmpty().map(wasEmpty -> !wasEmpty);
+                }
 
-        }
+                // Subscribe one after the other, the transaction is not necessarily safe for concurrent use.
+                Single<Boolean> next = hasNext;
+                return hasPrevious.flatMap(previous -> next.map(nextValue -> toConnection(edges, previous, nextValue)));
+            });
+        }, Transaction::close);
     }
 }
@@ -2,21 +2,19 @@ package io.descoped.lds.graphql.fetcher;
 
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
-import io.descoped.lds.api.persistence.Transaction;
 import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.graphql.GraphQLContext;
-import io.reactivex.Maybe;
 
-import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-public class PersistenceLinksFetcher implements DataFetcher<List<Map<String, Object>>> {
+public class PersistenceLinksFetcher implements DataFetcher<CompletableFuture<List<Map<String, Object>>>> {
 
     private final String field;
     private final String target;
@@ -33,31 +31,32 @@ public class PersistenceLinksFetcher implements DataFetcher<List<Map<String, Obj
     }
 
     @Override
-    public List<Map<String, Object>> get(DataFetchingEnvironment environment) {
+    public CompletableFuture<List<Map<String, Object>>> get(DataFetchingEnvironment environment) {
         Map<String, Object> source = environment.getSource();
         List<String> links = (List<String>) source.get(field);
-        List<Map<String, Object>> results = new ArrayList<>();
         if (links == null) {
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
+        GraphQLContext context = environment.getContext();
+        List<CompletableFuture<JsonDocument>> futures = new ArrayList<>();
         for (String link : links) {
             Matcher matcher = pattern.matcher(link);
             if (matcher.matches()) {
                 String id = matcher.group("id");
-                GraphQLContext context = environment.getContext();
-                JsonDocument document = readDocument(id, context.getSnapshot());
-                results.add(document != null ? document.toMap() : null);
+                PersistenceDocumentBatchLoader.Key key = new PersistenceDocumentBatchLoader.Key(namespace, target, id,
+                        context.getSnapshot());
+                futures.add(PersistenceDocumentBatchLoader.load(environment, persistence, key));
             } else {
                 // TODO: Handle.
             }
         }
-        return results;
-    }
-
-    private JsonDocument readDocument(String id, ZonedDateTime snapshot) {
-        try (Transaction tx = persistence.createTransaction(true)) {
-            Maybe<JsonDocument> jsonDocumentMaybe = persistence.readDocument(tx, snapshot, namespace, target, id);
-            return jsonDocumentMaybe.blockingGet();
-        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<Map<String, Object>> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<JsonDocument> future : futures) {
+                JsonDocument document = future.join(); // will not block
+                results.add(document != null ? document.toMap() : null);
+            }
+            return results;
+        });
     }
 }
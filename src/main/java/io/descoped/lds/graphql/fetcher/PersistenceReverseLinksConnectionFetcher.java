@@ -1,10 +1,7 @@
 package io.descoped.lds.graphql.fetcher;
 
 import graphql.relay.Connection;
-import graphql.relay.DefaultConnection;
-import graphql.relay.DefaultPageInfo;
 import graphql.relay.Edge;
-import graphql.relay.PageInfo;
 import graphql.schema.DataFetchingEnvironment;
 import io.descoped.lds.api.json.JsonNavigationPath;
 import io.descoped.lds.api.persistence.DocumentKey;
@@ -13,9 +10,8 @@ import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.persistence.reactivex.Range;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.reactivex.Flowable;
+import io.reactivex.Single;
 
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -55,51 +51,43 @@ public class PersistenceReverseLinksConnectionFetcher extends ConnectionFetcher<
     }
 
     @Override
-    Connection<Map<String, Object>> getConnection(DataFetchingEnvironment environment, ConnectionParameters parameters) {
-        try (Transaction tx = persistence.createTransaction(true)) {
+    Single<Connection<Map<String, Object>>> getConnection(DataFetchingEnvironment environment, ConnectionParameters parameters) {
+        String targetId = getIdFromSource(environment);
+        boolean selectsHasPrevious = environment.getSelectionSet().contains("pageInfo/hasPreviousPage");
+        boolean selectsHasNext = environment.getSelectionSet().contains("pageInfo/hasNextPage");
 
-            String targetId = getIdFromSource(environment);
+        return Single.using(() -> persistence.createTransaction(true), tx -> {
 
             Flowable<JsonDocument> documents = persistence.readSourceDocuments(tx, parameters.getSnapshot(), nameSpace,
                     targetEntityName, targetId, relationPath, sourceEntityName, parameters.getRange());
 
-            List<Edge<Map<String, Object>>> edges = documents.map(document -> toEdge(document)).toList()
-                    .blockingGet();
-
-            if (edges.isEmpty()) {
-                PageInfo pageInfo = new DefaultPageInfo(null, null, false,
-                        false);
-                return new DefaultConnection<>(Collections.emptyList(), pageInfo);
-            }
-
-            Edge<Map<String, Object>> firstEdge = edges.get(0);
-            Edge<Map<String, Object>> lastEdge = edges.get(edges.size() - 1);
-
-            boolean hasPrevious = true;
-            if (environment.getSelectionSet().contains("pageInfo/hasPreviousPage")) {
-                hasPrevious = persistence.readSourceDocuments(tx, parameters.getSnapshot(), nameSpace, targetEntityName,
-                        targetId, relationPath, sourceEntityName, Range.lastBefore(1, firstEdge.getCursor().getValue())
-                ).isEmpty().map(wasEmpty -> !wasEmpty).blockingGet();
-            }
-
-            boolean hasNext = true;
-            if (environment.getSelectionSet().contains("pageInfo/hasNextPage")) {
-                hasNext = persistence.readSourceDocuments(tx, parameters.getSnapshot(), nameSpace, targetEntityName,
-                        targetId, relationPath, sourceEntityName, Range.firstAfter(1, lastEdge.getCursor().getValue())
-                ).isEmpty().map(wasEmpty -> !wasEmpty).blockingGet();
-            }
-
-            PageInfo pageInfo = new DefaultPageInfo(
-                    firstEdge.getCursor(),
-                    lastEdge.getCursor(),
-                    hasPrevious,
-                    hasNext
-            );
-
-            return new DefaultConnection<>(
-                    edges,
-                    pageInfo
-            );
-        }
+            return documents.map(document -> toEdge(document)).toList().flatMap(edges -> {
+
+                if (edges.isEmpty()) {
+                    return Single.just(toConnection(edges, false, false));
+                }
+
+                Edge<Map<String, Object>> firstEdge = edges.get(0);
+                Edge<Map<String, Object>> lastEdge = edges.get(edges.size() - 1);
+
+                Single<Boolean> hasPrevious = Single.just(true);
+                if (selectsHasPrevious) {
+                    hasPrevious = persistence.readSourceDocuments(tx, parameters.getSnapshot(), nameSpace, targetEntityName,
+                            targetId, relationPath, sourceEntityName, Range.lastBefore(1, firstEdge.getCursor().getValue())
+                    ).isEmpty().map(wasEmpty -> !wasEmpty);
+                }
+
+                Single<Boolean> hasNext = Single.just(true);
+                if (selectsHasNext) {
+                    hasNext = persistence.readSourceDocuments(tx, parameters.getSnapshot(), nameSpace, targetEntityName,
+                            targetId, relationPath, sourceEntityName, Range.firstAfter(1, lastEdge.getCursor().getValue())
+                    ).isEmpty().map(wasEmpty -> !wasEmpty);
+                }
+
+                // Subscribe one after the other, the transaction is not necessarily safe for concurrent use.
+                Single<Boolean> next = hasNext;
+                return hasPrevious.flatMap(previous -> next.map(nextValue -> toConnection(edges, previous, nextValue)));
+            });
+        }, Transaction::close);
     }
 }
@@ -1,18 +1,14 @@
 package io.descoped.lds.graphql.fetcher;
 
 import graphql.relay.Connection;
-import graphql.relay.DefaultConnection;
-import graphql.relay.DefaultPageInfo;
 import graphql.relay.Edge;
-import graphql.relay.PageInfo;
 import graphql.schema.DataFetchingEnvironment;
 import io.descoped.lds.api.persistence.Transaction;
 import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.reactivex.Flowable;
+import io.reactivex.Single;
 
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -33,41 +29,29 @@ public class PersistenceRootConnectionFetcher extends ConnectionFetcher<Map<Stri
     }
 
     @Override
-    Connection<Map<String, Object>> getConnection(DataFetchingEnvironment environment,
-                                                  ConnectionParameters parameters) {
-        try (Transaction tx = persistence.createTransaction(true)) {
+    Single<Connection<Map<String, Object>>> getConnection(DataFetchingEnvironment environment,
+                                                          ConnectionParameters parameters) {
+        return Single.using(() -> persistence.createTransaction(true), tx -> {
 
             Flowable<JsonDocument> documentFlowable = persistence.readDocuments(
                     tx, parameters.getSnapshot(), nameSpace, entityName, parameters.getRange());
 
-            List<Edge<Map<String, Object>>> edges = documentFlowable.map(document -> toEdge(document)).toList().blockingGet();
+            return documentFlowable.map(document -> toEdge(document)).toList().flatMap(edges -> {
 
-            if (edges.isEmpty()) {
-                PageInfo pageInfo = new DefaultPageInfo(null, null, false, false);
-                return new DefaultConnection<>(Collections.emptyList(), pageInfo);
-            }
+                if (edges.isEmpty()) {
+                    return Single.just(toConnection(edges, false, false));
+                }
 
-            Edge<Map<String, Object>> firstEdge = edges.get(0);
-            Edge<Map<String, Object>> lastEdge = edges.get(edges.size() - 1);
+                Edge<Map<String, Object>> firstEdge = edges.get(0);
+                Edge<Map<String, Object>> lastEdge = edges.get(edges.size() - 1);
 
-            boolean hasPrevious = persistence.hasPrevious(tx, parameters.getSnapshot(), nameSpace, entityName,
-                    firstEdge.getCursor().getValue()).blockingGet();
-
-            boolean hasNext = persistence.hasNext(tx, parameters.getSnapshot(), nameSpace, entityName,
-                    lastEdge.getCursor().getValue()).blockingGet();
-
-            PageInfo pageInfo = new DefaultPageInfo(
-                    firstEdge.getCursor(),
-                    lastEdge.getCursor(),
-                    hasPrevious,
-                    hasNext
-            );
-
-            return new DefaultConnection<>(
-                    edges,
-                    pageInfo
-            );
-        }
+                return persistence.hasPrevious(tx, parameters.getSnapshot(), nameSpace, entityName,
+                        firstEdge.getCursor().getValue()).flatMap(hasPrevious ->
+                        persistence.hasNext(tx, parameters.getSnapshot(), nameSpace, entityName,
+                                lastEdge.getCursor().getValue()).map(hasNext ->
+                                toConnection(edges, hasPrevious, hasNext)));
+            });
+        }, Transaction::close);
     }
 
 }
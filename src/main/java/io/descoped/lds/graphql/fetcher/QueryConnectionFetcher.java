@@ -2,32 +2,28 @@ package io.descoped.lds.graphql.fetcher;
 
 import graphql.relay.Connection;
 import graphql.relay.ConnectionCursor;
-import graphql.relay.DefaultConnection;
 import graphql.relay.DefaultEdge;
-import graphql.relay.DefaultPageInfo;
 import graphql.relay.Edge;
-import graphql.relay.PageInfo;
 import graphql.schema.DataFetchingEnvironment;
-import io.descoped.lds.api.persistence.DocumentKey;
 import io.descoped.lds.api.persistence.Transaction;
 import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.persistence.reactivex.Range;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.api.search.SearchIndex;
 import io.descoped.lds.api.search.SearchResponse;
+import io.descoped.lds.api.search.SearchResult;
 import io.descoped.lds.graphql.GraphQLContext;
-import io.reactivex.Maybe;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.StringJoiner;
 
 /**
@@ -58,7 +54,7 @@ public class QueryConnectionFetcher extends ConnectionFetcher<Map<String, Object
     }
 
     @Override
-    Connection<Map<String, Object>> getConnection(DataFetchingEnvironment environment, ConnectionParameters connectionParameters) {
+    Single<Connection<Map<String, Object>>> getConnection(DataFetchingEnvironment environment, ConnectionParameters connectionParameters) {
         GraphQLContext context = environment.getContext();
         return search(environment.getArgument("query"), environment.getArgument("filter"), context.getSnapshot(),
                 connectionParameters.getRange());
@@ -111,44 +107,31 @@ public class QueryConnectionFetcher extends ConnectionFetcher<Map<String, Object
 
     }
 
-    private Connection<Map<String, Object>> search(String query, List<String> typeFilter,
-                                                   ZonedDateTime snapshot, Range<String> range) {
+    private Single<Connection<Map<String, Object>>> search(String query, List<String> typeFilter,
+                                                           ZonedDateTime snapshot, Range<String> range) {
         IndexBasedRange settings = IndexBasedRange.fromRange(range, MAX_SEARCH_LIMIT);
         HashSet<String> filter = typeFilter != null ? new HashSet<>(typeFilter) : null;
-        SearchResponse response = searchIndex.search(query, filter, settings.from, settings.size).blockingGet();
-
-        LOG.debug("Search query '{}' resulted in {} hits from search settings. Fetching results from {} to {}", query,
-                response.getTotalHits(), settings.from, settings.from + settings.size);
-        List<Edge<Map<String, Object>>> edges = response.getResults().stream()
-                .map(result -> readDocument(result.getDocumentKey(), snapshot))
-                .filter(jsonDocument -> jsonDocument.isPresent())
-                .collect(ArrayList::new, (list, document) ->
-                                list.add(toEdge(document.get(), new QueryConnectionCursor(settings.from + list.size()))),
-                        ArrayList::addAll);
-
-        if (edges.isEmpty()) {
-            LOG.debug("Search query resulted in 0 documents.", query);
-            PageInfo pageInfo = new DefaultPageInfo(null, null, false, false);
-            return new DefaultConnection<>(Collections.emptyList(), pageInfo);
-        }
+        return searchIndex.search(query, filter, settings.from, settings.size).flatMap(response -> {
+
+            LOG.debug("Search query '{}' resulted in {} hits from search settings. Fetching results from {} to {}", query,
+                    response.getTotalHits(), settings.from, settings.from + settings.size);
 
-        Edge<Map<String, Object>> firstEdge = edges.get(0);
-        Edge<Map<String, Object>> lastEdge = edges.get(edges.size() - 1);
+            return readDocuments(response, snapshot).map(documents -> {
+                List<Edge<Map<String, Object>>> edges = new ArrayList<>(documents.size());
+                for (JsonDocument document : documents) {
+                    edges.add(toEdge(document, new QueryConnectionCursor(settings.from + edges.size())));
+                }
 
-        boolean hasPrevious = settings.from > 0;
-        boolean hasNext = settings.from + settings.size < response.getTotalHits();
+                if (edges.isEmpty()) {
+                    LOG.debug("Search query '{}' resulted in 0 documents.", query);
+                }
 
-        PageInfo pageInfo = new DefaultPageInfo(
-                firstEdge.getCursor(),
-                lastEdge.getCursor(),
-                hasPrevious,
-                hasNext
-        );
+                boolean hasPrevious = settings.from > 0;
+                boolean hasNext = settings.from + settings.size < response.getTotalHits();
 
-        return new DefaultConnection<>(
-                edges,
-                pageInfo
-        );
+                return toConnection(edges, hasPrevious, hasNext);
+            });
+        });
     }
 
     private static Edge<Map<String, Object>> toEdge(JsonDocument document, ConnectionCursor connectionCursor) {
@@ -157,17 +140,13 @@ public class QueryConnectionFetcher extends ConnectionFetcher<Map<String, Object
         return new DefaultEdge<>(map, connectionCursor);
     }
 
-    private Optional<JsonDocument> readDocument(DocumentKey documentKey, ZonedDateTime snapshot) {
-        try (Transaction tx = persistence.createTransaction(true)) {
-            Maybe<JsonDocument> jsonDocumentMaybe = persistence.readDocument(tx, snapshot, documentKey.namespace(),
-                    documentKey.entity(), documentKey.id());
-            JsonDocument jsonDocument = jsonDocumentMaybe.blockingGet();
-            if (jsonDocument == null) {
-                LOG.error("Cound not find document for key {}", documentKey);
-                return Optional.empty();
-            }
-            return Optional.of(jsonDocument);
-        }
+    private Single<List<JsonDocument>> readDocuments(SearchResponse response, ZonedDateTime snapshot) {
+        return Single.using(() -> persistence.createTransaction(true), tx -> Flowable.fromIterable(response.getResults())
+                .map(SearchResult::getDocumentKey)
+                .concatMapMaybe(documentKey -> persistence.readDocument(tx, snapshot, documentKey.namespace(),
+                        documentKey.entity(), documentKey.id())
+                        .doOnComplete(() -> LOG.error("Cound not find document for key {}", documentKey)))
+                .toList(), Transaction::close);
     }
 
     @Override
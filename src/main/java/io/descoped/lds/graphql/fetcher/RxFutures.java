@@ -0,0 +1,39 @@
+package io.descoped.lds.graphql.fetcher;
+
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Adapts the reactive types returned by the persistence and search apis to the {@link CompletableFuture} expected
+ * by asynchronous data fetchers.
+ * <p>
+ * The persistence implementations do their work when subscribed to, so the subscription happens on the io scheduler.
+ * The caller gets a future that is not yet completed and the thread executing the query is not held while persistence
+ * is read.
+ */
+final class RxFutures {
+
+    private RxFutures() {
+    }
+
+    /**
+     * Subscribes to the single on the io scheduler and returns a future that completes with its value.
+     */
+    static <T> CompletableFuture<T> toFuture(Single<T> single) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        single.subscribeOn(Schedulers.io()).subscribe(future::complete, future::completeExceptionally);
+        return future;
+    }
+
+    /**
+     * Subscribes to the maybe on the io scheduler and returns a future that completes with its value, or with null if it was empty.
+     */
+    static <T> CompletableFuture<T> toFuture(Maybe<T> maybe) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        maybe.subscribeOn(Schedulers.io()).subscribe(future::complete, future::completeExceptionally, () -> future.complete(null));
+        return future;
+    }
+}
@@ -0,0 +1,40 @@
+package io.descoped.lds.graphql.fetcher;
+
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import io.descoped.lds.core.metrics.Timer;
+
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Records the latency of a data fetcher. Asynchronous fetchers are timed until the returned future completes.
+ */
+public class TimedDataFetcher<T> implements DataFetcher<T> {
+
+    private final DataFetcher<T> delegate;
+    private final Timer timer;
+
+    public TimedDataFetcher(DataFetcher<T> delegate, Timer timer) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.timer = Objects.requireNonNull(timer);
+    }
+
+    @Override
+    public T get(DataFetchingEnvironment environment) throws Exception {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = delegate.get(environment);
+        } catch (Exception | Error e) {
+            timer.recordSince(start);
+            throw e;
+        }
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete((v, t) -> timer.recordSince(start));
+        } else {
+            timer.recordSince(start);
+        }
+        return result;
+    }
+}
@@ -15,6 +15,7 @@ import graphql.schema.idl.SchemaPrinter;
 import graphql.schema.idl.TypeDefinitionRegistry;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.api.search.SearchIndex;
+import io.descoped.lds.core.metrics.MetricsRegistry;
 import io.descoped.lds.graphql.directives.DomainDirective;
 import io.descoped.lds.graphql.directives.LinkDirective;
 import io.descoped.lds.graphql.directives.ReverseLinkDirective;
@@ -43,13 +44,20 @@ public class GraphQLSchemaBuilder {
     private final RxJsonPersistence persistence;
     private final SearchIndex searchIndex;
     private final String namespace;
+    private final MetricsRegistry metrics;
     private final GraphQLObjectType.Builder query = GraphQLObjectType.newObject().name(QUERY_NAME);
 
     public GraphQLSchemaBuilder(String namespace, RxJsonPersistence persistence,
                                 SearchIndex searchIndex) {
+        this(namespace, persistence, searchIndex, null);
+    }
+
+    public GraphQLSchemaBuilder(String namespace, RxJsonPersistence persistence,
+                                SearchIndex searchIndex, MetricsRegistry metrics) {
         this.persistence = persistence;
         this.searchIndex = searchIndex;
         this.namespace = namespace;
+        this.metrics = metrics;
     }
 
     private static String printSchema(GraphQLType type) {
@@ -152,7 +160,7 @@ public class GraphQLSchemaBuilder {
         GraphQLTypeResolvingVisitor typeResolvingVisitor = new GraphQLTypeResolvingVisitor(typeMap);
         TRAVERSER.depthFirst(typeResolvingVisitor, typeMap.values());
 
-        RegistrySetupVisitor fetcherSetupVisitor = new RegistrySetupVisitor(persistence, namespace, searchIndex);
+        RegistrySetupVisitor fetcherSetupVisitor = new RegistrySetupVisitor(persistence, namespace, searchIndex, metrics);
         TRAVERSER.depthFirst(fetcherSetupVisitor, typeMap.values());
 
         GraphQLType queryType = typeMap.remove("Query");
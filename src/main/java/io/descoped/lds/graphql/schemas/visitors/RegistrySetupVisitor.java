@@ -1,5 +1,6 @@
 package io.descoped.lds.graphql.schemas.visitors;
 
+import graphql.schema.DataFetcher;
 import graphql.schema.FieldCoordinates;
 import graphql.schema.GraphQLCodeRegistry;
 import graphql.schema.GraphQLDirective;
@@ -19,6 +20,7 @@ import io.descoped.lds.api.json.JsonNavigationPath;
 import io.descoped.lds.api.persistence.DocumentKey;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
 import io.descoped.lds.api.search.SearchIndex;
+import io.descoped.lds.core.metrics.MetricsRegistry;
 import io.descoped.lds.graphql.directives.LinkDirective;
 import io.descoped.lds.graphql.directives.ReverseLinkDirective;
 import io.descoped.lds.graphql.fetcher.PersistenceFetcher;
@@ -28,6 +30,7 @@ import io.descoped.lds.graphql.fetcher.PersistenceLinksFetcher;
 import io.descoped.lds.graphql.fetcher.PersistenceReverseLinksConnectionFetcher;
 import io.descoped.lds.graphql.fetcher.PersistenceRootConnectionFetcher;
 import io.descoped.lds.graphql.fetcher.QueryConnectionFetcher;
+import io.descoped.lds.graphql.fetcher.TimedDataFetcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,20 +53,33 @@ public class RegistrySetupVisitor extends GraphQLTypeVisitorStub {
     private final RxJsonPersistence persistence;
     private final SearchIndex searchIndex;
     private final String namespace;
+    private final MetricsRegistry metrics;
 
     public RegistrySetupVisitor(RxJsonPersistence persistence, String namespace, SearchIndex searchIndex) {
         this(GraphQLCodeRegistry.newCodeRegistry(), persistence, namespace, searchIndex);
     }
 
+    /**
+     * @param metrics if not null, the latency of every registered data fetcher is recorded in this registry.
+     */
+    public RegistrySetupVisitor(RxJsonPersistence persistence, String namespace, SearchIndex searchIndex, MetricsRegistry metrics) {
+        this(GraphQLCodeRegistry.newCodeRegistry(), persistence, namespace, searchIndex, metrics);
+    }
+
     public RegistrySetupVisitor(GraphQLCodeRegistry registry, RxJsonPersistence persistence, String namespace, SearchIndex searchIndex) {
         this(GraphQLCodeRegistry.newCodeRegistry(registry), persistence, namespace, searchIndex);
     }
 
     public RegistrySetupVisitor(GraphQLCodeRegistry.Builder registry, RxJsonPersistence persistence, String namespace, SearchIndex searchIndex) {
+        this(registry, persistence, namespace, searchIndex, null);
+    }
+
+    public RegistrySetupVisitor(GraphQLCodeRegistry.Builder registry, RxJsonPersistence persistence, String namespace, SearchIndex searchIndex, MetricsRegistry metrics) {
         this.registry = registry;
         this.persistence = persistence;
         this.namespace = namespace;
         this.searchIndex = searchIndex;
+        this.metrics = metrics;
     }
 
     private static Boolean isMany(GraphQLOutputType type) {
@@ -122,6 +138,14 @@ public class RegistrySetupVisitor extends GraphQLTypeVisitorStub {
         return !isOneToMany(field, context);
     }
 
+    private void register(GraphQLFieldsContainer sourceObject, GraphQLFieldDefinition field, DataFetcher<?> dataFetcher) {
+        if (metrics != null) {
+            dataFetcher = new TimedDataFetcher<>(dataFetcher, metrics.timer("lds_graphql_fetch_seconds",
+                    "Latency of graphql data fetchers", "type", sourceObject.getName(), "field", field.getName()));
+        }
+        registry.dataFetcher(FieldCoordinates.coordinates(sourceObject, field), dataFetcher);
+    }
+
     public GraphQLCodeRegistry getRegistry() {
         return registry.build();
     }
@@ -141,7 +165,7 @@ public class RegistrySetupVisitor extends GraphQLTypeVisitorStub {
     }
 
     private TraversalControl visitSearchLink(GraphQLFieldDefinition field, TraverserContext<GraphQLType> context) {
-        registry.dataFetcher(FieldCoordinates.coordinates((GraphQLFieldsContainer) context.getParentNode(), field),
+        register((GraphQLFieldsContainer) context.getParentNode(), field,
                 new QueryConnectionFetcher(searchIndex, persistence, namespace, field.getType().getName())
         );
         return TraversalControl.CONTINUE;
@@ -165,7 +189,7 @@ public class RegistrySetupVisitor extends GraphQLTypeVisitorStub {
                     field.getName(),
                     simplePrint(nodeType)
             );
-            registry.dataFetcher(FieldCoordinates.coordinates(sourceObject, field),
+            register(sourceObject, field,
                     new PersistenceRootConnectionFetcher(persistence, namespace, nodeType.getName()));
         } else {
 
@@ -175,7 +199,7 @@ public class RegistrySetupVisitor extends GraphQLTypeVisitorStub {
                         field.getName(),
                         simplePrint(nodeType)
                 );
-                registry.dataFetcher(FieldCoordinates.coordinates(sourceObject, field),
+                register(sourceObject, field,
                         new PersistenceReverseLinksConnectionFetcher(persistence, namespace, nodeType.getName(),
                                 getReverseJsonNavigationPath(field, context), sourceObject.getName()));
             } else {
@@ -184,7 +208,7 @@ public class RegistrySetupVisitor extends GraphQLTypeVisitorStub {
                         field.getName(),
                         simplePrint(nodeType)
                 );
-                registry.dataFetcher(FieldCoordinates.coordinates(sourceObject, field),
+                register(sourceObject, field,
                         new PersistenceLinksConnectionFetcher(persistence, namespace, sourceObject.getName(),
                                 getJsonNavigationPath(field, context), nodeType.getName()));
             }
@@ -218,7 +242,7 @@ public class RegistrySetupVisitor extends GraphQLTypeVisitorStub {
                     field.getName(),
                     simplePrint(unwrapAll(targetType))
             );
-            registry.dataFetcher(FieldCoordinates.coordinates(sourceObject, field),
+            register(sourceObject, field,
                     new PersistenceLinkFetcher(persistence, namespace, field.getName(), unwrapAll(targetType).getName()));
         } else {
             if (hasReverseLinkDirective(field)) {
@@ -234,7 +258,7 @@ public class RegistrySetupVisitor extends GraphQLTypeVisitorStub {
                         field.getName(),
                         simplePrint(unwrapAll(targetType))
                 );
-                registry.dataFetcher(FieldCoordinates.coordinates(sourceObject, field), new PersistenceLinksFetcher(
+                register(sourceObject, field, new PersistenceLinksFetcher(
                         persistence, namespace, field.getName(), unwrapAll(targetType).getName()));
             }
         }
@@ -260,7 +284,7 @@ public class RegistrySetupVisitor extends GraphQLTypeVisitorStub {
                     field.getName(),
                     simplePrint(unwrapAll(targetType))
             );
-            registry.dataFetcher(FieldCoordinates.coordinates(sourceObject, field), new PersistenceFetcher(persistence,
+            register(sourceObject, field, new PersistenceFetcher(persistence,
                     namespace, targetTypeName));
         } else {
             log.trace("OneToOne: {} -> {} -> {} ",
@@ -268,7 +292,7 @@ public class RegistrySetupVisitor extends GraphQLTypeVisitorStub {
                     field.getName(),
                     simplePrint(unwrapAll(targetType))
             );
-            registry.dataFetcher(FieldCoordinates.coordinates(sourceObject, field), new PersistenceLinkFetcher(
+            register(sourceObject, field, new PersistenceLinkFetcher(
                     persistence, namespace, field.getName(), targetTypeName));
         }
         return TraversalControl.CONTINUE;
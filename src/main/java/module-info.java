@@ -23,6 +23,7 @@ module io.descoped.lds.core {
     requires org.apache.tika.core;
 
     requires graphql.java;
+    requires org.dataloader;
     requires io.reactivex.rxjava2;
     requires org.reactivestreams;
     requires com.github.akarnokd.rxjava2jdk9interop;
@@ -30,7 +31,8 @@ module io.descoped.lds.core {
 
     opens io.descoped.lds.graphql.graphiql;
 
-    provides io.descoped.lds.api.search.SearchIndexProvider with io.descoped.lds.core.search.TestSearchIndex;
+    provides io.descoped.lds.api.search.SearchIndexProvider with io.descoped.lds.core.search.TestSearchIndex,
+            io.descoped.lds.core.search.SimpleSearchIndexProvider;
 
     uses io.descoped.lds.api.persistence.PersistenceInitializer;
     uses io.descoped.rawdata.api.RawdataClientInitializer;
@@ -0,0 +1,32 @@
+package io.descoped.lds.core.controller;
+
+import io.descoped.lds.test.client.ResponseHelper;
+import io.descoped.lds.test.client.TestClient;
+import io.descoped.lds.test.server.TestServerListener;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+
+import static io.descoped.lds.core.utils.FileAndClasspathReaderUtils.readFileOrClasspathResource;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Listeners(TestServerListener.class)
+public class MetricsHandlerTest {
+
+    @Inject
+    private TestClient client;
+
+    @Test
+    public void thatMetricsAreExposedInPrometheusFormat() {
+        client.put("/data/contact/821aa?sync=true", readFileOrClasspathResource("demo/4-donald.json")).expect201Created();
+
+        ResponseHelper<String> response = client.get(MetricsHandler.METRICS_PATH).expect200Ok();
+        assertThat(response.response().headers().firstValue("Content-Type")).hasValue(MetricsHandler.CONTENT_TYPE);
+        assertThat(response.body())
+                .contains("# TYPE lds_threadpool_active_threads gauge\n")
+                .contains("lds_threadpool_max_threads{pool=\"saga\"}")
+                .contains("lds_saga_admission_wait_seconds_count ")
+                .contains("lds_saga_node_seconds_bucket{saga=\"");
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.descoped.lds.api.persistence.json.JsonTools;
 import io.descoped.lds.test.ConfigurationOverride;
+import io.descoped.lds.test.client.ResponseHelper;
 import io.descoped.lds.test.client.TestClient;
 import io.descoped.lds.test.server.TestServer;
 import io.descoped.lds.test.server.TestServerListener;
@@ -11,9 +12,15 @@ import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
 
 import javax.inject.Inject;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static io.descoped.lds.core.utils.FileAndClasspathReaderUtils.readFileOrClasspathResource;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Listeners(TestServerListener.class)
 @Test(singleThreaded = true)
@@ -111,4 +118,85 @@ public class SourceTest {
             assertEquals(actual, expected);
         }
     }
+
+    @Test
+    @ConfigurationOverride({
+            "txlog.split.sources", "true",
+            "txlog.default-source", "default",
+            "txlog.rawdata.topic-prefix", "tx-feed-",
+            "txlog.rawdata.provider", "memory"
+    })
+    public void thatFeedStreamsTxLogOfSourceFromCursor() {
+        client.put("/data/provisionagreement/2a41c?sync=true&source=F&sourceId=f1", readFileOrClasspathResource("demo/1-sirius.json")).expect201Created();
+        client.put("/data/contact/4b2ef?sync=true&source=F&sourceId=f2", readFileOrClasspathResource("demo/3-skrue.json")).expect201Created();
+        client.put("/data/contact/821aa?sync=true&source=F&sourceId=f3", readFileOrClasspathResource("demo/4-donald.json")).expect201Created();
+
+        ResponseHelper<String> response = client.get("/source/F/feed").expect200Ok();
+        assertEquals(response.response().headers().firstValue("Content-Type").orElseThrow(), "application/x-ndjson");
+        List<JsonNode> entries = ndjson(response.body());
+        assertEquals(entries.size(), 3);
+        assertEquals(entries.get(0).get("entity").textValue(), "provisionagreement");
+        assertEquals(entries.get(0).get("sourceId").textValue(), "f1");
+        assertFalse(entries.get(0).has("data"));
+
+        List<JsonNode> contacts = ndjson(client.get("/source/F/feed?entity=contact&data=true").expect200Ok().body());
+        assertEquals(contacts.size(), 2);
+        assertEquals(contacts.get(0).get("id").textValue(), "4b2ef");
+        assertTrue(contacts.get(0).has("data"));
+
+        List<JsonNode> resumed = ndjson(client.get("/source/F/feed?from=" + entries.get(0).get("txid").textValue()).expect200Ok().body());
+        assertEquals(resumed.size(), 2);
+        assertEquals(resumed.get(0).get("txid"), entries.get(1).get("txid"));
+
+        String events = client.get("/source/F/feed?limit=1", "Accept", "text/event-stream", "Last-Event-ID", entries.get(1).get("txid").textValue()).expect200Ok().body();
+        assertEquals(events, "id: " + entries.get(2).get("txid").textValue() + "\nevent: PUT\ndata: " + JsonTools.toJson(entries.get(2)) + "\n\n");
+
+        client.get("/source/F/feed?from=not-a-ulid").expect400BadRequest();
+        client.get("/source/F/feed?limit=0").expect400BadRequest();
+    }
+
+    @Test
+    @ConfigurationOverride({
+            "txlog.split.sources", "true",
+            "txlog.default-source", "default",
+            "txlog.rawdata.topic-prefix", "tx-feed-name-",
+            "txlog.rawdata.provider", "memory"
+    })
+    public void thatSourceNamedFeedIsNotRoutedToFeed() {
+        client.put("/data/contact/4b2ef?sync=true&source=feed&sourceId=feed1", readFileOrClasspathResource("demo/3-skrue.json")).expect201Created();
+
+        JsonNode lastSourceId = JsonTools.toJsonNode(client.get("/source/feed").expect200Ok().body());
+        assertEquals(lastSourceId.get("lastSourceId").textValue(), "feed1");
+
+        List<JsonNode> entries = ndjson(client.get("/source/feed/feed").expect200Ok().body());
+        assertEquals(entries.size(), 1);
+        assertEquals(entries.get(0).get("sourceId").textValue(), "feed1");
+
+        client.get("/source/feed/other").expect404NotFound();
+    }
+
+    @Test
+    @ConfigurationOverride({
+            "txlog.split.sources", "true",
+            "txlog.default-source", "default",
+            "txlog.rawdata.topic-prefix", "tx-feed-limit-",
+            "txlog.rawdata.provider", "memory",
+            "source.feed.max-connections", "1"
+    })
+    public void thatFeedsBeyondMaxConnectionsAreRejected() throws Exception {
+        client.put("/data/contact/4b2ef?sync=true&source=L&sourceId=l1", readFileOrClasspathResource("demo/3-skrue.json")).expect201Created();
+
+        // waits at the end of the tx-log and holds the only feed connection
+        CompletableFuture<ResponseHelper<String>> waiting = CompletableFuture.supplyAsync(() -> client.get("/source/L/feed?wait=2000"));
+        Thread.sleep(500);
+        ResponseHelper<String> rejected = client.get("/source/L/feed").expectAnyOf(503);
+        assertTrue(rejected.response().headers().firstValue("Retry-After").isPresent());
+
+        assertEquals(ndjson(waiting.get(10, TimeUnit.SECONDS).expect200Ok().body()).size(), 1);
+        assertEquals(ndjson(client.get("/source/L/feed").expect200Ok().body()).size(), 1);
+    }
+
+    private static List<JsonNode> ndjson(String body) {
+        return body.lines().map(line -> JsonTools.toJsonNode(line)).collect(Collectors.toList());
+    }
 }
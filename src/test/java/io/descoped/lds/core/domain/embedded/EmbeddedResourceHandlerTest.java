@@ -6,6 +6,7 @@ import io.descoped.lds.api.persistence.Transaction;
 import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.persistence.json.JsonTools;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
+import io.descoped.lds.test.client.ResponseHelper;
 import io.descoped.lds.test.client.TestClient;
 import io.descoped.lds.test.server.TestServer;
 import io.descoped.lds.test.server.TestServerListener;
@@ -18,6 +19,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 
 @Listeners(TestServerListener.class)
 public class EmbeddedResourceHandlerTest {
@@ -44,6 +46,17 @@ public class EmbeddedResourceHandlerTest {
         assertEquals(response, "[\"/contact/c1\",\"/contact/c2\"]");
     }
 
+    @Test
+    public void thatConditionalGETOfEmbeddedResourceAnswersNotModified() {
+        createTestResource("provisionagreement", "e5", "{\"id\":\"e5\",\"name\":\"pa-test-name\",\"contacts\":[\"/contact/c1\"]}");
+        ResponseHelper<String> response = client.get("/data/provisionagreement/e5/contacts").expect200Ok();
+        String etag = response.response().headers().firstValue("ETag").orElseThrow();
+        String documentEtag = client.get("/data/provisionagreement/e5").expect200Ok().response().headers().firstValue("ETag").orElseThrow();
+        assertNotEquals(etag, documentEtag);
+
+        client.get("/data/provisionagreement/e5/contacts", "If-None-Match", etag).expectAnyOf(304);
+    }
+
     @Test
     public void thatGETEmbeddedResourceReturnsEmptyArray() {
         createTestResource("provisionagreement", "e2", "{\"id\":\"e2\"}");
@@ -1,24 +1,35 @@
 package io.descoped.lds.core.domain.managed;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.descoped.lds.api.persistence.DocumentKey;
 import io.descoped.lds.api.persistence.Transaction;
 import io.descoped.lds.api.persistence.json.JsonDocument;
 import io.descoped.lds.api.persistence.json.JsonTools;
 import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
+import io.descoped.lds.test.ConfigurationOverride;
 import io.descoped.lds.test.client.ResponseHelper;
 import io.descoped.lds.test.client.TestClient;
 import io.descoped.lds.test.server.TestServer;
 import io.descoped.lds.test.server.TestServerListener;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
 
 import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -54,6 +65,57 @@ public class ManagedResourceHandlerTest {
         JSONAssert.assertEquals(body, actual, false);
     }
 
+    @Test
+    public void thatConditionalGETAnswersNotModifiedUntilDocumentChanges() {
+        client.put("/data/contact/conditional-1?sync=true", "{\"name\":\"first\"}").expectAnyOf(200, 201);
+        ResponseHelper<String> response = client.get("/data/contact/conditional-1").expect200Ok();
+        String etag = response.response().headers().firstValue("ETag").orElseThrow();
+        String lastModified = response.response().headers().firstValue("Last-Modified").orElseThrow();
+
+        ResponseHelper<String> notModified = client.get("/data/contact/conditional-1", "If-None-Match", etag).expectAnyOf(304);
+        assertEquals(notModified.body(), "");
+        assertEquals(notModified.response().headers().firstValue("ETag").orElseThrow(), etag);
+        client.get("/data/contact/conditional-1", "If-Modified-Since", lastModified).expectAnyOf(304);
+        client.get("/data/contact/conditional-1", "If-None-Match", "\"other\"", "If-Modified-Since", lastModified).expect200Ok();
+
+        client.put("/data/contact/conditional-1?sync=true", "{\"name\":\"second\"}").expectAnyOf(200, 201);
+        ResponseHelper<String> changed = client.get("/data/contact/conditional-1", "If-None-Match", etag).expect200Ok();
+        JSONAssert.assertEquals("{\"name\":\"second\"}", changed.body(), false);
+        assertFalse(etag.equals(changed.response().headers().firstValue("ETag").orElseThrow()));
+    }
+
+    @Test
+    public void thatAcceptMsgpackAnswersWithMsgpackRepresentation() throws IOException {
+        client.put("/data/contact/msgpack-1?sync=true", "{\"name\":\"packed\",\"email\":\"packed@example.com\"}").expectAnyOf(200, 201);
+        ResponseHelper<byte[]> response = client.get("/data/contact/msgpack-1", HttpResponse.BodyHandlers.ofByteArray(), "Accept", "application/msgpack").expect200Ok();
+        assertEquals(response.response().headers().firstValue("Content-Type").orElseThrow(), "application/msgpack");
+        JsonNode document = new ObjectMapper(new MessagePackFactory()).readTree(response.body());
+        JSONAssert.assertEquals("{\"name\":\"packed\",\"email\":\"packed@example.com\"}", document.toString(), true);
+
+        String json = client.get("/data/contact/msgpack-1", "Accept", "application/msgpack;q=0.5, application/json").expect200Ok().body();
+        JSONAssert.assertEquals("{\"name\":\"packed\",\"email\":\"packed@example.com\"}", json, true);
+    }
+
+    @Test
+    public void thatAcceptEncodingGzipAnswersWithCompressedRepresentation() throws IOException {
+        String name = "x".repeat(4096);
+        client.put("/data/contact/gzip-1?sync=true", "{\"name\":\"" + name + "\"}").expectAnyOf(200, 201);
+        ResponseHelper<byte[]> response = client.get("/data/contact/gzip-1", HttpResponse.BodyHandlers.ofByteArray(), "Accept-Encoding", "gzip").expect200Ok();
+        assertEquals(response.response().headers().firstValue("Content-Encoding").orElseThrow(), "gzip");
+        assertTrue(response.body().length < name.length());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            JSONAssert.assertEquals("{\"name\":\"" + name + "\"}", new String(in.readAllBytes(), StandardCharsets.UTF_8), true);
+        }
+
+        // the compressed and the identity representation share a weak ETag, and validate each other
+        String etag = response.response().headers().firstValue("ETag").orElseThrow();
+        assertTrue(etag.startsWith("W/\""));
+        ResponseHelper<String> identity = client.get("/data/contact/gzip-1").expect200Ok();
+        assertEquals(identity.response().headers().firstValue("ETag").orElseThrow(), etag);
+        client.get("/data/contact/gzip-1", "If-None-Match", etag).expectAnyOf(304);
+        client.get("/data/contact/gzip-1", "If-None-Match", etag.substring(2)).expectAnyOf(304);
+    }
+
     @Test
     public void thatDELETEDoesRemoveResource() {
         createTestResource("provisionagreement", "m2", "{\"name\":\"pa-test-name\",\"contacts\":[\"/contact/c1\",\"/contact/c2\"]}");
@@ -70,6 +132,178 @@ public class ManagedResourceHandlerTest {
         assertEquals(response1, response2);
     }
 
+    @Test
+    public void thatListContainsAllNonDeletedResources() {
+        for (int i = 0; i < 150; i++) {
+            createTestResource("contact", "list-" + i, "{\"name\":\"list-" + i + "\"}");
+        }
+        client.delete("/data/contact/list-42?sync=true").expect204NoContent();
+
+        JsonNode listResult = JsonTools.toJsonNode(client.get("/data/contact").expect200Ok().body());
+        assertTrue(listResult.isArray());
+        Set<String> names = new HashSet<>();
+        listResult.forEach(document -> names.add(document.path("name").textValue()));
+        for (int i = 0; i < 150; i++) {
+            assertEquals(names.contains("list-" + i), i != 42, "list-" + i);
+        }
+    }
+
+    @Test
+    public void thatListIsPaginatedWithLinkHeaders() {
+        for (int i = 0; i < 10; i++) {
+            createTestResource("contact", "page-" + i, "{\"name\":\"page-" + i + "\"}");
+        }
+
+        ResponseHelper<String> firstPage = client.get("/data/contact?first=3&after=page-").expect200Ok();
+        JsonNode firstPageResult = JsonTools.toJsonNode(firstPage.body());
+        assertEquals(firstPageResult.size(), 3);
+        assertEquals(firstPageResult.get(0).get("name").textValue(), "page-0");
+        assertEquals(firstPageResult.get(2).get("name").textValue(), "page-2");
+        assertTrue(firstPage.response().headers().allValues("Link").contains("</data/contact?first=3&after=page-2>; rel=\"next\""));
+
+        ResponseHelper<String> secondPage = client.get("/data/contact?first=3&after=page-2").expect200Ok();
+        JsonNode secondPageResult = JsonTools.toJsonNode(secondPage.body());
+        assertEquals(secondPageResult.size(), 3);
+        assertEquals(secondPageResult.get(0).get("name").textValue(), "page-3");
+        assertTrue(secondPage.response().headers().allValues("Link").contains("</data/contact?last=3&before=page-3>; rel=\"prev\""));
+
+        JsonNode lastPageResult = JsonTools.toJsonNode(client.get("/data/contact?last=2&before=page-9").expect200Ok().body());
+        assertEquals(lastPageResult.size(), 2);
+        assertEquals(lastPageResult.get(0).get("name").textValue(), "page-7");
+        assertEquals(lastPageResult.get(1).get("name").textValue(), "page-8");
+    }
+
+    @Test
+    public void thatPagesSkipDeletedResources() {
+        for (int i = 0; i < 6; i++) {
+            createTestResource("contact", "gap-" + i, "{\"name\":\"gap-" + i + "\"}");
+        }
+        client.delete("/data/contact/gap-1?sync=true").expect204NoContent();
+        client.delete("/data/contact/gap-2?sync=true").expect204NoContent();
+        client.delete("/data/contact/gap-5?sync=true").expect204NoContent();
+
+        ResponseHelper<String> firstPage = client.get("/data/contact?first=2&after=gap-&before=gap-~").expect200Ok();
+        JsonNode firstPageResult = JsonTools.toJsonNode(firstPage.body());
+        assertEquals(firstPageResult.size(), 2);
+        assertEquals(firstPageResult.get(0).get("name").textValue(), "gap-0");
+        assertEquals(firstPageResult.get(1).get("name").textValue(), "gap-3");
+        assertTrue(firstPage.response().headers().allValues("Link").contains("</data/contact?first=2&after=gap-3>; rel=\"next\""));
+
+        ResponseHelper<String> secondPage = client.get("/data/contact?first=2&after=gap-3&before=gap-~").expect200Ok();
+        JsonNode secondPageResult = JsonTools.toJsonNode(secondPage.body());
+        assertEquals(secondPageResult.size(), 1);
+        assertEquals(secondPageResult.get(0).get("name").textValue(), "gap-4");
+        assertTrue(secondPage.response().headers().allValues("Link").stream().noneMatch(link -> link.endsWith("rel=\"next\"")));
+
+        JsonNode backwardPageResult = JsonTools.toJsonNode(client.get("/data/contact?last=2&after=gap-&before=gap-4").expect200Ok().body());
+        assertEquals(backwardPageResult.size(), 2);
+        assertEquals(backwardPageResult.get(0).get("name").textValue(), "gap-0");
+        assertEquals(backwardPageResult.get(1).get("name").textValue(), "gap-3");
+    }
+
+    @Test
+    public void thatInvalidPageSizeIsRejected() {
+        client.get("/data/contact?first=-1").expect400BadRequest();
+        client.get("/data/contact?last=many").expect400BadRequest();
+        client.get("/data/contact?first=0").expect400BadRequest();
+        client.get("/data/contact?last=0").expect400BadRequest();
+    }
+
+    @Test
+    public void thatTimelineIsPaginated() {
+        createTestResource("provisionagreement", "timeline-page",
+                ZonedDateTime.of(2018, 2, 12, 12, 1, 0, 0, ZoneOffset.UTC),
+                "{\"name\":\"first\"}");
+        createTestResource("provisionagreement", "timeline-page",
+                ZonedDateTime.of(2018, 5, 3, 13, 2, 0, 0, ZoneOffset.UTC),
+                "{\"name\":\"second\"}");
+        createTestResource("provisionagreement", "timeline-page",
+                ZonedDateTime.of(2019, 9, 28, 14, 3, 0, 0, ZoneOffset.UTC),
+                "{\"name\":\"third\"}");
+
+        ResponseHelper<String> firstPage = client.get("/data/provisionagreement/timeline-page?timeline&first=2").expect200Ok();
+        JsonNode firstPageResult = JsonTools.toJsonNode(firstPage.body());
+        assertEquals(firstPageResult.size(), 2);
+        assertEquals(firstPageResult.get(1).get("document").get("name").textValue(), "second");
+        assertTrue(firstPage.response().headers().allValues("Link").stream().anyMatch(link -> link.endsWith("rel=\"next\"")));
+
+        JsonNode windowResult = JsonTools.toJsonNode(client.get("/data/provisionagreement/timeline-page?timeline&after=2018-03-01T00:00Z").expect200Ok().body());
+        assertEquals(windowResult.size(), 2);
+        assertEquals(windowResult.get(0).get("document").get("name").textValue(), "second");
+        assertEquals(windowResult.get(1).get("document").get("name").textValue(), "third");
+
+        client.get("/data/provisionagreement/timeline-page?timeline&after=yesterday").expect400BadRequest();
+    }
+
+    @Test
+    public void thatBatchPOSTCreatesAllResources() {
+        String body = "{\"id\":\"batch-1\",\"name\":\"one\",\"email\":\"one@example.com\"}\n" +
+                "{\"id\":\"batch-2\",\"name\":\"two\",\"email\":\"two@example.com\"}\n" +
+                "{\"id\":\"batch-3\",\"name\":\"three\",\"email\":\"three@example.com\"}\n";
+        JsonNode result = JsonTools.toJsonNode(client.post("/data/contact?sync=true", body).expect201Created().body());
+        assertEquals(result.get("count").intValue(), 3);
+
+        JsonNode second = JsonTools.toJsonNode(client.get("/data/contact/batch-2").expect200Ok().body());
+        assertEquals(second.get("name").textValue(), "two");
+        client.get("/data/contact/batch-1").expect200Ok();
+        client.get("/data/contact/batch-3").expect200Ok();
+    }
+
+    @Test
+    public void thatBatchPOSTWithInvalidDocumentCreatesNothing() {
+        String body = "{\"id\":\"invalid-batch-1\",\"name\":\"one\",\"email\":\"one@example.com\"}\n" +
+                "{\"id\":\"invalid-batch-2\",\"name\":\"two\"}\n" +
+                "{\"name\":\"three\",\"email\":\"three@example.com\"}\n";
+        String response = client.post("/data/contact?sync=true", body).expect400BadRequest().body();
+        assertTrue(response.contains("document 1"));
+        assertTrue(response.contains("document 2"));
+        client.get("/data/contact/invalid-batch-1").expect404NotFound();
+    }
+
+    @Test
+    public void thatBatchPOSTWithDuplicateIdsCreatesNothing() {
+        String body = "{\"id\":\"duplicate-batch-1\",\"name\":\"one\",\"email\":\"one@example.com\"}\n" +
+                "{\"id\":\"duplicate-batch-1\",\"name\":\"two\",\"email\":\"two@example.com\"}\n";
+        String response = client.post("/data/contact?sync=true", body).expect400BadRequest().body();
+        assertTrue(response.contains("duplicate id duplicate-batch-1"));
+        client.get("/data/contact/duplicate-batch-1").expect404NotFound();
+    }
+
+    @Test
+    @ConfigurationOverride({
+            "http.batch.max-size", "2"
+    })
+    public void thatBatchPOSTLargerThanMaxSizeIsRejected() {
+        String body = "{\"id\":\"large-batch-1\",\"name\":\"one\",\"email\":\"one@example.com\"}\n" +
+                "{\"id\":\"large-batch-2\",\"name\":\"two\",\"email\":\"two@example.com\"}\n" +
+                "{\"id\":\"large-batch-3\",\"name\":\"three\",\"email\":\"three@example.com\"}\n";
+        client.post("/data/contact?sync=true", body).expectAnyOf(413);
+        client.get("/data/contact/large-batch-1").expect404NotFound();
+    }
+
+    @Test
+    @ConfigurationOverride({
+            "http.batch.max-bytes", "100"
+    })
+    public void thatBatchPOSTLargerThanMaxBytesIsRejected() {
+        String body = "{\"id\":\"bytes-batch-1\",\"name\":\"one\",\"email\":\"one@example.com\"}\n" +
+                "{\"id\":\"bytes-batch-2\",\"name\":\"two\",\"email\":\"two@example.com\"}\n";
+        client.post("/data/contact?sync=true", body).expectAnyOf(413);
+
+        // Without a Content-Length the limit is enforced while the body is received
+        HttpRequest.BodyPublisher chunked = HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofString(body));
+        client.post("/data/contact?sync=true", chunked, HttpResponse.BodyHandlers.ofString()).expectAnyOf(413);
+        client.get("/data/contact/bytes-batch-1").expect404NotFound();
+    }
+
+    @Test
+    public void thatBatchPOSTWithMalformedContentTypeIsRejected() {
+        String body = "{\"id\":\"media-batch-1\",\"name\":\"one\",\"email\":\"one@example.com\"}\n";
+        client.post("/data/contact?sync=true", HttpRequest.BodyPublishers.ofString(body), HttpResponse.BodyHandlers.ofString(),
+                "Content-Type", "not-a-media-type").expectAnyOf(415);
+        client.get("/data/contact/media-batch-1").expect404NotFound();
+    }
+
     @Test
     public void thatJsonSchemaIsFoundForNamespace() {
         ResponseHelper<String> response = client.get("/data/contact?schema");
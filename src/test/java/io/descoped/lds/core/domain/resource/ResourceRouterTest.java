@@ -0,0 +1,73 @@
+package io.descoped.lds.core.domain.resource;
+
+import io.descoped.lds.api.specification.Specification;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+public class ResourceRouterTest {
+
+    private final Specification specification = ResourceContextTest.specification();
+    private final ResourceRouter router = new ResourceRouter(specification);
+
+    @Test
+    public void thatResourceTypeIsRouted() {
+        ZonedDateTime timestamp = ZonedDateTime.now(ZoneId.of("Etc/UTC"));
+        for (String path : List.of("/ns/SomeEntity", "/ns/SomeEntity/123")) {
+            Assert.assertTrue(router.route(path, timestamp).isManaged(), path);
+        }
+        for (String path : List.of("/ns/SomeEntity/123/object1", "/ns/SomeEntity/123/ref", "/ns/SomeEntity/123/object1/object2")) {
+            Assert.assertTrue(router.route(path, timestamp).isEmbedded(), path);
+        }
+        for (String path : List.of("/ns/SomeEntity/123/ref/OtherEntity/456", "/ns/SomeEntity/123/object1/object2/refs/OtherEntity/456")) {
+            Assert.assertTrue(router.route(path, timestamp).isReference(), path);
+        }
+    }
+
+    @Test
+    public void thatRoutedElementsFollowSpecification() {
+        ResourceContext context = router.route("/ns/SomeEntity/a%2Fb%20c/object1/ref/OtherEntity/d%20e", ZonedDateTime.now(ZoneId.of("Etc/UTC")));
+        Assert.assertEquals(context.getNamespace(), "ns");
+        ResourceElement managed = context.getFirstElement();
+        Assert.assertEquals(managed.name(), "SomeEntity");
+        Assert.assertEquals(managed.id(), "a/b c");
+        Assert.assertSame(managed.getSpecificationElement(), specification.getRootElement().getProperties().get("SomeEntity"));
+        ResourceElement object1 = managed.next();
+        Assert.assertEquals(object1.name(), "object1");
+        Assert.assertSame(object1.getSpecificationElement(), managed.getSpecificationElement().getProperties().get("object1"));
+        ResourceElement ref = object1.next();
+        Assert.assertEquals(ref.name(), "ref");
+        Assert.assertEquals(ref.id(), "/OtherEntity/d e");
+        Assert.assertSame(ref.getSpecificationElement(), object1.getSpecificationElement().getProperties().get("ref"));
+        Assert.assertFalse(ref.hasNext());
+    }
+
+    @Test
+    public void thatDecodedIdIsRouted() {
+        ResourceContext context = router.route("/ns/SomeEntity/a%2Fb%20c", ZonedDateTime.now(ZoneId.of("Etc/UTC")));
+        Assert.assertEquals(context.getFirstElement().id(), "a/b c");
+    }
+
+    @Test(expectedExceptions = ResourceException.class)
+    public void thatUnknownManagedDomainIsRejected() {
+        router.route("/ns/UnknownEntity/123", ZonedDateTime.now(ZoneId.of("Etc/UTC")));
+    }
+
+    @Test(expectedExceptions = ResourceException.class)
+    public void thatUnknownPathElementIsRejected() {
+        router.route("/ns/SomeEntity/123/object1/unknown", ZonedDateTime.now(ZoneId.of("Etc/UTC")));
+    }
+
+    @Test(expectedExceptions = ResourceException.class)
+    public void thatReferenceToUnsupportedManagedDomainIsRejected() {
+        router.route("/ns/SomeEntity/123/ref/SomeEntity/456", ZonedDateTime.now(ZoneId.of("Etc/UTC")));
+    }
+
+    @Test(expectedExceptions = ResourceException.class)
+    public void thatNavigationThroughReferenceIsRejected() {
+        router.route("/ns/SomeEntity/123/ref/OtherEntity/456/aString", ZonedDateTime.now(ZoneId.of("Etc/UTC")));
+    }
+}
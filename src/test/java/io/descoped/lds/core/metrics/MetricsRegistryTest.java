@@ -0,0 +1,72 @@
+package io.descoped.lds.core.metrics;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void thatCounterIsRegisteredOnceAndWrittenWithLabels() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("lds_test_total", "Test counter", "saga", "create", "outcome", "success").increment();
+        registry.counter("lds_test_total", "Test counter", "saga", "create", "outcome", "success").increment(2);
+
+        assertThat(registry.scrape()).isEqualTo("# HELP lds_test_total Test counter\n" +
+                "# TYPE lds_test_total counter\n" +
+                "lds_test_total{saga=\"create\",outcome=\"success\"} 3\n");
+    }
+
+    @Test
+    public void thatTimerIsWrittenAsCumulativeHistogram() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Timer timer = registry.timer("lds_test_seconds", "Test timer");
+        timer.record(TimeUnit.MICROSECONDS.toNanos(100));
+        timer.record(TimeUnit.MILLISECONDS.toNanos(1));
+        timer.record(TimeUnit.MINUTES.toNanos(1));
+
+        String scrape = registry.scrape();
+        assertThat(scrape).contains("# TYPE lds_test_seconds histogram\n");
+        assertThat(scrape).contains("lds_test_seconds_bucket{le=\"0.0005\"} 1\n");
+        assertThat(scrape).contains("lds_test_seconds_bucket{le=\"0.001\"} 2\n");
+        assertThat(scrape).contains("lds_test_seconds_bucket{le=\"30.0\"} 2\n");
+        assertThat(scrape).contains("lds_test_seconds_bucket{le=\"+Inf\"} 3\n");
+        assertThat(scrape).contains("lds_test_seconds_count 3\n");
+        assertThat(timer.sumSeconds()).isEqualTo(60.0011, offset(0.000001));
+    }
+
+    @Test
+    public void thatThreadPoolGaugesAreEvaluatedOnScrape() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 4, 1, TimeUnit.SECONDS, new ArrayBlockingQueue<>(10));
+        try {
+            registry.monitor("test", executor);
+            assertThat(registry.scrape()).contains("lds_threadpool_max_threads{pool=\"test\"} 4\n");
+            executor.submit(() -> {
+            }).get();
+            assertThat(registry.scrape()).contains("lds_threadpool_size_threads{pool=\"test\"} 1\n");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void thatLabelValuesAreEscaped() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("lds_test_total", "Test counter", "field", "a\"b\\c").increment();
+        assertThat(registry.scrape()).contains("lds_test_total{field=\"a\\\"b\\\\c\"} 1\n");
+    }
+
+    @Test
+    public void thatRegisteringSameNameWithOtherTypeFails() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("lds_test", "Test counter");
+        assertThatThrownBy(() -> registry.timer("lds_test", "Test timer")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
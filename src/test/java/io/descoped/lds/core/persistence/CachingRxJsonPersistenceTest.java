@@ -0,0 +1,122 @@
+package io.descoped.lds.core.persistence;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.descoped.lds.api.persistence.DocumentKey;
+import io.descoped.lds.api.persistence.PersistenceDeletePolicy;
+import io.descoped.lds.api.persistence.Transaction;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import io.descoped.lds.core.metrics.MetricsRegistry;
+import io.descoped.lds.core.persistence.memory.MemoryInitializer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Set;
+
+import static io.descoped.lds.api.persistence.json.JsonTools.mapper;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachingRxJsonPersistenceTest {
+
+    private CachingRxJsonPersistence persistence;
+    private ZonedDateTime v1;
+
+    @BeforeMethod
+    public void setUp() {
+        persistence = new CachingRxJsonPersistence(new MemoryInitializer().initialize("ns",
+                Map.of("persistence.mem.wait.min", "0",
+                        "persistence.mem.wait.max", "0"),
+                Set.of("Person")), 1000, 1024 * 1024, new MetricsRegistry());
+        v1 = ZonedDateTime.now().minusHours(1);
+        write("p1", v1, "first");
+    }
+
+    @Test
+    public void thatRepeatedReadsAreServedFromCacheAsNewInstances() {
+        JsonDocument first = read("p1", ZonedDateTime.now());
+        ((ObjectNode) first.jackson()).put("name", "modified by caller");
+        JsonDocument second = read("p1", ZonedDateTime.now());
+
+        assertThat(persistence.misses.count()).isEqualTo(1);
+        assertThat(persistence.hits.count()).isEqualTo(1);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.jackson().get("name").textValue()).isEqualTo("first");
+    }
+
+    @Test
+    public void thatAbsentDocumentIsCached() {
+        assertThat(read("p2", ZonedDateTime.now())).isNull();
+        assertThat(read("p2", ZonedDateTime.now())).isNull();
+        assertThat(persistence.hits.count()).isEqualTo(1);
+
+        write("p2", ZonedDateTime.now(), "created");
+        assertThat(read("p2", ZonedDateTime.now()).jackson().get("name").textValue()).isEqualTo("created");
+    }
+
+    @Test
+    public void thatWritesAndDeletesInvalidateCachedDocument() {
+        assertThat(read("p1", ZonedDateTime.now()).jackson().get("name").textValue()).isEqualTo("first");
+
+        ZonedDateTime v2 = ZonedDateTime.now();
+        write("p1", v2, "second");
+        assertThat(read("p1", ZonedDateTime.now()).jackson().get("name").textValue()).isEqualTo("second");
+        assertThat(read("p1", v2.minusMinutes(1)).jackson().get("name").textValue()).isEqualTo("first");
+
+        try (Transaction tx = persistence.createTransaction(false)) {
+            persistence.markDocumentDeleted(tx, "ns", "Person", "p1", ZonedDateTime.now(), PersistenceDeletePolicy.FAIL_IF_INCOMING_LINKS).blockingAwait();
+        }
+        JsonDocument deleted = read("p1", ZonedDateTime.now());
+        assertThat(deleted == null || deleted.deleted()).isTrue();
+    }
+
+    @Test
+    public void thatHistoricalReadIsNotServedFromLatestEntry() {
+        assertThat(read("p1", ZonedDateTime.now()).jackson().get("name").textValue()).isEqualTo("first");
+
+        assertThat(read("p1", v1.minusMinutes(1))).isNull();
+        assertThat(read("p1", v1.minusMinutes(1))).isNull();
+        assertThat(read("p1", v1.plusMinutes(1)).jackson().get("name").textValue()).isEqualTo("first");
+    }
+
+    @Test
+    public void thatReadBeforeFutureVersionIsNotCachedAsLatest() {
+        ZonedDateTime future = ZonedDateTime.now().plusHours(1);
+        write("p1", future, "future");
+
+        assertThat(read("p1", ZonedDateTime.now()).jackson().get("name").textValue()).isEqualTo("first");
+        assertThat(read("p1", future.plusMinutes(1)).jackson().get("name").textValue()).isEqualTo("future");
+        assertThat(read("p1", ZonedDateTime.now()).jackson().get("name").textValue()).isEqualTo("first");
+    }
+
+    @Test
+    public void thatCachedDeletedMarkerIsReadAsNewInstances() {
+        try (Transaction tx = persistence.createTransaction(false)) {
+            persistence.markDocumentDeleted(tx, "ns", "Person", "p1", ZonedDateTime.now(), PersistenceDeletePolicy.FAIL_IF_INCOMING_LINKS).blockingAwait();
+        }
+        JsonDocument first = read("p1", ZonedDateTime.now());
+        JsonDocument second = read("p1", ZonedDateTime.now());
+
+        assertThat(persistence.hits.count()).isEqualTo(1);
+        if (first != null) {
+            assertThat(first.deleted()).isTrue();
+            assertThat(second.deleted()).isTrue();
+            assertThat(second).isNotSameAs(first);
+        }
+    }
+
+    private void write(String id, ZonedDateTime version, String name) {
+        ObjectNode data = mapper.createObjectNode();
+        data.put("id", id);
+        data.put("name", name);
+        try (Transaction tx = persistence.createTransaction(false)) {
+            persistence.createOrOverwrite(tx, new JsonDocument(new DocumentKey("ns", "Person", id, version), data), null).blockingAwait();
+        }
+    }
+
+    private JsonDocument read(String id, ZonedDateTime snapshot) {
+        try (Transaction tx = persistence.createTransaction(true)) {
+            return persistence.readDocument(tx, snapshot, "ns", "Person", id).blockingGet();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package io.descoped.lds.core.saga;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SagaAdmissionControllerTest {
+
+    @Test
+    public void thatWriteIsRejectedImmediatelyWhenQueueIsFull() {
+        SagaAdmissionController admission = new SagaAdmissionController(1, 1, 1000, 60000, 1, 0, 60000);
+        SagaAdmissionController.Permit permit = admission.acquire(SagaAdmissionController.Priority.SYNC_WRITE);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> admission.acquire(SagaAdmissionController.Priority.ASYNC_WRITE))
+                .isInstanceOfSatisfying(SagaAdmissionException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(429);
+                    assertThat(e.getRetryAfterSeconds()).isGreaterThanOrEqualTo(1);
+                });
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(10));
+
+        permit.release();
+        assertThat(admission.getInflight()).isEqualTo(0);
+    }
+
+    @Test
+    public void thatEveryWriteQueueHasRoomOnSmallHosts() throws Exception {
+        assertThat(SagaAdmissionController.maxWaitingWrites(64, 12, 4)).containsExactly(12, 4);
+        assertThat(SagaAdmissionController.maxWaitingWrites(12, 12, 4)).containsExactly(9, 3);
+        assertThat(SagaAdmissionController.maxWaitingWrites(0, 12, 4)).containsExactly(1, 1);
+
+        // 16 http worker threads, the default on a host with 2 cpus
+        int[] maxWaiting = SagaAdmissionController.maxWaitingWrites(16 / 4, 12, 4);
+        assertThat(maxWaiting).containsExactly(3, 1);
+        SagaAdmissionController admission = new SagaAdmissionController(1, 1, 1000, 60000, maxWaiting[0], maxWaiting[1], 60000);
+        SagaAdmissionController.Permit permit = admission.acquire(SagaAdmissionController.Priority.SYNC_WRITE);
+
+        CompletableFuture<SagaAdmissionController.Permit> waitingWrite = CompletableFuture.supplyAsync(() -> admission.acquire(SagaAdmissionController.Priority.ASYNC_WRITE));
+        while (admission.getWaiting(SagaAdmissionController.Priority.ASYNC_WRITE) == 0) {
+            assertThat(waitingWrite.isCompletedExceptionally()).isFalse();
+            Thread.sleep(5);
+        }
+        permit.release();
+        waitingWrite.get(10, TimeUnit.SECONDS).release();
+        assertThat(admission.getInflight()).isEqualTo(0);
+    }
+
+    @Test
+    public void thatWriteIsRejectedWhenNotAdmittedWithinMaxWait() {
+        SagaAdmissionController admission = new SagaAdmissionController(1, 1, 1000, 50, 1, 1, 60000);
+        SagaAdmissionController.Permit permit = admission.acquire(SagaAdmissionController.Priority.ASYNC_WRITE);
+
+        assertThatThrownBy(() -> admission.acquire(SagaAdmissionController.Priority.SYNC_WRITE))
+                .isInstanceOfSatisfying(SagaAdmissionException.class, e -> assertThat(e.getStatusCode()).isEqualTo(503));
+        assertThat(admission.getWaiting(SagaAdmissionController.Priority.SYNC_WRITE)).isEqualTo(0);
+
+        permit.release();
+        permit.release(); // no effect
+        assertThat(admission.getInflight()).isEqualTo(0);
+    }
+
+    @Test
+    public void thatRecoveryIsNotAdmittedWhileWritesAreWaiting() throws Exception {
+        SagaAdmissionController admission = new SagaAdmissionController(1, 1, 1000, 60000, 1, 1, 60000);
+        SagaAdmissionController.Permit permit = admission.acquire(SagaAdmissionController.Priority.ASYNC_WRITE);
+
+        CompletableFuture<SagaAdmissionController.Permit> waitingWrite = CompletableFuture.supplyAsync(() -> admission.acquire(SagaAdmissionController.Priority.SYNC_WRITE));
+        while (admission.getWaiting(SagaAdmissionController.Priority.SYNC_WRITE) == 0) {
+            Thread.sleep(5);
+        }
+        CompletableFuture<SagaAdmissionController.Permit> recovery = CompletableFuture.supplyAsync(() -> {
+            try {
+                return admission.acquireRecovery();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        permit.release();
+
+        SagaAdmissionController.Permit writePermit = waitingWrite.get(10, TimeUnit.SECONDS);
+        assertThat(recovery.isDone()).isFalse();
+        assertThat(admission.getInflight()).isEqualTo(1);
+
+        writePermit.release();
+        SagaAdmissionController.Permit recoveryPermit = recovery.get(10, TimeUnit.SECONDS);
+        recoveryPermit.release();
+        assertThat(admission.getInflight()).isEqualTo(0);
+    }
+
+    @Test
+    public void thatRecoveryIsAdmittedBeforeWaitingWritesAfterMaxYield() throws Exception {
+        SagaAdmissionController admission = new SagaAdmissionController(1, 1, 1000, 60000, 1, 1, 100);
+        SagaAdmissionController.Permit permit = admission.acquire(SagaAdmissionController.Priority.ASYNC_WRITE);
+
+        CompletableFuture<SagaAdmissionController.Permit> recovery = CompletableFuture.supplyAsync(() -> {
+            try {
+                return admission.acquireRecovery();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        CompletableFuture<SagaAdmissionController.Permit> waitingWrite = CompletableFuture.supplyAsync(() -> admission.acquire(SagaAdmissionController.Priority.SYNC_WRITE));
+        while (admission.getWaiting(SagaAdmissionController.Priority.SYNC_WRITE) == 0) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(300); // longer than the maximum yield of the recovery
+        permit.release();
+
+        SagaAdmissionController.Permit recoveryPermit = recovery.get(10, TimeUnit.SECONDS);
+        assertThat(waitingWrite.isDone()).isFalse();
+        assertThat(admission.getWaiting(SagaAdmissionController.Priority.SYNC_WRITE)).isEqualTo(1);
+
+        recoveryPermit.release();
+        waitingWrite.get(10, TimeUnit.SECONDS).release();
+        assertThat(admission.getInflight()).isEqualTo(0);
+    }
+
+    @Test
+    public void thatLimitIsReducedWhenLatencyIsAboveTargetAndGrowsBackWhenBelow() throws InterruptedException {
+        SagaAdmissionController admission = new SagaAdmissionController(1, 10, 20, 60000, 10, 10, 60000);
+        assertThat(admission.getLimit()).isEqualTo(10);
+
+        SagaAdmissionController.Permit slow = admission.acquire(SagaAdmissionController.Priority.SYNC_WRITE);
+        Thread.sleep(50);
+        slow.release();
+        assertThat(admission.getLimit()).isEqualTo(9);
+
+        for (int i = 0; i < 100 && admission.getLimit() < 10; i++) {
+            List<SagaAdmissionController.Permit> permits = new ArrayList<>();
+            for (int j = 0; j < admission.getLimit(); j++) {
+                permits.add(admission.acquire(SagaAdmissionController.Priority.SYNC_WRITE));
+            }
+            permits.forEach(SagaAdmissionController.Permit::release);
+        }
+        assertThat(admission.getLimit()).isEqualTo(10);
+    }
+}
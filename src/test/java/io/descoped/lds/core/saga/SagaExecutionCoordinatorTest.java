@@ -1,11 +1,16 @@
 package io.descoped.lds.core.saga;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.core.controller.SagaRecoveryHandler;
 import io.descoped.lds.test.ConfigurationOverride;
 import io.descoped.lds.test.client.TestClient;
 import io.descoped.lds.test.server.TestServer;
 import io.descoped.lds.test.server.TestServerListener;
+import no.cantara.saga.api.Saga;
 import no.cantara.saga.execution.SagaExecutionTraversalContext;
 import no.cantara.sagalog.SagaLog;
+import no.cantara.sagalog.SagaLogEntryType;
 import no.cantara.sagalog.SagaLogOwner;
 import no.cantara.sagalog.SagaLogPool;
 import org.testng.Assert;
@@ -13,9 +18,14 @@ import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
 
 import javax.inject.Inject;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
@@ -124,6 +134,107 @@ public class SagaExecutionCoordinatorTest {
         }
     }
 
+    @Test
+    @ConfigurationOverride({
+            "saga.recovery.enabled", "false",
+            "sagalog.provider", "no.cantara.sagalog.memory.MemorySagaLogInitializer",
+            "saga.number-of-logs", "1",
+            "saga.commands.enabled", "true"
+    })
+    public void thatSagaLogIsKnownCleanOnlyAfterSuccessfulSagaExecution() {
+        SagaExecutionCoordinator sec = server.getApplication().getSec();
+
+        client.put("/data/provisionagreement/clean1?sync=true", "{\"name\":\"saga-handoff-test-data 1\",\"contacts\":[]}").expect201Created();
+        long knownCleanSagaLogAcquisitions = sec.knownCleanSagaLogAcquisitions.count();
+        long dirtySagaLogAcquisitions = sec.dirtySagaLogAcquisitions.count();
+
+        // the successful saga-execution left the saga-log known clean, so it is handed out without being read
+        client.put("/data/provisionagreement/clean1?sync=true&saga=failAfter%20S", "{\"name\":\"saga-handoff-test-data 2\",\"contacts\":[]}").expectAnyOf(500);
+        assertEquals(sec.knownCleanSagaLogAcquisitions.count(), knownCleanSagaLogAcquisitions + 1);
+
+        // the saga-log is verified, recovered and marked clean before it is handed out again
+        client.put("/data/provisionagreement/clean1?sync=true", "{\"name\":\"saga-handoff-test-data 3\",\"contacts\":[]}").expect200Ok();
+        assertEquals(sec.dirtySagaLogAcquisitions.count(), dirtySagaLogAcquisitions + 1);
+        assertEquals(sec.knownCleanSagaLogAcquisitions.count(), knownCleanSagaLogAcquisitions + 1);
+
+        client.put("/data/provisionagreement/clean1?sync=true", "{\"name\":\"saga-handoff-test-data 4\",\"contacts\":[]}").expect200Ok();
+        assertEquals(sec.knownCleanSagaLogAcquisitions.count(), knownCleanSagaLogAcquisitions + 2);
+        assertEquals(sec.dirtySagaLogAcquisitions.count(), dirtySagaLogAcquisitions + 1);
+    }
+
+    @Test
+    @ConfigurationOverride({
+            "saga.recovery.enabled", "false",
+            "sagalog.provider", "no.cantara.sagalog.memory.MemorySagaLogInitializer",
+            "saga.number-of-logs", "1",
+            "saga.commands.enabled", "true",
+            "saga.recovery.max-concurrent-executions", "1"
+    })
+    public void thatRecoveryProgressIsReported() {
+        SagaExecutionCoordinator sec = server.getApplication().getSec();
+        client.put("/data/provisionagreement/r1?sync=true&saga=failAfter%20S", "{\"name\":\"saga-recovery-test-data 1\",\"contacts\":[]}").expectAnyOf(500);
+        client.put("/data/provisionagreement/r2?sync=true&saga=failAfter%20S", "{\"name\":\"saga-recovery-test-data 2\",\"contacts\":[]}").expectAnyOf(500);
+        // the second saga-execution recovered the first one when it acquired the saga-log
+        long recoveredBefore = sec.getRecoveryProgress().getExecutionsRecovered();
+
+        sec.completeLocalIncompleteSagas(sec.getRecoveryThreadPool()).join();
+
+        JsonNode progress = JsonTools.toJsonNode(client.get(SagaRecoveryHandler.SAGA_RECOVERY_PATH).expect200Ok().body());
+        assertEquals(progress.get("scope").textValue(), "local");
+        assertFalse(progress.get("running").booleanValue());
+        assertEquals(progress.get("logs").get("total").intValue(), 1);
+        assertEquals(progress.get("logs").get("pending").intValue(), 0);
+        assertEquals(progress.get("executions").get("running").intValue(), 0);
+        assertEquals(progress.get("executions").get("recovered").longValue(), recoveredBefore + 1);
+        assertEquals(sec.recoverySemaphore.availablePermits(), 1);
+    }
+
+    @Test
+    @ConfigurationOverride({
+            "saga.recovery.enabled", "false",
+            "sagalog.provider", "no.cantara.sagalog.memory.MemorySagaLogInitializer",
+            "saga.number-of-logs", "1",
+            "saga.commands.enabled", "true"
+    })
+    public void thatRecoveryWaitsForStartedExecutionsWhenLaterExecutionCannotStart() throws Exception {
+        SagaExecutionCoordinator sec = server.getApplication().getSec();
+        SagaLogPool pool = sec.getSagaLogPool();
+        client.put("/data/provisionagreement/partial1?sync=true&saga=failAfter%20S", "{\"name\":\"saga-recovery-test-data\",\"contacts\":[]}").expectAnyOf(500);
+
+        SagaLog sagaLog = pool.tryAcquire(new SagaLogOwner("core-sec-test"));
+        try {
+            // written after the failed execution, and cannot be started because the saga is unknown
+            sagaLog.write(sagaLog.builder()
+                    .sagaName("unknown-saga")
+                    .entryType(SagaLogEntryType.Start)
+                    .nodeId(Saga.ID_START)
+                    .executionId("unknown-execution")
+                    .jsonData("{}")).join();
+
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Void> recovery = sec.doCompleteSagaLog(sagaLog, false, false, false, nopAction(), c -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            Thread.sleep(200);
+            assertFalse(recovery.isDone()); // the started execution is still running
+
+            release.countDown();
+            try {
+                recovery.get(10, TimeUnit.SECONDS);
+                Assert.fail("recovery of a saga-log with an unknown saga must fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause().getMessage().contains("Unable to complete saga forward recovery"), e.getCause().getMessage());
+            }
+        } finally {
+            sagaLog.truncate().join();
+            pool.release(sagaLog.id());
+        }
+    }
+
     private Consumer<SagaExecutionTraversalContext> failOnce() {
         AtomicBoolean failedOnce = new AtomicBoolean();
         return c -> {
@@ -27,6 +27,7 @@ import java.util.concurrent.TimeUnit;
 
 import static io.descoped.lds.api.persistence.json.JsonTools.mapper;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 
 @Listeners(TestServerListener.class)
 public class SagaExecutionCoordinatorWatchdogTest {
@@ -56,26 +57,7 @@ public class SagaExecutionCoordinatorWatchdogTest {
     public void thatWatchdogIsTriggeredWhenSagaThreadpoolIsDeadlocked() throws InterruptedException {
         SagaExecutionCoordinator sec = server.getApplication().getSec();
 
-        {
-            /*
-             * Configure a  dummy slow node before saga fan-out in order to easily provoke deadlock.
-             */
-            final ObjectNode empty = mapper.createObjectNode();
-            sec.sagaRepository.getAdapterLoader().register(new Adapter<>(JsonNode.class, "SlowNodeAdapter", (i, d) -> {
-                try {
-                    Thread.sleep(2000);
-                } catch (InterruptedException e) {
-                }
-                return empty;
-            }));
-            sec.sagaRepository.getAdapterLoader().register(new Adapter<>(JsonNode.class, "search", (i, d) -> empty));
-            sec.sagaRepository.register(Saga
-                    .start(SagaRepository.SAGA_CREATE_OR_UPDATE_MANAGED_RESOURCE).linkTo("slownode", "search-index-update")
-                    .id("slownode").adapter("SlowNodeAdapter").linkTo("persistence")
-                    .id("persistence").adapter(PersistenceCreateOrOverwriteSagaAdapter.NAME).linkToEnd()
-                    .id("search-index-update").adapter("search").linkToEnd()
-                    .end());
-        }
+        registerSlowFanOutSaga(sec);
 
         int sagaThreadPoolCoreSize = sec.threadPool.getCorePoolSize();
 
@@ -153,6 +135,67 @@ public class SagaExecutionCoordinatorWatchdogTest {
         }
     }
 
+    @Test
+    @ConfigurationOverride({
+            "persistence.provider", "mem",
+            "sagalog.provider", "no.cantara.sagalog.memory.MemorySagaLogInitializer",
+            "saga.number-of-logs", "50",
+            "specification.schema", "spec/schemas/contact.json,spec/schemas/provisionagreement.json",
+            "saga.executor", "elastic",
+            "saga.executor.max-concurrent-sagas", "30",
+    })
+    public void thatElasticSagaThreadpoolCompletesSagasWithoutWatchdog() throws InterruptedException {
+        SagaExecutionCoordinator sec = server.getApplication().getSec();
+        registerSlowFanOutSaga(sec);
+
+        sec.startThreadpoolWatchdog();
+        assertFalse(sec.threadPoolWatchDog.isAlive());
+
+        JsonNode provisionAgreementSirius = resource("provisionagreement_sirius.json");
+        int concurrentRequests = 25;
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrentRequests);
+        try {
+            CountDownLatch requestsHandled = new CountDownLatch(concurrentRequests);
+            for (int i = 0; i < concurrentRequests; i++) {
+                executor.execute(() -> {
+                    try {
+                        client.put("/data/provisionagreement/100?sync=true", provisionAgreementSirius.toString()).expectAnyOf(200, 201);
+                        requestsHandled.countDown();
+                    } catch (Throwable t) {
+                        t.printStackTrace();
+                    }
+                });
+            }
+            if (!requestsHandled.await(15, TimeUnit.SECONDS)) {
+                Assert.fail("Not all sagas completed");
+            }
+            assertEquals(sec.threadPoolWatchDog.deadlockResolutionAttemptCounter.get(), 0);
+        } finally {
+            shutdownAndAwaitTermination(executor);
+        }
+    }
+
+    /**
+     * Configure a dummy slow node before saga fan-out in order to easily provoke deadlock.
+     */
+    static void registerSlowFanOutSaga(SagaExecutionCoordinator sec) {
+        final ObjectNode empty = mapper.createObjectNode();
+        sec.sagaRepository.getAdapterLoader().register(new Adapter<>(JsonNode.class, "SlowNodeAdapter", (i, d) -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+            }
+            return empty;
+        }));
+        sec.sagaRepository.getAdapterLoader().register(new Adapter<>(JsonNode.class, "search", (i, d) -> empty));
+        sec.sagaRepository.register(Saga
+                .start(SagaRepository.SAGA_CREATE_OR_UPDATE_MANAGED_RESOURCE).linkTo("slownode", "search-index-update")
+                .id("slownode").adapter("SlowNodeAdapter").linkTo("persistence")
+                .id("persistence").adapter(PersistenceCreateOrOverwriteSagaAdapter.NAME).linkToEnd()
+                .id("search-index-update").adapter("search").linkToEnd()
+                .end());
+    }
+
     static final JsonNode resource(String resourceName) {
         return JsonTools.toJsonNode(FileAndClasspathReaderUtils.getResourceAsString("spec/schemas.examples/" + resourceName, StandardCharsets.UTF_8));
     }
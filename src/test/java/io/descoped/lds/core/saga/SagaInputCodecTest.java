@@ -0,0 +1,77 @@
+package io.descoped.lds.core.saga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.huxhorn.sulky.ulid.ULID;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import org.testng.annotations.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class SagaInputCodecTest {
+
+    final ZonedDateTime version = ZonedDateTime.of(2019, 3, 14, 15, 9, 26, 535897932, ZoneId.of("Europe/Oslo"));
+
+    @Test
+    public void thatCompactFormIsDecoded() {
+        SagaInput sagaInput = new SagaInput(new ULID().nextValue(), "DELETE", "schema-1", "ns", "contact", "c1",
+                version, null, "source-id-1", null);
+
+        JsonNode compact = SagaInputCodec.encode(sagaInput);
+        assertSame(SagaInput.of(compact), sagaInput);
+        assertEquals(Base64.getDecoder().decode(compact.get(SagaInputCodec.COMPACT_FIELD).textValue())[0], SagaInputCodec.FORMAT_MSGPACK);
+
+        SagaInput decoded = SagaInputCodec.decode(JsonTools.toJson(compact));
+        assertEquals(decoded.txId(), sagaInput.txId());
+        assertEquals(decoded.method(), "DELETE");
+        assertEquals(decoded.resourceId(), "c1");
+        assertEquals(decoded.version(), version);
+        assertNull(decoded.source());
+        assertEquals(decoded.sourceId(), "source-id-1");
+        assertNull(decoded.data());
+        assertEquals(SagaInput.of(JsonTools.toJsonNode(JsonTools.toJson(compact))).txId(), sagaInput.txId());
+    }
+
+    @Test
+    public void thatLargeBatchIsDeflatedAndDecoded() {
+        ObjectNode data = JsonTools.mapper.createObjectNode();
+        data.put("description", "a description that is repeated ".repeat(100));
+        data.putArray("values").add(1).add(2.5).add(true).addNull();
+        SagaInput element = new SagaInput(new ULID().nextValue(), "PUT", "schema-1", "ns", "contact", "c2",
+                version, "source-1", "source-id-2", data);
+        SagaInput sagaInput = SagaInput.batch(new ULID().nextValue(), "PUT", "schema-1", "ns", "contact",
+                version, "source-1", List.of(element));
+
+        String compact = JsonTools.toJson(SagaInputCodec.encode(sagaInput));
+        String json = JsonTools.toJson(sagaInput.asJsonNode());
+        assertTrue(compact.length() < json.length() / 4, "compact: " + compact.length() + ", json: " + json.length());
+
+        SagaInput decoded = SagaInputCodec.decode(compact);
+        assertTrue(decoded.isBatch());
+        SagaInput decodedElement = decoded.batch().get(0);
+        assertEquals(decodedElement.txId(), element.txId());
+        assertEquals(decodedElement.source(), "source-1");
+        assertEquals(decodedElement.data().get("description").textValue(), data.get("description").textValue());
+        assertEquals(decodedElement.data().get("values").size(), 4);
+        assertEquals(decodedElement.data().get("values").get(1).doubleValue(), 2.5);
+    }
+
+    @Test
+    public void thatJsonFormIsDecoded() {
+        SagaInput sagaInput = new SagaInput(new ULID().nextValue(), "PUT", "schema-1", "ns", "contact", "c3",
+                version, "source-1", null, JsonTools.toJsonNode("{\"name\":\"json\"}"));
+
+        SagaInput decoded = SagaInputCodec.decode(JsonTools.toJson(sagaInput.asJsonNode()));
+        assertEquals(decoded.resourceId(), "c3");
+        assertEquals(decoded.version(), version);
+        assertEquals(decoded.data(), sagaInput.data());
+    }
+}
@@ -0,0 +1,53 @@
+package io.descoped.lds.core.saga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.huxhorn.sulky.ulid.ULID;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import org.testng.annotations.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class SagaInputTest {
+
+    @Test
+    public void thatSagaNodesShareTheInputTheJsonWasMaterializedFrom() {
+        SagaInput sagaInput = new SagaInput(new ULID().nextValue(), "PUT", "schema-1", "ns", "contact", "c1",
+                ZonedDateTime.now(ZoneId.of("Etc/UTC")), "source-1", null, JsonTools.toJsonNode("{\"name\":\"shared\"}"));
+
+        JsonNode json = sagaInput.asJsonNode();
+        assertSame(sagaInput.asJsonNode(), json);
+        assertSame(SagaInput.of(json), sagaInput);
+    }
+
+    @Test
+    public void thatJsonFormIsParsedBack() {
+        ZonedDateTime version = ZonedDateTime.of(2019, 3, 14, 15, 9, 26, 535000000, ZoneId.of("Europe/Oslo"));
+        SagaInput element = new SagaInput(new ULID().nextValue(), "PUT", "schema-1", "ns", "contact", "c1",
+                version, "source-1", "source-id-1", JsonTools.toJsonNode("{\"name\":\"first\"}"));
+        SagaInput sagaInput = SagaInput.batch(new ULID().nextValue(), "PUT", "schema-1", "ns", "contact",
+                version, "source-1", List.of(element));
+
+        // what recovery gets from the saga-log
+        SagaInput parsed = SagaInput.of(JsonTools.toJsonNode(JsonTools.toJson(sagaInput.asJsonNode())));
+
+        assertEquals(parsed.txId(), sagaInput.txId());
+        assertTrue(parsed.isBatch());
+        assertNull(parsed.resourceId());
+        assertEquals(parsed.version(), version);
+        SagaInput parsedElement = parsed.batch().get(0);
+        assertFalse(parsedElement.isBatch());
+        assertEquals(parsedElement.documentKey().id(), "c1");
+        assertEquals(parsedElement.documentKey().timestamp(), version);
+        assertEquals(parsedElement.source(), "source-1");
+        assertEquals(parsedElement.sourceId(), "source-id-1");
+        assertEquals(parsedElement.data(), element.data());
+    }
+}
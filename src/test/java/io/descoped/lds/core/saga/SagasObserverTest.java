@@ -0,0 +1,51 @@
+package io.descoped.lds.core.saga;
+
+import io.descoped.lds.test.client.TestClient;
+import io.descoped.lds.test.server.TestServer;
+import io.descoped.lds.test.server.TestServerListener;
+import no.cantara.saga.execution.SagaHandoffControl;
+import no.cantara.saga.execution.SagaHandoffResult;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Listeners(TestServerListener.class)
+public class SagasObserverTest {
+
+    @Inject
+    TestClient client;
+
+    @Inject
+    TestServer server;
+
+    @Test
+    public void thatListenerIsNotifiedOfCompletedSaga() throws Exception {
+        CompletableFuture<SagaHandoffControl> completed = new CompletableFuture<>();
+        SagaListener listener = new SagaListener() {
+            @Override
+            public void onSagaSuccess(SagaHandoffControl sagaHandoffControl, SagaHandoffResult result) {
+                completed.complete(sagaHandoffControl);
+            }
+
+            @Override
+            public void onSagaFailure(SagaHandoffControl sagaHandoffControl, Throwable cause) {
+                completed.completeExceptionally(cause);
+            }
+        };
+        SagasObserver sagasObserver = server.getApplication().getSagasObserver();
+        sagasObserver.addListener(listener);
+        try {
+            client.put("/data/contact/sagas-observer-1?sync=true", "{\"name\":\"Observed\",\"email\":\"observed@example.com\"}").expect201Created();
+
+            SagaHandoffControl control = completed.get(10, TimeUnit.SECONDS);
+            assertThat(control.getExecutionId()).isNotNull();
+        } finally {
+            sagasObserver.removeListener(listener);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package io.descoped.lds.core.search;
+
+import io.descoped.lds.api.persistence.DocumentKey;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.api.search.SearchResponse;
+import io.descoped.lds.api.search.SearchResult;
+import io.reactivex.Completable;
+import org.testng.annotations.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class AsyncSearchIndexTest {
+
+    static class CountingSearchIndex extends SimpleSearchIndex {
+        final AtomicInteger writtenDocuments = new AtomicInteger();
+
+        @Override
+        public Completable createOrOverwrite(Collection<JsonDocument> collection) {
+            writtenDocuments.addAndGet(collection.size());
+            return super.createOrOverwrite(collection);
+        }
+    }
+
+    final ZonedDateTime version = ZonedDateTime.now();
+
+    JsonDocument document(String id, String value) {
+        return new JsonDocument(new DocumentKey("ns", "contact", id, version),
+                JsonTools.toJsonNode("{\"value\":\"" + value + "\"}"));
+    }
+
+    List<String> search(AsyncSearchIndex index, String query) {
+        SearchResponse response = index.search(query, null, 0, 100).blockingGet();
+        return response.getResults().stream()
+                .map(SearchResult::getDocumentKey)
+                .map(DocumentKey::id)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void thatQueuedUpdatesOfSameDocumentAreCoalescedAndSearchesReadTheirWrites() {
+        CountingSearchIndex delegate = new CountingSearchIndex();
+        try (AsyncSearchIndex index = new AsyncSearchIndex(delegate, 1000, 100000, 200, 5000)) {
+            for (int i = 0; i < 100; i++) {
+                index.createOrOverwrite(document("c" + (i % 10), "value" + i)).blockingAwait();
+            }
+            index.delete(document("c0", null)).blockingAwait();
+
+            assertEquals(search(index, "value99"), List.of("c9"));
+            assertEquals(search(index, "value89"), List.of());
+            assertEquals(search(index, "value90"), List.of());
+            assertEquals(index.watermark(), index.enqueuedSequence());
+            assertTrue(delegate.writtenDocuments.get() < 100, "written: " + delegate.writtenDocuments.get());
+        }
+    }
+
+    @Test
+    public void thatCloseWritesQueuedUpdates() throws Exception {
+        CountingSearchIndex delegate = new CountingSearchIndex();
+        AsyncSearchIndex index = new AsyncSearchIndex(delegate, 2, 100000, 1000, 0);
+        index.createOrOverwrite(List.of(document("a", "first"), document("b", "second"), document("c", "third")))
+                .blockingAwait();
+        long sequence = index.enqueuedSequence();
+        index.close();
+
+        index.whenIndexed(sequence).get(1, TimeUnit.SECONDS);
+        assertEquals(delegate.writtenDocuments.get(), 3);
+        assertEquals(delegate.search("third", null, 0, 10).blockingGet().getResults().size(), 1);
+    }
+
+    @Test
+    public void thatUpdateIsDroppedAfterMaxAttemptsAndLaterUpdatesAreWritten() throws Exception {
+        CountingSearchIndex delegate = new CountingSearchIndex() {
+            @Override
+            public Completable createOrOverwrite(Collection<JsonDocument> collection) {
+                if (collection.stream().anyMatch(document -> document.key().id().equals("bad"))) {
+                    return Completable.error(new RuntimeException("rejected by search-index"));
+                }
+                return super.createOrOverwrite(collection);
+            }
+        };
+        try (AsyncSearchIndex index = new AsyncSearchIndex(delegate, 1000, 100000, 0, 10000)) {
+            index.createOrOverwrite(document("bad", "broken")).blockingAwait();
+            index.whenIndexed(index.enqueuedSequence()).get(10, TimeUnit.SECONDS);
+            index.createOrOverwrite(document("good", "fine")).blockingAwait();
+
+            assertEquals(search(index, "fine"), List.of("good"));
+            assertEquals(search(index, "broken"), List.of());
+            assertEquals(index.dropped(), 1);
+        }
+    }
+
+    @Test
+    public void thatSlowSearchSubscriberDoesNotBlockNextFlush() throws Exception {
+        CountDownLatch searching = new CountDownLatch(1);
+        CountDownLatch subscribed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountingSearchIndex delegate = new CountingSearchIndex() {
+            @Override
+            public Completable createOrOverwrite(Collection<JsonDocument> collection) {
+                try {
+                    searching.await(); // hold the first flush until the search waits for it
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return super.createOrOverwrite(collection);
+            }
+        };
+        try (AsyncSearchIndex index = new AsyncSearchIndex(delegate, 1000, 100000, 0, 10000)) {
+            index.createOrOverwrite(document("a", "first")).blockingAwait();
+            index.search("first", null, 0, 10).subscribe(response -> {
+                subscribed.countDown();
+                release.await();
+            });
+            searching.countDown();
+            assertTrue(subscribed.await(10, TimeUnit.SECONDS));
+
+            index.createOrOverwrite(document("b", "second")).blockingAwait();
+            index.whenIndexed(index.enqueuedSequence()).get(10, TimeUnit.SECONDS);
+            index.deleteAll().timeout(10, TimeUnit.SECONDS).blockingAwait();
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void thatCallersBlockWhileQueueIsFull() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        CountingSearchIndex delegate = new CountingSearchIndex() {
+            @Override
+            public Completable createOrOverwrite(Collection<JsonDocument> collection) {
+                flushing.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return super.createOrOverwrite(collection);
+            }
+        };
+        try (AsyncSearchIndex index = new AsyncSearchIndex(delegate, 1000, 2, 0, 0)) {
+            index.createOrOverwrite(document("a", "first")).blockingAwait();
+            assertTrue(flushing.await(10, TimeUnit.SECONDS));
+            index.createOrOverwrite(document("b", "second")).blockingAwait();
+            index.createOrOverwrite(document("c", "third")).blockingAwait();
+
+            CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> index.createOrOverwrite(document("d", "fourth")).blockingAwait());
+            Thread.sleep(200);
+            assertFalse(blocked.isDone());
+            assertEquals(index.pending(), 2);
+
+            unblock.countDown();
+            blocked.get(10, TimeUnit.SECONDS);
+            index.whenIndexed(index.enqueuedSequence()).get(10, TimeUnit.SECONDS);
+            assertEquals(delegate.writtenDocuments.get(), 4);
+        }
+    }
+}
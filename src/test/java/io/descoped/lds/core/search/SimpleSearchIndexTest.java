@@ -0,0 +1,111 @@
+package io.descoped.lds.core.search;
+
+import io.descoped.lds.api.persistence.DocumentKey;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.api.search.SearchResponse;
+import io.descoped.lds.api.search.SearchResult;
+import org.testng.annotations.Test;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+
+public class SimpleSearchIndexTest {
+
+    final ZonedDateTime version = ZonedDateTime.now();
+
+    JsonDocument document(String entity, String id, String json) {
+        return new JsonDocument(new DocumentKey("ns", entity, id, version), JsonTools.toJsonNode(json));
+    }
+
+    List<String> search(SimpleSearchIndex index, String query, Set<String> filter, long from, long size) {
+        SearchResponse response = index.search(query, filter, from, size).blockingGet();
+        return response.getResults().stream()
+                .map(SearchResult::getDocumentKey)
+                .map(DocumentKey::id)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void thatTermsAndPrefixesOfAllTextValuesAreMatched() {
+        SimpleSearchIndex index = new SimpleSearchIndex();
+        index.createOrOverwrite(List.of(
+                document("contact", "donald", "{\"name\":\"Donald Duck\",\"email\":\"donald@duck.no\"}"),
+                document("contact", "skrue", "{\"name\":\"Skrue McDuck\",\"email\":\"skrue@duck.no\"}"),
+                document("provisionagreement", "sirius", "{\"name\":\"Sirius\",\"address\":{\"city\":\"Andeby\",\"lines\":[\"Pengebingen 1\"]}}")
+        )).blockingAwait();
+
+        assertEquals(search(index, "Duck", null, 0, 10), List.of("donald", "skrue"));
+        assertEquals(search(index, "donald duck", null, 0, 10), List.of("donald"));
+        assertEquals(search(index, "and", null, 0, 10), List.of("sirius"));
+        assertEquals(search(index, "pengebingen", null, 0, 10), List.of("sirius"));
+        assertEquals(search(index, "duck", Set.of("provisionagreement"), 0, 10), List.of());
+        assertEquals(search(index, "no", Set.of("contact"), 0, 10), List.of("donald", "skrue"));
+        assertEquals(search(index, "mars", null, 0, 10), List.of());
+        assertEquals(search(index, " ", null, 0, 10), List.of());
+    }
+
+    @Test
+    public void thatFromAndSizePageThroughHits() {
+        SimpleSearchIndex index = new SimpleSearchIndex();
+        for (int i = 0; i < 25; i++) {
+            index.createOrOverwrite(document("contact", "c" + i, "{\"name\":\"Contact " + i + "\"}")).blockingAwait();
+        }
+        index.createOrOverwrite(document("other", "o1", "{\"name\":\"Contact other\"}")).blockingAwait();
+
+        SearchResponse response = index.search("contact", Set.of("contact"), 10, 10).blockingGet();
+        assertEquals(response.getTotalHits(), 25);
+        assertEquals(search(index, "contact", Set.of("contact"), 10, 10),
+                List.of("c10", "c11", "c12", "c13", "c14", "c15", "c16", "c17", "c18", "c19"));
+        assertEquals(search(index, "contact", Set.of("contact"), 20, 10), List.of("c20", "c21", "c22", "c23", "c24"));
+        assertEquals(search(index, "contact", null, 25, 10), List.of("o1"));
+    }
+
+    @Test
+    public void thatOverwriteAndDeleteRemoveTermsOfPreviousVersion() {
+        SimpleSearchIndex index = new SimpleSearchIndex();
+        index.createOrOverwrite(document("provisionagreement", "p1", "{\"name\":\"Sirius\"}")).blockingAwait();
+        index.createOrOverwrite(document("provisionagreement", "p2", "{\"name\":\"Sirius\"}")).blockingAwait();
+        index.createOrOverwrite(document("provisionagreement", "p1", "{\"name\":\"Jupiter\"}")).blockingAwait();
+
+        assertEquals(search(index, "sirius", null, 0, 10), List.of("p2"));
+        assertEquals(search(index, "jupiter", null, 0, 10), List.of("p1"));
+
+        index.delete(document("provisionagreement", "p1", "{}")).blockingAwait();
+        assertEquals(search(index, "jupiter", null, 0, 10), List.of());
+
+        index.deleteAll().blockingAwait();
+        assertEquals(search(index, "sirius", null, 0, 10), List.of());
+    }
+
+    @Test
+    public void thatDeletedNumbersAreCompactedInIndexOrder() {
+        SimpleSearchIndex index = new SimpleSearchIndex();
+        int count = 3 * SimpleSearchIndex.MIN_UNUSED_BEFORE_COMPACTION;
+        for (int i = 0; i < count; i++) {
+            index.createOrOverwrite(document("contact", "c" + i, "{\"name\":\"name" + i + "\",\"group\":\"" + (i % 2 == 0 ? "even" : "odd") + "\"}")).blockingAwait();
+        }
+        for (int i = 0; i < count; i += 2) {
+            index.delete(document("contact", "c" + i, "{}")).blockingAwait();
+        }
+        index.delete(document("contact", "c1", "{}")).blockingAwait();
+        assertEquals(index.unused(), 0);
+
+        // re-created ids are numbered after the remaining documents
+        index.createOrOverwrite(document("contact", "c0", "{\"name\":\"name0\",\"group\":\"odd\"}")).blockingAwait();
+        List<String> odd = search(index, "odd", null, 0, count);
+        assertEquals(odd.size(), count / 2);
+        assertEquals(odd.get(0), "c3");
+        assertEquals(odd.get(odd.size() - 2), "c" + (count - 1));
+        assertEquals(odd.get(odd.size() - 1), "c0");
+        // the union of all terms with the prefix, odd ids from c11 to c1999
+        List<String> prefixed = search(index, "name1", null, 0, count);
+        assertEquals(prefixed.size(), 5 + 50 + 500);
+        assertEquals(prefixed.subList(0, 3), List.of("c11", "c13", "c15"));
+        assertEquals(search(index, "even", null, 0, count), List.of());
+    }
+}
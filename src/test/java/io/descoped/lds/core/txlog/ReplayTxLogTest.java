@@ -1,5 +1,10 @@
 package io.descoped.lds.core.txlog;
 
+import de.huxhorn.sulky.ulid.ULID;
+import io.descoped.lds.api.persistence.Transaction;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
+import io.descoped.lds.core.persistence.memory.MemoryInitializer;
 import io.descoped.lds.core.saga.SagaInput;
 import io.descoped.lds.test.ConfigurationOverride;
 import io.descoped.lds.test.client.TestClient;
@@ -14,10 +19,16 @@ import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
 
 import javax.inject.Inject;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import static io.descoped.lds.core.utils.FileAndClasspathReaderUtils.readFileOrClasspathResource;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Listeners(TestServerListener.class)
 public class ReplayTxLogTest {
@@ -89,6 +100,121 @@ public class ReplayTxLogTest {
         }
     }
 
+    @Test
+    @ConfigurationOverride({
+            "txlog.rawdata.provider", "memory",
+            "txlog.rawdata.topic-prefix", "tx-replay-",
+            "specification.schema", "spec/demo/contact.json,spec/demo/provisionagreement.json"
+    })
+    public void replayTxLogIntoEmptyPersistence() throws Exception {
+        client.put("/data/contact/replay-1?sync=true", readFileOrClasspathResource("demo/3-skrue.json")).expect201Created();
+        client.put("/data/contact/replay-2?sync=true", readFileOrClasspathResource("demo/4-donald.json")).expect201Created();
+        client.put("/data/contact/replay-1?sync=true", "{\"name\":\"Skrue McDuck\",\"email\":\"skrue@example.com\"}").expectAnyOf(200, 201);
+        client.delete("/data/contact/replay-2?sync=true").expect204NoContent();
+
+        RxJsonPersistence target = new MemoryInitializer().initialize("data",
+                Map.of("persistence.mem.wait.min", "0",
+                        "persistence.mem.wait.max", "0"),
+                server.getApplication().getSpecification().getManagedDomains());
+        List<ULID.Value> checkpoints = new CopyOnWriteArrayList<>();
+        TxlogRawdataPool txlogRawdataPool = server.getApplication().getTxlogRawdataPool();
+        try (TxLogReplayer replayer = TxLogReplayer.builder()
+                .txLog(txlogRawdataPool, null)
+                .persistence(target, server.getApplication().getSpecification())
+                .partitions(4)
+                .batchSize(3)
+                .idleTimeout(100, TimeUnit.MILLISECONDS)
+                .checkpointListener(checkpoints::add)
+                .build()) {
+            TxLogReplayer.ReplayResult result = replayer.replay(null);
+            assertEquals(result.getApplied(), 4);
+            assertEquals(checkpoints.size(), 2);
+            assertEquals(result.getCheckpoint(), checkpoints.get(1));
+
+            assertEquals(replayer.replay(result.getCheckpoint()).getApplied(), 0);
+        }
+
+        try (Transaction tx = target.createTransaction(true)) {
+            JsonDocument skrue = target.readDocument(tx, ZonedDateTime.now(), "data", "contact", "replay-1").blockingGet();
+            assertEquals(skrue.jackson().get("email").textValue(), "skrue@example.com");
+            JsonDocument donald = target.readDocument(tx, ZonedDateTime.now(), "data", "contact", "replay-2").blockingGet();
+            assertTrue(donald == null || donald.deleted());
+        }
+    }
+
+    @Test
+    @ConfigurationOverride({
+            "txlog.rawdata.provider", "memory",
+            "txlog.rawdata.topic-prefix", "tx-replay-link-",
+            "specification.schema", "spec/demo/contact.json,spec/demo/provisionagreement.json"
+    })
+    public void replayDeleteThatFollowsRemovalOfLinkToDeletedDocument() throws Exception {
+        client.put("/data/provisionagreement/replay-link?sync=true", readFileOrClasspathResource("demo/1-sirius.json")).expect201Created();
+        client.put("/data/contact/replay-linked?sync=true", readFileOrClasspathResource("demo/3-skrue.json")).expect201Created();
+        client.put("/data/provisionagreement/replay-link/contacts/contact/replay-linked?sync=true").expect200Ok();
+        client.delete("/data/provisionagreement/replay-link/contacts/contact/replay-linked?sync=true").expect200Ok();
+        client.delete("/data/contact/replay-linked?sync=true").expect204NoContent();
+
+        RxJsonPersistence target = new MemoryInitializer().initialize("data",
+                Map.of("persistence.mem.wait.min", "0",
+                        "persistence.mem.wait.max", "0"),
+                server.getApplication().getSpecification().getManagedDomains());
+        try (TxLogReplayer replayer = TxLogReplayer.builder()
+                .txLog(server.getApplication().getTxlogRawdataPool(), null)
+                .persistence(target, server.getApplication().getSpecification())
+                .partitions(4)
+                .idleTimeout(100, TimeUnit.MILLISECONDS)
+                .build()) {
+            // all entries in one round, the delete of the contact must be applied after the link removal
+            assertEquals(replayer.replay(null).getApplied(), 5);
+        }
+
+        try (Transaction tx = target.createTransaction(true)) {
+            JsonDocument agreement = target.readDocument(tx, ZonedDateTime.now(), "data", "provisionagreement", "replay-link").blockingGet();
+            assertFalse(agreement.jackson().toString().contains("/contact/replay-linked"));
+            JsonDocument contact = target.readDocument(tx, ZonedDateTime.now(), "data", "contact", "replay-linked").blockingGet();
+            assertTrue(contact == null || contact.deleted());
+        }
+    }
+
+    @Test
+    @ConfigurationOverride({
+            "txlog.rawdata.provider", "memory",
+            "txlog.rawdata.topic-prefix", "tx-replay-referrer-",
+            "specification.schema", "spec/demo/contact.json,spec/demo/provisionagreement.json"
+    })
+    public void replayDeleteLeavesReferringDocumentUnchanged() throws Exception {
+        client.put("/data/provisionagreement/replay-referrer?sync=true", readFileOrClasspathResource("demo/1-sirius.json")).expect201Created();
+        client.put("/data/contact/replay-referred?sync=true", readFileOrClasspathResource("demo/3-skrue.json")).expect201Created();
+        client.put("/data/contact/replay-unreferred?sync=true", readFileOrClasspathResource("demo/4-donald.json")).expect201Created();
+        client.put("/data/provisionagreement/replay-referrer/contacts/contact/replay-referred?sync=true").expect200Ok();
+        client.delete("/data/contact/replay-unreferred?sync=true").expect204NoContent();
+        client.delete("/data/contact/replay-referred?sync=true"); // whether the delete is logged depends on the link check
+
+        RxJsonPersistence target = new MemoryInitializer().initialize("data",
+                Map.of("persistence.mem.wait.min", "0",
+                        "persistence.mem.wait.max", "0"),
+                server.getApplication().getSpecification().getManagedDomains());
+        try (TxLogReplayer replayer = TxLogReplayer.builder()
+                .txLog(server.getApplication().getTxlogRawdataPool(), null)
+                .persistence(target, server.getApplication().getSpecification())
+                .partitions(4)
+                .idleTimeout(100, TimeUnit.MILLISECONDS)
+                .build()) {
+            replayer.replay(null);
+        }
+
+        RxJsonPersistence source = server.getApplication().getPersistence();
+        try (Transaction sourceTx = source.createTransaction(true); Transaction targetTx = target.createTransaction(true)) {
+            JsonDocument expected = source.readDocument(sourceTx, ZonedDateTime.now(), "data", "provisionagreement", "replay-referrer").blockingGet();
+            JsonDocument actual = target.readDocument(targetTx, ZonedDateTime.now(), "data", "provisionagreement", "replay-referrer").blockingGet();
+            assertTrue(actual.jackson().toString().contains("/contact/replay-referred"));
+            assertEquals(actual.jackson(), expected.jackson());
+            JsonDocument unreferred = target.readDocument(targetTx, ZonedDateTime.now(), "data", "contact", "replay-unreferred").blockingGet();
+            assertTrue(unreferred == null || unreferred.deleted());
+        }
+    }
+
     private String entityAndId(RawdataMessage m1) {
         String position = m1.position();
         return position.substring(0, position.length() - 14); // remove the last 14 characters in order to strip away the version/timestamp component
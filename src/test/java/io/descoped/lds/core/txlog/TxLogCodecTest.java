@@ -0,0 +1,81 @@
+package io.descoped.lds.core.txlog;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.huxhorn.sulky.ulid.ULID;
+import io.descoped.lds.api.persistence.json.JsonTools;
+import io.descoped.lds.core.saga.SagaInput;
+import io.descoped.rawdata.api.RawdataMessage;
+import org.testng.annotations.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TxLogCodecTest {
+
+    @Test
+    public void thatEncodedEntryIsDecoded() {
+        ZonedDateTime version = ZonedDateTime.of(2019, 3, 14, 15, 9, 26, 535897932, ZoneId.of("Europe/Oslo"));
+        SagaInput sagaInput = new SagaInput(new ULID().nextValue(), "PUT", "schema-1", "data", "contact", "c1",
+                version, "source-1", "source-id-1", JsonTools.toJsonNode("{\"name\":\"codec\",\"emails\":[\"a@b.c\"],\"age\":42}"));
+
+        RawdataMessage message = TxLogTools.sagaInputToTxEntry(sagaInput);
+        assertEquals(message.position(), "contact/c1/" + version.toInstant().toEpochMilli());
+
+        TxLogEntry entry = TxLogEntry.of(message);
+        assertEquals(entry.formatVersion(), TxLogCodec.VERSION);
+        assertEquals(entry.txId().toString(), sagaInput.txId());
+        assertEquals(entry.method(), "PUT");
+        assertEquals(entry.schema(), "schema-1");
+        assertEquals(entry.namespace(), "data");
+        assertEquals(entry.entity(), "contact");
+        assertEquals(entry.resourceId(), "c1");
+        assertEquals(entry.version(), version);
+        assertEquals(entry.source(), "source-1");
+        assertEquals(entry.sourceId(), "source-id-1");
+        assertEquals(entry.data(), sagaInput.data());
+    }
+
+    @Test
+    public void thatEntryWithoutDataAndSourceIsDecoded() {
+        ZonedDateTime version = ZonedDateTime.now(ZoneId.of("Etc/UTC"));
+        SagaInput sagaInput = new SagaInput(new ULID().nextValue(), "DELETE", "schema-1", "data", "contact", "c2",
+                version, null, null, null);
+
+        SagaInput decoded = TxLogTools.txEntryToSagaInput(TxLogTools.sagaInputToTxEntry(sagaInput));
+        assertEquals(decoded.method(), "DELETE");
+        assertEquals(decoded.version(), version);
+        assertNull(decoded.source());
+        assertNull(decoded.sourceId());
+        assertNull(decoded.data());
+    }
+
+    @Test
+    public void thatVersion1EntryIsDecoded() {
+        ULID.Value txId = new ULID().nextValue();
+        ObjectNode meta = TxLogTools.mapper.createObjectNode();
+        meta.put("method", "PUT");
+        meta.put("schema", "schema-1");
+        meta.put("namespace", "data");
+        meta.put("entity", "contact");
+        meta.put("id", "c3");
+        meta.put("version", "2019-03-14T15:09:26.535+01:00[Europe/Oslo]");
+        meta.put("sourceId", "source-id-3");
+        RawdataMessage message = RawdataMessage.builder()
+                .ulid(txId)
+                .position("contact/c3/1552572566535")
+                .put("data", TxLogTools.toBytes(JsonTools.toJsonNode("{\"name\":\"v1\"}")))
+                .put("meta", TxLogTools.toBytes(meta))
+                .build();
+
+        TxLogEntry entry = TxLogEntry.of(message);
+        assertEquals(entry.formatVersion(), 1);
+        assertEquals(entry.resourceId(), "c3");
+        assertEquals(entry.version(), ZonedDateTime.of(2019, 3, 14, 15, 9, 26, 535000000, ZoneId.of("Europe/Oslo")));
+        assertNull(entry.source());
+        assertEquals(entry.sourceId(), "source-id-3");
+        assertEquals(entry.data().get("name").textValue(), "v1");
+    }
+}
@@ -0,0 +1,102 @@
+package io.descoped.lds.core.txlog;
+
+import de.huxhorn.sulky.ulid.ULID;
+import io.descoped.lds.test.ConfigurationOverride;
+import io.descoped.lds.test.server.TestServer;
+import io.descoped.lds.test.server.TestServerListener;
+import io.descoped.rawdata.api.RawdataClient;
+import io.descoped.rawdata.api.RawdataConsumer;
+import io.descoped.rawdata.api.RawdataMessage;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Listeners(TestServerListener.class)
+public class TxlogGroupCommitterTest {
+
+    @Inject
+    private TestServer server;
+
+    @Test
+    @ConfigurationOverride({"txlog.rawdata.provider", "memory"})
+    public void thatConcurrentPublishesAreGroupedInSubmissionOrder() throws Exception {
+        RawdataClient client = server.getApplication().getTxlogRawdataPool().getClient();
+        String topic = "group-commit-test";
+
+        ULID ulid = new ULID();
+        ULID.Value previous = ulid.nextValue();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try (TxlogGroupCommitter committer = new TxlogGroupCommitter(topic, client.producer(topic), 100, 1024 * 1024, 50_000)) {
+            for (int i = 0; i < 250; i++) {
+                previous = ulid.nextMonotonicValue(previous);
+                futures.add(committer.publish(RawdataMessage.builder()
+                        .ulid(previous)
+                        .position("position-" + i)
+                        .put("data", ("message-" + i).getBytes(StandardCharsets.UTF_8))
+                        .build()));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+            assertThat(committer.batchCount()).isBetween(3L, 249L);
+        }
+
+        try (RawdataConsumer consumer = client.consumer(topic)) {
+            for (int i = 0; i < 250; i++) {
+                RawdataMessage message = consumer.receive(1, TimeUnit.SECONDS);
+                assertThat(message).isNotNull();
+                assertThat(message.position()).isEqualTo("position-" + i);
+            }
+        }
+    }
+
+    @Test
+    @ConfigurationOverride({"txlog.rawdata.provider", "memory"})
+    public void thatEveryPublishDuringCloseIsCompleted() throws Exception {
+        RawdataClient client = server.getApplication().getTxlogRawdataPool().getClient();
+        String topic = "group-commit-close-test";
+
+        ULID ulid = new ULID();
+        TxlogGroupCommitter committer = new TxlogGroupCommitter(topic, client.producer(topic), 10, 1024 * 1024, 100);
+        List<CompletableFuture<Void>> futures = new CopyOnWriteArrayList<>();
+        ExecutorService publishers = Executors.newFixedThreadPool(4);
+        try {
+            AtomicInteger position = new AtomicInteger();
+            for (int t = 0; t < 4; t++) {
+                publishers.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        futures.add(committer.publish(RawdataMessage.builder()
+                                .ulid(ulid.nextValue())
+                                .position("position-" + position.incrementAndGet())
+                                .put("data", "message".getBytes(StandardCharsets.UTF_8))
+                                .build()));
+                    }
+                });
+            }
+            while (futures.size() < 100) {
+                Thread.sleep(1);
+            }
+            committer.close();
+        } finally {
+            publishers.shutdown();
+            assertThat(publishers.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(futures).hasSize(2000);
+        for (CompletableFuture<Void> future : futures) {
+            // completed normally when published before close, exceptionally when rejected by close
+            assertThat(future).isDone();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package io.descoped.lds.core.validation;
 
+import io.descoped.lds.api.persistence.json.JsonTools;
 import io.descoped.lds.core.specification.JsonSchemaBasedSpecification;
 import org.testng.annotations.Test;
 
@@ -49,4 +50,22 @@ public class LinkedDocumentValidatorTest {
         String linkedDocument = "{\"id\":\"r13\",\"name\":\"pa-test-name\",\"friend\":\"/contact/f1\",\"support\":{\"technicalSupport\":[\"/contact/s1\",\"contact\"],\"businessSupport\":[\"/contact/b1\"]}}";
         validator.validate("provisionagreement", linkedDocument);
     }
+
+    @Test
+    public void thatSharedValidatorValidatesJacksonDocumentsRepeatedly() {
+        JsonSchemaBasedSpecification specification = JsonSchemaBasedSpecification.create("spec/schemas/contact.json", "spec/schemas/provisionagreement.json");
+        LinkedDocumentValidator validator = new LinkedDocumentValidator(specification, specification);
+
+        String validDocument = "{\"id\":\"r13\",\"name\":\"pa-test-name\",\"friend\":\"/contact/f1\",\"support\":{\"technicalSupport\":[\"/contact/s1\",\"/contact/s2\"],\"businessSupport\":[\"/contact/b1\"]}}";
+        String invalidDocument = "{\"id\":\"r14\",\"name\":\"pa-test-name\",\"friend\":\"/contact/f1\",\"support\":{\"technicalSupport\":[\"/baddomain/s1\"],\"businessSupport\":[\"/contact/b1\"]}}";
+        for (int i = 0; i < 3; i++) {
+            validator.validate("provisionagreement", JsonTools.toJsonNode(validDocument));
+            try {
+                validator.validate("provisionagreement", JsonTools.toJsonNode(invalidDocument));
+                throw new AssertionError("Expected validation of link to invalid domain to fail");
+            } catch (LinkedDocumentValidationException e) {
+                // expected
+            }
+        }
+    }
 }
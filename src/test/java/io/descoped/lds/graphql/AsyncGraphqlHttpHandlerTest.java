@@ -0,0 +1,15 @@
+package io.descoped.lds.graphql;
+
+import graphql.GraphQL;
+import org.dataloader.DataLoaderRegistry;
+
+/**
+ * Runs the {@link GraphqlHttpHandlerTest} tests against a handler in async mode.
+ */
+public class AsyncGraphqlHttpHandlerTest extends GraphqlHttpHandlerTest {
+
+    @Override
+    protected GraphqlHttpHandler createHandler(GraphQL graphql) {
+        return new GraphqlHttpHandler(graphql, DataLoaderRegistry::new, true);
+    }
+}
@@ -57,6 +57,10 @@ public class GraphqlHttpHandlerTest {
         return port;
     }
 
+    protected GraphqlHttpHandler createHandler(GraphQL graphql) {
+        return new GraphqlHttpHandler(graphql);
+    }
+
     @BeforeMethod
     public void setUp() {
 
@@ -94,7 +98,7 @@ public class GraphqlHttpHandlerTest {
         int port = findFree();
 
         // Test server.
-        server = Undertow.builder().addHttpListener(port, "localhost", new GraphqlHttpHandler(graphql)).build();
+        server = Undertow.builder().addHttpListener(port, "localhost", createHandler(graphql)).build();
         server.start();
 
         // Template for the client.
@@ -226,4 +230,16 @@ public class GraphqlHttpHandlerTest {
         assertEquals(response.body(), "{\"data\":{\"me\":{\"name\":\"Hadrien\"}}}");
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPostMalformedBodyIsRejected() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uriTemplate.expand()))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"query\": \"{me{name}}\""))
+                .header("Content-Type", "application/json")
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(response.statusCode(), 400);
+    }
+}
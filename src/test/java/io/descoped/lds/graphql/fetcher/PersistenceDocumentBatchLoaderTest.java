@@ -0,0 +1,139 @@
+package io.descoped.lds.graphql.fetcher;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.descoped.lds.api.persistence.DocumentKey;
+import io.descoped.lds.api.persistence.Transaction;
+import io.descoped.lds.api.persistence.json.JsonDocument;
+import io.descoped.lds.api.persistence.reactivex.RxJsonPersistence;
+import io.descoped.lds.core.persistence.memory.MemoryInitializer;
+import io.descoped.lds.graphql.GraphQLContext;
+import io.undertow.server.HttpServerExchange;
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.descoped.lds.api.persistence.json.JsonTools.mapper;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistenceDocumentBatchLoaderTest {
+
+    private RxJsonPersistence persistence;
+    private ZonedDateTime snapshot;
+
+    @BeforeMethod
+    public void setUp() {
+        persistence = new MemoryInitializer().initialize("ns",
+                Map.of("persistence.mem.wait.min", "0",
+                        "persistence.mem.wait.max", "0"),
+                Set.of("Source", "Target"));
+        snapshot = ZonedDateTime.now();
+        try (Transaction tx = persistence.createTransaction(false)) {
+            for (String entity : List.of("Source", "Target")) {
+                for (int i = 0; i < 3; i++) {
+                    ObjectNode jsonObject = mapper.createObjectNode();
+                    jsonObject.put("id", entity + "-" + i);
+                    persistence.createOrOverwrite(tx, new JsonDocument(new DocumentKey("ns", entity, entity + "-" + i,
+                            snapshot), jsonObject), null).blockingAwait();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void thatKeysAcrossEntitiesAreResolvedInOrder() {
+        DataLoader<PersistenceDocumentBatchLoader.Key, JsonDocument> dataLoader =
+                PersistenceDocumentBatchLoader.newDataLoader(persistence);
+
+        CompletableFuture<JsonDocument> target1 = dataLoader.load(key("Target", "Target-1"));
+        CompletableFuture<JsonDocument> source2 = dataLoader.load(key("Source", "Source-2"));
+        CompletableFuture<JsonDocument> target0 = dataLoader.load(key("Target", "Target-0"));
+        CompletableFuture<JsonDocument> missing = dataLoader.load(key("Target", "Target-42"));
+        dataLoader.dispatchAndJoin();
+
+        assertThat(target1.join().key().id()).isEqualTo("Target-1");
+        assertThat(source2.join().key().id()).isEqualTo("Source-2");
+        assertThat(target0.join().key().id()).isEqualTo("Target-0");
+        assertThat(missing.join()).isNull();
+    }
+
+    @Test
+    public void thatDuplicateKeysAreResolvedOnce() {
+        DataLoader<PersistenceDocumentBatchLoader.Key, JsonDocument> dataLoader =
+                PersistenceDocumentBatchLoader.newDataLoader(persistence);
+
+        CompletableFuture<JsonDocument> first = dataLoader.load(key("Target", "Target-2"));
+        CompletableFuture<JsonDocument> second = dataLoader.load(key("Target", "Target-2"));
+        dataLoader.dispatchAndJoin();
+
+        assertThat(first.join()).isSameAs(second.join());
+    }
+
+    @Test
+    public void thatLinksOfAllSourcesInAQueryAreReadInOneBatch() {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(
+                "type Query { sources: [Source] }\n" +
+                        "type Source { id: String, targets: [Target] }\n" +
+                        "type Target { id: String }\n"),
+                RuntimeWiring.newRuntimeWiring()
+                        .type("Query", wiring -> wiring.dataFetcher("sources", environment -> List.of(
+                                Map.of("id", "Source-0", "targetIds", List.of("/Target/Target-0", "/Target/Target-1")),
+                                Map.of("id", "Source-1", "targetIds", List.of("/Target/Target-1", "/Target/Target-2")),
+                                Map.of("id", "Source-2", "targetIds", List.of("/Target/Target-2", "/Target/Target-42")))))
+                        .type("Source", wiring -> wiring.dataFetcher("targets",
+                                new PersistenceLinksFetcher(persistence, "ns", "targetIds", "Target")))
+                        .build());
+
+        List<List<PersistenceDocumentBatchLoader.Key>> batches = new CopyOnWriteArrayList<>();
+        PersistenceDocumentBatchLoader batchLoader = new PersistenceDocumentBatchLoader(persistence);
+        BatchLoader<PersistenceDocumentBatchLoader.Key, JsonDocument> countingBatchLoader = keys -> {
+            batches.add(keys);
+            return batchLoader.load(keys);
+        };
+        DataLoaderRegistry registry = new DataLoaderRegistry()
+                .register(PersistenceDocumentBatchLoader.NAME, DataLoader.newDataLoader(countingBatchLoader));
+
+        ExecutionResult result = GraphQL.newGraphQL(schema).build().execute(ExecutionInput.newExecutionInput()
+                .query("{ sources { id targets { id } } }")
+                .dataLoaderRegistry(registry)
+                .context(new GraphQLContext() {
+                    @Override
+                    public HttpServerExchange getExchange() {
+                        return null;
+                    }
+
+                    @Override
+                    public ZonedDateTime getSnapshot() {
+                        return snapshot;
+                    }
+                })
+                .build());
+
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).containsExactlyInAnyOrder(key("Target", "Target-0"), key("Target", "Target-1"),
+                key("Target", "Target-2"), key("Target", "Target-42"));
+        Map<String, List<Map<String, Object>>> data = result.getData();
+        assertThat(data.get("sources").get(2).get("targets")).isEqualTo(Arrays.asList(Map.of("id", "Target-2"), null));
+    }
+
+    private PersistenceDocumentBatchLoader.Key key(String entity, String id) {
+        return new PersistenceDocumentBatchLoader.Key("ns", entity, id, snapshot);
+    }
+}
@@ -102,7 +102,7 @@ public class PersistenceLinksConnectionFetcherTest {
     @Ignore // TODO @Hadrien Investigate why this method hangs on the very first line
     @Test
     public void testForwardPagination() throws Exception {
-        Connection<Map<String, Object>> firstFive = connectionFetcher.get(withArguments(Map.of("first", 5)));
+        Connection<Map<String, Object>> firstFive = connectionFetcher.get(withArguments(Map.of("first", 5))).join();
 
         assertThat(firstFive.getPageInfo().isHasPreviousPage())
                 .as("hasPreviousPage").isFalse();
@@ -113,7 +113,7 @@ public class PersistenceLinksConnectionFetcherTest {
                         () -> data.values().stream().map(JsonTools::toMap).limit(5).iterator()
                 );
 
-        Connection<Map<String, Object>> lastFive = connectionFetcher.get(withArguments(Map.of("first", 5, "after", firstFive.getPageInfo().getEndCursor().getValue())));
+        Connection<Map<String, Object>> lastFive = connectionFetcher.get(withArguments(Map.of("first", 5, "after", firstFive.getPageInfo().getEndCursor().getValue()))).join();
 
         assertThat(lastFive.getPageInfo().isHasPreviousPage()).as("hasPreviousPage").isTrue();
         assertThat(lastFive.getPageInfo().isHasNextPage()).isFalse();
@@ -125,7 +125,7 @@ public class PersistenceLinksConnectionFetcherTest {
     @Ignore // TODO @Hadrien Investigate why this method hangs on the very first line
     @Test
     public void testBackwardPagination() throws Exception {
-        Connection<Map<String, Object>> lastFive = connectionFetcher.get(withArguments(Map.of("last", 5)));
+        Connection<Map<String, Object>> lastFive = connectionFetcher.get(withArguments(Map.of("last", 5))).join();
 
         assertThat(lastFive.getPageInfo().isHasPreviousPage())
                 .as("hasPreviousPage").isTrue();
@@ -135,7 +135,7 @@ public class PersistenceLinksConnectionFetcherTest {
                 () -> data.values().stream().map(JsonTools::toMap).skip(5).iterator()
         );
 
-        Connection<Map<String, Object>> firstFive = connectionFetcher.get(withArguments(Map.of("last", 5, "before", lastFive.getPageInfo().getStartCursor().getValue())));
+        Connection<Map<String, Object>> firstFive = connectionFetcher.get(withArguments(Map.of("last", 5, "before", lastFive.getPageInfo().getStartCursor().getValue()))).join();
 
         assertThat(firstFive.getPageInfo().isHasPreviousPage())
                 .as("hasPreviousPage").isFalse();
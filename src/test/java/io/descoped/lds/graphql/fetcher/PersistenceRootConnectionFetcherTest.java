@@ -78,7 +78,7 @@ public class PersistenceRootConnectionFetcherTest {
 
     @Test
     public void testForwardPagination() throws Exception {
-        Connection<Map<String, Object>> firstFive = connectionFetcher.get(withArguments(Map.of("first", 5)));
+        Connection<Map<String, Object>> firstFive = connectionFetcher.get(withArguments(Map.of("first", 5))).join();
 
         assertThat(firstFive.getPageInfo().isHasPreviousPage()).isFalse();
         assertThat(firstFive.getPageInfo().isHasNextPage()).isTrue();
@@ -86,7 +86,7 @@ public class PersistenceRootConnectionFetcherTest {
                 () -> data.values().stream().map(JsonTools::toMap).limit(5).iterator()
         );
 
-        Connection<Map<String, Object>> lastFive = connectionFetcher.get(withArguments(Map.of("first", 5, "after", firstFive.getPageInfo().getEndCursor().getValue())));
+        Connection<Map<String, Object>> lastFive = connectionFetcher.get(withArguments(Map.of("first", 5, "after", firstFive.getPageInfo().getEndCursor().getValue()))).join();
 
         assertThat(lastFive.getPageInfo().isHasPreviousPage()).isTrue();
         assertThat(lastFive.getPageInfo().isHasNextPage()).isFalse();
@@ -97,7 +97,7 @@ public class PersistenceRootConnectionFetcherTest {
 
     @Test
     public void testBackwardPagination() throws Exception {
-        Connection<Map<String, Object>> lastFive = connectionFetcher.get(withArguments(Map.of("last", 5)));
+        Connection<Map<String, Object>> lastFive = connectionFetcher.get(withArguments(Map.of("last", 5))).join();
 
         assertThat(lastFive.getPageInfo().isHasPreviousPage()).isTrue();
         assertThat(lastFive.getPageInfo().isHasNextPage()).isFalse();
@@ -105,7 +105,7 @@ public class PersistenceRootConnectionFetcherTest {
                 () -> data.values().stream().map(JsonTools::toMap).skip(5).iterator()
         );
 
-        Connection<Map<String, Object>> firstFive = connectionFetcher.get(withArguments(Map.of("last", 5, "before", lastFive.getPageInfo().getStartCursor().getValue())));
+        Connection<Map<String, Object>> firstFive = connectionFetcher.get(withArguments(Map.of("last", 5, "before", lastFive.getPageInfo().getStartCursor().getValue()))).join();
 
         assertThat(firstFive.getPageInfo().isHasPreviousPage()).isFalse();
         assertThat(firstFive.getPageInfo().isHasNextPage()).isTrue();
@@ -117,7 +117,7 @@ public class PersistenceRootConnectionFetcherTest {
     @Test
     public void testAfter() throws Exception {
         Connection<Map<String, Object>> firstFiveAfter = connectionFetcher.get(
-                withArguments(Map.of("first", 5, "after", "target-2")));
+                withArguments(Map.of("first", 5, "after", "target-2"))).join();
 
         assertThat(firstFiveAfter.getPageInfo().isHasPreviousPage()).isTrue();
         assertThat(firstFiveAfter.getPageInfo().isHasNextPage()).isTrue();
@@ -129,7 +129,7 @@ public class PersistenceRootConnectionFetcherTest {
     @Test
     public void testBefore() throws Exception {
         Connection<Map<String, Object>> lastFiveBefore = connectionFetcher.get(
-                withArguments(Map.of("last", 5, "before", "target-7")));
+                withArguments(Map.of("last", 5, "before", "target-7"))).join();
 
         assertThat(lastFiveBefore.getPageInfo().isHasPreviousPage()).isTrue();
         assertThat(lastFiveBefore.getPageInfo().isHasNextPage()).isTrue();
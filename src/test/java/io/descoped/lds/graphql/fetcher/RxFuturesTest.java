@@ -0,0 +1,34 @@
+package io.descoped.lds.graphql.fetcher;
+
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RxFuturesTest {
+
+    @Test
+    public void thatCallerIsNotHeldWhileSingleIsRead() throws InterruptedException {
+        CountDownLatch read = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+
+        CompletableFuture<Thread> future = RxFutures.toFuture(Single.fromCallable(() -> {
+            read.await(10, TimeUnit.SECONDS);
+            return Thread.currentThread();
+        }));
+
+        assertThat(future).isNotDone();
+        read.countDown();
+        assertThat(future.join()).isNotSameAs(caller);
+    }
+
+    @Test
+    public void thatEmptyMaybeCompletesWithNull() {
+        assertThat(RxFutures.toFuture(Maybe.empty()).join()).isNull();
+    }
+}
@@ -119,9 +119,13 @@ public final class TestClient {
         return postJson(uri, HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8), HttpResponse.BodyHandlers.ofString());
     }
 
-    public <R> ResponseHelper<R> post(String uri, HttpRequest.BodyPublisher bodyPublisher, HttpResponse.BodyHandler<R> bodyHandler) {
+    public <R> ResponseHelper<R> post(String uri, HttpRequest.BodyPublisher bodyPublisher, HttpResponse.BodyHandler<R> bodyHandler, String... headersKeyAndValue) {
         try {
-            HttpRequest request = HttpRequest.newBuilder(URI.create(server.testURL(uri)))
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(server.testURL(uri)));
+            if (headersKeyAndValue.length > 0) {
+                builder.headers(headersKeyAndValue);
+            }
+            HttpRequest request = builder
                     .POST(bodyPublisher)
                     .header("Origin", "localhost")
                     .build();
@@ -160,13 +164,17 @@ public final class TestClient {
         }
     }
 
-    public ResponseHelper<String> get(String uri) {
-        return get(uri, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    public ResponseHelper<String> get(String uri, String... headersKeyAndValue) {
+        return get(uri, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8), headersKeyAndValue);
     }
 
-    public <R> ResponseHelper<R> get(String uri, HttpResponse.BodyHandler<R> bodyHandler) {
+    public <R> ResponseHelper<R> get(String uri, HttpResponse.BodyHandler<R> bodyHandler, String... headersKeyAndValue) {
         try {
-            HttpRequest request = HttpRequest.newBuilder(URI.create(server.testURL(uri)))
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(server.testURL(uri)));
+            if (headersKeyAndValue.length > 0) {
+                builder.headers(headersKeyAndValue);
+            }
+            HttpRequest request = builder
                     .GET()
                     .header("Origin", "localhost")
                     .build();